@@ -0,0 +1,37 @@
+package com.github.akmal2409.netflix.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmarks jar. Accepts the regular JMH command line options, but unless
+ * specified otherwise writes the results as JSON to {@link BenchmarkRunner#DEFAULT_RESULT_FILE},
+ * so that the results of different releases can be compared.
+ */
+public final class BenchmarkRunner {
+
+  static final String DEFAULT_RESULT_FILE = "target/jmh-result.json";
+
+  private BenchmarkRunner() {
+    throw new IllegalStateException("Cannot instantiate a utility class");
+  }
+
+  public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+    final var commandLineOptions = new CommandLineOptions(args);
+    final var options = new OptionsBuilder().parent(commandLineOptions);
+
+    if (!commandLineOptions.getResultFormat().hasValue()) {
+      options.resultFormat(ResultFormatType.JSON);
+    }
+
+    if (!commandLineOptions.getResult().hasValue()) {
+      options.result(DEFAULT_RESULT_FILE);
+    }
+
+    new Runner(options.build()).run();
+  }
+}
@@ -0,0 +1,83 @@
+package com.github.akmal2409.netflix.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.akmal2409.netflix.videoslicer.coordinator.TranscodingJobManifest;
+import com.github.akmal2409.netflix.videoslicer.coordinator.TranscodingJobManifest.VideoQuality;
+import com.github.akmal2409.netflix.videoslicer.coordinator.frame.Segment;
+import com.github.akmal2409.netflix.videoslicer.job.ProcessedIndex;
+import com.github.akmal2409.netflix.videoslicer.job.ProcessedIndex.ProcessedSegment;
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Serialisation and deserialisation of the documents exchanged between the workers: index.json
+ * written by the slicer and the manifests published to the transcoding queue.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonRoundTripBenchmark {
+
+  @Param({"1000", "100000"})
+  int segmentCount;
+
+  private ObjectMapper mapper;
+  private ProcessedIndex processedIndex;
+  private TranscodingJobManifest manifest;
+
+  @Setup
+  public void setup() {
+    mapper = new ObjectMapper().findAndRegisterModules();
+
+    final Segment[] segments = SyntheticSegments.generate(segmentCount, 30);
+    final var processedSegments = new ProcessedSegment[segments.length];
+
+    for (int i = 0; i < segments.length; i++) {
+      processedSegments[i] = new ProcessedSegment(segments[i].fileName(), segments[i].index(),
+          segments[i].startFrame(), segments[i].endFrame());
+    }
+
+    processedIndex = new ProcessedIndex("audio.m4a", 23.976,
+        SyntheticSegments.totalFrames(segments), 1920, 1080, SyntheticSegments.GOP_SIZE, 5,
+        processedSegments, null);
+
+    final var jobId = UUID.randomUUID();
+
+    manifest = new TranscodingJobManifest(jobId, "processed", "job-" + jobId, "transcoded",
+        "job-" + jobId, 42, 5,
+        new String[]{segments[41].fileName(), segments[42].fileName(), segments[43].fileName()},
+        36, SyntheticSegments.GOP_SIZE,
+        new VideoQuality[]{
+            new VideoQuality(1920, 1080, 8000),
+            new VideoQuality(1280, 720, 5000),
+            new VideoQuality(854, 480, 2500),
+            new VideoQuality(640, 360, 1000)
+        },
+        new VideoQuality(1920, 1080, 12000));
+  }
+
+  @Benchmark
+  public ProcessedIndex processedIndexRoundTrip() throws IOException {
+    return mapper.readValue(mapper.writeValueAsBytes(processedIndex), ProcessedIndex.class);
+  }
+
+  @Benchmark
+  public TranscodingJobManifest transcodingJobManifestRoundTrip() throws IOException {
+    return mapper.readValue(mapper.writeValueAsBytes(manifest), TranscodingJobManifest.class);
+  }
+}
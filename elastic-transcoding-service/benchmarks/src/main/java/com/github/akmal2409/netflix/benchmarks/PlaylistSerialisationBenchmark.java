@@ -0,0 +1,141 @@
+package com.github.akmal2409.netflix.benchmarks;
+
+import io.github.akmal2409.hls.MasterPlaylist;
+import io.github.akmal2409.hls.MediaPlaylist;
+import io.github.akmal2409.hls.MediaRendition;
+import io.github.akmal2409.hls.PlaylistWriter;
+import io.github.akmal2409.hls.Resolution;
+import io.github.akmal2409.hls.SegmentUriTemplate;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlaylistSerialisationBenchmark {
+
+  /**
+   * 5s segments, so 100_000 segments is a bit under 6 days of content.
+   */
+  @Param({"1000", "10000", "100000"})
+  int segmentCount;
+
+  @Param({"8", "64"})
+  int variantCount;
+
+  private MediaPlaylist mediaPlaylist;
+  private MasterPlaylist masterPlaylist;
+  private final CountingChannel channel = new CountingChannel();
+
+  @Setup
+  public void setup() {
+    final var mediaBuilder = new MediaPlaylist.Builder()
+                                 .version(6)
+                                 .targetDuration(6)
+                                 .playlistType(MediaPlaylist.Type.VOD)
+                                 .mediaSequence(0)
+                                 .segmentUriTemplate(
+                                     SegmentUriTemplate.of("1280x720-6000", "segment-%08d.mp4"));
+
+    for (int i = 0; i < segmentCount; i++) {
+      mediaBuilder.mediaSegment(i == segmentCount - 1 ? 3.003f : 5.005f, i);
+    }
+
+    mediaPlaylist = mediaBuilder.build();
+
+    final var masterBuilder = MasterPlaylist.builder()
+                                  .version(6)
+                                  .rendition(MediaRendition.builder("aac", "English",
+                                          MediaRendition.Type.AUDIO)
+                                                 .defaultRendition()
+                                                 .autoSelect()
+                                                 .language("eng")
+                                                 .uri(URI.create("audio/index.m3u8"))
+                                                 .build());
+
+    for (int i = 0; i < variantCount; i++) {
+      final int bandwidth = 500_000 + i * 100_000;
+
+      masterBuilder.variant(builder -> builder
+                                           .bandwidth(bandwidth)
+                                           .averageBandwidth(bandwidth)
+                                           .audioRenditionGroup("aac")
+                                           .resolution(new Resolution(1280, 720))
+                                           .frameRate(23.976)
+                                           .playlistUri(URI.create(
+                                               "1280x720-" + bandwidth + "/index.m3u8")));
+    }
+
+    masterPlaylist = masterBuilder.build();
+  }
+
+  @Benchmark
+  public String serialiseMediaPlaylist() {
+    return mediaPlaylist.serialise();
+  }
+
+  @Benchmark
+  public String serialiseMasterPlaylist() {
+    return masterPlaylist.serialise();
+  }
+
+  @Benchmark
+  public long writeMediaPlaylist() throws IOException {
+    try (var writer = PlaylistWriter.to(channel)) {
+      mediaPlaylist.write(writer);
+    }
+
+    return channel.written;
+  }
+
+  @Benchmark
+  public long writeMasterPlaylist() throws IOException {
+    try (var writer = PlaylistWriter.to(channel)) {
+      masterPlaylist.write(writer);
+    }
+
+    return channel.written;
+  }
+
+  /**
+   * Drops the written bytes, so that only the serialisation is measured.
+   */
+  private static final class CountingChannel implements WritableByteChannel {
+
+    private long written;
+
+    @Override
+    public int write(ByteBuffer src) {
+      final int bytes = src.remaining();
+      src.position(src.limit());
+      written += bytes;
+      return bytes;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return true;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
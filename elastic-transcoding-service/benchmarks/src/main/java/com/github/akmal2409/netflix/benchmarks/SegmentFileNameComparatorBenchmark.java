@@ -0,0 +1,78 @@
+package com.github.akmal2409.netflix.benchmarks;
+
+import com.github.akmal2409.netflix.videoslicer.config.SegmentConstants;
+import com.github.akmal2409.netflix.videoslicer.config.SegmentFileName;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Sorting of shuffled segment file names, the way segments are ordered after listing a directory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SegmentFileNameComparatorBenchmark {
+
+  @Param({"100", "10000", "100000"})
+  int segmentCount;
+
+  private String[] shuffledNames;
+  private String[] names;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    shuffledNames = new String[segmentCount];
+
+    for (int i = 0; i < segmentCount; i++) {
+      shuffledNames[i] = String.format(SegmentConstants.SEGMENT_FILE_NAME_PATTERN, i);
+    }
+
+    final var random = new SplittableRandom(segmentCount);
+
+    for (int i = segmentCount - 1; i > 0; i--) {
+      final int j = random.nextInt(i + 1);
+      final String tmp = shuffledNames[i];
+      shuffledNames[i] = shuffledNames[j];
+      shuffledNames[j] = tmp;
+    }
+  }
+
+  @Setup(Level.Invocation)
+  public void copy() {
+    names = shuffledNames.clone();
+  }
+
+  @Benchmark
+  public String[] sort() {
+    Arrays.sort(names, SegmentConstants.SEGMENT_FILE_NAME_COMPARATOR);
+    return names;
+  }
+
+  @Benchmark
+  public SegmentFileName[] parseAndSort() {
+    final var parsedNames = new SegmentFileName[names.length];
+
+    for (int i = 0; i < names.length; i++) {
+      parsedNames[i] = new SegmentFileName(names[i], SegmentFileName.parseIndex(names[i]));
+    }
+
+    Arrays.sort(parsedNames, SegmentFileName.INDEX_COMPARATOR);
+    return parsedNames;
+  }
+}
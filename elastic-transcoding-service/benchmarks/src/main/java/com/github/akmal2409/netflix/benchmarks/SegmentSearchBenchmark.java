@@ -0,0 +1,95 @@
+package com.github.akmal2409.netflix.benchmarks;
+
+import com.github.akmal2409.netflix.videoslicer.coordinator.frame.Segment;
+import com.github.akmal2409.netflix.videoslicer.coordinator.frame.SegmentIntervalIndex;
+import com.github.akmal2409.netflix.videoslicer.coordinator.util.ArrayUtils;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the generic comparator based searches of {@link ArrayUtils} with the primitive
+ * {@link SegmentIntervalIndex} for random frame lookups.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SegmentSearchBenchmark {
+
+  private static final int LOOKUPS = 1024;
+  private static final Comparator<Segment> BY_START_FRAME = Comparator.comparingInt(
+      Segment::startFrame);
+  private static final Comparator<Segment> BY_END_FRAME = Comparator.comparingInt(
+      Segment::endFrame);
+
+  @Param({"100", "1000", "10000", "100000", "1000000"})
+  int segmentCount;
+
+  private Segment[] segments;
+  private SegmentIntervalIndex index;
+  private int[] frames;
+
+  @Setup
+  public void setup() {
+    segments = SyntheticSegments.generate(segmentCount, 30);
+    index = SegmentIntervalIndex.of(segments);
+
+    final var random = new SplittableRandom(segmentCount);
+    final int totalFrames = SyntheticSegments.totalFrames(segments);
+    frames = new int[LOOKUPS];
+
+    for (int i = 0; i < LOOKUPS; i++) {
+      frames[i] = random.nextInt(totalFrames);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOKUPS)
+  public void arrayUtilsFloor(Blackhole blackhole) {
+    for (int frame : frames) {
+      blackhole.consume(ArrayUtils.binarySearchFloor(segments,
+          new Segment(null, -1, frame, frame), BY_START_FRAME, 0, segments.length));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOKUPS)
+  public void arrayUtilsCeil(Blackhole blackhole) {
+    for (int frame : frames) {
+      blackhole.consume(ArrayUtils.binarySearchCeil(segments,
+          new Segment(null, -1, frame, frame), BY_END_FRAME, 0, segments.length));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOKUPS)
+  public void intervalIndexFloor(Blackhole blackhole) {
+    for (int frame : frames) {
+      blackhole.consume(index.floor(frame));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOKUPS)
+  public void intervalIndexCeil(Blackhole blackhole) {
+    for (int frame : frames) {
+      blackhole.consume(index.ceil(frame));
+    }
+  }
+}
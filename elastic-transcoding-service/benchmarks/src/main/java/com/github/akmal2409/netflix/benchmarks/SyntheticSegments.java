@@ -0,0 +1,43 @@
+package com.github.akmal2409.netflix.benchmarks;
+
+import com.github.akmal2409.netflix.videoslicer.config.SegmentConstants;
+import com.github.akmal2409.netflix.videoslicer.coordinator.frame.Segment;
+import java.util.SplittableRandom;
+
+/**
+ * Generates segment layouts similar to the ones produced by the slicer, i.e. contiguous segments
+ * whose lengths vary around the GOP size because the muxer can only cut at keyframes.
+ */
+final class SyntheticSegments {
+
+  static final int GOP_SIZE = 120;
+  private static final long SEED = 2409L;
+
+  private SyntheticSegments() {
+    throw new IllegalStateException("Cannot instantiate a utility class");
+  }
+
+  /**
+   * @param count  number of segments
+   * @param jitter maximum deviation of a segment length from the GOP size in frames
+   */
+  static Segment[] generate(int count, int jitter) {
+    final var random = new SplittableRandom(SEED);
+    final var segments = new Segment[count];
+    int startFrame = 0;
+
+    for (int i = 0; i < count; i++) {
+      final int length = GOP_SIZE + random.nextInt(-jitter, jitter + 1);
+
+      segments[i] = new Segment(String.format(SegmentConstants.SEGMENT_FILE_NAME_PATTERN, i), i,
+          startFrame, startFrame + length - 1);
+      startFrame += length;
+    }
+
+    return segments;
+  }
+
+  static int totalFrames(Segment[] segments) {
+    return segments[segments.length - 1].endFrame() + 1;
+  }
+}
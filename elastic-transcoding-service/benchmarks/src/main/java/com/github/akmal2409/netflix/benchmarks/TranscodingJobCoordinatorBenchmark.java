@@ -0,0 +1,53 @@
+package com.github.akmal2409.netflix.benchmarks;
+
+import com.github.akmal2409.netflix.videoslicer.coordinator.frame.OverlappingSegmentTranscodingJob;
+import com.github.akmal2409.netflix.videoslicer.coordinator.frame.Segment;
+import com.github.akmal2409.netflix.videoslicer.coordinator.frame.TranscodingConfiguration;
+import com.github.akmal2409.netflix.videoslicer.coordinator.frame.TranscodingJobCoordinator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TranscodingJobCoordinatorBenchmark {
+
+  @Param({"100", "1000", "10000", "100000", "1000000"})
+  int segmentCount;
+
+  /**
+   * 0 means segments are aligned to GOPs, otherwise most jobs span multiple segments.
+   */
+  @Param({"0", "30"})
+  int jitter;
+
+  private Segment[] segments;
+  private TranscodingConfiguration configuration;
+  private TranscodingJobCoordinator coordinator;
+
+  @Setup
+  public void setup() {
+    segments = SyntheticSegments.generate(segmentCount, jitter);
+    configuration = new TranscodingConfiguration(SyntheticSegments.GOP_SIZE,
+        SyntheticSegments.totalFrames(segments));
+    coordinator = new TranscodingJobCoordinator();
+  }
+
+  @Benchmark
+  public OverlappingSegmentTranscodingJob[] buildJobs() {
+    return coordinator.buildJobs(configuration, segments);
+  }
+}
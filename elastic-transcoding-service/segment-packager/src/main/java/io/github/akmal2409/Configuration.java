@@ -0,0 +1,64 @@
+package io.github.akmal2409;
+
+public class Configuration {
+
+  public String getRabbitMqHost() {
+    return "localhost";
+  }
+
+  public int getRabbitMqPort() {
+    return 5672;
+  }
+
+  /**
+   * Queue of the jobs whose segments have all been transcoded and are ready to be packaged
+   */
+  public String getPackagingQueueName() {
+    return "video-packaging-queue";
+  }
+
+  /**
+   * Number of jobs taken from the queue without acknowledging them. Their renditions share the
+   * rendition pool, so it only bounds the memory of the jobs waiting for it.
+   */
+  public int getJobConcurrency() {
+    return 4;
+  }
+
+  /**
+   * Number of renditions packaged at the same time by all the jobs. Packaging a rendition lists
+   * its segments and uploads a small playlist, so it waits on S3 most of the time.
+   */
+  public int getRenditionConcurrency() {
+    return Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+  }
+
+  public String getS3Region() {
+    return "us-east-1";
+  }
+
+  public String getS3Endpoint() {
+    return "http://localhost:9000";
+  }
+
+  /**
+   * Number of segments of every rendition whose duration is checked with ffprobe against the one
+   * computed from the frame ranges, 0 disables the check.
+   */
+  public int getDurationProbeSamples() {
+    return 0;
+  }
+
+  /**
+   * Whether the segments of every rendition are concatenated into a single fragmented MP4 that
+   * the playlist refers to with byte ranges instead of thousands of separate segment files. The
+   * separate segments are progressive MP4s, so the playlists are valid HLS only if this is on.
+   */
+  public boolean isSingleFileRenditions() {
+    return true;
+  }
+
+  public String getBinariesPath() {
+    return "/opt/homebrew/bin";
+  }
+}
@@ -0,0 +1,151 @@
+package io.github.akmal2409;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.ConnectionFactory;
+import io.github.akmal2409.job.HlsPackager;
+import io.github.akmal2409.job.PackagingExecutor;
+import io.github.akmal2409.job.S3PlaylistStore;
+import io.github.akmal2409.job.SampledDurationProbe;
+import io.github.akmal2409.job.SingleFileConcatenator;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+/**
+ * Holds all required dependencies as well as configures them at the start.
+ */
+public class DependencyContainer {
+
+  private static final Logger log = LoggerFactory.getLogger(DependencyContainer.class);
+
+  private final Configuration configuration;
+
+  private final AtomicReference<ConnectionFactory> rabbitConnectionFactory = new AtomicReference<>();
+  private final AtomicReference<ObjectMapper> objectMapper = new AtomicReference<>();
+  private final AtomicReference<S3AsyncClient> s3AsyncClient = new AtomicReference<>();
+  private final AtomicReference<S3Presigner> s3Presigner = new AtomicReference<>();
+  private final AtomicReference<S3PlaylistStore> playlistStore = new AtomicReference<>();
+  private final AtomicReference<PackagingExecutor> packagingExecutor = new AtomicReference<>();
+  private final AtomicReference<HlsPackager> hlsPackager = new AtomicReference<>();
+
+  private DependencyContainer(Configuration configuration) {
+    this.configuration = configuration;
+  }
+
+  public static DependencyContainer from(Configuration configuration) {
+    final var container = new DependencyContainer(configuration);
+
+    container.init();
+    return container;
+  }
+
+  private void init() {
+    log.debug("Initialising dependencies");
+    this.rabbitConnectionFactory.set(newRabbitMqConnectionFactory());
+    this.objectMapper.set(newObjectMapper());
+
+    final var awsCredentialsProvider = newAwsCredentialsProvider();
+
+    this.s3AsyncClient.set(newS3AsyncClient(awsCredentialsProvider));
+
+    // presigned URLs are only needed by ffmpeg and ffprobe
+    if (configuration.getDurationProbeSamples() > 0 || configuration.isSingleFileRenditions()) {
+      this.s3Presigner.set(newS3Presigner(awsCredentialsProvider));
+    }
+
+    this.playlistStore.set(new S3PlaylistStore(s3AsyncClient.get()));
+    this.packagingExecutor.set(new PackagingExecutor(configuration.getRenditionConcurrency()));
+    this.hlsPackager.set(new HlsPackager(playlistStore.get(), packagingExecutor.get(),
+        newSampledDurationProbe(), newSingleFileConcatenator()));
+  }
+
+  public ObjectMapper newObjectMapper() {
+    final var mapper = new ObjectMapper();
+    mapper.findAndRegisterModules();
+
+    return mapper;
+  }
+
+  public ConnectionFactory newRabbitMqConnectionFactory() {
+    final var factory = new ConnectionFactory();
+    factory.setHost(configuration.getRabbitMqHost());
+    factory.setPort(configuration.getRabbitMqPort());
+    return factory;
+  }
+
+  public S3AsyncClient newS3AsyncClient(AwsCredentialsProvider credentialsProvider) {
+    return S3AsyncClient.builder()
+               .region(Region.of(configuration.getS3Region()))
+               .endpointOverride(URI.create(configuration.getS3Endpoint()))
+               .credentialsProvider(credentialsProvider)
+               .forcePathStyle(true)
+               .build();
+  }
+
+  public S3Presigner newS3Presigner(AwsCredentialsProvider credentialsProvider) {
+    return S3Presigner.builder()
+               .region(Region.of(configuration.getS3Region()))
+               .endpointOverride(URI.create(configuration.getS3Endpoint()))
+               .credentialsProvider(credentialsProvider)
+               .serviceConfiguration(S3Configuration.builder()
+                                         .pathStyleAccessEnabled(true)
+                                         .build())
+               .build();
+  }
+
+  /**
+   * @return probe or null if the durations are not verified
+   */
+  public SampledDurationProbe newSampledDurationProbe() {
+    if (configuration.getDurationProbeSamples() < 1) {
+      return null;
+    }
+
+    return new SampledDurationProbe(s3Presigner.get(), Path.of(configuration.getBinariesPath()),
+        configuration.getDurationProbeSamples());
+  }
+
+  /**
+   * @return concatenator or null if the segments are kept as separate files
+   */
+  public SingleFileConcatenator newSingleFileConcatenator() {
+    if (!configuration.isSingleFileRenditions()) {
+      return null;
+    }
+
+    return new SingleFileConcatenator(s3AsyncClient.get(), s3Presigner.get(),
+        Path.of(configuration.getBinariesPath()));
+  }
+
+  public AwsCredentialsProvider newAwsCredentialsProvider() {
+    return DefaultCredentialsProvider.create();
+  }
+
+  public ConnectionFactory getRabbitConnectionFactory() {
+    return rabbitConnectionFactory.get();
+  }
+
+  public ObjectMapper getObjectMapper() {
+    return objectMapper.get();
+  }
+
+  public S3PlaylistStore getPlaylistStore() {
+    return playlistStore.get();
+  }
+
+  public PackagingExecutor getPackagingExecutor() {
+    return packagingExecutor.get();
+  }
+
+  public HlsPackager getHlsPackager() {
+    return hlsPackager.get();
+  }
+}
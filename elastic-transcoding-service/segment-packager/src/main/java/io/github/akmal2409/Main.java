@@ -0,0 +1,48 @@
+package io.github.akmal2409;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import io.github.akmal2409.job.PackagingExecutor;
+import io.github.akmal2409.job.PackagingJobConsumer;
+import java.io.IOException;
+import java.util.concurrent.TimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class Main {
+
+  private static final Logger log = LoggerFactory.getLogger(Main.class);
+
+  public static void main(String[] args) {
+    final var configuration = new Configuration();
+    log.debug("Starting packaging worker");
+
+    final var dependencyContainer = DependencyContainer.from(configuration);
+    final PackagingExecutor executor = dependencyContainer.getPackagingExecutor();
+
+    try {
+      final Connection connection = dependencyContainer.getRabbitConnectionFactory()
+                                        .newConnection();
+      final Channel channel = connection.createChannel();
+
+      channel.queueDeclare(configuration.getPackagingQueueName(), true, false, false, null);
+      channel.basicQos(configuration.getJobConcurrency());
+      channel.basicConsume(configuration.getPackagingQueueName(),
+          new PackagingJobConsumer(channel, dependencyContainer.getObjectMapper(),
+              dependencyContainer.getHlsPackager()));
+
+      Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+        try {
+          executor.close();
+        } catch (Exception e) {
+          log.error("Exception occurred when waiting for the jobs in flight", e);
+        }
+      }));
+
+      log.debug("Started packaging consumer, ready to take {} jobs at once",
+          configuration.getJobConcurrency());
+    } catch (IOException | TimeoutException e) {
+      log.error("Exception occurred when establishing AMQP connection", e);
+    }
+  }
+}
@@ -1,8 +1,9 @@
 package io.github.akmal2409;
 
-import io.github.akmal2409.hls.CommonPlaylistTags;
-import io.github.akmal2409.hls.tag.Tag;
-import io.github.akmal2409.hls.tag.TagValue.SingleTagValue;
+import io.github.akmal2409.hls.Playlist;
+import io.github.akmal2409.hls.PlaylistWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 
 public final class PlaylistUtils {
 
@@ -11,18 +12,27 @@ public final class PlaylistUtils {
   }
 
   public static void writeCommonHeader(StringBuilder sb, Integer version) {
-    sb.append(Tag.fromKey(CommonPlaylistTags.PLAYLIST_HEADER).serialise());
-    sb.append("\n\n\n");
+    try {
+      PlaylistWriter.to(sb).header(version);
+    } catch (IOException e) {
+      // StringBuilder does not throw
+      throw new UncheckedIOException(e);
+    }
+  }
 
-    sb.append("##########################################################################\n");
-    sb.append("# This playlist has been auto generated by the segment-packager library  #\n");
-    sb.append("# Do not modify this file directly                                        #\n");
-    sb.append("##########################################################################\n\n\n");
+  /**
+   * Serialises the playlist into a string through {@link Playlist#write(PlaylistWriter)}
+   */
+  public static String serialise(Playlist playlist) {
+    final var builder = new StringBuilder();
 
-    if (version != null) {
-      sb.append(Tag.fromKV(CommonPlaylistTags.VERSION,
-          new SingleTagValue(String.valueOf(version))).serialise());
-      sb.append("\n");
+    try (var writer = PlaylistWriter.to(builder)) {
+      playlist.write(writer);
+    } catch (IOException e) {
+      // StringBuilder does not throw
+      throw new UncheckedIOException(e);
     }
+
+    return builder.toString();
   }
 }
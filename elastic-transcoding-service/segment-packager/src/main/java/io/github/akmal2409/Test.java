@@ -1,2 +0,0 @@
-package io.github.akmal2409.hls;public class Test {
-}
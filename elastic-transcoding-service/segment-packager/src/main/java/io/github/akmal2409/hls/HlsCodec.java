@@ -1,5 +1,7 @@
 package io.github.akmal2409.hls;
 
+import java.io.IOException;
+
 public record HlsCodec(
     String codecId,
     byte profile,
@@ -13,4 +15,15 @@ public record HlsCodec(
     return String.format("%s.%02x%02x%02x", codecId, profile, constraintSetFlags, level);
   }
 
+  /**
+   * Writes the same as {@link HlsCodec#toString()}
+   */
+  void writeTo(PlaylistWriter writer) throws IOException {
+    writer.text(codecId);
+    writer.text(".");
+    writer.hex(profile, 2);
+    writer.hex(constraintSetFlags, 2);
+    writer.hex(level, 2);
+  }
+
 }
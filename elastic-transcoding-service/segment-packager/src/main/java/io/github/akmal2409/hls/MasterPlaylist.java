@@ -4,8 +4,6 @@ import io.github.akmal2409.PlaylistUtils;
 import io.github.akmal2409.hls.codec.Codec;
 import java.io.IOException;
 import java.net.URI;
-import java.nio.ByteBuffer;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
@@ -147,11 +145,10 @@ public class MasterPlaylist implements Playlist {
                            .build();
 
     try (final var chan = Files.newByteChannel(Path.of("./master.m3u8"),
-        StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+        StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        final var writer = PlaylistWriter.to(chan)) {
 
-      chan.write(ByteBuffer.wrap(
-          master.serialise().getBytes(StandardCharsets.UTF_8)
-      ));
+      master.write(writer);
 
     } catch (IOException e) {
       throw new RuntimeException(e);
@@ -160,33 +157,34 @@ public class MasterPlaylist implements Playlist {
 
   @Override
   public String serialise() {
-    final var builder = new StringBuilder();
+    return PlaylistUtils.serialise(this);
+  }
 
-    PlaylistUtils.writeCommonHeader(builder, this.version);
+  @Override
+  public void write(PlaylistWriter writer) throws IOException {
+    writer.header(this.version);
 
-    builder.append("\n\n");
+    writer.newLine();
+    writer.newLine();
 
     // write media renditions, order doesn't matter, but best to keep consistent
     for (Map.Entry<String, List<MediaRendition>> mediaGroup : this.renditionGroups.entrySet()) {
 
       for (MediaRendition rendition : mediaGroup.getValue()) {
-
-        builder.append(rendition.toTag().serialise());
-        builder.append("\n");
+        rendition.writeTo(writer);
+        writer.newLine();
       }
-      builder.append("\n");
+      writer.newLine();
     }
 
-    builder.append("\n");
+    writer.newLine();
 
     // write stream variants
     for (VariantStream variant : this.variantStreams) {
-      builder.append(variant.toTag().serialise());
-      builder.append("\n");
-      builder.append("\n");
+      variant.writeTo(writer);
+      writer.newLine();
+      writer.newLine();
     }
-
-    return builder.toString();
   }
 
   @Override
@@ -2,28 +2,50 @@ package io.github.akmal2409.hls;
 
 import io.github.akmal2409.PlaylistUtils;
 import io.github.akmal2409.hls.tag.Tag;
+import io.github.akmal2409.hls.tag.TagValue.AttributeListTagValue;
 import io.github.akmal2409.hls.tag.TagValue.SingleTagValue;
+import io.github.akmal2409.utils.StringUtils;
+import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import org.jetbrains.annotations.NotNull;
 
 /**
- * Optional tags will be stored in a LinkedHashMap
+ * Header tags are stored in a LinkedHashSet, media segments in the columns of
+ * {@link MediaSegments}
  */
 public class MediaPlaylist implements Playlist {
 
+  /**
+   * Durations are written with microsecond precision, as ffmpeg writes them
+   */
+  static final int DURATION_FRACTION_DIGITS = 6;
+
+  static final String MAP_URI_ATTRIBUTE = "URI";
+  static final String MAP_BYTE_RANGE_ATTRIBUTE = "BYTERANGE";
+
+  /**
+   * Lowest versions that support byte range segments and #EXT-X-MAP in a playlist that is not
+   * I-frames only
+   */
+  static final int BYTE_RANGE_MIN_VERSION = 4;
+  static final int MAP_MIN_VERSION = 6;
+
   /**
    * #EXT-X-VERSION:<code>n</code>
    * TODO: add docs
    */
   final int version;
   /**
-   * EXT-X-TARGETDURATION:<code>duration</code>> tag - floating point duration in seconds (floating
-   * since version 3) https://datatracker.ietf.org/doc/html/rfc8216#section-4.3.3.1
+   * EXT-X-TARGETDURATION:<code>duration</code>> tag - decimal integer duration in seconds that every
+   * #EXTINF rounded to the nearest integer must not exceed
+   * https://datatracker.ietf.org/doc/html/rfc8216#section-4.3.3.1
    */
-  final float targetDuration;
+  final int targetDuration;
 
   /**
    * Ordered set containing header tags (all tags that come before the media segments). Tags must be
@@ -31,21 +53,21 @@ public class MediaPlaylist implements Playlist {
    */
   final Set<Tag> headerTags;
   /**
-   * List of ordered sets that contains tags per each media segment
+   * Media segments of the playlist, followed by #EXT-X-ENDLIST
    */
-  final List<Set<Tag>> mediaTags;
+  final MediaSegments segments;
 
   MediaPlaylist(Builder builder) {
     this.version = builder.version;
     this.targetDuration = builder.targetDuration;
     this.headerTags = builder.headerTags;
-    this.mediaTags = builder.mediaTags;
+    this.segments = builder.segments;
   }
 
   public static void main(String[] args) {
     final var playlist = new Builder()
                              .version(6)
-                             .targetDuration(5.005f)
+                             .targetDuration(6)
 
                              .playlistType(Type.VOD)
                              .iFramesOnly()
@@ -61,35 +83,54 @@ public class MediaPlaylist implements Playlist {
 
   @Override
   public String serialise() {
-    final var builder = new StringBuilder();
+    return PlaylistUtils.serialise(this);
+  }
 
-    PlaylistUtils.writeCommonHeader(builder, this.version);
+  @Override
+  public void write(PlaylistWriter writer) throws IOException {
+    writer.header(this.version);
 
-    builder.append(
-        Tag.fromKV(MediaPlaylistTags.TARGET_DURATION,
-                new SingleTagValue(String.valueOf(this.targetDuration)))
-            .serialise()
-    );
+    writer.tagKey(MediaPlaylistTags.TARGET_DURATION);
+    writer.separator();
+    writer.number(this.targetDuration);
 
-    builder.append("\n\n");
+    writer.newLine();
+    writer.newLine();
 
     // append header tags of a media playlist
     for (Tag headerTag : this.headerTags) {
-      builder.append(headerTag.serialise());
-      builder.append("\n");
+      headerTag.writeTo(writer);
+      writer.newLine();
     }
 
-    // append media tags of a media playlist, i.e. segments for example
-    for (Set<Tag> tags : this.mediaTags) {
-      for (Tag tag : tags) {
-        builder.append(tag.serialise());
-        builder.append("\n");
-      }
+    // append media segments of a media playlist straight from their columns
+    this.segments.writeTo(writer);
 
-      builder.append("\n");
-    }
+    writer.tagKey(MediaPlaylistTags.END_LIST_TAG);
+    writer.newLine();
+    writer.newLine();
+  }
 
-    return builder.toString();
+  /**
+   * Returns number of media segments in the playlist
+   */
+  public int segmentCount() {
+    return this.segments.size();
+  }
+
+  /**
+   * Returns duration in seconds of the segment at the given position
+   */
+  public double segmentDuration(int position) {
+    return this.segments.duration(position);
+  }
+
+  /**
+   * Returns URI of the segment at the given position, created from the template if the segment was
+   * added by index
+   */
+  public URI segmentUri(int position) {
+    return this.segments.uri(position);
   }
 
   @Override
@@ -108,13 +149,23 @@ public class MediaPlaylist implements Playlist {
 
   public static class Builder {
 
-    private Float targetDuration; // required to specify
+    private Integer targetDuration; // required to specify
     private Integer version;
     private final Set<Tag> headerTags = new LinkedHashSet<>();
-    private final List<Set<Tag>> mediaTags = new ArrayList<>();
-
+    private final MediaSegments segments = new MediaSegments();
+    private final List<Tag> nextSegmentTags = new ArrayList<>();
+    private boolean hasMap;
+    private boolean hasByteRanges;
+
+    /**
+     * @param duration whole seconds, at least the duration of every segment rounded to the nearest
+     *                 integer
+     */
+    public Builder targetDuration(int duration) {
+      if (duration < 1) {
+        throw new IllegalArgumentException("Target duration must be positive, got " + duration);
+      }
 
-    public Builder targetDuration(float duration) {
       this.targetDuration = duration;
       return this;
     }
@@ -151,19 +202,128 @@ public class MediaPlaylist implements Playlist {
     }
 
 
-    public Builder mediaSegment(float duration, URI uri) {
-      final var tags = new LinkedHashSet<Tag>();
+    /**
+     * Adds #EXT-X-MAP with the initialization section of all the segments, e.g. the ftyp and moov
+     * boxes of fragmented MP4.
+     */
+    public Builder map(@NotNull URI uri) {
+      return map(new AttributeListTagValue(new LinkedHashMap<>())
+                     .add(MAP_URI_ATTRIBUTE, StringUtils.toQuotedString(uri.toString())));
+    }
 
-      tags.add(Tag.fromKV(MediaPlaylistTags.EXTINF, new SingleTagValue(duration + ",")));
-      tags.add(Tag.fromUri(uri));
+    /**
+     * Adds #EXT-X-MAP with the initialization section that is a byte range of the resource, e.g. of
+     * the file that the segments are byte ranges of.
+     *
+     * @param length of the section in bytes
+     * @param offset of the first byte of the section in the resource
+     */
+    public Builder map(@NotNull URI uri, long length, long offset) {
+      if (length < 1 || offset < 0) {
+        throw new IllegalArgumentException(
+            String.format("Invalid byte range %d@%d", length, offset));
+      }
 
-      this.mediaTags.add(tags);
+      return map(new AttributeListTagValue(new LinkedHashMap<>())
+                     .add(MAP_URI_ATTRIBUTE, StringUtils.toQuotedString(uri.toString()))
+                     .add(MAP_BYTE_RANGE_ATTRIBUTE,
+                         StringUtils.toQuotedString(length + "@" + offset)));
+    }
+
+    private Builder map(AttributeListTagValue value) {
+      if (this.hasMap) {
+        throw new IllegalStateException("Playlist already has an initialization section");
+      }
 
+      this.headerTags.add(Tag.fromKV(MediaPlaylistTags.MAP, value));
+      this.hasMap = true;
       return this;
     }
 
+    /**
+     * Template of the URIs of the segments added by {@link Builder#mediaSegment(double, int)}
+     */
+    public Builder segmentUriTemplate(@NotNull SegmentUriTemplate template) {
+      this.segments.uriTemplate(template);
+      return this;
+    }
+
+    /**
+     * Adds a segment whose URI is given by the template and the index of the segment, which takes
+     * much less memory than a URI.
+     *
+     * @param duration in seconds
+     * @param index    of the segment in the template
+     */
+    public Builder mediaSegment(double duration, int index) {
+      this.segments.add(duration, index);
+      attachNextSegmentTags();
+      return this;
+    }
+
+    public Builder mediaSegment(double duration, URI uri) {
+      this.segments.add(duration, uri);
+      attachNextSegmentTags();
+      return this;
+    }
+
+    /**
+     * Adds a segment that is a byte range of the resource, written with #EXT-X-BYTERANGE. Segments
+     * of a single file share its URI, so the string is kept once.
+     *
+     * @param duration in seconds
+     * @param length   of the segment in bytes
+     * @param offset   of the first byte of the segment in the resource
+     */
+    public Builder mediaSegment(double duration, URI uri, long length, long offset) {
+      this.segments.add(duration, uri, length, offset);
+      this.hasByteRanges = true;
+      attachNextSegmentTags();
+      return this;
+    }
+
+    /**
+     * Adds a tag that applies to the next added segment only (e.g. #EXT-X-DISCONTINUITY), it is
+     * written before the #EXTINF of the segment.
+     */
+    public Builder segmentTag(@NotNull Tag tag) {
+      this.nextSegmentTags.add(tag);
+      return this;
+    }
+
+    private void attachNextSegmentTags() {
+      if (!nextSegmentTags.isEmpty()) {
+        this.segments.tags(this.segments.size() - 1, nextSegmentTags);
+        nextSegmentTags.clear();
+      }
+    }
+
     public MediaPlaylist build() {
-      this.mediaTags.add(Set.of(Tag.fromKey(MediaPlaylistTags.END_LIST_TAG)));
+      if (!nextSegmentTags.isEmpty()) {
+        throw new IllegalStateException("Segment tags were added without a segment after them");
+      }
+
+      if (this.targetDuration == null) {
+        throw new IllegalStateException("Target duration is required");
+      }
+
+      if (Math.round(this.segments.maximumDuration()) > this.targetDuration) {
+        throw new IllegalStateException(
+            String.format("Segment of %f seconds is longer than the target duration of %d seconds",
+                this.segments.maximumDuration(), this.targetDuration));
+      }
+
+      if (this.version != null && this.hasMap && this.version < MAP_MIN_VERSION) {
+        throw new IllegalStateException(
+            "#EXT-X-MAP requires version " + MAP_MIN_VERSION + " or greater");
+      }
+
+      if (this.version != null && this.hasByteRanges && this.version < BYTE_RANGE_MIN_VERSION) {
+        throw new IllegalStateException(
+            "#EXT-X-BYTERANGE requires version " + BYTE_RANGE_MIN_VERSION + " or greater");
+      }
+
+      this.segments.trim();
 
       return new MediaPlaylist(this);
     }
@@ -6,8 +6,8 @@ package io.github.akmal2409.hls;
 public final class MediaPlaylistTags {
 
   /**
-   * #EXT-X-TARGETDURATION:<duration/> tag - floating point duration in seconds (floating since
-   * version 3)
+   * #EXT-X-TARGETDURATION:<duration/> tag - decimal integer duration in seconds, at least every
+   * #EXTINF rounded to the nearest integer
    * <a href="https://datatracker.ietf.org/doc/html/rfc8216#section-4.3.3.1">Docs</a>
    */
   public static final String TARGET_DURATION = "EXT-X-TARGETDURATION";
@@ -33,12 +33,24 @@ public final class MediaPlaylistTags {
    * <a href="https://datatracker.ietf.org/doc/html/rfc8216#section-4.3.3.6">Docs</a>
    */
   public static final String I_FRAMES_ONLY = "EXT-X-I-FRAMES-ONLY";
+  /**
+   * #EXT-X-MAP:URI="<uri>"[,BYTERANGE="<n>@<o>"] Required: if the segments need an initialization
+   * section, e.g. fragmented MP4. Applies to every segment after it.
+   * <a href="https://datatracker.ietf.org/doc/html/rfc8216#section-4.3.2.5">Docs</a>
+   */
+  public static final String MAP = "EXT-X-MAP";
   /**
    * #EXTINF:<duration>,[<title>] Required: yes Note: duration is floating point from version 3 Next
    * line is followed by the URI of the resource
    * <a href="https://datatracker.ietf.org/doc/html/rfc8216#section-4.3.2.1">Docs</a>
    */
   public static final String EXTINF = "EXTINF";
+  /**
+   * #EXT-X-BYTERANGE:<n>[@<o>] Required: if the segment is a sub-range of its resource, n is the
+   * length in bytes and o the offset of the first byte. Since version 4
+   * <a href="https://datatracker.ietf.org/doc/html/rfc8216#section-4.3.2.2">Docs</a>
+   */
+  public static final String BYTE_RANGE = "EXT-X-BYTERANGE";
 
   // Media Segment tags come below
   /**
@@ -3,6 +3,7 @@ package io.github.akmal2409.hls;
 import io.github.akmal2409.hls.tag.Tag;
 import io.github.akmal2409.hls.tag.TagValue.AttributeListTagValue;
 import io.github.akmal2409.utils.StringUtils;
+import java.io.IOException;
 import java.net.URI;
 import java.util.LinkedHashMap;
 import java.util.Objects;
@@ -26,6 +27,18 @@ public class MediaRendition {
   static final String FORCED_ATTRIBUTE = "FORCED";
   static final String INSTREAM_ID_ATTRIBUTE = "INSTREAM-ID";
 
+  private static final byte[] TYPE_NAME = PlaylistWriter.ascii(TYPE_ATTRIBUTE);
+  private static final byte[] URI_NAME = PlaylistWriter.ascii(URI_ATTRIBUTE);
+  private static final byte[] GROUP_ID_NAME = PlaylistWriter.ascii(GROUP_ID_ATTRIBUTE);
+  private static final byte[] LANGUAGE_NAME = PlaylistWriter.ascii(LANGUAGE_ATTRIBUTE);
+  private static final byte[] ASSOC_LANGUAGE_NAME = PlaylistWriter.ascii(
+      ASSOC_LANGUAGE_ATTRIBUTE);
+  private static final byte[] NAME_NAME = PlaylistWriter.ascii(NAME_ATTRIBUTE);
+  private static final byte[] DEFAULT_NAME = PlaylistWriter.ascii(DEFAULT_ATTRIBUTE);
+  private static final byte[] AUTOSELECT_NAME = PlaylistWriter.ascii(AUTOSELECT_ATTRIBUTE);
+  private static final byte[] FORCED_NAME = PlaylistWriter.ascii(FORCED_ATTRIBUTE);
+  private static final byte[] INSTREAM_ID_NAME = PlaylistWriter.ascii(INSTREAM_ID_ATTRIBUTE);
+
   /**
    * Group ID of the media definition. Multiple medias with same id make up a rendition group
    * Required: yes
@@ -153,12 +166,66 @@ public class MediaRendition {
     );
   }
 
+  /**
+   * Writes the same as the serialised {@link MediaRendition#toTag()}, without building the tag
+   */
+  void writeTo(PlaylistWriter writer) throws IOException {
+    writer.tagKey(TAG_KEY);
+    writer.separator();
+    writer.beginAttributes();
+
+    writer.attribute(TYPE_NAME);
+    writer.ascii(type.encoded);
+
+    writer.attribute(GROUP_ID_NAME);
+    writer.quoted(groupId);
+    writer.attribute(NAME_NAME);
+    writer.quoted(name);
+
+    if (uri != null) {
+      writer.attribute(URI_NAME);
+      writer.quoted(uri.toString());
+    }
+
+    if (language != null) {
+      writer.attribute(LANGUAGE_NAME);
+      writer.quoted(language);
+    }
+
+    if (associatedLanguage != null) {
+      writer.attribute(ASSOC_LANGUAGE_NAME);
+      writer.quoted(associatedLanguage);
+    }
+
+    if (defaultRendition != null) {
+      writer.attribute(DEFAULT_NAME);
+      writer.ascii(defaultRendition.encoded);
+    }
+
+    if (autoSelect != null) {
+      writer.attribute(AUTOSELECT_NAME);
+      writer.ascii(autoSelect.encoded);
+    }
+
+    if (forced != null) {
+      writer.attribute(FORCED_NAME);
+      writer.ascii(forced.encoded);
+    }
+
+    if (inStreamId != null) {
+      writer.attribute(INSTREAM_ID_NAME);
+      writer.quoted(inStreamId);
+    }
+  }
+
   public String groupId() {
     return this.groupId;
   }
 
   public enum Confirmation {
-    YES, NO
+    YES, NO;
+
+    final byte[] encoded = PlaylistWriter.ascii(name());
   }
 
   public enum Type {
@@ -168,10 +235,12 @@ public class MediaRendition {
     CLOSED_CAPTIONS("CLOSED-CAPTIONS");
 
     final String value;
+    final byte[] encoded;
 
 
     Type(String value) {
       this.value = value;
+      this.encoded = PlaylistWriter.ascii(value);
     }
   }
 
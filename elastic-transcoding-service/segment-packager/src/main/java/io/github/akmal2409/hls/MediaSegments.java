@@ -0,0 +1,221 @@
+package io.github.akmal2409.hls;
+
+import io.github.akmal2409.hls.tag.Tag;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Media segments of a playlist stored by columns instead of a set of tag objects per segment: the
+ * durations in a double array and the URIs as indexes into a {@link SegmentUriTemplate}, so that a
+ * segment takes 12 bytes. Durations are doubles, a float cannot hold microseconds of segments longer
+ * than 8 seconds. Segments whose URI does not follow the template keep it as a string, the column
+ * of strings is only allocated once there is such a segment. The same goes for the byte ranges of
+ * segments that are sub-ranges of one file. Tags of single segments (e.g.
+ * #EXT-X-DISCONTINUITY) are rare and kept in a sparse map by segment position.
+ * <p>
+ * Segments are written straight from the columns into a {@link PlaylistWriter}.
+ */
+final class MediaSegments {
+
+  private static final int INITIAL_CAPACITY = 16;
+  private static final byte[] EXTINF_TITLE_SEPARATOR = PlaylistWriter.ascii(",");
+  private static final byte[] BYTE_RANGE_OFFSET_SEPARATOR = PlaylistWriter.ascii("@");
+
+  private double[] durations = new double[INITIAL_CAPACITY];
+  private int[] uriIndexes = new int[INITIAL_CAPACITY];
+  private String[] uris;
+  private long[] byteRangeLengths;
+  private long[] byteRangeOffsets;
+  private final TreeMap<Integer, List<Tag>> segmentTags = new TreeMap<>();
+  private SegmentUriTemplate uriTemplate;
+  private int size;
+
+  void uriTemplate(SegmentUriTemplate uriTemplate) {
+    this.uriTemplate = uriTemplate;
+  }
+
+  /**
+   * Adds a segment whose URI is the template with the given index.
+   */
+  void add(double duration, int uriIndex) {
+    if (uriTemplate == null) {
+      throw new IllegalStateException(
+          "Segment URI template must be set before adding segments by index");
+    }
+
+    ensureCapacity();
+    durations[size] = duration;
+    uriIndexes[size] = uriIndex;
+    size++;
+  }
+
+  /**
+   * Adds a segment with a URI that does not follow the template.
+   */
+  void add(double duration, URI uri) {
+    ensureCapacity();
+
+    if (uris == null) {
+      uris = new String[durations.length];
+    }
+
+    durations[size] = duration;
+    uris[size] = uri.toString();
+    size++;
+  }
+
+  /**
+   * Adds a segment that is the byte range of the resource at the URI.
+   *
+   * @param length of the range in bytes
+   * @param offset of the first byte of the range in the resource
+   */
+  void add(double duration, URI uri, long length, long offset) {
+    if (length < 1 || offset < 0) {
+      throw new IllegalArgumentException(
+          String.format("Invalid byte range %d@%d", length, offset));
+    }
+
+    add(duration, uri);
+
+    if (byteRangeLengths == null) {
+      byteRangeLengths = new long[durations.length];
+      byteRangeOffsets = new long[durations.length];
+    }
+
+    // lengths are positive, so a zero length marks a segment without a byte range
+    byteRangeLengths[size - 1] = length;
+    byteRangeOffsets[size - 1] = offset;
+  }
+
+  /**
+   * Adds tags that are written before the #EXTINF of the segment at the given position.
+   */
+  void tags(int position, List<Tag> tags) {
+    if (position < 0 || position >= size) {
+      throw new IndexOutOfBoundsException("No segment at position " + position);
+    }
+
+    segmentTags.computeIfAbsent(position, key -> new ArrayList<>()).addAll(tags);
+  }
+
+  int size() {
+    return size;
+  }
+
+  double duration(int position) {
+    if (position < 0 || position >= size) {
+      throw new IndexOutOfBoundsException("No segment at position " + position);
+    }
+
+    return durations[position];
+  }
+
+  /**
+   * Returns duration in seconds of the longest segment, 0 if there are none
+   */
+  double maximumDuration() {
+    double maximum = 0;
+
+    for (int i = 0; i < size; i++) {
+      maximum = Math.max(maximum, durations[i]);
+    }
+
+    return maximum;
+  }
+
+  URI uri(int position) {
+    if (position < 0 || position >= size) {
+      throw new IndexOutOfBoundsException("No segment at position " + position);
+    }
+
+    return uris != null && uris[position] != null ? URI.create(uris[position])
+               : uriTemplate.uri(uriIndexes[position]);
+  }
+
+  /**
+   * Releases the spare capacity of the columns once all the segments have been added.
+   */
+  void trim() {
+    durations = Arrays.copyOf(durations, size);
+    uriIndexes = Arrays.copyOf(uriIndexes, size);
+
+    if (uris != null) {
+      uris = Arrays.copyOf(uris, size);
+    }
+
+    if (byteRangeLengths != null) {
+      byteRangeLengths = Arrays.copyOf(byteRangeLengths, size);
+      byteRangeOffsets = Arrays.copyOf(byteRangeOffsets, size);
+    }
+  }
+
+  /**
+   * Writes every segment as its tags, #EXTINF, #EXT-X-BYTERANGE if it has one and URI lines followed
+   * by an empty line.
+   */
+  void writeTo(PlaylistWriter writer) throws IOException {
+    final Iterator<Map.Entry<Integer, List<Tag>>> tagged = segmentTags.entrySet().iterator();
+    Map.Entry<Integer, List<Tag>> nextTagged = tagged.hasNext() ? tagged.next() : null;
+
+    for (int i = 0; i < size; i++) {
+      if (nextTagged != null && nextTagged.getKey() == i) {
+        for (Tag tag : nextTagged.getValue()) {
+          tag.writeTo(writer);
+          writer.newLine();
+        }
+
+        nextTagged = tagged.hasNext() ? tagged.next() : null;
+      }
+
+      writer.tagKey(MediaPlaylistTags.EXTINF);
+      writer.separator();
+      writer.decimal(durations[i], MediaPlaylist.DURATION_FRACTION_DIGITS);
+      writer.ascii(EXTINF_TITLE_SEPARATOR);
+      writer.newLine();
+
+      if (byteRangeLengths != null && byteRangeLengths[i] > 0) {
+        writer.tagKey(MediaPlaylistTags.BYTE_RANGE);
+        writer.separator();
+        writer.number(byteRangeLengths[i]);
+        writer.ascii(BYTE_RANGE_OFFSET_SEPARATOR);
+        writer.number(byteRangeOffsets[i]);
+        writer.newLine();
+      }
+
+      if (uris != null && uris[i] != null) {
+        writer.text(uris[i]);
+      } else {
+        uriTemplate.writeTo(writer, uriIndexes[i]);
+      }
+
+      writer.newLine();
+      writer.newLine();
+    }
+  }
+
+  private void ensureCapacity() {
+    if (size < durations.length) {
+      return;
+    }
+
+    final int capacity = Math.max(INITIAL_CAPACITY, size + (size >> 1));
+    durations = Arrays.copyOf(durations, capacity);
+    uriIndexes = Arrays.copyOf(uriIndexes, capacity);
+
+    if (uris != null) {
+      uris = Arrays.copyOf(uris, capacity);
+    }
+
+    if (byteRangeLengths != null) {
+      byteRangeLengths = Arrays.copyOf(byteRangeLengths, capacity);
+      byteRangeOffsets = Arrays.copyOf(byteRangeOffsets, capacity);
+    }
+  }
+}
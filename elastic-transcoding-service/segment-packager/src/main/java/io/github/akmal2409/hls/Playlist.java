@@ -1,5 +1,7 @@
 package io.github.akmal2409.hls;
 
+import java.io.IOException;
+
 /**
  * Common interface for Media and Master HLS playlists
  */
@@ -10,6 +12,12 @@ public interface Playlist {
    */
   String serialise();
 
+  /**
+   * Writes the same as {@link Playlist#serialise()} into the writer, without holding the whole
+   * playlist in memory
+   */
+  void write(PlaylistWriter writer) throws IOException;
+
   Type type();
 
   enum Type {
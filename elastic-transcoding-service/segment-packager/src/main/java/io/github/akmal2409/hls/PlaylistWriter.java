@@ -0,0 +1,459 @@
+package io.github.akmal2409.hls;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Writes playlists straight into the output without building the playlist or its tags as strings
+ * first, so that playlists with thousands of segments are written in constant memory. Tag keys are
+ * written from pre-encoded ASCII constants, numbers are formatted into a small scratch array of the
+ * writer.
+ * <p>
+ * Text is written as UTF-8 into byte outputs. A writer is not thread safe, it is meant to be used for
+ * a single playlist and closed afterwards.
+ */
+public abstract class PlaylistWriter implements Closeable, Flushable {
+
+  /**
+   * Size of the buffers of the writers to channels, large enough to write a few hundred segments
+   * per system call.
+   */
+  public static final int BUFFER_BYTES = 64 * 1024;
+  private static final int MAX_POOLED_BUFFERS = 16;
+  static final BlockingQueue<ByteBuffer> BUFFER_POOL = new ArrayBlockingQueue<>(
+      MAX_POOLED_BUFFERS);
+
+  private static final byte[] NEW_LINE = ascii("\n");
+  private static final byte[] HEADER_COMMENT = ascii(
+      "\n\n\n"
+          + "##########################################################################\n"
+          + "# This playlist has been auto generated by the segment-packager library  #\n"
+          + "# Do not modify this file directly                                        #\n"
+          + "##########################################################################\n\n\n");
+
+  /**
+   * Known tag keys with the # prefix, so that tags of the playlists do not encode their keys on
+   * every write.
+   */
+  private static final Map<String, byte[]> ENCODED_TAG_KEYS = new HashMap<>();
+
+  static {
+    for (String key : new String[]{
+        CommonPlaylistTags.PLAYLIST_HEADER, CommonPlaylistTags.VERSION,
+        MediaPlaylistTags.TARGET_DURATION, MediaPlaylistTags.MEDIA_SEQUENCE,
+        MediaPlaylistTags.DISCONTINUITY_SEQUENCE, MediaPlaylistTags.PLAYLIST_TYPE_TAG,
+        MediaPlaylistTags.I_FRAMES_ONLY, MediaPlaylistTags.EXTINF, MediaPlaylistTags.END_LIST_TAG,
+        MediaPlaylistTags.MAP, MediaPlaylistTags.BYTE_RANGE,
+        MasterPlaylistTags.EXT_X_MEDIA, VariantStream.TAG_KEY}) {
+      ENCODED_TAG_KEYS.put(key, ascii("#" + key));
+    }
+  }
+
+  private static final byte[] HEX_DIGITS = ascii("0123456789abcdef");
+
+  private static final long[] POWERS_OF_TEN = {
+      1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L
+  };
+
+  /**
+   * Largest number of fraction digits {@link PlaylistWriter#decimal(double, int)} writes.
+   */
+  public static final int MAX_FRACTION_DIGITS = POWERS_OF_TEN.length - 1;
+
+  // fits any long with its sign
+  private final byte[] digits = new byte[20];
+  private boolean firstAttribute;
+
+  /**
+   * Returns a writer that appends to the given output, e.g. a {@link StringBuilder} or a
+   * {@link java.io.Writer}.
+   */
+  public static PlaylistWriter to(@NotNull Appendable out) {
+    return new AppendableWriter(Objects.requireNonNull(out, "out is null"));
+  }
+
+  /**
+   * Returns a writer that writes UTF-8 into the channel through a pooled direct buffer of
+   * {@link PlaylistWriter#BUFFER_BYTES}. The buffer goes back to the pool once the writer is
+   * closed, the channel is left open.
+   */
+  public static PlaylistWriter to(@NotNull WritableByteChannel channel) {
+    Objects.requireNonNull(channel, "channel is null");
+    ByteBuffer buffer = BUFFER_POOL.poll();
+
+    if (buffer == null) {
+      buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    }
+
+    return new ByteBufferWriter(buffer, channel, true);
+  }
+
+  /**
+   * Returns a writer that writes UTF-8 into the given buffer starting at its position.
+   *
+   * @throws BufferOverflowException on write if the playlist does not fit into the buffer
+   */
+  public static PlaylistWriter to(@NotNull ByteBuffer buffer) {
+    return new ByteBufferWriter(Objects.requireNonNull(buffer, "buffer is null"), null, false);
+  }
+
+  /**
+   * Encodes a constant such as a tag key or an attribute name once, so that it can be written with
+   * {@link PlaylistWriter#ascii(byte[])}.
+   */
+  public static byte[] ascii(@NotNull String text) {
+    return text.getBytes(StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * Writes the header common to media and master playlists: #EXTM3U, the comment and the version
+   * if present. Ends with a new line.
+   */
+  public void header(Integer version) throws IOException {
+    tagKey(CommonPlaylistTags.PLAYLIST_HEADER);
+    ascii(HEADER_COMMENT);
+
+    if (version != null) {
+      tagKey(CommonPlaylistTags.VERSION);
+      separator();
+      number(version);
+      newLine();
+    }
+  }
+
+  /**
+   * Writes the key of a tag with the # prefix, known keys are written from their pre-encoded
+   * constant.
+   */
+  public void tagKey(@NotNull String key) throws IOException {
+    final byte[] encoded = ENCODED_TAG_KEYS.get(key);
+
+    if (encoded != null) {
+      ascii(encoded);
+    } else {
+      ascii((byte) '#');
+      text(key);
+    }
+  }
+
+  /**
+   * Writes the separator between the key of a tag and its value.
+   */
+  public void separator() throws IOException {
+    ascii((byte) ':');
+  }
+
+  public void newLine() throws IOException {
+    ascii(NEW_LINE);
+  }
+
+  /**
+   * Starts the attribute list of a tag, the following attributes are separated by commas.
+   */
+  public void beginAttributes() {
+    this.firstAttribute = true;
+  }
+
+  /**
+   * Writes the name of the next attribute of the list and the = that follows it, the value has to
+   * be written right after.
+   *
+   * @param name pre-encoded name of the attribute
+   */
+  public void attribute(byte[] name) throws IOException {
+    if (!firstAttribute) {
+      ascii((byte) ',');
+    }
+
+    firstAttribute = false;
+    ascii(name);
+    ascii((byte) '=');
+  }
+
+  /**
+   * Same as {@link PlaylistWriter#attribute(byte[])} for attribute names that are not known in
+   * advance.
+   */
+  public void attribute(@NotNull String name) throws IOException {
+    if (!firstAttribute) {
+      ascii((byte) ',');
+    }
+
+    firstAttribute = false;
+    text(name);
+    ascii((byte) '=');
+  }
+
+  /**
+   * Writes the text enclosed in double quotes, as quoted string attributes are.
+   */
+  public void quoted(@NotNull CharSequence text) throws IOException {
+    ascii((byte) '"');
+    text(text);
+    ascii((byte) '"');
+  }
+
+  /**
+   * Writes a decimal integer.
+   */
+  public void number(long value) throws IOException {
+    number(value, 1);
+  }
+
+  /**
+   * Writes a decimal integer padded with zeros to at least {@code minDigits} digits, as
+   * {@code %0Nd} does.
+   */
+  public void number(long value, int minDigits) throws IOException {
+    if (minDigits < 1 || minDigits > 19) {
+      throw new IllegalArgumentException("Digits must be between 1 and 19, got " + minDigits);
+    }
+
+    int position = digits.length;
+    // negative values are accumulated as negative so that Long.MIN_VALUE does not overflow
+    long remaining = value < 0 ? value : -value;
+
+    do {
+      digits[--position] = (byte) ('0' - remaining % 10);
+      remaining /= 10;
+    } while (remaining != 0 || digits.length - position < minDigits);
+
+    if (value < 0) {
+      digits[--position] = '-';
+    }
+
+    ascii(digits, position, digits.length - position);
+  }
+
+  /**
+   * Writes the lowest {@code digits} hexadecimal digits of the value in lower case, zero padded.
+   */
+  public void hex(long value, int digits) throws IOException {
+    if (digits < 1 || digits > 16) {
+      throw new IllegalArgumentException("Hex digits must be between 1 and 16, got " + digits);
+    }
+
+    for (int i = this.digits.length - 1; i >= this.digits.length - digits; i--) {
+      this.digits[i] = HEX_DIGITS[(int) (value & 0xF)];
+      value >>>= 4;
+    }
+
+    ascii(this.digits, this.digits.length - digits, digits);
+  }
+
+  /**
+   * Writes a decimal floating point number rounded to the given number of fraction digits, with the
+   * trailing zeros of the fraction removed but at least one fraction digit, e.g. 5.005, 30.0.
+   *
+   * @param fractionDigits between 1 and {@link PlaylistWriter#MAX_FRACTION_DIGITS}
+   */
+  public void decimal(double value, int fractionDigits) throws IOException {
+    if (!Double.isFinite(value)) {
+      throw new IllegalArgumentException("Cannot write decimal number " + value);
+    }
+
+    if (fractionDigits < 1 || fractionDigits > MAX_FRACTION_DIGITS) {
+      throw new IllegalArgumentException(
+          "Fraction digits must be between 1 and " + MAX_FRACTION_DIGITS + ", got "
+              + fractionDigits);
+    }
+
+    final long scale = POWERS_OF_TEN[fractionDigits];
+    final long scaled = Math.round(Math.abs(value) * scale);
+
+    if (value < 0 && scaled != 0) {
+      ascii((byte) '-');
+    }
+
+    number(scaled / scale);
+    ascii((byte) '.');
+
+    long fraction = scaled % scale;
+    int length = fractionDigits;
+
+    while (length > 1 && fraction % 10 == 0) {
+      fraction /= 10;
+      length--;
+    }
+
+    for (int i = digits.length - 1; i >= digits.length - length; i--) {
+      digits[i] = (byte) ('0' + fraction % 10);
+      fraction /= 10;
+    }
+
+    ascii(digits, digits.length - length, length);
+  }
+
+  /**
+   * Writes pre-encoded ASCII bytes.
+   */
+  public void ascii(byte[] ascii) throws IOException {
+    ascii(ascii, 0, ascii.length);
+  }
+
+  /**
+   * Writes arbitrary text, encoded as UTF-8 by the byte outputs.
+   */
+  public abstract void text(@NotNull CharSequence text) throws IOException;
+
+  protected abstract void ascii(byte ascii) throws IOException;
+
+  protected abstract void ascii(byte[] ascii, int offset, int length) throws IOException;
+
+  private static final class AppendableWriter extends PlaylistWriter {
+
+    private final Appendable out;
+
+    private AppendableWriter(Appendable out) {
+      this.out = out;
+    }
+
+    @Override
+    public void text(@NotNull CharSequence text) throws IOException {
+      out.append(text);
+    }
+
+    @Override
+    protected void ascii(byte ascii) throws IOException {
+      out.append((char) ascii);
+    }
+
+    @Override
+    protected void ascii(byte[] ascii, int offset, int length) throws IOException {
+      for (int i = offset; i < offset + length; i++) {
+        out.append((char) ascii[i]);
+      }
+    }
+
+    @Override
+    public void flush() throws IOException {
+      if (out instanceof Flushable flushable) {
+        flushable.flush();
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      flush();
+    }
+  }
+
+  private static final class ByteBufferWriter extends PlaylistWriter {
+
+    private final WritableByteChannel channel;
+    private final boolean pooled;
+    private ByteBuffer buffer;
+
+    private ByteBufferWriter(ByteBuffer buffer, WritableByteChannel channel, boolean pooled) {
+      this.buffer = buffer;
+      this.channel = channel;
+      this.pooled = pooled;
+    }
+
+    @Override
+    public void text(@NotNull CharSequence text) throws IOException {
+      final int length = text.length();
+
+      for (int i = 0; i < length; i++) {
+        final char c = text.charAt(i);
+
+        if (c < 0x80) {
+          ascii((byte) c);
+        } else if (c < 0x800) {
+          require(2);
+          buffer.put((byte) (0xC0 | c >> 6));
+          buffer.put((byte) (0x80 | c & 0x3F));
+        } else if (Character.isHighSurrogate(c) && i + 1 < length
+                       && Character.isLowSurrogate(text.charAt(i + 1))) {
+          final int codePoint = Character.toCodePoint(c, text.charAt(++i));
+          require(4);
+          buffer.put((byte) (0xF0 | codePoint >> 18));
+          buffer.put((byte) (0x80 | codePoint >> 12 & 0x3F));
+          buffer.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+          buffer.put((byte) (0x80 | codePoint & 0x3F));
+        } else if (Character.isSurrogate(c)) {
+          // unpaired surrogate, same replacement as String#getBytes
+          ascii((byte) '?');
+        } else {
+          require(3);
+          buffer.put((byte) (0xE0 | c >> 12));
+          buffer.put((byte) (0x80 | c >> 6 & 0x3F));
+          buffer.put((byte) (0x80 | c & 0x3F));
+        }
+      }
+    }
+
+    @Override
+    protected void ascii(byte ascii) throws IOException {
+      require(1);
+      buffer.put(ascii);
+    }
+
+    @Override
+    protected void ascii(byte[] ascii, int offset, int length) throws IOException {
+      while (length > 0) {
+        require(1);
+        final int chunk = Math.min(length, buffer.remaining());
+        buffer.put(ascii, offset, chunk);
+        offset += chunk;
+        length -= chunk;
+      }
+    }
+
+    private void require(int bytes) throws IOException {
+      if (buffer.remaining() >= bytes) {
+        return;
+      }
+
+      if (channel == null) {
+        throw new BufferOverflowException();
+      }
+
+      flush();
+    }
+
+    @Override
+    public void flush() throws IOException {
+      if (channel == null) {
+        return;
+      }
+
+      buffer.flip();
+
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+
+      buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (buffer == null) {
+        return;
+      }
+
+      try {
+        flush();
+      } finally {
+        if (pooled) {
+          buffer.clear();
+          BUFFER_POOL.offer(buffer);
+        }
+
+        buffer = null;
+      }
+    }
+  }
+}
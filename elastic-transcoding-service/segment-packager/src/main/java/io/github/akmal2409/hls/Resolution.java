@@ -1,5 +1,7 @@
 package io.github.akmal2409.hls;
 
+import java.io.IOException;
+
 public record Resolution(
     int width,
     int height
@@ -9,4 +11,13 @@ public record Resolution(
   public String toString() {
     return String.format("%dx%d", width, height);
   }
+
+  /**
+   * Writes the same as {@link Resolution#toString()}
+   */
+  void writeTo(PlaylistWriter writer) throws IOException {
+    writer.number(width);
+    writer.text("x");
+    writer.number(height);
+  }
 }
@@ -0,0 +1,76 @@
+package io.github.akmal2409.hls;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.regex.Pattern;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * URI of the media segments of a rendition with the index of the segment in place of a
+ * {@code %0Nd} placeholder, e.g. {@code 1280x720-6000/segment-%08d.mp4}. Playlists keep only the
+ * index of each segment and write its URI from the template.
+ *
+ * @param prefix      text before the index
+ * @param indexDigits minimum number of digits of the index, shorter indexes are padded with zeros
+ * @param suffix      text after the index
+ */
+public record SegmentUriTemplate(
+    String prefix,
+    int indexDigits,
+    String suffix
+) {
+
+  private static final Pattern PLACEHOLDER = Pattern.compile("%(?:0(\\d+))?d");
+
+  public SegmentUriTemplate {
+    if (prefix == null || suffix == null) {
+      throw new IllegalArgumentException("Prefix and suffix of the template cannot be null");
+    }
+
+    if (indexDigits < 1 || indexDigits > 19) {
+      throw new IllegalArgumentException(
+          "Index digits must be between 1 and 19, got " + indexDigits);
+    }
+  }
+
+  /**
+   * @param template URI with a single {@code %0Nd} or {@code %d} placeholder for the segment index
+   */
+  public static SegmentUriTemplate parse(@NotNull String template) {
+    final var matcher = PLACEHOLDER.matcher(template);
+
+    if (!matcher.find()) {
+      throw new IllegalArgumentException("Template " + template + " has no index placeholder");
+    }
+
+    final String prefix = template.substring(0, matcher.start());
+    final String suffix = template.substring(matcher.end());
+    final int digits = matcher.group(1) == null ? 1 : Integer.parseInt(matcher.group(1));
+
+    if (PLACEHOLDER.matcher(suffix).find()) {
+      throw new IllegalArgumentException(
+          "Template " + template + " has more than one index placeholder");
+    }
+
+    return new SegmentUriTemplate(prefix, digits, suffix);
+  }
+
+  /**
+   * @param rendition        directory of the rendition, e.g. 1280x720-6000
+   * @param fileNamePattern  name of the segment files with the index placeholder, e.g.
+   *                         segment-%08d.mp4
+   */
+  public static SegmentUriTemplate of(@NotNull String rendition, @NotNull String fileNamePattern) {
+    return parse(rendition + "/" + fileNamePattern);
+  }
+
+  public URI uri(int index) {
+    return URI.create(prefix + String.format("%0" + indexDigits + "d", index) + suffix);
+  }
+
+  void writeTo(PlaylistWriter writer, int index) throws IOException {
+    writer.text(prefix);
+    writer.number(index, indexDigits);
+    writer.text(suffix);
+  }
+}
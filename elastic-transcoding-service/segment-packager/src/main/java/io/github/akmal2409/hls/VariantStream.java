@@ -3,6 +3,7 @@ package io.github.akmal2409.hls;
 import io.github.akmal2409.hls.tag.Tag;
 import io.github.akmal2409.hls.tag.TagValue.AttributeListTagValue;
 import io.github.akmal2409.utils.StringUtils;
+import java.io.IOException;
 import java.net.URI;
 import java.util.LinkedHashMap;
 import java.util.Optional;
@@ -29,6 +30,23 @@ public class VariantStream {
   public static final String SUBTITLES_ATTRIBUTE = "SUBTITLES";
   public static final String CLOSED_CAPTIONS_ATTRIBUTE = "CLOSED-CAPTIONS";
 
+  private static final byte[] BANDWIDTH_NAME = PlaylistWriter.ascii(BANDWIDTH_ATTRIBUTE);
+  private static final byte[] AVERAGE_BANDWIDTH_NAME = PlaylistWriter.ascii(
+      AVERAGE_BANDWIDTH_ATTRIBUTE);
+  private static final byte[] CODECS_NAME = PlaylistWriter.ascii(CODECS_ATTRIBUTE);
+  private static final byte[] RESOLUTION_NAME = PlaylistWriter.ascii(RESOLUTION_ATTRIBUTE);
+  private static final byte[] FRAME_RATE_NAME = PlaylistWriter.ascii(FRAME_RATE_ATTRIBUTE);
+  private static final byte[] AUDIO_NAME = PlaylistWriter.ascii(AUDIO_ATTRIBUTE);
+  private static final byte[] VIDEO_NAME = PlaylistWriter.ascii(VIDEO_ATTRIBUTE);
+  private static final byte[] SUBTITLES_NAME = PlaylistWriter.ascii(SUBTITLES_ATTRIBUTE);
+  private static final byte[] CLOSED_CAPTIONS_NAME = PlaylistWriter.ascii(
+      CLOSED_CAPTIONS_ATTRIBUTE);
+
+  /**
+   * Frame rate is written with 3 fraction digits
+   */
+  private static final int FRAME_RATE_FRACTION_DIGITS = 3;
+
   final String audioGroupId; // audio rendition group
   final String videoGroupId; // video rendition group
   final String closedCaptionsGruopId; // closed captions rendition group
@@ -120,6 +138,68 @@ public class VariantStream {
     return Tag.fromKV(TAG_KEY, new AttributeListTagValue(attributes));
   }
 
+  /**
+   * Writes the same as the serialised {@link VariantStream#toTag()} followed by the URI of the
+   * playlist on the next line if present, without building the tag
+   */
+  void writeTo(PlaylistWriter writer) throws IOException {
+    writer.tagKey(TAG_KEY);
+    writer.separator();
+    writer.beginAttributes();
+
+    if (bandwidth != null) {
+      writer.attribute(BANDWIDTH_NAME);
+      writer.number(bandwidth);
+    }
+
+    if (averageBandwidth != null) {
+      writer.attribute(AVERAGE_BANDWIDTH_NAME);
+      writer.number(averageBandwidth);
+    }
+
+    if (codec != null) {
+      writer.attribute(CODECS_NAME);
+      writer.text("\"");
+      codec.writeTo(writer);
+      writer.text("\"");
+    }
+
+    if (resolution != null) {
+      writer.attribute(RESOLUTION_NAME);
+      resolution.writeTo(writer);
+    }
+
+    if (frameRate != null) {
+      writer.attribute(FRAME_RATE_NAME);
+      writer.decimal(frameRate, FRAME_RATE_FRACTION_DIGITS);
+    }
+
+    if (audioGroupId != null) {
+      writer.attribute(AUDIO_NAME);
+      writer.quoted(audioGroupId);
+    }
+
+    if (videoGroupId != null) {
+      writer.attribute(VIDEO_NAME);
+      writer.quoted(videoGroupId);
+    }
+
+    if (subtitlesGroupId != null) {
+      writer.attribute(SUBTITLES_NAME);
+      writer.quoted(subtitlesGroupId);
+    }
+
+    if (closedCaptionsGruopId != null) {
+      writer.attribute(CLOSED_CAPTIONS_NAME);
+      writer.quoted(closedCaptionsGruopId);
+    }
+
+    if (playlistURI != null) {
+      writer.newLine();
+      writer.text(playlistURI.toString());
+    }
+  }
+
   /**
    * Returns id (if present) of media renditions with type AUDIO
    */
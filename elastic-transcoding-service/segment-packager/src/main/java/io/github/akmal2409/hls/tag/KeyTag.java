@@ -1,5 +1,7 @@
 package io.github.akmal2409.hls.tag;
 
+import io.github.akmal2409.hls.PlaylistWriter;
+import java.io.IOException;
 import java.util.Objects;
 import java.util.Optional;
 import org.jetbrains.annotations.NotNull;
@@ -24,6 +26,11 @@ class KeyTag implements Tag {
     return String.format("#%s", this.key);
   }
 
+  @Override
+  public void writeTo(@NotNull PlaylistWriter writer) throws IOException {
+    writer.tagKey(this.key);
+  }
+
   @Override
   public Optional<TagValue> value() {
     return Optional.empty();
@@ -1,5 +1,7 @@
 package io.github.akmal2409.hls.tag;
 
+import io.github.akmal2409.hls.PlaylistWriter;
+import java.io.IOException;
 import java.util.Optional;
 import org.jetbrains.annotations.NotNull;
 
@@ -26,6 +28,13 @@ class KeyValueTag implements Tag {
         key, value);
   }
 
+  @Override
+  public void writeTo(@NotNull PlaylistWriter writer) throws IOException {
+    writer.tagKey(this.key);
+    writer.separator();
+    this.value.writeTo(writer);
+  }
+
   @Override
   public Optional<TagValue> value() {
     return Optional.of(this.value);
@@ -1,5 +1,7 @@
 package io.github.akmal2409.hls.tag;
 
+import io.github.akmal2409.hls.PlaylistWriter;
+import java.io.IOException;
 import java.net.URI;
 import java.util.Optional;
 import org.jetbrains.annotations.NotNull;
@@ -43,6 +45,13 @@ public interface Tag {
    */
   String serialise();
 
+  /**
+   * Writes the same as {@link Tag#serialise()} into the writer without building the string
+   */
+  default void writeTo(@NotNull PlaylistWriter writer) throws IOException {
+    writer.text(serialise());
+  }
+
   /**
    * Returns tag value which can be no value, single value or attribute list
    */
@@ -1,11 +1,18 @@
 package io.github.akmal2409.hls.tag;
 
+import io.github.akmal2409.hls.PlaylistWriter;
+import java.io.IOException;
 import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
 public interface TagValue {
 
+  /**
+   * Writes the same as {@link Object#toString()} into the writer without building the string
+   */
+  void writeTo(PlaylistWriter writer) throws IOException;
+
   class SingleTagValue implements TagValue {
 
     private final String value;
@@ -18,6 +25,11 @@ public interface TagValue {
       return value;
     }
 
+    @Override
+    public void writeTo(PlaylistWriter writer) throws IOException {
+      writer.text(toString());
+    }
+
     @Override
     public String toString() {
       return Objects.toString(this.value);
@@ -56,6 +68,16 @@ public interface TagValue {
       return this;
     }
 
+    @Override
+    public void writeTo(PlaylistWriter writer) throws IOException {
+      writer.beginAttributes();
+
+      for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+        writer.attribute(attribute.getKey());
+        writer.text(attribute.getValue());
+      }
+    }
+
     @Override
     public String toString() {
       return attributes.entrySet().
@@ -1,5 +1,7 @@
 package io.github.akmal2409.hls.tag;
 
+import io.github.akmal2409.hls.PlaylistWriter;
+import java.io.IOException;
 import java.net.URI;
 import java.util.Objects;
 import java.util.Optional;
@@ -50,6 +52,11 @@ class UriTag implements Tag {
     return this.uri.toString();
   }
 
+  @Override
+  public void writeTo(@NotNull PlaylistWriter writer) throws IOException {
+    writer.text(this.uri.toString());
+  }
+
   @Override
   public String toString() {
     return serialise();
@@ -0,0 +1,92 @@
+package io.github.akmal2409.job;
+
+/**
+ * Exact frame rate as a fraction of frames per second, e.g. 24000/1001 for NTSC film.
+ *
+ * @param numerator   frames
+ * @param denominator seconds
+ */
+public record FrameRate(
+    long numerator,
+    long denominator
+) {
+
+  /**
+   * Largest denominator a frame rate is recovered with, broadcast rates use 1001
+   */
+  static final long MAX_DENOMINATOR = 1_000_000;
+  /**
+   * Distance in units in the last place that the value may be off the fraction by, it is only off
+   * by rounding of the division
+   */
+  private static final int TOLERANCE_ULPS = 2;
+
+  public FrameRate {
+    if (numerator < 1 || denominator < 1) {
+      throw new IllegalArgumentException(
+          String.format("Frame rate must be positive, got %d/%d", numerator, denominator));
+    }
+  }
+
+  /**
+   * Recovers the fraction that a frame rate was printed from, e.g. the value of ffprobe
+   * r_frame_rate 24000/1001 converted to 23.976023976023978. Takes the convergents of the continued
+   * fraction of the value until one of them is equal to it within the precision of a double.
+   *
+   * @throws IllegalArgumentException if the value is not a fraction with a denominator up to
+   *                                  {@link FrameRate#MAX_DENOMINATOR}
+   */
+  public static FrameRate of(double framesPerSecond) {
+    if (!(framesPerSecond > 0) || Double.isInfinite(framesPerSecond)) {
+      throw new IllegalArgumentException("Frame rate must be positive, got " + framesPerSecond);
+    }
+
+    // convergents h/k of the continued fraction [a0; a1, a2, ...]
+    long previousNumerator = 1;
+    long previousDenominator = 0;
+    long numerator = (long) Math.floor(framesPerSecond);
+    long denominator = 1;
+    double remainder = framesPerSecond - numerator;
+
+    final double tolerance = TOLERANCE_ULPS * Math.ulp(framesPerSecond);
+
+    while (Math.abs(framesPerSecond - (double) numerator / denominator) > tolerance) {
+      final double inverse = 1 / remainder;
+      final long term = (long) Math.floor(inverse);
+
+      if (term > MAX_DENOMINATOR || term * denominator + previousDenominator > MAX_DENOMINATOR) {
+        throw new IllegalArgumentException(
+            "Frame rate " + framesPerSecond + " is not a fraction with a small denominator");
+      }
+
+      final long nextNumerator = term * numerator + previousNumerator;
+      final long nextDenominator = term * denominator + previousDenominator;
+
+      previousNumerator = numerator;
+      previousDenominator = denominator;
+      numerator = nextNumerator;
+      denominator = nextDenominator;
+      remainder = inverse - term;
+    }
+
+    return new FrameRate(numerator, denominator);
+  }
+
+  /**
+   * Duration of the frames rounded half up to microseconds
+   */
+  public long durationMicros(long frames) {
+    final long scaled = Math.multiplyExact(Math.multiplyExact(frames, denominator), 1_000_000L);
+
+    return (scaled + numerator / 2) / numerator;
+  }
+
+  public double doubleValue() {
+    return (double) numerator / denominator;
+  }
+
+  @Override
+  public String toString() {
+    return numerator + "/" + denominator;
+  }
+}
@@ -0,0 +1,304 @@
+package io.github.akmal2409.job;
+
+import io.github.akmal2409.hls.MasterPlaylist;
+import io.github.akmal2409.hls.MediaPlaylist;
+import io.github.akmal2409.hls.MediaRendition;
+import io.github.akmal2409.hls.Resolution;
+import io.github.akmal2409.hls.SegmentUriTemplate;
+import io.github.akmal2409.job.PackagingJobManifest.MediaVariant;
+import io.github.akmal2409.job.video.SegmentConstants;
+import io.github.akmal2409.utils.StringUtils;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Packages the transcoded renditions of a job into HLS. Every rendition gets a media playlist next
+ * to its segments, the audio gets one next to the audio file and the master playlist that refers to
+ * all of them is uploaded to the key prefix of the job once they are in place, so that a player
+ * never sees a master playlist with missing media playlists.
+ * <p>
+ * Renditions are packaged in parallel on the {@link PackagingExecutor}. All of them have the same
+ * frame ranges and the segment URIs are relative to the playlist, so they share one media playlist.
+ * The durations are computed from the frame ranges by {@link SegmentDurations}, optionally checked
+ * against a few probed segments of every rendition by the {@link SampledDurationProbe}.
+ * <p>
+ * With a {@link SingleFileConcatenator} every rendition is concatenated into a single fragmented
+ * MP4 and its playlist refers to the segments as byte ranges of that file, so the playlists are
+ * built per rendition. The audio is remuxed into a fragmented MP4 as well. Without it, the
+ * playlists refer to the progressive MP4 segments and audio as they are, which is not valid HLS
+ * (RFC 8216 section 3.3) and only plays in players that accept it anyway.
+ */
+public class HlsPackager {
+
+  private static final Logger log = LoggerFactory.getLogger(HlsPackager.class);
+
+  static final int PLAYLIST_VERSION = 6;
+  static final String MASTER_PLAYLIST_NAME = "master.m3u8";
+  static final String MEDIA_PLAYLIST_NAME = "index.m3u8";
+  static final String AUDIO_PLAYLIST_NAME = "audio.m3u8";
+  static final String AUDIO_GROUP_ID = "audio";
+  static final String SINGLE_FILE_NAME = "rendition.mp4";
+  static final String FRAGMENTED_AUDIO_NAME = "audio-fragmented.mp4";
+
+  /**
+   * Peak bit rate of the renditions relative to the bit rate in their name, as capped by the
+   * encoders of the transcoder. Renditions encoded with a capped constant rate factor peak at the
+   * bit rate itself, so their bandwidth is overstated, which only makes players more cautious.
+   */
+  static final int PEAK_BIT_RATE_FACTOR = 2;
+
+  private final S3PlaylistStore store;
+  private final PackagingExecutor executor;
+  private final SampledDurationProbe durationProbe;
+  private final SingleFileConcatenator concatenator;
+
+  public HlsPackager(S3PlaylistStore store, PackagingExecutor executor) {
+    this(store, executor, null, null);
+  }
+
+  /**
+   * @param durationProbe verifies the durations of the renditions, null disables verification
+   * @param concatenator  concatenates the segments of a rendition into a single file, null keeps
+   *                      the segments as separate files
+   */
+  public HlsPackager(S3PlaylistStore store, PackagingExecutor executor,
+      SampledDurationProbe durationProbe, SingleFileConcatenator concatenator) {
+    this.store = store;
+    this.executor = executor;
+    this.durationProbe = durationProbe;
+    this.concatenator = concatenator;
+  }
+
+  /**
+   * Packages the job, returns immediately.
+   *
+   * @param manifest validated manifest of the job
+   * @return future that completes once the master playlist has been uploaded
+   */
+  public CompletableFuture<Void> pack(PackagingJobManifest manifest) {
+    return executor.submit(() -> store.listRenditions(manifest.bucket(), manifest.keyPrefix()))
+               .thenCompose(renditions -> packRenditions(manifest, renditions))
+               .thenCompose(renditions -> executor.submit(() -> {
+                 store.upload(manifest.bucket(), key(manifest, MASTER_PLAYLIST_NAME),
+                     masterPlaylist(manifest, renditions));
+                 return null;
+               }));
+  }
+
+  private CompletableFuture<List<MediaVariant>> packRenditions(PackagingJobManifest manifest,
+      List<MediaVariant> renditions) {
+    if (renditions.isEmpty()) {
+      throw new PackagingException(
+          String.format("No renditions found under %s in bucket %s", manifest.keyPrefix(),
+              manifest.bucket()));
+    }
+
+    log.debug("message=Packaging renditions;jobId={};renditions={}", manifest.jobId(),
+        renditions.size());
+
+    final SegmentDurations durations = SegmentDurations.of(manifest);
+    // byte ranges differ between the renditions, their playlists are built once they are known
+    final MediaPlaylist videoPlaylist = concatenator == null ? videoPlaylist(durations) : null;
+    final var packaged = new ArrayList<CompletableFuture<Void>>(renditions.size() + 1);
+
+    for (MediaVariant rendition : renditions) {
+      packaged.add(executor.submit(() -> {
+        packRendition(manifest, rendition, durations, videoPlaylist);
+        return null;
+      }));
+    }
+
+    if (!StringUtils.isEmpty(manifest.audioRelativePath())) {
+      packaged.add(executor.submit(() -> {
+        packAudio(manifest, durations);
+        return null;
+      }));
+    }
+
+    return CompletableFuture.allOf(packaged.toArray(CompletableFuture[]::new))
+               .thenApply(ignored -> renditions);
+  }
+
+  /**
+   * Checks that every segment of the rendition has been transcoded and uploads its playlist.
+   *
+   * @param playlist of the separate segments, null if they are concatenated
+   */
+  private void packRendition(PackagingJobManifest manifest, MediaVariant rendition,
+      SegmentDurations durations, MediaPlaylist playlist) {
+    final String renditionPrefix = key(manifest, rendition.directoryName());
+    final BitSet indexes = store.listSegmentIndexes(manifest.bucket(), renditionPrefix);
+    final int segmentCount = durations.segmentCount();
+
+    if (indexes.cardinality() != segmentCount || indexes.nextClearBit(0) != segmentCount) {
+      throw new PackagingException(
+          String.format("Rendition %s has %d segments, expected indexes 0 to %d",
+              renditionPrefix, indexes.cardinality(), segmentCount - 1));
+    }
+
+    if (durationProbe != null) {
+      durationProbe.verify(manifest.bucket(), renditionPrefix, durations);
+    }
+
+    if (playlist == null) {
+      playlist = singleFilePlaylist(durations, concatenator.concatenate(manifest.bucket(),
+          renditionPrefix, segmentCount, renditionPrefix + "/" + SINGLE_FILE_NAME));
+    }
+
+    store.upload(manifest.bucket(), renditionPrefix + "/" + MEDIA_PLAYLIST_NAME, playlist);
+
+    log.debug("message=Packaged rendition;jobId={};rendition={};segments={}", manifest.jobId(),
+        rendition.directoryName(), segmentCount);
+  }
+
+  private void packAudio(PackagingJobManifest manifest, SegmentDurations durations) {
+    final String audioKey = key(manifest, manifest.audioRelativePath());
+
+    if (!store.exists(manifest.bucket(), audioKey)) {
+      throw new PackagingException(
+          String.format("Audio %s not found in bucket %s", audioKey, manifest.bucket()));
+    }
+
+    final MediaPlaylist playlist = concatenator == null
+        ? audioPlaylist(manifest, durations)
+        : fragmentedAudioPlaylist(durations, concatenator.fragmentAudio(manifest.bucket(),
+            audioKey, key(manifest, FRAGMENTED_AUDIO_NAME)));
+
+    store.upload(manifest.bucket(), key(manifest, AUDIO_PLAYLIST_NAME), playlist);
+
+    log.debug("message=Packaged audio;jobId={};key={}", manifest.jobId(), audioKey);
+  }
+
+  /**
+   * Media playlist of a video rendition, its segments are the ones of the transcoding jobs and
+   * their durations follow from the frame ranges.
+   */
+  static MediaPlaylist videoPlaylist(SegmentDurations durations) {
+    final var builder = new MediaPlaylist.Builder()
+                            .version(PLAYLIST_VERSION)
+                            .targetDuration(durations.maximumSegmentDuration())
+                            .playlistType(MediaPlaylist.Type.VOD)
+                            .mediaSequence(0)
+                            .segmentUriTemplate(SegmentUriTemplate.parse(
+                                SegmentConstants.SEGMENT_FILE_NAME_PATTERN));
+
+    for (int i = 0; i < durations.segmentCount(); i++) {
+      builder.mediaSegment(durations.duration(i), i);
+    }
+
+    return builder.build();
+  }
+
+  /**
+   * Media playlist of a video rendition concatenated into a single file, the segments are byte
+   * ranges of the file and share the initialization section at its start.
+   */
+  static MediaPlaylist singleFilePlaylist(SegmentDurations durations, Mp4FragmentIndex index) {
+    if (index.fragmentCount() != durations.segmentCount()) {
+      throw new PackagingException(
+          String.format("Concatenated file has %d fragments, expected one per segment (%d)",
+              index.fragmentCount(), durations.segmentCount()));
+    }
+
+    final URI uri = URI.create(SINGLE_FILE_NAME);
+    final var builder = new MediaPlaylist.Builder()
+                            .version(PLAYLIST_VERSION)
+                            .targetDuration(durations.maximumSegmentDuration())
+                            .playlistType(MediaPlaylist.Type.VOD)
+                            .mediaSequence(0)
+                            .map(uri, index.initLength(), 0);
+
+    for (int i = 0; i < durations.segmentCount(); i++) {
+      builder.mediaSegment(durations.duration(i), uri, index.fragmentLength(i),
+          index.fragmentOffset(i));
+    }
+
+    return builder.build();
+  }
+
+  /**
+   * Media playlist of the audio, the audio is transcoded as a whole and is a single segment.
+   */
+  static MediaPlaylist audioPlaylist(PackagingJobManifest manifest, SegmentDurations durations) {
+    return new MediaPlaylist.Builder()
+               .version(PLAYLIST_VERSION)
+               .targetDuration((int) Math.ceil(durations.totalDuration()))
+               .playlistType(MediaPlaylist.Type.VOD)
+               .mediaSequence(0)
+               .mediaSegment(durations.totalDuration(), URI.create(manifest.audioRelativePath()))
+               .build();
+  }
+
+  /**
+   * Media playlist of the audio remuxed into a fragmented MP4, its single fragment is the only
+   * segment.
+   */
+  static MediaPlaylist fragmentedAudioPlaylist(SegmentDurations durations,
+      Mp4FragmentIndex index) {
+    if (index.fragmentCount() != 1) {
+      throw new PackagingException(
+          String.format("Fragmented audio has %d fragments, expected 1", index.fragmentCount()));
+    }
+
+    final URI uri = URI.create(FRAGMENTED_AUDIO_NAME);
+
+    return new MediaPlaylist.Builder()
+               .version(PLAYLIST_VERSION)
+               .targetDuration((int) Math.ceil(durations.totalDuration()))
+               .playlistType(MediaPlaylist.Type.VOD)
+               .mediaSequence(0)
+               .map(uri, index.initLength(), 0)
+               .mediaSegment(durations.totalDuration(), uri, index.fragmentLength(0),
+                   index.fragmentOffset(0))
+               .build();
+  }
+
+  /**
+   * Master playlist with a variant per rendition from the lowest to the highest bit rate. The bit
+   * rate of a rendition is its average, the encoders cap the peak at a multiple of it.
+   */
+  static MasterPlaylist masterPlaylist(PackagingJobManifest manifest,
+      List<MediaVariant> renditions) {
+    final boolean hasAudio = !StringUtils.isEmpty(manifest.audioRelativePath());
+    final var builder = MasterPlaylist.builder().version(PLAYLIST_VERSION);
+
+    if (hasAudio) {
+      final var audio = MediaRendition.builder(AUDIO_GROUP_ID, "Audio", MediaRendition.Type.AUDIO)
+                            .defaultRendition()
+                            .autoSelect()
+                            .uri(URI.create(AUDIO_PLAYLIST_NAME));
+
+      if (!StringUtils.isEmpty(manifest.audioLanguage())) {
+        audio.language(manifest.audioLanguage());
+      }
+
+      builder.rendition(audio.build());
+    }
+
+    renditions.stream()
+        .sorted(Comparator.comparingInt(MediaVariant::bitRate))
+        .forEach(rendition -> builder.variant(variant -> {
+          variant.bandwidth(rendition.bitRate() * PEAK_BIT_RATE_FACTOR)
+              .averageBandwidth(rendition.bitRate())
+              .resolution(new Resolution(rendition.width(), rendition.height()))
+              .frameRate(manifest.frameRate())
+              .playlistUri(URI.create(rendition.directoryName() + "/" + MEDIA_PLAYLIST_NAME));
+
+          if (hasAudio) {
+            variant.audioRenditionGroup(AUDIO_GROUP_ID);
+          }
+        }));
+
+    return builder.build();
+  }
+
+  private static String key(PackagingJobManifest manifest, String relativePath) {
+    return manifest.keyPrefix() + "/" + relativePath;
+  }
+}
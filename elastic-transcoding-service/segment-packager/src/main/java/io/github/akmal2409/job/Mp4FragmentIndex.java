@@ -0,0 +1,173 @@
+package io.github.akmal2409.job;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Indexes the fragments of a fragmented MP4 while it is streamed through to the output, so that the
+ * byte ranges of the segments are known as soon as the last byte has been written without reading
+ * the file again. Only the headers of the top level boxes are parsed: the initialization section
+ * is everything before the first moof box (ftyp and moov) and a fragment spans a moof box and the
+ * mdat boxes after it. Other top level boxes, e.g. the mfra at the end, belong to no fragment.
+ */
+final class Mp4FragmentIndex extends OutputStream {
+
+  private static final int COMPACT_HEADER_SIZE = 8;
+  private static final int LARGE_HEADER_SIZE = 16;
+  private static final int INITIAL_CAPACITY = 256;
+
+  private final OutputStream out;
+
+  private final byte[] header = new byte[LARGE_HEADER_SIZE];
+  private int headerLength;
+  // bytes of the current box that are left after its header
+  private long remaining;
+  private long position;
+
+  private long initLength = -1;
+  private long[] fragmentOffsets = new long[INITIAL_CAPACITY];
+  private long[] fragmentLengths = new long[INITIAL_CAPACITY];
+  private int fragmentCount;
+
+  Mp4FragmentIndex(OutputStream out) {
+    this.out = out;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    write(new byte[]{(byte) b}, 0, 1);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    out.write(b, off, len);
+
+    final int end = off + len;
+    int i = off;
+
+    while (i < end) {
+      if (remaining > 0) {
+        final int skipped = (int) Math.min(remaining, end - i);
+
+        remaining -= skipped;
+        position += skipped;
+        i += skipped;
+        continue;
+      }
+
+      header[headerLength++] = b[i++];
+      position++;
+
+      if (headerLength == COMPACT_HEADER_SIZE) {
+        final long size = Integer.toUnsignedLong(readInt(0));
+
+        // size 1 means that a 64 bit size follows the type
+        if (size != 1) {
+          beginBox(size, COMPACT_HEADER_SIZE);
+        }
+      } else if (headerLength == LARGE_HEADER_SIZE) {
+        beginBox(((long) readInt(8) << 32) | Integer.toUnsignedLong(readInt(12)),
+            LARGE_HEADER_SIZE);
+      }
+    }
+  }
+
+  /**
+   * Checks that the stream has ended at a box boundary and contains at least one fragment.
+   */
+  void finish() throws IOException {
+    if (headerLength > 0 || remaining > 0) {
+      throw new IOException("Stream ended in the middle of a box at offset " + position);
+    }
+
+    if (fragmentCount == 0) {
+      throw new IOException("Stream has no fragments");
+    }
+
+    for (int i = 0; i < fragmentCount; i++) {
+      if (fragmentLengths[i] == 0) {
+        throw new IOException("Fragment " + i + " has no media data");
+      }
+    }
+  }
+
+  /**
+   * Length of the initialization section that starts at offset 0
+   */
+  long initLength() {
+    return initLength;
+  }
+
+  int fragmentCount() {
+    return fragmentCount;
+  }
+
+  long fragmentOffset(int fragment) {
+    return fragmentOffsets[fragment];
+  }
+
+  long fragmentLength(int fragment) {
+    return fragmentLengths[fragment];
+  }
+
+  /**
+   * Total number of bytes written
+   */
+  long size() {
+    return position;
+  }
+
+  @Override
+  public void flush() throws IOException {
+    out.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    out.close();
+  }
+
+  private void beginBox(long size, int headerSize) throws IOException {
+    final long boxOffset = position - headerSize;
+
+    if (size < headerSize) {
+      // 0 means that the box extends to the end of the stream, fragmented MP4 writers never do it
+      throw new IOException(
+          String.format("Unsupported box size %d at offset %d", size, boxOffset));
+    }
+
+    final String type = new String(header, 4, 4, StandardCharsets.US_ASCII);
+
+    if ("moof".equals(type)) {
+      if (initLength < 0) {
+        initLength = boxOffset;
+      }
+
+      ensureCapacity();
+      fragmentOffsets[fragmentCount] = boxOffset;
+      fragmentCount++;
+    } else if ("mdat".equals(type) && fragmentCount > 0) {
+      fragmentLengths[fragmentCount - 1] = boxOffset + size - fragmentOffsets[fragmentCount - 1];
+    }
+
+    remaining = size - headerSize;
+    headerLength = 0;
+  }
+
+  private int readInt(int offset) {
+    return ((header[offset] & 0xff) << 24) | ((header[offset + 1] & 0xff) << 16)
+               | ((header[offset + 2] & 0xff) << 8) | (header[offset + 3] & 0xff);
+  }
+
+  private void ensureCapacity() {
+    if (fragmentCount < fragmentOffsets.length) {
+      return;
+    }
+
+    final int capacity = fragmentCount + (fragmentCount >> 1);
+    fragmentOffsets = Arrays.copyOf(fragmentOffsets, capacity);
+    fragmentLengths = Arrays.copyOf(fragmentLengths, capacity);
+  }
+}
@@ -0,0 +1,154 @@
+package io.github.akmal2409.job;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+
+/**
+ * Uploads the bytes written to it as a multipart upload, one part as soon as it is full, so that an
+ * object of unknown size is uploaded while it is produced with one part in memory. Writes block
+ * while a part is being uploaded, which slows the producer down to the upload speed.
+ * <p>
+ * The upload is completed by {@link MultipartUploadStream#close()}, an upload that failed or is not
+ * needed must be aborted, otherwise S3 keeps its parts.
+ */
+final class MultipartUploadStream extends OutputStream {
+
+  private static final Logger log = LoggerFactory.getLogger(MultipartUploadStream.class);
+
+  /**
+   * S3 requires at least 5 MiB in every part except for the last one
+   */
+  static final int PART_SIZE_BYTES = 8 * 1024 * 1024;
+
+  private final S3AsyncClient s3Client;
+  private final String bucket;
+  private final String key;
+  private final String uploadId;
+  private final ByteBuffer part = ByteBuffer.allocate(PART_SIZE_BYTES);
+  private final List<CompletedPart> completedParts = new ArrayList<>();
+  private boolean closed;
+
+  MultipartUploadStream(S3AsyncClient s3Client, String bucket, String key, String contentType) {
+    this.s3Client = s3Client;
+    this.bucket = bucket;
+    this.key = key;
+
+    try {
+      this.uploadId = s3Client.createMultipartUpload(request -> request.bucket(bucket).key(key)
+                                                                    .contentType(contentType))
+                          .join().uploadId();
+    } catch (CompletionException e) {
+      throw new PackagingException(
+          String.format("Failed to start upload of %s to bucket %s", key, bucket), e.getCause());
+    }
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    ensureOpen();
+    part.put((byte) b);
+
+    if (!part.hasRemaining()) {
+      uploadPart();
+    }
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    ensureOpen();
+
+    while (len > 0) {
+      final int copied = Math.min(len, part.remaining());
+
+      part.put(b, off, copied);
+      off += copied;
+      len -= copied;
+
+      if (!part.hasRemaining()) {
+        uploadPart();
+      }
+    }
+  }
+
+  /**
+   * Uploads the last part and completes the upload.
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+
+    // an upload needs at least one part, even if it is empty
+    if (part.position() > 0 || completedParts.isEmpty()) {
+      uploadPart();
+    }
+
+    closed = true;
+
+    try {
+      s3Client.completeMultipartUpload(request -> request.bucket(bucket).key(key)
+                                                      .uploadId(uploadId)
+                                                      .multipartUpload(upload -> upload.parts(
+                                                          completedParts)))
+          .join();
+    } catch (CompletionException e) {
+      throw new IOException(
+          String.format("Failed to complete upload of %s to bucket %s", key, bucket),
+          e.getCause());
+    }
+  }
+
+  /**
+   * Discards the parts that have been uploaded.
+   */
+  void abort() {
+    closed = true;
+
+    try {
+      s3Client.abortMultipartUpload(request -> request.bucket(bucket).key(key).uploadId(uploadId))
+          .join();
+    } catch (CompletionException e) {
+      log.warn("message=Failed to abort upload;bucket={};key={};uploadId={}", bucket, key,
+          uploadId, e.getCause());
+    }
+  }
+
+  private void uploadPart() throws IOException {
+    final int partNumber = completedParts.size() + 1;
+
+    part.flip();
+
+    try {
+      final String eTag = s3Client.uploadPart(request -> request.bucket(bucket).key(key)
+                                                             .uploadId(uploadId)
+                                                             .partNumber(partNumber)
+                                                             .contentLength((long) part.remaining()),
+              AsyncRequestBody.fromByteBuffer(part))
+                              .join().eTag();
+
+      completedParts.add(CompletedPart.builder().partNumber(partNumber).eTag(eTag).build());
+    } catch (CompletionException e) {
+      throw new IOException(
+          String.format("Failed to upload part %d of %s to bucket %s", partNumber, key, bucket),
+          e.getCause());
+    }
+
+    part.clear();
+  }
+
+  private void ensureOpen() throws IOException {
+    if (closed) {
+      throw new IOException("Upload of " + key + " is closed");
+    }
+  }
+}
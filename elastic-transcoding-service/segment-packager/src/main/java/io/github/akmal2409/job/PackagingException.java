@@ -0,0 +1,12 @@
+package io.github.akmal2409.job;
+
+public class PackagingException extends RuntimeException {
+
+  public PackagingException(String message) {
+    super(message);
+  }
+
+  public PackagingException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -0,0 +1,56 @@
+package io.github.akmal2409.job;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded pool that the renditions of all the jobs are packaged on. The number of queued tasks is
+ * bounded by the channel prefetch times the renditions of a job, so the queue itself is not.
+ */
+public class PackagingExecutor implements AutoCloseable {
+
+  private static final Logger log = LoggerFactory.getLogger(PackagingExecutor.class);
+  private static final long SHUTDOWN_TIMEOUT_MINUTES = 5;
+
+  private final ThreadPoolExecutor executor;
+
+  public PackagingExecutor(int concurrency) {
+    if (concurrency < 1) {
+      throw new IllegalArgumentException("Concurrency must be positive, got " + concurrency);
+    }
+
+    final var threadCount = new AtomicInteger();
+
+    this.executor = new ThreadPoolExecutor(concurrency, concurrency, 0, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<>(),
+        runnable -> new Thread(runnable, "packaging-" + threadCount.incrementAndGet()));
+  }
+
+  /**
+   * Runs the task on the pool, the future completes with its result or exception.
+   */
+  public <T> CompletableFuture<T> submit(@NotNull Supplier<T> task) {
+    return CompletableFuture.supplyAsync(task, executor);
+  }
+
+  /**
+   * Stops accepting new tasks and waits for the running ones to complete.
+   */
+  @Override
+  public void close() throws InterruptedException {
+    executor.shutdown();
+
+    if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+      log.warn("message=Packaging did not complete within {} minutes, interrupting",
+          SHUTDOWN_TIMEOUT_MINUTES);
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,103 @@
+package io.github.akmal2409.job;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.AMQP.BasicProperties;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.DefaultConsumer;
+import com.rabbitmq.client.Envelope;
+import io.github.akmal2409.utils.StringUtils;
+import java.io.IOException;
+import java.util.concurrent.CompletionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Consumes the jobs whose segments have all been transcoded and packages them with the
+ * {@link HlsPackager}. The dispatch thread only parses the manifest, the delivery is acknowledged
+ * from the packaging pool once the master playlist has been uploaded, see
+ * {@link DeliveryAcknowledgements} for how failed jobs are handled.
+ */
+public class PackagingJobConsumer extends DefaultConsumer {
+
+  private static final Logger log = LoggerFactory.getLogger(PackagingJobConsumer.class);
+
+  private final ObjectMapper mapper;
+  private final HlsPackager packager;
+
+  public PackagingJobConsumer(Channel channel, ObjectMapper mapper, HlsPackager packager) {
+    super(channel);
+    this.mapper = mapper;
+    this.packager = packager;
+  }
+
+  @Override
+  public void handleDelivery(String consumerTag, Envelope envelope, BasicProperties properties,
+      byte[] body) throws IOException {
+    final PackagingJobManifest manifest;
+
+    try {
+      manifest = readManifest(body);
+    } catch (InvalidManifestException e) {
+      DeliveryAcknowledgements.complete(getChannel(), envelope, e);
+      return;
+    }
+
+    log.debug(
+        "message=Validated manifest. Starting with the job;jobId={};consumerTag={};jobType=packaging_job",
+        manifest.jobId(), consumerTag);
+
+    packager.pack(manifest).whenComplete((ignored, failure) -> {
+      final Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                                  ? failure.getCause() : failure;
+
+      if (cause == null) {
+        log.debug("message=Packaged job;jobId={};consumerTag={};jobType=packaging_job",
+            manifest.jobId(), consumerTag);
+      }
+
+      DeliveryAcknowledgements.complete(getChannel(), envelope, cause);
+    });
+  }
+
+  private PackagingJobManifest readManifest(byte[] body) throws IOException {
+    final PackagingJobManifest manifest;
+
+    try {
+      manifest = mapper.readValue(body, PackagingJobManifest.class);
+    } catch (JsonProcessingException e) {
+      throw new InvalidManifestException("body", null, e.getOriginalMessage());
+    }
+
+    validateManifest(manifest);
+    return manifest;
+  }
+
+  private void validateManifest(PackagingJobManifest manifest) {
+    if (manifest.jobId() == null) {
+      throw new InvalidManifestException("jobId", null, "empty");
+    }
+
+    if (StringUtils.isEmpty(manifest.bucket())) {
+      throw new InvalidManifestException("bucket", manifest.bucket(), "empty");
+    }
+
+    if (StringUtils.isEmpty(manifest.keyPrefix())) {
+      throw new InvalidManifestException("keyPrefix", manifest.keyPrefix(), "empty");
+    }
+
+    if (manifest.gopSize() < 1) {
+      throw new InvalidManifestException("gopSize", manifest.gopSize(), "not positive");
+    }
+
+    try {
+      FrameRate.of(manifest.frameRate());
+    } catch (IllegalArgumentException e) {
+      throw new InvalidManifestException("frameRate", manifest.frameRate(), e.getMessage());
+    }
+
+    if (manifest.frameCount() < 1) {
+      throw new InvalidManifestException("frameCount", manifest.frameCount(), "not positive");
+    }
+  }
+}
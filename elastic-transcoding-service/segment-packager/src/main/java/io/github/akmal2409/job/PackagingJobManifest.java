@@ -1,15 +1,39 @@
 package io.github.akmal2409.job;
 
 
-public record PackagingJob(
+import java.util.Optional;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Manifest of a job whose segments have all been transcoded and can be packaged. The transcoded
+ * renditions are located under the key prefix in the directories named after the
+ * {@link MediaVariant}, the playlists are uploaded next to them.
+ *
+ * @param jobId             id of the transcoding job
+ * @param bucket            S3 bucket with the transcoded media
+ * @param keyPrefix         common key prefix of the job output, e.g. job-{jobId}
+ * @param gopSize           number of frames of every segment except for the last one
+ * @param frameRate         frame rate of the video
+ * @param frameCount        total number of frames of the video
+ * @param audioRelativePath path of the transcoded audio relative to the key prefix, null if the
+ *                          video has no audio
+ * @param audioLanguage     language of the audio (RFC 5646 tag), optional
+ */
+public record PackagingJobManifest(
+    UUID jobId,
+    String bucket,
+    String keyPrefix,
     int gopSize,
     double frameRate,
-    String audioRelativePath
-
+    long frameCount,
+    String audioRelativePath,
+    String audioLanguage
 ) {
 
   /**
-   * Using 3 values of width, height and bitRate we can
+   * Using 3 values of width, height and bitRate we can identify the directory of a rendition,
+   * e.g. 1280x720-6000000
    * @param width
    * @param height
    * @param bitRate
@@ -17,16 +41,43 @@ public record PackagingJob(
   public static record MediaVariant(
       int width,
       int height,
-      int bitRate, // in bits per second
-  ) {}
+      int bitRate // in bits per second
+  ) {
+
+    private static final Pattern DIRECTORY_NAME_PATTERN = Pattern.compile(
+        "^(?<width>\\d+)x(?<height>\\d+)-(?<bitRate>\\d+)$");
+
+    /**
+     * @param directoryName name of the rendition directory without slashes
+     * @return variant or empty if the directory is not a rendition
+     */
+    public static Optional<MediaVariant> fromDirectoryName(String directoryName) {
+      final var matcher = DIRECTORY_NAME_PATTERN.matcher(directoryName);
+
+      if (!matcher.matches()) {
+        return Optional.empty();
+      }
+
+      try {
+        return Optional.of(new MediaVariant(Integer.parseInt(matcher.group("width")),
+            Integer.parseInt(matcher.group("height")),
+            Integer.parseInt(matcher.group("bitRate"))));
+      } catch (NumberFormatException e) {
+        return Optional.empty();
+      }
+    }
+
+    public String directoryName() {
+      return String.format("%dx%d-%d", width, height, bitRate);
+    }
+  }
 
   /**
    * Since all segments except for the last one hae a fixed Group Of Pictures size
-   * then gopSize/frameRate rounded to 3 decimals (according to HLS) should be used as a
-   * max segment duration
-   * Max Segment Duration = ceil((gopSize / frameRate) * 1000) / 1000.0f
+   * then gopSize/frameRate rounded up to whole seconds (according to HLS) should be used as a
+   * max segment duration, see {@link SegmentDurations#maximumSegmentDuration()}
    */
-  public float maximumSegmentDuration() {
-    return ((float) Math.ceil((gopSize / frameRate) * 1_000)) / 1_000.0f;
+  public int maximumSegmentDuration() {
+    return SegmentDurations.of(this).maximumSegmentDuration();
   }
 }
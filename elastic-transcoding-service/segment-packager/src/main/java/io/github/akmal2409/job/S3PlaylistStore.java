@@ -0,0 +1,157 @@
+package io.github.akmal2409.job;
+
+import io.github.akmal2409.hls.Playlist;
+import io.github.akmal2409.hls.PlaylistWriter;
+import io.github.akmal2409.job.PackagingJobManifest.MediaVariant;
+import io.github.akmal2409.job.video.SegmentConstants;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.CommonPrefix;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+/**
+ * Lists the transcoded media of a job and uploads its playlists. Calls block the calling thread,
+ * they are made from the packaging pool.
+ */
+public class S3PlaylistStore {
+
+  private static final Logger log = LoggerFactory.getLogger(S3PlaylistStore.class);
+
+  private static final String PLAYLIST_CONTENT_TYPE = "application/vnd.apple.mpegurl";
+
+  private final S3AsyncClient s3Client;
+
+  public S3PlaylistStore(S3AsyncClient s3Client) {
+    this.s3Client = s3Client;
+  }
+
+  /**
+   * Lists the rendition directories directly under the key prefix, other directories are skipped.
+   *
+   * @param keyPrefix common prefix of the job output without the trailing slash
+   */
+  public List<MediaVariant> listRenditions(String bucket, String keyPrefix) {
+    final var renditions = new ArrayList<MediaVariant>();
+    final String directoryPrefix = keyPrefix + "/";
+
+    listObjects(bucket, directoryPrefix, response -> {
+      for (CommonPrefix commonPrefix : response.commonPrefixes()) {
+        // common prefixes end with the delimiter
+        final String prefix = commonPrefix.prefix();
+        final String directoryName = prefix.substring(directoryPrefix.length(),
+            prefix.length() - 1);
+
+        MediaVariant.fromDirectoryName(directoryName).ifPresent(renditions::add);
+      }
+    });
+
+    return renditions;
+  }
+
+  /**
+   * Lists the segment files of a rendition.
+   *
+   * @param renditionPrefix key prefix of the rendition without the trailing slash
+   * @return set of indexes of the segments that are present
+   */
+  public BitSet listSegmentIndexes(String bucket, String renditionPrefix) {
+    final var indexes = new BitSet();
+    final String directoryPrefix = renditionPrefix + "/";
+
+    listObjects(bucket, directoryPrefix, response -> {
+      for (S3Object object : response.contents()) {
+        final var matcher = SegmentConstants.SEGMENT_FILE_NAME_REGEX_PATTERN.matcher(
+            object.key().substring(directoryPrefix.length()));
+
+        if (matcher.matches()) {
+          indexes.set(Integer.parseInt(
+              matcher.group(SegmentConstants.SEGMENT_FILE_NAME_INDEX_CAPTURING_GROUP_NAME)));
+        }
+      }
+    });
+
+    return indexes;
+  }
+
+  public boolean exists(String bucket, String key) {
+    try {
+      s3Client.headObject(request -> request.bucket(bucket).key(key)).join();
+      return true;
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof NoSuchKeyException) {
+        return false;
+      }
+
+      throw new PackagingException(
+          String.format("Failed to check object %s in bucket %s", key, bucket), e.getCause());
+    }
+  }
+
+  /**
+   * Writes the playlist into memory and uploads it. Playlists take a few bytes per segment, so
+   * even the ones of long videos are small.
+   */
+  public void upload(String bucket, String key, Playlist playlist) {
+    final var out = new ByteArrayOutputStream();
+
+    try (var writer = PlaylistWriter.to(Channels.newChannel(out))) {
+      playlist.write(writer);
+    } catch (IOException e) {
+      // ByteArrayOutputStream does not throw
+      throw new PackagingException("Failed to write playlist " + key, e);
+    }
+
+    try {
+      s3Client.putObject(request -> request.bucket(bucket).key(key)
+                                        .contentType(PLAYLIST_CONTENT_TYPE),
+          AsyncRequestBody.fromBytes(out.toByteArray())).join();
+    } catch (CompletionException e) {
+      throw new PackagingException(
+          String.format("Failed to upload playlist %s to bucket %s", key, bucket), e.getCause());
+    }
+
+    log.debug("message=Uploaded playlist;bucket={};key={};bytes={}", bucket, key, out.size());
+  }
+
+  /**
+   * Lists the objects and the common prefixes directly under the prefix page by page.
+   */
+  private void listObjects(String bucket, String prefix,
+      Consumer<ListObjectsV2Response> pageConsumer) {
+    String continuationToken = null;
+
+    try {
+      do {
+        final var request = ListObjectsV2Request.builder()
+                                .bucket(bucket)
+                                .prefix(prefix)
+                                .delimiter("/")
+                                .continuationToken(continuationToken)
+                                .build();
+
+        final ListObjectsV2Response response = s3Client.listObjectsV2(request).join();
+        pageConsumer.accept(response);
+
+        continuationToken = Boolean.TRUE.equals(response.isTruncated())
+                                ? response.nextContinuationToken() : null;
+      } while (continuationToken != null);
+    } catch (CompletionException e) {
+      throw new PackagingException(
+          String.format("Failed to list objects with prefix %s in bucket %s", prefix, bucket),
+          e.getCause());
+    }
+  }
+}
@@ -0,0 +1,112 @@
+package io.github.akmal2409.job;
+
+import com.github.kokorin.jaffree.JaffreeException;
+import com.github.kokorin.jaffree.ffprobe.FFprobe;
+import com.github.kokorin.jaffree.ffprobe.FFprobeResult;
+import io.github.akmal2409.job.video.SegmentConstants;
+import java.nio.file.Path;
+import java.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+/**
+ * Checks the durations computed by {@link SegmentDurations} against a few probed segments of a
+ * rendition: the first one, the last one that has the remaining frames and the ones evenly spaced
+ * between them. ffprobe reads the segments from presigned URLs, so they are not downloaded to the node.
+ * <p>
+ * It catches transcoders that did not cut the segments to the frame ranges, which would make the
+ * players drift, at the cost of a few ffprobe launches per rendition.
+ */
+public class SampledDurationProbe {
+
+  private static final Logger log = LoggerFactory.getLogger(SampledDurationProbe.class);
+  private static final Duration URL_VALIDITY = Duration.ofMinutes(5);
+
+  private final S3Presigner presigner;
+  private final Path binariesPath;
+  private final int samples;
+
+  /**
+   * @param binariesPath directory with the ffprobe binary
+   * @param samples      number of segments probed per rendition
+   */
+  public SampledDurationProbe(S3Presigner presigner, Path binariesPath, int samples) {
+    if (samples < 1) {
+      throw new IllegalArgumentException("Number of samples must be positive, got " + samples);
+    }
+
+    this.presigner = presigner;
+    this.binariesPath = binariesPath;
+    this.samples = samples;
+  }
+
+  /**
+   * @param renditionPrefix key prefix of the rendition without the trailing slash
+   * @throws PackagingException if a probed segment differs from its computed duration by more
+   *                            than a frame
+   */
+  public void verify(String bucket, String renditionPrefix, SegmentDurations durations) {
+    final FrameRate frameRate = durations.frameRate();
+    final double frameDuration = (double) frameRate.denominator() / frameRate.numerator();
+
+    for (int index : sampleIndexes(durations.segmentCount(), samples)) {
+      final String key = renditionPrefix + "/" + SegmentConstants.segmentIndexToFileName(index);
+      final double probed = probeDuration(bucket, key);
+      final double expected = durations.duration(index);
+
+      if (Math.abs(probed - expected) > frameDuration) {
+        throw new PackagingException(
+            String.format("Segment %s lasts %f seconds, expected %f from its %d frames", key,
+                probed, expected, durations.frameCount(index)));
+      }
+    }
+
+    log.debug("message=Verified segment durations;bucket={};prefix={};samples={}", bucket,
+        renditionPrefix, Math.min(samples, durations.segmentCount()));
+  }
+
+  /**
+   * Picks up to the given number of indexes evenly from 0 to the last segment inclusive
+   */
+  static int[] sampleIndexes(int segmentCount, int samples) {
+    final int count = Math.min(segmentCount, samples);
+
+    if (count == 1) {
+      return new int[]{segmentCount - 1};
+    }
+
+    final var indexes = new int[count];
+
+    for (int i = 0; i < count; i++) {
+      indexes[i] = (int) ((long) i * (segmentCount - 1) / (count - 1));
+    }
+
+    return indexes;
+  }
+
+  private double probeDuration(String bucket, String key) {
+    final String url = presigner.presignGetObject(request -> request
+        .signatureDuration(URL_VALIDITY)
+        .getObjectRequest(get -> get.bucket(bucket).key(key))
+    ).url().toString();
+
+    final FFprobeResult result;
+
+    try {
+      result = FFprobe.atPath(binariesPath)
+                   .setShowEntries("stream=duration")
+                   .setSelectStreams("v:0")
+                   .setInput(url)
+                   .execute();
+    } catch (JaffreeException e) {
+      throw new PackagingException("Failed to probe segment " + key, e);
+    }
+
+    if (result.getStreams().isEmpty() || result.getStreams().get(0).getDuration() == null) {
+      throw new PackagingException("Segment " + key + " has no video stream duration");
+    }
+
+    return result.getStreams().get(0).getDuration();
+  }
+}
@@ -0,0 +1,112 @@
+package io.github.akmal2409.job;
+
+/**
+ * Durations of the transcoded segments of a job computed from the frame ranges alone. The
+ * transcoders cut every segment to exactly gopSize frames except for the last one, so a segment
+ * lasts its number of frames over the exact frame rate and there is no need to probe any of them.
+ * <p>
+ * Durations are rounded to microseconds, as ffmpeg writes them in its own playlists. Every full
+ * segment has the same duration, so a playlist of any length takes two divisions.
+ */
+public final class SegmentDurations {
+
+  private final FrameRate frameRate;
+  private final int gopSize;
+  private final long frameCount;
+  private final int segmentCount;
+  private final long fullSegmentMicros;
+  private final long lastSegmentMicros;
+
+  public SegmentDurations(FrameRate frameRate, int gopSize, long frameCount) {
+    if (gopSize < 1 || frameCount < 1) {
+      throw new IllegalArgumentException(
+          String.format("Group of pictures size and frame count must be positive, got %d and %d",
+              gopSize, frameCount));
+    }
+
+    final long segments = (frameCount + gopSize - 1) / gopSize;
+
+    if (segments > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Too many segments: " + segments);
+    }
+
+    this.frameRate = frameRate;
+    this.gopSize = gopSize;
+    this.frameCount = frameCount;
+    this.segmentCount = (int) segments;
+    this.fullSegmentMicros = frameRate.durationMicros(gopSize);
+    this.lastSegmentMicros = frameRate.durationMicros(
+        frameCount - (long) (segmentCount - 1) * gopSize);
+  }
+
+  public static SegmentDurations of(PackagingJobManifest manifest) {
+    return new SegmentDurations(FrameRate.of(manifest.frameRate()), manifest.gopSize(),
+        manifest.frameCount());
+  }
+
+  public FrameRate frameRate() {
+    return frameRate;
+  }
+
+  public int segmentCount() {
+    return segmentCount;
+  }
+
+  /**
+   * Index of the first frame of the segment in the video
+   */
+  public long firstFrame(int index) {
+    checkIndex(index);
+    return (long) index * gopSize;
+  }
+
+  public long frameCount(int index) {
+    checkIndex(index);
+    return Math.min(gopSize, frameCount - (long) index * gopSize);
+  }
+
+  /**
+   * Duration of the segment rounded half up to microseconds
+   */
+  public long durationMicros(int index) {
+    checkIndex(index);
+    return index == segmentCount - 1 ? lastSegmentMicros : fullSegmentMicros;
+  }
+
+  /**
+   * Duration of the segment in seconds for the #EXTINF tag
+   */
+  public double duration(int index) {
+    return durationMicros(index) / 1_000_000.0;
+  }
+
+  /**
+   * Duration of the whole video rounded half up to microseconds
+   */
+  public long totalDurationMicros() {
+    return frameRate.durationMicros(frameCount);
+  }
+
+  public double totalDuration() {
+    return totalDurationMicros() / 1_000_000.0;
+  }
+
+  /**
+   * Since all segments except for the last one have a fixed Group Of Pictures size, the duration of
+   * a full segment is the max segment duration. #EXT-X-TARGETDURATION is a whole number of seconds
+   * that every #EXTINF rounded to the nearest integer must not exceed, so it is rounded up to
+   * seconds.
+   */
+  public int maximumSegmentDuration() {
+    final long micros = segmentCount == 1 ? lastSegmentMicros : fullSegmentMicros;
+
+    return Math.toIntExact((micros + 999_999) / 1_000_000);
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= segmentCount) {
+      throw new IndexOutOfBoundsException(
+          String.format("No segment %d, there are %d segments", index, segmentCount));
+    }
+  }
+}
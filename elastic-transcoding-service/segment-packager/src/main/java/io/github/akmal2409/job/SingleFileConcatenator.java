@@ -0,0 +1,159 @@
+package io.github.akmal2409.job;
+
+import com.github.kokorin.jaffree.JaffreeException;
+import com.github.kokorin.jaffree.ffmpeg.FFmpeg;
+import com.github.kokorin.jaffree.ffmpeg.PipeOutput;
+import com.github.kokorin.jaffree.ffmpeg.UrlInput;
+import io.github.akmal2409.job.video.SegmentConstants;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+/**
+ * Concatenates the segments of a rendition into a single fragmented MP4 with one initialization
+ * section and a fragment per segment, so that a rendition is one object instead of thousands. The
+ * transcoded segments and audio are progressive MP4s, which a playlist cannot refer to, hence, the
+ * audio is remuxed into a fragmented MP4 as well.
+ * <p>
+ * ffmpeg reads the segments from presigned URLs through the concat demuxer and copies the video
+ * stream without encoding it. Since every segment starts with the only keyframe of its group of
+ * pictures, fragmenting at keyframes gives exactly one fragment per segment. The output is indexed
+ * by {@link Mp4FragmentIndex} and uploaded by {@link MultipartUploadStream} while ffmpeg writes
+ * it, the file never touches the disk.
+ */
+public class SingleFileConcatenator {
+
+  private static final Logger log = LoggerFactory.getLogger(SingleFileConcatenator.class);
+
+  private static final String CONTENT_TYPE = "video/mp4";
+  private static final Duration URL_VALIDITY = Duration.ofHours(1);
+  private static final String PROTOCOL_WHITELIST = "file,http,https,tcp,tls,crypto";
+  private static final String FRAGMENT_FLAGS = "+frag_keyframe+empty_moov+default_base_moof";
+  // without flushes the muxer writes a single fragment once the input ends
+  private static final String SINGLE_FRAGMENT_FLAGS = "+frag_custom+empty_moov+default_base_moof";
+
+  private final S3AsyncClient s3Client;
+  private final S3Presigner presigner;
+  private final Path binariesPath;
+
+  /**
+   * @param binariesPath directory with the ffmpeg binary
+   */
+  public SingleFileConcatenator(S3AsyncClient s3Client, S3Presigner presigner,
+      Path binariesPath) {
+    this.s3Client = s3Client;
+    this.presigner = presigner;
+    this.binariesPath = binariesPath;
+  }
+
+  /**
+   * Concatenates the segments 0 to segmentCount - 1 of the rendition and uploads the result.
+   *
+   * @param renditionPrefix key prefix of the rendition without the trailing slash
+   * @param key             of the concatenated file
+   * @return byte ranges of the initialization section and of the fragments in the file
+   */
+  Mp4FragmentIndex concatenate(String bucket, String renditionPrefix, int segmentCount,
+      String key) {
+    final Path segmentList = writeSegmentList(bucket, renditionPrefix, segmentCount);
+
+    try {
+      return fragment(bucket, UrlInput.fromPath(segmentList)
+                                  .setFormat("concat")
+                                  .addArguments("-safe", "0")
+                                  .addArguments("-protocol_whitelist", PROTOCOL_WHITELIST),
+          "0:v", FRAGMENT_FLAGS, key);
+    } finally {
+      try {
+        Files.deleteIfExists(segmentList);
+      } catch (IOException e) {
+        log.warn("message=Failed to delete segment list;path={}", segmentList, e);
+      }
+    }
+  }
+
+  /**
+   * Remuxes the audio into a fragmented MP4 with an initialization section and a single fragment,
+   * since a playlist cannot refer to a progressive MP4. The audio is copied without encoding it,
+   * the muxer keeps the fragment in memory until the end, which for compressed audio is a few
+   * hundred KiB per minute.
+   *
+   * @param audioKey of the transcoded audio
+   * @param key      of the fragmented audio
+   * @return byte ranges of the initialization section and of the fragment in the file
+   */
+  Mp4FragmentIndex fragmentAudio(String bucket, String audioKey, String key) {
+    final String url = presigner.presignGetObject(request -> request
+        .signatureDuration(URL_VALIDITY)
+        .getObjectRequest(get -> get.bucket(bucket).key(audioKey))
+    ).url().toString();
+
+    return fragment(bucket, UrlInput.fromUrl(url), "0:a", SINGLE_FRAGMENT_FLAGS, key);
+  }
+
+  private Mp4FragmentIndex fragment(String bucket, UrlInput input, String streams,
+      String movFlags, String key) {
+    final var upload = new MultipartUploadStream(s3Client, bucket, key, CONTENT_TYPE);
+    final var index = new Mp4FragmentIndex(upload);
+
+    try {
+      FFmpeg.atPath(binariesPath)
+          .addInput(input)
+          .addOutput(PipeOutput.pumpTo(index)
+                         .setFormat("mp4")
+                         .addArguments("-map", streams)
+                         .addArguments("-c", "copy")
+                         .addArguments("-movflags", movFlags))
+          .execute();
+
+      index.finish();
+      upload.close();
+    } catch (JaffreeException | IOException e) {
+      upload.abort();
+      throw new PackagingException("Failed to write fragmented MP4 " + key, e);
+    }
+
+    log.debug("message=Wrote fragmented MP4;bucket={};key={};fragments={};bytes={}", bucket, key,
+        index.fragmentCount(), index.size());
+
+    return index;
+  }
+
+  /**
+   * Writes the concat demuxer list of presigned URLs of the segments in order.
+   */
+  private Path writeSegmentList(String bucket, String renditionPrefix, int segmentCount) {
+    try {
+      final Path segmentList = Files.createTempFile("segments-", ".txt");
+
+      try (BufferedWriter writer = Files.newBufferedWriter(segmentList,
+          StandardCharsets.UTF_8)) {
+        for (int i = 0; i < segmentCount; i++) {
+          final String segmentKey =
+              renditionPrefix + "/" + SegmentConstants.segmentIndexToFileName(i);
+          final String url = presigner.presignGetObject(request -> request
+              .signatureDuration(URL_VALIDITY)
+              .getObjectRequest(get -> get.bucket(bucket).key(segmentKey))
+          ).url().toString();
+
+          // presigned URLs are percent-encoded, so they have no quotes to escape
+          writer.write("file '");
+          writer.write(url);
+          writer.write("'");
+          writer.newLine();
+        }
+      }
+
+      return segmentList;
+    } catch (IOException e) {
+      throw new PackagingException("Failed to write segment list of " + renditionPrefix, e);
+    }
+  }
+}
@@ -13,4 +13,19 @@ public final class StringUtils {
   public static String toQuotedString(String text) {
     return String.format("\"%s\"", text);
   }
+
+  public static String padLeft(String s, int targetLength, char paddingChar) {
+    if (s == null) throw new NullPointerException("Cannot pad string that is null");
+    else if (s.length() >= targetLength) return s;
+
+    final StringBuilder sb = new StringBuilder();
+
+    for (int padCount = targetLength - s.length(); padCount > 0; padCount--) {
+      sb.append(paddingChar);
+    }
+
+    sb.append(s);
+
+    return sb.toString();
+  }
 }
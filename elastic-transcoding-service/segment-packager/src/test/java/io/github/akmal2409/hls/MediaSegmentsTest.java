@@ -0,0 +1,189 @@
+package io.github.akmal2409.hls;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.github.akmal2409.hls.tag.Tag;
+import io.github.akmal2409.hls.tag.TagValue.SingleTagValue;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class MediaSegmentsTest {
+
+  static final SegmentUriTemplate TEMPLATE = SegmentUriTemplate.parse("720p/segment-%08d.mp4");
+  static final double[] DURATIONS = {5.005, 4.0, 2.5, 0.04, 6.006};
+
+  final MediaSegments segments = new MediaSegments();
+
+  /**
+   * Segments as MediaPlaylist used to keep them, a set of tags per segment
+   */
+  final List<Set<Tag>> segmentTagSets = new ArrayList<>();
+
+  @Test
+  @DisplayName("Template segments are written as the tag sets of each segment were")
+  void templateSegmentsMatchTagSerialisation() throws IOException {
+    segments.uriTemplate(TEMPLATE);
+
+    for (int i = 0; i < 40; i++) {
+      addFromTemplate(i);
+    }
+
+    assertThat(segments.size()).isEqualTo(40);
+    assertThat(write(segments)).isEqualTo(tagSerialisation(segmentTagSets));
+  }
+
+  @Test
+  @DisplayName("URI and byte range columns allocated after the first growth keep up with later growth")
+  void lazyColumnsGrowWithSegments() throws IOException {
+    segments.uriTemplate(TEMPLATE);
+
+    // the columns grow at 16, 24, 36 and 54 segments, the URIs and byte ranges start in between
+    for (int i = 0; i < 70; i++) {
+      if (i == 20 || i == 53) {
+        addUri(i, URI.create("720p/ad-" + i + ".mp4"));
+      } else if (i >= 30 && i % 7 == 2) {
+        addByteRange(i, URI.create("720p/single.mp4"), 1_000 + i, 10_000L * i);
+      } else {
+        addFromTemplate(i);
+      }
+    }
+
+    assertThat(segments.size()).isEqualTo(70);
+    assertThat(segments.uri(19)).isEqualTo(TEMPLATE.uri(19));
+    assertThat(segments.uri(20)).isEqualTo(URI.create("720p/ad-20.mp4"));
+    assertThat(segments.uri(37)).isEqualTo(URI.create("720p/single.mp4"));
+    assertThat(segments.uri(53)).isEqualTo(URI.create("720p/ad-53.mp4"));
+    assertThat(segments.uri(69)).isEqualTo(TEMPLATE.uri(69));
+    assertThat(segments.duration(69)).isEqualTo(DURATIONS[69 % DURATIONS.length]);
+
+    final String expected = tagSerialisation(segmentTagSets);
+    assertThat(write(segments)).isEqualTo(expected);
+
+    segments.trim();
+    assertThat(write(segments)).isEqualTo(expected);
+  }
+
+  @Test
+  @DisplayName("Segment tags are written before the #EXTINF of their segment only")
+  void segmentTagsPrecedeTheirSegment() throws IOException {
+    segments.uriTemplate(TEMPLATE);
+
+    for (int i = 0; i < 20; i++) {
+      addFromTemplate(i);
+    }
+
+    // added out of order and twice for the same segment
+    tag(17, Tag.fromKey("EXT-X-DISCONTINUITY"));
+    tag(0, Tag.fromKV("EXT-X-PROGRAM-DATE-TIME", new SingleTagValue("2023-08-01T10:00:00Z")));
+    tag(5, Tag.fromKey("EXT-X-DISCONTINUITY"));
+    tag(5, Tag.fromKey("EXT-X-GAP"));
+    tag(19, Tag.fromKey("EXT-X-GAP"));
+
+    assertThat(write(segments)).isEqualTo(tagSerialisation(segmentTagSets));
+  }
+
+  @Test
+  @DisplayName("Rejects segments by index without a template, invalid byte ranges and missing positions")
+  void rejectsInvalidSegments() {
+    assertThatThrownBy(() -> segments.add(5.005, 0))
+        .isInstanceOf(IllegalStateException.class);
+    assertThatThrownBy(() -> segments.add(5.005, URI.create("a.mp4"), 0, 0))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> segments.add(5.005, URI.create("a.mp4"), 10, -1))
+        .isInstanceOf(IllegalArgumentException.class);
+
+    segments.add(5.005, URI.create("a.mp4"));
+
+    assertThatThrownBy(() -> segments.tags(1, List.of(Tag.fromKey("EXT-X-GAP"))))
+        .isInstanceOf(IndexOutOfBoundsException.class);
+    assertThatThrownBy(() -> segments.duration(-1))
+        .isInstanceOf(IndexOutOfBoundsException.class);
+    assertThatThrownBy(() -> segments.uri(1))
+        .isInstanceOf(IndexOutOfBoundsException.class);
+  }
+
+  void addFromTemplate(int index) {
+    final double duration = DURATIONS[index % DURATIONS.length];
+    segments.add(duration, index);
+    segmentTagSets.add(tagSet(duration, null, TEMPLATE.uri(index)));
+  }
+
+  void addUri(int index, URI uri) {
+    final double duration = DURATIONS[index % DURATIONS.length];
+    segments.add(duration, uri);
+    segmentTagSets.add(tagSet(duration, null, uri));
+  }
+
+  void addByteRange(int index, URI uri, long length, long offset) {
+    final double duration = DURATIONS[index % DURATIONS.length];
+    segments.add(duration, uri, length, offset);
+    segmentTagSets.add(tagSet(duration, Tag.fromKV(MediaPlaylistTags.BYTE_RANGE,
+        new SingleTagValue(length + "@" + offset)), uri));
+  }
+
+  void tag(int position, Tag tag) {
+    segments.tags(position, List.of(tag));
+
+    // segment tags come first in the set of the segment
+    final var tags = new LinkedHashSet<Tag>();
+    tags.addAll(segmentTagSets.get(position).stream().filter(t -> !isSegmentLine(t)).toList());
+    tags.add(tag);
+    tags.addAll(segmentTagSets.get(position).stream().filter(MediaSegmentsTest::isSegmentLine)
+                    .toList());
+    segmentTagSets.set(position, tags);
+  }
+
+  static boolean isSegmentLine(Tag tag) {
+    return tag.key().isEmpty()
+               || tag.key().get().equals(MediaPlaylistTags.EXTINF)
+               || tag.key().get().equals(MediaPlaylistTags.BYTE_RANGE);
+  }
+
+  static Set<Tag> tagSet(double duration, Tag byteRange, URI uri) {
+    final var tags = new LinkedHashSet<Tag>();
+    // as the float durations used to be written
+    tags.add(Tag.fromKV(MediaPlaylistTags.EXTINF, new SingleTagValue((float) duration + ",")));
+
+    if (byteRange != null) {
+      tags.add(byteRange);
+    }
+
+    tags.add(Tag.fromUri(uri));
+    return tags;
+  }
+
+  /**
+   * Serialises the segments the way MediaPlaylist did when every segment was a set of tags
+   */
+  static String tagSerialisation(List<Set<Tag>> segmentTagSets) {
+    final var builder = new StringBuilder();
+
+    for (Set<Tag> tags : segmentTagSets) {
+      for (Tag tag : tags) {
+        builder.append(tag.serialise());
+        builder.append("\n");
+      }
+
+      builder.append("\n");
+    }
+
+    return builder.toString();
+  }
+
+  static String write(MediaSegments segments) throws IOException {
+    final var builder = new StringBuilder();
+
+    try (var writer = PlaylistWriter.to(builder)) {
+      segments.writeTo(writer);
+    }
+
+    return builder.toString();
+  }
+}
@@ -0,0 +1,343 @@
+package io.github.akmal2409.hls;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.github.akmal2409.hls.codec.Codec;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class PlaylistWriterTest {
+
+  static final String HEADER = """
+      #EXTM3U
+
+
+      ##########################################################################
+      # This playlist has been auto generated by the segment-packager library  #
+      # Do not modify this file directly                                        #
+      ##########################################################################
+
+
+      #EXT-X-VERSION:3
+      """;
+
+  /**
+   * Output of the tag based MediaPlaylist#serialise() that the writer replaced, with the target
+   * duration as the decimal integer that HLS requires
+   */
+  static final String MEDIA_PLAYLIST = HEADER + """
+      #EXT-X-TARGETDURATION:6
+
+      #EXT-X-PLAYLIST-TYPE:VOD
+      #EXT-X-MEDIA-SEQUENCE:0
+      #EXTINF:5.005,
+      720p/segment-00000000.mp4
+
+      #EXTINF:5.005,
+      720p/segment-00000001.mp4
+
+      #EXTINF:2.5,
+      720p/s\u00e9gment-00000002.mp4
+
+      #EXTINF:0.04,
+      720p/segment-00000003.mp4
+
+      #EXT-X-ENDLIST
+
+      """;
+
+  /**
+   * Output of the tag based MasterPlaylist#serialise() that the writer replaced, with the playlist
+   * URIs of the variant streams which it used to leave out
+   */
+  static final String MASTER_PLAYLIST = HEADER + """
+
+
+      #EXT-X-MEDIA:TYPE=AUDIO,GROUP-ID="aac",NAME="English",URI="audio/en/index.m3u8",LANGUAGE="en",DEFAULT=YES,AUTOSELECT=YES
+      #EXT-X-MEDIA:TYPE=AUDIO,GROUP-ID="aac",NAME="Espa\u00f1ol",URI="audio/es/index.m3u8",LANGUAGE="es",AUTOSELECT=YES
+
+
+      #EXT-X-STREAM-INF:BANDWIDTH=5000000,AVERAGE-BANDWIDTH=4500000,CODECS="avc1.640028",RESOLUTION=1920x1080,FRAME-RATE=29.97,AUDIO="aac"
+      video/1080p/index.m3u8
+
+      #EXT-X-STREAM-INF:BANDWIDTH=800000,CODECS="avc1.4d001e",RESOLUTION=640x360,FRAME-RATE=25.0,AUDIO="aac"
+      video/360p/index.m3u8
+
+      """;
+
+  @BeforeEach
+  void setUp() {
+    PlaylistWriter.BUFFER_POOL.clear();
+  }
+
+  @Test
+  @DisplayName("serialise() of a media playlist is the same as the tag based serialisation")
+  void mediaPlaylistSerialiseMatchesTagSerialisation() {
+    assertThat(mediaPlaylist().serialise()).isEqualTo(MEDIA_PLAYLIST);
+  }
+
+  @Test
+  @DisplayName("serialise() of a master playlist is the same as the tag based serialisation")
+  void masterPlaylistSerialiseMatchesTagSerialisation() {
+    assertThat(masterPlaylist().serialise()).isEqualTo(MASTER_PLAYLIST);
+  }
+
+  @Test
+  @DisplayName("Appendable, channel and ByteBuffer writers write the same UTF-8 bytes")
+  void writersWriteSameBytes() throws IOException {
+    for (Playlist playlist : new Playlist[]{mediaPlaylist(), masterPlaylist()}) {
+      final byte[] expected = playlist.serialise().getBytes(StandardCharsets.UTF_8);
+
+      assertThat(writeToChannel(playlist)).isEqualTo(expected);
+      assertThat(writeToBuffer(playlist, expected.length)).isEqualTo(expected);
+    }
+  }
+
+  @Test
+  @DisplayName("Channel writer flushes playlists larger than its buffer without losing bytes")
+  void channelWriterFlushesLargePlaylists() throws IOException {
+    final var builder = new MediaPlaylist.Builder()
+                            .version(3)
+                            .targetDuration(6)
+                            .playlistType(MediaPlaylist.Type.VOD)
+                            .segmentUriTemplate(SegmentUriTemplate.parse("segment-%08d.mp4"));
+
+    for (int i = 0; i < 5_000; i++) {
+      builder.mediaSegment(5.005, i);
+    }
+
+    final MediaPlaylist playlist = builder.build();
+    final byte[] expected = playlist.serialise().getBytes(StandardCharsets.UTF_8);
+
+    assertThat(expected.length).isGreaterThan(PlaylistWriter.BUFFER_BYTES * 2);
+    assertThat(writeToChannel(playlist)).isEqualTo(expected);
+    assertThat(writeToBuffer(playlist, expected.length)).isEqualTo(expected);
+  }
+
+  @Test
+  @DisplayName("text() encodes UTF-8 like String#getBytes including surrogate pairs")
+  void textEncodesUtf8() throws IOException {
+    for (String text : new String[]{
+        "ascii", "\u00e9\u00f1", "\u20ac\u4e2d", "\uD83C\uDFAC clip", "\uD83C\uDFAC\uD83C\uDFAC",
+        "\uD83Cx", "x\uDFAC", "\uDFAC\uD83C", "trailing \uD83C"}) {
+      final var buffer = ByteBuffer.allocate(64);
+
+      try (var writer = PlaylistWriter.to(buffer)) {
+        writer.text(text);
+      }
+
+      assertThat(Arrays.copyOf(buffer.array(), buffer.position()))
+          .as(text)
+          .isEqualTo(text.getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  @Test
+  @DisplayName("decimal() rounds to the fraction digits and trims trailing zeros")
+  void decimalRoundsAndTrims() throws IOException {
+    assertThat(decimal(5.005, 6)).isEqualTo("5.005");
+    assertThat(decimal(5.005f, 6)).isEqualTo("5.005");
+    assertThat(decimal(30, 6)).isEqualTo("30.0");
+    assertThat(decimal(2.0020001, 3)).isEqualTo("2.002");
+    assertThat(decimal(0.125, 2)).isEqualTo("0.13");
+    assertThat(decimal(1.9999996, 6)).isEqualTo("2.0");
+    assertThat(decimal(0.0000005, 6)).isEqualTo("0.000001");
+    assertThat(decimal(29.97, 8)).isEqualTo("29.97");
+    assertThat(decimal(-2.5, 1)).isEqualTo("-2.5");
+    assertThat(decimal(-0.0000001, 6)).isEqualTo("0.0");
+  }
+
+  @Test
+  @DisplayName("decimal() rejects non finite numbers and fraction digits out of range")
+  void decimalRejectsInvalidArguments() {
+    final var writer = PlaylistWriter.to(new StringBuilder());
+
+    assertThatThrownBy(() -> writer.decimal(Double.NaN, 3))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> writer.decimal(Double.POSITIVE_INFINITY, 3))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> writer.decimal(1.5, 0))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> writer.decimal(1.5, PlaylistWriter.MAX_FRACTION_DIGITS + 1))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  @DisplayName("number() writes the whole long range and pads with zeros like %0Nd")
+  void numberWritesLongRangeAndPads() throws IOException {
+    assertThat(number(0, 1)).isEqualTo("0");
+    assertThat(number(Long.MIN_VALUE, 1)).isEqualTo(String.valueOf(Long.MIN_VALUE));
+    assertThat(number(Long.MAX_VALUE, 1)).isEqualTo(String.valueOf(Long.MAX_VALUE));
+    assertThat(number(Long.MIN_VALUE, 19)).isEqualTo(String.valueOf(Long.MIN_VALUE));
+    assertThat(number(7, 8)).isEqualTo(String.format("%08d", 7));
+    assertThat(number(-7, 3)).isEqualTo(String.format("%04d", -7));
+    assertThat(number(123_456_789, 3)).isEqualTo("123456789");
+    assertThat(number(42, 19)).isEqualTo(String.format("%019d", 42));
+
+    final var writer = PlaylistWriter.to(new StringBuilder());
+
+    assertThatThrownBy(() -> writer.number(1, 0)).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> writer.number(1, 20)).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  @DisplayName("Channel writers take a direct buffer from the pool and return it once on close")
+  void channelWritersReuseDirectBuffers() throws IOException {
+    final var channel = Channels.newChannel(new ByteArrayOutputStream());
+
+    final PlaylistWriter writer = PlaylistWriter.to(channel);
+    writer.text("#EXTM3U");
+    assertThat(PlaylistWriter.BUFFER_POOL).isEmpty();
+
+    writer.close();
+    writer.close();
+
+    assertThat(PlaylistWriter.BUFFER_POOL).hasSize(1);
+    final ByteBuffer pooled = PlaylistWriter.BUFFER_POOL.peek();
+    assertThat(pooled.isDirect()).isTrue();
+    assertThat(pooled.capacity()).isEqualTo(PlaylistWriter.BUFFER_BYTES);
+    assertThat(pooled.position()).isZero();
+
+    try (var reused = PlaylistWriter.to(channel)) {
+      assertThat(PlaylistWriter.BUFFER_POOL).isEmpty();
+      reused.text("#EXTM3U");
+    }
+
+    assertThat(PlaylistWriter.BUFFER_POOL).containsExactly(pooled);
+  }
+
+  @Test
+  @DisplayName("ByteBuffer writer throws BufferOverflowException when the playlist does not fit")
+  void byteBufferWriterOverflows() {
+    final byte[] expected = mediaPlaylist().serialise().getBytes(StandardCharsets.UTF_8);
+
+    assertThatThrownBy(() -> writeToBuffer(mediaPlaylist(), expected.length - 1))
+        .isInstanceOf(BufferOverflowException.class);
+
+    // a multi byte character is not split at the end of the buffer
+    final var buffer = ByteBuffer.allocate(2);
+    final var writer = PlaylistWriter.to(buffer);
+
+    assertThatThrownBy(() -> writer.text("a\u20ac"))
+        .isInstanceOf(BufferOverflowException.class);
+    assertThat(buffer.position()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Media playlists need a target duration of whole seconds that no segment exceeds")
+  void mediaPlaylistRejectsShortTargetDuration() {
+    assertThatThrownBy(() -> new MediaPlaylist.Builder().targetDuration(0))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new MediaPlaylist.Builder()
+                                 .mediaSegment(2.0, URI.create("segment.mp4"))
+                                 .build())
+        .isInstanceOf(IllegalStateException.class);
+    assertThatThrownBy(() -> new MediaPlaylist.Builder()
+                                 .targetDuration(5)
+                                 .mediaSegment(5.5, URI.create("segment.mp4"))
+                                 .build())
+        .isInstanceOf(IllegalStateException.class);
+
+    // 5.005 rounds to 5
+    assertThat(new MediaPlaylist.Builder()
+                   .version(3)
+                   .targetDuration(5)
+                   .mediaSegment(5.005, URI.create("segment.mp4"))
+                   .build()
+                   .serialise())
+        .contains("#EXT-X-TARGETDURATION:5\n");
+  }
+
+  static MediaPlaylist mediaPlaylist() {
+    return new MediaPlaylist.Builder()
+               .version(3)
+               .targetDuration(6)
+               .playlistType(MediaPlaylist.Type.VOD)
+               .mediaSequence(0)
+               .mediaSegment(5.005, URI.create("720p/segment-00000000.mp4"))
+               .mediaSegment(5.005, URI.create("720p/segment-00000001.mp4"))
+               .mediaSegment(2.5, URI.create("720p/s\u00e9gment-00000002.mp4"))
+               .mediaSegment(0.04, URI.create("720p/segment-00000003.mp4"))
+               .build();
+  }
+
+  static MasterPlaylist masterPlaylist() {
+    return MasterPlaylist.builder()
+               .version(3)
+               .rendition(
+                   MediaRendition.builder("aac", "English", MediaRendition.Type.AUDIO)
+                       .defaultRendition()
+                       .autoSelect()
+                       .language("en")
+                       .uri(URI.create("audio/en/index.m3u8"))
+                       .build())
+               .rendition(
+                   MediaRendition.builder("aac", "Espa\u00f1ol", MediaRendition.Type.AUDIO)
+                       .autoSelect()
+                       .language("es")
+                       .uri(URI.create("audio/es/index.m3u8"))
+                       .build())
+               .variant(builder -> builder
+                                       .bandwidth(5_000_000)
+                                       .averageBandwidth(4_500_000)
+                                       .codec(new HlsCodec("avc1",
+                                           (byte) Codec.H264.getProfileByKey("High").get().code(),
+                                           (byte) 0, (byte) 40))
+                                       .resolution(new Resolution(1920, 1080))
+                                       .frameRate(29.97)
+                                       .audioRenditionGroup("aac")
+                                       .playlistUri(URI.create("video/1080p/index.m3u8")))
+               .variant(builder -> builder
+                                       .bandwidth(800_000)
+                                       .codec(new HlsCodec("avc1",
+                                           (byte) Codec.H264.getProfileByKey("Main").get().code(),
+                                           (byte) 0, (byte) 30))
+                                       .resolution(new Resolution(640, 360))
+                                       .frameRate(25)
+                                       .audioRenditionGroup("aac")
+                                       .playlistUri(URI.create("video/360p/index.m3u8")))
+               .build();
+  }
+
+  static byte[] writeToChannel(Playlist playlist) throws IOException {
+    final var out = new ByteArrayOutputStream();
+
+    try (var channel = Channels.newChannel(out); var writer = PlaylistWriter.to(channel)) {
+      playlist.write(writer);
+    }
+
+    return out.toByteArray();
+  }
+
+  static byte[] writeToBuffer(Playlist playlist, int capacity) throws IOException {
+    final var buffer = ByteBuffer.allocate(capacity);
+
+    try (var writer = PlaylistWriter.to(buffer)) {
+      playlist.write(writer);
+    }
+
+    return Arrays.copyOf(buffer.array(), buffer.position());
+  }
+
+  static String decimal(double value, int fractionDigits) throws IOException {
+    final var builder = new StringBuilder();
+    PlaylistWriter.to(builder).decimal(value, fractionDigits);
+    return builder.toString();
+  }
+
+  static String number(long value, int minDigits) throws IOException {
+    final var builder = new StringBuilder();
+    PlaylistWriter.to(builder).number(value, minDigits);
+    return builder.toString();
+  }
+}
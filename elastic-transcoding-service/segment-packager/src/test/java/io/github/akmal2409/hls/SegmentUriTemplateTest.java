@@ -0,0 +1,72 @@
+package io.github.akmal2409.hls;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.net.URI;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class SegmentUriTemplateTest {
+
+  @Test
+  @DisplayName("parse() splits the template around a %0Nd placeholder")
+  void parsesPaddedPlaceholder() {
+    assertThat(SegmentUriTemplate.parse("1280x720-6000/segment-%08d.mp4"))
+        .isEqualTo(new SegmentUriTemplate("1280x720-6000/segment-", 8, ".mp4"));
+    assertThat(SegmentUriTemplate.of("1280x720-6000", "segment-%08d.mp4"))
+        .isEqualTo(new SegmentUriTemplate("1280x720-6000/segment-", 8, ".mp4"));
+    assertThat(SegmentUriTemplate.parse("%03d"))
+        .isEqualTo(new SegmentUriTemplate("", 3, ""));
+  }
+
+  @Test
+  @DisplayName("%08d pads the index with zeros, %d writes it as is, both like String#format")
+  void padsIndexLikeFormat() throws IOException {
+    final var padded = SegmentUriTemplate.parse("720p/segment-%08d.mp4");
+    final var unpadded = SegmentUriTemplate.parse("720p/segment-%d.mp4");
+
+    assertThat(unpadded.indexDigits()).isEqualTo(1);
+
+    for (int index : new int[]{0, 7, 1234, 99_999_999, 123_456_789, Integer.MAX_VALUE}) {
+      assertThat(write(padded, index))
+          .isEqualTo(padded.uri(index).toString())
+          .isEqualTo(String.format("720p/segment-%08d.mp4", index));
+      assertThat(write(unpadded, index))
+          .isEqualTo(unpadded.uri(index).toString())
+          .isEqualTo(String.format("720p/segment-%d.mp4", index));
+    }
+  }
+
+  @Test
+  @DisplayName("uri() resolves to the URI of the segment file")
+  void uriOfSegment() {
+    assertThat(SegmentUriTemplate.parse("720p/segment-%08d.mp4").uri(42))
+        .isEqualTo(URI.create("720p/segment-00000042.mp4"));
+  }
+
+  @Test
+  @DisplayName("parse() rejects templates without a placeholder or with a second one")
+  void rejectsInvalidTemplates() {
+    assertThatThrownBy(() -> SegmentUriTemplate.parse("720p/segment.mp4"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("no index placeholder");
+    assertThatThrownBy(() -> SegmentUriTemplate.parse("720p-%03d/segment-%08d.mp4"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("more than one index placeholder");
+    assertThatThrownBy(() -> SegmentUriTemplate.parse("segment-%d-%d.mp4"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("more than one index placeholder");
+    assertThatThrownBy(() -> SegmentUriTemplate.parse("segment-%020d.mp4"))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new SegmentUriTemplate("segment-", 0, ".mp4"))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  static String write(SegmentUriTemplate template, int index) throws IOException {
+    final var builder = new StringBuilder();
+    template.writeTo(PlaylistWriter.to(builder), index);
+    return builder.toString();
+  }
+}
@@ -0,0 +1,53 @@
+package io.github.akmal2409.job;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class FrameRateTest {
+
+  @Test
+  @DisplayName("of() recovers the fractions of the broadcast frame rates")
+  void recoversBroadcastFrameRates() {
+    assertThat(FrameRate.of(24000 / 1001.0)).isEqualTo(new FrameRate(24000, 1001));
+    assertThat(FrameRate.of(30000 / 1001.0)).isEqualTo(new FrameRate(30000, 1001));
+    assertThat(FrameRate.of(60000 / 1001.0)).isEqualTo(new FrameRate(60000, 1001));
+    assertThat(FrameRate.of(23.976023976023978)).isEqualTo(new FrameRate(24000, 1001));
+  }
+
+  @Test
+  @DisplayName("of() keeps whole and decimal frame rates as they are")
+  void recoversWholeAndDecimalFrameRates() {
+    assertThat(FrameRate.of(25)).isEqualTo(new FrameRate(25, 1));
+    assertThat(FrameRate.of(120)).isEqualTo(new FrameRate(120, 1));
+    assertThat(FrameRate.of(12.5)).isEqualTo(new FrameRate(25, 2));
+    assertThat(FrameRate.of(29.97)).isEqualTo(new FrameRate(2997, 100));
+  }
+
+  @Test
+  @DisplayName("of() rejects values that are not positive or not a fraction with a small denominator")
+  void rejectsInvalidFrameRates() {
+    for (double framesPerSecond : new double[]{
+        0, -25, Double.NaN, Double.POSITIVE_INFINITY, Math.PI, Math.E, 1e-7}) {
+      assertThatThrownBy(() -> FrameRate.of(framesPerSecond))
+          .as(String.valueOf(framesPerSecond))
+          .isInstanceOf(IllegalArgumentException.class);
+    }
+  }
+
+  @Test
+  @DisplayName("durationMicros() rounds the exact duration of the frames half up")
+  void roundsDurationToMicros() {
+    final var ntsc = new FrameRate(24000, 1001);
+
+    assertThat(ntsc.durationMicros(48)).isEqualTo(2_002_000);
+    // 417083.33 microseconds
+    assertThat(ntsc.durationMicros(10)).isEqualTo(417_083);
+    // 3600.0130833 seconds, an hour of frames does not accumulate the rounding of single frames
+    assertThat(ntsc.durationMicros(86_314)).isEqualTo(3_600_013_083L);
+    // 2.5 microseconds
+    assertThat(new FrameRate(400_000, 1).durationMicros(1)).isEqualTo(3);
+  }
+}
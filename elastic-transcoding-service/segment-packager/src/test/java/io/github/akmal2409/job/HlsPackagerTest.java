@@ -0,0 +1,262 @@
+package io.github.akmal2409.job;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.github.akmal2409.hls.MediaPlaylist;
+import io.github.akmal2409.hls.Playlist;
+import io.github.akmal2409.job.PackagingJobManifest.MediaVariant;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class HlsPackagerTest {
+
+  static final String BUCKET = "bucket";
+  static final String KEY_PREFIX = "job-1";
+  static final String MASTER_KEY = KEY_PREFIX + "/" + HlsPackager.MASTER_PLAYLIST_NAME;
+
+  // 4 full segments of 48 frames and a last one of 10
+  static final PackagingJobManifest MANIFEST = new PackagingJobManifest(UUID.randomUUID(), BUCKET,
+      KEY_PREFIX, 48, 24000 / 1001.0, 202, "audio/audio.mp4", "en");
+  static final int SEGMENT_COUNT = 5;
+
+  static final List<MediaVariant> RENDITIONS = List.of(
+      new MediaVariant(1920, 1080, 6_000_000),
+      new MediaVariant(640, 360, 800_000),
+      new MediaVariant(1280, 720, 3_000_000));
+
+  S3PlaylistStore store;
+  PackagingExecutor executor;
+  HlsPackager packager;
+
+  final Map<String, Playlist> uploaded = new ConcurrentHashMap<>();
+
+  @BeforeEach
+  void setUp() {
+    store = mock(S3PlaylistStore.class);
+    executor = new PackagingExecutor(4);
+    packager = new HlsPackager(store, executor);
+
+    when(store.listRenditions(BUCKET, KEY_PREFIX)).thenReturn(RENDITIONS);
+    when(store.exists(BUCKET, KEY_PREFIX + "/audio/audio.mp4")).thenReturn(true);
+
+    for (MediaVariant rendition : RENDITIONS) {
+      when(store.listSegmentIndexes(BUCKET, renditionPrefix(rendition)))
+          .thenReturn(indexes(0, SEGMENT_COUNT));
+    }
+
+    doAnswer(invocation -> {
+      uploaded.put(invocation.getArgument(1), invocation.getArgument(2));
+      return null;
+    }).when(store).upload(eq(BUCKET), anyString(), any(Playlist.class));
+  }
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    executor.close();
+  }
+
+  @Test
+  @DisplayName("pack() uploads the master playlist only after every media playlist")
+  void uploadsMasterPlaylistLast() {
+    final var completedUploads = new AtomicInteger();
+    final var completedBeforeMaster = new AtomicInteger(-1);
+
+    doAnswer(invocation -> {
+      final String key = invocation.getArgument(1);
+
+      if (key.equals(MASTER_KEY)) {
+        completedBeforeMaster.set(completedUploads.get());
+      } else {
+        // slow media uploads would still be running if the master playlist did not wait for them
+        Thread.sleep(50);
+        completedUploads.incrementAndGet();
+      }
+
+      uploaded.put(key, invocation.getArgument(2));
+      return null;
+    }).when(store).upload(eq(BUCKET), anyString(), any(Playlist.class));
+
+    packager.pack(MANIFEST).join();
+
+    assertThat(completedBeforeMaster.get()).isEqualTo(RENDITIONS.size() + 1);
+    assertThat(uploaded).containsOnlyKeys(
+        KEY_PREFIX + "/1920x1080-6000000/index.m3u8",
+        KEY_PREFIX + "/640x360-800000/index.m3u8",
+        KEY_PREFIX + "/1280x720-3000000/index.m3u8",
+        KEY_PREFIX + "/audio.m3u8",
+        MASTER_KEY);
+
+    final var playlist = (MediaPlaylist) uploaded.get(KEY_PREFIX + "/640x360-800000/index.m3u8");
+    assertThat(playlist.segmentCount()).isEqualTo(SEGMENT_COUNT);
+    assertThat(playlist.segmentUri(4).toString()).isEqualTo("segment-00000004.mp4");
+    assertThat(playlist.segmentDuration(4)).isEqualTo(0.417083);
+
+    assertThat(uploaded.get(MASTER_KEY).serialise())
+        .containsSubsequence("640x360-800000/index.m3u8", "1280x720-3000000/index.m3u8",
+            "1920x1080-6000000/index.m3u8")
+        .contains("BANDWIDTH=1600000,AVERAGE-BANDWIDTH=800000,");
+  }
+
+  @Test
+  @DisplayName("pack() fails the job without a master playlist when a segment is missing")
+  void missingSegmentFailsJob() {
+    final BitSet indexes = indexes(0, SEGMENT_COUNT);
+    indexes.clear(2);
+    when(store.listSegmentIndexes(BUCKET, renditionPrefix(RENDITIONS.get(1))))
+        .thenReturn(indexes);
+
+    assertPackagingFails("640x360-800000 has 4 segments, expected indexes 0 to 4");
+  }
+
+  @Test
+  @DisplayName("pack() fails the job when the segment indexes are not 0 to n - 1")
+  void unexpectedSegmentIndexesFailJob() {
+    // as many segments as expected, but shifted by one
+    when(store.listSegmentIndexes(BUCKET, renditionPrefix(RENDITIONS.get(0))))
+        .thenReturn(indexes(1, SEGMENT_COUNT + 1));
+
+    assertPackagingFails("1920x1080-6000000 has 5 segments, expected indexes 0 to 4");
+
+    // a segment more than the frame ranges make up
+    when(store.listSegmentIndexes(BUCKET, renditionPrefix(RENDITIONS.get(0))))
+        .thenReturn(indexes(0, SEGMENT_COUNT + 1));
+
+    assertPackagingFails("1920x1080-6000000 has 6 segments, expected indexes 0 to 4");
+  }
+
+  @Test
+  @DisplayName("pack() fails the job when there are no renditions or the audio is missing")
+  void missingMediaFailsJob() {
+    when(store.exists(BUCKET, KEY_PREFIX + "/audio/audio.mp4")).thenReturn(false);
+
+    assertPackagingFails("Audio job-1/audio/audio.mp4 not found");
+
+    when(store.listRenditions(BUCKET, KEY_PREFIX)).thenReturn(List.of());
+
+    assertPackagingFails("No renditions found under job-1");
+  }
+
+  @Test
+  @DisplayName("Playlists write #EXT-X-TARGETDURATION as whole seconds")
+  void targetDurationInWholeSeconds() {
+    assertThat(HlsPackager.videoPlaylist(SegmentDurations.of(MANIFEST)).serialise())
+        .contains("#EXT-X-TARGETDURATION:3\n", "#EXTINF:2.002,\n", "#EXTINF:0.417083,\n");
+
+    // two hours at 25 frames per second
+    final var twoHours = new SegmentDurations(new FrameRate(25, 1), 50, 180_000);
+    assertThat(HlsPackager.audioPlaylist(MANIFEST, twoHours).serialise())
+        .contains("#EXT-X-TARGETDURATION:7200\n", "#EXTINF:7200.0,\n");
+
+    final var overTwoHours = new SegmentDurations(new FrameRate(25, 1), 50, 180_001);
+    assertThat(HlsPackager.audioPlaylist(MANIFEST, overTwoHours).serialise())
+        .contains("#EXT-X-TARGETDURATION:7201\n", "#EXTINF:7200.04,\n");
+  }
+
+  @Test
+  @DisplayName("Single file playlists address the init section and each fragment by byte range")
+  void singleFilePlaylistByteRanges() throws IOException {
+    final var stream = new Mp4FragmentIndexTest.Mp4Stream().box("ftyp", 24).box("moov", 100);
+
+    for (int i = 0; i < SEGMENT_COUNT; i++) {
+      stream.beginFragment().box("moof", 40).box("mdat", 1_000 + 10 * i).endFragment();
+    }
+
+    final var index = new Mp4FragmentIndex(new ByteArrayOutputStream());
+    index.write(stream.bytes());
+    index.finish();
+
+    final String playlist = HlsPackager.singleFilePlaylist(SegmentDurations.of(MANIFEST), index)
+                                .serialise();
+
+    assertThat(playlist)
+        .contains("#EXT-X-VERSION:6\n", "#EXT-X-TARGETDURATION:3\n")
+        .containsSubsequence(
+            "#EXT-X-MAP:URI=\"rendition.mp4\",BYTERANGE=\"140@0\"\n",
+            "#EXTINF:2.002,\n#EXT-X-BYTERANGE:1056@140\nrendition.mp4\n",
+            "#EXTINF:2.002,\n#EXT-X-BYTERANGE:1066@1196\nrendition.mp4\n",
+            "#EXTINF:2.002,\n#EXT-X-BYTERANGE:1076@2262\nrendition.mp4\n",
+            "#EXTINF:2.002,\n#EXT-X-BYTERANGE:1086@3338\nrendition.mp4\n",
+            "#EXTINF:0.417083,\n#EXT-X-BYTERANGE:1096@4424\nrendition.mp4\n");
+    assertThat(playlist).doesNotContain("segment-0");
+
+    // one fragment short of the segments
+    final var shortIndex = new Mp4FragmentIndex(new ByteArrayOutputStream());
+    shortIndex.write(stream.bytes(), 0, 4424);
+    shortIndex.finish();
+
+    assertThatThrownBy(
+        () -> HlsPackager.singleFilePlaylist(SegmentDurations.of(MANIFEST), shortIndex))
+        .isInstanceOf(PackagingException.class)
+        .hasMessageContaining("has 4 fragments, expected one per segment (5)");
+  }
+
+  @Test
+  @DisplayName("Fragmented audio playlists address the init section and the fragment by byte range")
+  void fragmentedAudioPlaylist() throws IOException {
+    final var stream = new Mp4FragmentIndexTest.Mp4Stream().box("ftyp", 24).box("moov", 100)
+                           .beginFragment().box("moof", 40).box("mdat", 5_000).endFragment();
+
+    final var index = new Mp4FragmentIndex(new ByteArrayOutputStream());
+    index.write(stream.bytes());
+    index.finish();
+
+    assertThat(HlsPackager.fragmentedAudioPlaylist(SegmentDurations.of(MANIFEST), index)
+                   .serialise())
+        .contains("#EXT-X-TARGETDURATION:9\n")
+        .containsSubsequence(
+            "#EXT-X-MAP:URI=\"audio-fragmented.mp4\",BYTERANGE=\"140@0\"\n",
+            "#EXTINF:8.425083,\n#EXT-X-BYTERANGE:5056@140\naudio-fragmented.mp4\n");
+
+    // fragmented at keyframes instead of once
+    stream.beginFragment().box("moof", 40).box("mdat", 10).endFragment();
+
+    final var twoFragments = new Mp4FragmentIndex(new ByteArrayOutputStream());
+    twoFragments.write(stream.bytes());
+    twoFragments.finish();
+
+    assertThatThrownBy(
+        () -> HlsPackager.fragmentedAudioPlaylist(SegmentDurations.of(MANIFEST), twoFragments))
+        .isInstanceOf(PackagingException.class)
+        .hasMessageContaining("has 2 fragments, expected 1");
+  }
+
+  void assertPackagingFails(String message) {
+    assertThatThrownBy(() -> packager.pack(MANIFEST).join())
+        .isInstanceOf(CompletionException.class)
+        .hasCauseInstanceOf(PackagingException.class)
+        .hasMessageContaining(message);
+
+    verify(store, never()).upload(eq(BUCKET), eq(MASTER_KEY), any(Playlist.class));
+    assertThat(uploaded).doesNotContainKey(MASTER_KEY);
+  }
+
+  static String renditionPrefix(MediaVariant rendition) {
+    return KEY_PREFIX + "/" + rendition.directoryName();
+  }
+
+  static BitSet indexes(int from, int to) {
+    final var indexes = new BitSet();
+    indexes.set(from, to);
+    return indexes;
+  }
+}
@@ -0,0 +1,230 @@
+package io.github.akmal2409.job;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class Mp4FragmentIndexTest {
+
+  @Test
+  @DisplayName("Indexes fragments with compact and 64-bit box sizes written a byte at a time")
+  void indexesSingleByteWrites() throws IOException {
+    final Mp4Stream stream = fragmentedMp4();
+    final var out = new ByteArrayOutputStream();
+    final var index = new Mp4FragmentIndex(out);
+
+    for (byte b : stream.bytes()) {
+      index.write(b);
+    }
+    index.finish();
+
+    assertIndexes(index, stream);
+    // ftyp, moov with a 64-bit size, then moof to the end of the last mdat of each fragment
+    assertThat(index.initLength()).isEqualTo(32 + 136);
+    assertThat(index.fragmentOffset(1)).isEqualTo(168 + 48 + 308);
+    assertThat(index.fragmentLength(1)).isEqualTo(52 + 108 + 266 + 8);
+    assertThat(out.toByteArray()).isEqualTo(stream.bytes());
+  }
+
+  @Test
+  @DisplayName("Indexes fragments written in chunks of random size that split the box headers")
+  void indexesRandomChunks() throws IOException {
+    final Mp4Stream stream = fragmentedMp4();
+    final byte[] bytes = stream.bytes();
+    final var random = new Random(42);
+
+    for (int run = 0; run < 50; run++) {
+      final var out = new ByteArrayOutputStream();
+      final var index = new Mp4FragmentIndex(out);
+
+      for (int offset = 0; offset < bytes.length; ) {
+        final int length = Math.min(bytes.length - offset, 1 + random.nextInt(40));
+        index.write(bytes, offset, length);
+        offset += length;
+      }
+      index.finish();
+
+      assertIndexes(index, stream);
+      assertThat(out.toByteArray()).isEqualTo(bytes);
+    }
+  }
+
+  @Test
+  @DisplayName("Indexes a stream written at once and grows past its initial capacity")
+  void indexesManyFragments() throws IOException {
+    final var stream = new Mp4Stream()
+                           .box("ftyp", 16)
+                           .box("moov", 300);
+
+    for (int i = 0; i < 1_000; i++) {
+      stream.beginFragment()
+          .box("moof", 20 + i % 7)
+          .box("mdat", 50 + i)
+          .endFragment();
+    }
+
+    final var index = new Mp4FragmentIndex(new ByteArrayOutputStream());
+    index.write(stream.bytes());
+    index.finish();
+
+    assertIndexes(index, stream);
+  }
+
+  @Test
+  @DisplayName("finish() fails when the stream ends in the middle of a box header or payload")
+  void finishRejectsTruncatedStream() throws IOException {
+    final byte[] bytes = fragmentedMp4().bytes();
+
+    // 4 bytes into the header of the first box, 8 bytes into the payload of the last one
+    for (int length : new int[]{4, bytes.length - 8}) {
+      final var index = new Mp4FragmentIndex(new ByteArrayOutputStream());
+      index.write(bytes, 0, length);
+
+      assertThatThrownBy(index::finish)
+          .isInstanceOf(IOException.class)
+          .hasMessageContaining("middle of a box");
+    }
+  }
+
+  @Test
+  @DisplayName("finish() fails without fragments or with a fragment without media data")
+  void finishRejectsMissingFragments() throws IOException {
+    final var withoutFragments = new Mp4FragmentIndex(new ByteArrayOutputStream());
+    withoutFragments.write(new Mp4Stream().box("ftyp", 16).box("moov", 100).bytes());
+
+    assertThatThrownBy(withoutFragments::finish)
+        .isInstanceOf(IOException.class)
+        .hasMessageContaining("no fragments");
+
+    final var withoutMediaData = new Mp4FragmentIndex(new ByteArrayOutputStream());
+    withoutMediaData.write(new Mp4Stream().box("ftyp", 16).box("moof", 20).bytes());
+
+    assertThatThrownBy(withoutMediaData::finish)
+        .isInstanceOf(IOException.class)
+        .hasMessageContaining("no media data");
+  }
+
+  @Test
+  @DisplayName("Rejects boxes that extend to the end of the stream")
+  void rejectsBoxesWithoutSize() {
+    final var index = new Mp4FragmentIndex(new ByteArrayOutputStream());
+    final byte[] header = ByteBuffer.allocate(8).putInt(0)
+                              .put("mdat".getBytes(StandardCharsets.US_ASCII)).array();
+
+    assertThatThrownBy(() -> index.write(header))
+        .isInstanceOf(IOException.class)
+        .hasMessageContaining("Unsupported box size 0");
+  }
+
+  /**
+   * ftyp and moov, fragments with one or several mdat boxes with both compact and 64-bit sizes, a
+   * box between the fragments and mfra at the end.
+   */
+  static Mp4Stream fragmentedMp4() {
+    return new Mp4Stream()
+               .box("ftyp", 24)
+               .largeBox("moov", 120)
+               .beginFragment()
+               .box("moof", 40)
+               .box("mdat", 300)
+               .endFragment()
+               .beginFragment()
+               .largeBox("moof", 36)
+               .box("mdat", 100)
+               .largeBox("mdat", 250)
+               .box("mdat", 0)
+               .endFragment()
+               .box("free", 12)
+               .beginFragment()
+               .box("moof", 40)
+               .largeBox("mdat", 500)
+               .endFragment()
+               .box("mfra", 30);
+  }
+
+  static void assertIndexes(Mp4FragmentIndex index, Mp4Stream stream) {
+    assertThat(index.size()).isEqualTo(stream.bytes().length);
+    assertThat(index.initLength()).isEqualTo(stream.initLength);
+    assertThat(index.fragmentCount()).isEqualTo(stream.fragmentOffsets.size());
+
+    for (int i = 0; i < index.fragmentCount(); i++) {
+      assertThat(index.fragmentOffset(i)).as("offset of fragment %d", i)
+          .isEqualTo(stream.fragmentOffsets.get(i));
+      assertThat(index.fragmentLength(i)).as("length of fragment %d", i)
+          .isEqualTo(stream.fragmentLengths.get(i));
+    }
+  }
+
+  /**
+   * Builds the top level boxes of a fragmented MP4 and records where the fragments are. Payloads
+   * are filled with box types, so that an index that reads them as headers breaks.
+   */
+  static final class Mp4Stream {
+
+    private static final byte[] FILLER = "moofmdat".getBytes(StandardCharsets.US_ASCII);
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final List<Long> fragmentOffsets = new ArrayList<>();
+    final List<Long> fragmentLengths = new ArrayList<>();
+    long initLength = -1;
+
+    Mp4Stream box(String type, int payloadLength) {
+      write(ByteBuffer.allocate(8).putInt(8 + payloadLength)
+                .put(type.getBytes(StandardCharsets.US_ASCII)).array());
+      return payload(payloadLength);
+    }
+
+    /**
+     * Box with size 1 and the actual size in the 64 bits after the type
+     */
+    Mp4Stream largeBox(String type, int payloadLength) {
+      write(ByteBuffer.allocate(16).putInt(1)
+                .put(type.getBytes(StandardCharsets.US_ASCII))
+                .putLong(16L + payloadLength).array());
+      return payload(payloadLength);
+    }
+
+    Mp4Stream beginFragment() {
+      if (initLength < 0) {
+        initLength = out.size();
+      }
+
+      fragmentOffsets.add((long) out.size());
+      return this;
+    }
+
+    Mp4Stream endFragment() {
+      fragmentLengths.add(out.size() - fragmentOffsets.get(fragmentOffsets.size() - 1));
+      return this;
+    }
+
+    byte[] bytes() {
+      return out.toByteArray();
+    }
+
+    private Mp4Stream payload(int length) {
+      final var payload = new byte[length];
+
+      for (int i = 0; i < length; i++) {
+        payload[i] = FILLER[i % FILLER.length];
+      }
+
+      write(payload);
+      return this;
+    }
+
+    private void write(byte[] bytes) {
+      out.write(bytes, 0, bytes.length);
+    }
+  }
+
+}
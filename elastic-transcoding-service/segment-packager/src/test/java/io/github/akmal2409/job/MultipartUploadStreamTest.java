@@ -0,0 +1,269 @@
+package io.github.akmal2409.job;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+@ExtendWith(MockitoExtension.class)
+class MultipartUploadStreamTest {
+
+  static final int PART = MultipartUploadStream.PART_SIZE_BYTES;
+
+  @Mock
+  S3AsyncClient s3Client;
+
+  final List<UploadPartRequest> partRequests = new ArrayList<>();
+  final List<byte[]> parts = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() {
+    when(s3Client.createMultipartUpload(any(Consumer.class))).thenAnswer(invocation -> {
+      final var request = CreateMultipartUploadRequest.builder()
+                              .applyMutation(invocation.getArgument(0)).build();
+
+      assertThat(request.bucket()).isEqualTo("bucket");
+      assertThat(request.key()).isEqualTo("job-1/720p/rendition.mp4");
+      assertThat(request.contentType()).isEqualTo("video/mp4");
+
+      return CompletableFuture.completedFuture(
+          CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+    });
+  }
+
+  @Test
+  @DisplayName("Uploads a part whenever it is full and the rest on close, numbered from 1")
+  void uploadsFullPartsAndRemainder() throws IOException {
+    stubUploadPart();
+    stubComplete();
+    final byte[] bytes = bytes(2 * PART + 100);
+
+    try (var upload = upload()) {
+      // a single byte write fills the first part, an array write spans the second and third
+      upload.write(bytes, 0, PART - 1);
+      upload.write(bytes[PART - 1]);
+      assertThat(parts).hasSize(1);
+
+      upload.write(bytes, PART, PART + 100);
+      assertThat(parts).hasSize(2);
+    }
+
+    assertThat(partRequests).extracting(UploadPartRequest::partNumber).containsExactly(1, 2, 3);
+    assertThat(partRequests).extracting(UploadPartRequest::contentLength)
+        .containsExactly((long) PART, (long) PART, 100L);
+    assertThat(partRequests).allSatisfy(request -> {
+      assertThat(request.uploadId()).isEqualTo("upload-1");
+      assertThat(request.key()).isEqualTo("job-1/720p/rendition.mp4");
+    });
+    assertThat(concat(parts)).isEqualTo(bytes);
+
+    assertThat(completeRequest().multipartUpload().parts())
+        .extracting(CompletedPart::partNumber, CompletedPart::eTag)
+        .containsExactly(tuple(1, "etag-1"), tuple(2, "etag-2"), tuple(3, "etag-3"));
+  }
+
+  @Test
+  @DisplayName("Does not upload an empty last part when the object is a multiple of the part size")
+  void uploadsNoEmptyLastPart() throws IOException {
+    stubUploadPart();
+    stubComplete();
+
+    try (var upload = upload()) {
+      upload.write(bytes(PART));
+    }
+
+    assertThat(partRequests).extracting(UploadPartRequest::contentLength)
+        .containsExactly((long) PART);
+    assertThat(completeRequest().multipartUpload().parts()).hasSize(1);
+  }
+
+  @Test
+  @DisplayName("Uploads an empty object as a single empty part")
+  void uploadsEmptyObject() throws IOException {
+    stubUploadPart();
+    stubComplete();
+
+    upload().close();
+
+    assertThat(partRequests).extracting(UploadPartRequest::partNumber).containsExactly(1);
+    assertThat(partRequests).extracting(UploadPartRequest::contentLength).containsExactly(0L);
+    assertThat(parts.get(0)).isEmpty();
+    assertThat(completeRequest().multipartUpload().parts()).hasSize(1);
+  }
+
+  @Test
+  @DisplayName("close() completes the upload once")
+  void closeCompletesOnce() throws IOException {
+    stubUploadPart();
+    stubComplete();
+    final var upload = upload();
+
+    upload.write(bytes(10));
+    upload.close();
+    upload.close();
+
+    verify(s3Client, times(1)).uploadPart(any(Consumer.class), any(AsyncRequestBody.class));
+    verify(s3Client, times(1)).completeMultipartUpload(any(Consumer.class));
+    assertThatThrownBy(() -> upload.write(1))
+        .isInstanceOf(IOException.class)
+        .hasMessageContaining("is closed");
+  }
+
+  @Test
+  @DisplayName("abort() aborts the upload without completing it and closes the stream")
+  void abortsUpload() throws IOException {
+    stubUploadPart();
+    when(s3Client.abortMultipartUpload(any(Consumer.class))).thenAnswer(invocation -> {
+      final var request = AbortMultipartUploadRequest.builder()
+                              .applyMutation(invocation.getArgument(0)).build();
+
+      assertThat(request.uploadId()).isEqualTo("upload-1");
+      assertThat(request.key()).isEqualTo("job-1/720p/rendition.mp4");
+
+      return CompletableFuture.completedFuture(AbortMultipartUploadResponse.builder().build());
+    });
+    final var upload = upload();
+
+    upload.write(bytes(PART + 10));
+    upload.abort();
+    upload.close();
+
+    verify(s3Client).abortMultipartUpload(any(Consumer.class));
+    verify(s3Client, never()).completeMultipartUpload(any(Consumer.class));
+    assertThat(parts).hasSize(1);
+    assertThatThrownBy(() -> upload.write(new byte[1]))
+        .isInstanceOf(IOException.class)
+        .hasMessageContaining("is closed");
+  }
+
+  @Test
+  @DisplayName("A failed part fails the write with an IOException")
+  void failedPartFailsWrite() {
+    when(s3Client.uploadPart(any(Consumer.class), any(AsyncRequestBody.class))).thenReturn(
+        CompletableFuture.failedFuture(S3Exception.builder().message("Slow down").build()));
+    final var upload = upload();
+
+    assertThatThrownBy(() -> upload.write(bytes(PART)))
+        .isInstanceOf(IOException.class)
+        .hasMessageContaining("Failed to upload part 1")
+        .hasCauseInstanceOf(S3Exception.class);
+  }
+
+  MultipartUploadStream upload() {
+    return new MultipartUploadStream(s3Client, "bucket", "job-1/720p/rendition.mp4", "video/mp4");
+  }
+
+  void stubUploadPart() {
+    when(s3Client.uploadPart(any(Consumer.class), any(AsyncRequestBody.class))).thenAnswer(
+        invocation -> {
+          final var request = UploadPartRequest.builder()
+                                  .applyMutation(invocation.getArgument(0)).build();
+          partRequests.add(request);
+          parts.add(read(invocation.getArgument(1)));
+
+          return CompletableFuture.completedFuture(
+              UploadPartResponse.builder().eTag("etag-" + request.partNumber()).build());
+        });
+  }
+
+  void stubComplete() {
+    when(s3Client.completeMultipartUpload(any(Consumer.class))).thenReturn(
+        CompletableFuture.completedFuture(CompleteMultipartUploadResponse.builder().build()));
+  }
+
+  CompleteMultipartUploadRequest completeRequest() {
+    final ArgumentCaptor<Consumer<CompleteMultipartUploadRequest.Builder>> request =
+        ArgumentCaptor.forClass(Consumer.class);
+    verify(s3Client).completeMultipartUpload(request.capture());
+
+    final var builder = CompleteMultipartUploadRequest.builder();
+    request.getValue().accept(builder);
+    final var completeRequest = builder.build();
+
+    assertThat(completeRequest.uploadId()).isEqualTo("upload-1");
+    return completeRequest;
+  }
+
+  static byte[] bytes(int length) {
+    final var bytes = new byte[length];
+
+    for (int i = 0; i < length; i++) {
+      bytes[i] = (byte) (i * 31 + i / 251);
+    }
+
+    return bytes;
+  }
+
+  static byte[] concat(List<byte[]> parts) {
+    final var out = new ByteArrayOutputStream();
+    parts.forEach(part -> out.write(part, 0, part.length));
+    return out.toByteArray();
+  }
+
+  /**
+   * Reads the body of a part, which the client would send after the part request
+   */
+  static byte[] read(AsyncRequestBody body) {
+    final var out = new ByteArrayOutputStream();
+
+    body.subscribe(new Subscriber<>() {
+      @Override
+      public void onSubscribe(Subscription subscription) {
+        subscription.request(Long.MAX_VALUE);
+      }
+
+      @Override
+      public void onNext(ByteBuffer buffer) {
+        final var bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        out.write(bytes, 0, bytes.length);
+      }
+
+      @Override
+      public void onError(Throwable t) {
+        throw new AssertionError(t);
+      }
+
+      @Override
+      public void onComplete() {
+      }
+    });
+
+    final byte[] bytes = out.toByteArray();
+    assertThat((long) bytes.length).isEqualTo(body.contentLength().orElseThrow());
+    return bytes;
+  }
+}
@@ -0,0 +1,123 @@
+package io.github.akmal2409.job;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Envelope;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+class PackagingJobConsumerTest {
+
+  static final long DELIVERY_TAG = 7;
+  static final String MANIFEST = """
+      {"jobId":"%s","bucket":"bucket","keyPrefix":"job-1","gopSize":%d,"frameRate":%s,
+      "frameCount":%d,"audioRelativePath":"audio/audio.mp4","audioLanguage":"en"}""";
+
+  Channel channel;
+  HlsPackager packager;
+  PackagingJobConsumer consumer;
+
+  @BeforeEach
+  void setUp() {
+    channel = mock(Channel.class);
+    packager = mock(HlsPackager.class);
+    consumer = new PackagingJobConsumer(channel, new ObjectMapper().findAndRegisterModules(),
+        packager);
+  }
+
+  @Test
+  @DisplayName("Packages a valid manifest and acknowledges the delivery once the job completes")
+  void acknowledgesPackagedJob() throws IOException {
+    final UUID jobId = UUID.randomUUID();
+    when(packager.pack(any())).thenReturn(CompletableFuture.completedFuture(null));
+
+    deliver(manifest(jobId.toString(), 48, "23.976023976023978", 202), false);
+
+    final var manifest = ArgumentCaptor.forClass(PackagingJobManifest.class);
+    verify(packager).pack(manifest.capture());
+    assertThat(manifest.getValue()).isEqualTo(new PackagingJobManifest(jobId, "bucket", "job-1",
+        48, 24000 / 1001.0, 202, "audio/audio.mp4", "en"));
+
+    verify(channel).basicAck(DELIVERY_TAG, false);
+    verify(channel, never()).basicReject(anyLong(), anyBoolean());
+  }
+
+  @Test
+  @DisplayName("Requeues a failed job once and rejects it when it fails after redelivery")
+  void requeuesFailedJobOnce() throws IOException {
+    when(packager.pack(any())).thenReturn(
+        CompletableFuture.failedFuture(new PackagingException("Segment missing")));
+    final String body = manifest(UUID.randomUUID().toString(), 48, "25.0", 202);
+
+    deliver(body, false);
+    verify(channel).basicReject(DELIVERY_TAG, true);
+
+    deliver(body, true);
+    verify(channel).basicReject(DELIVERY_TAG, false);
+
+    verify(channel, never()).basicAck(anyLong(), anyBoolean());
+  }
+
+  @Test
+  @DisplayName("Acknowledges invalid manifests without packaging them")
+  void acknowledgesInvalidManifests() throws IOException {
+    final String jobId = UUID.randomUUID().toString();
+    final String[] invalid = {
+        "not a manifest",
+        "{\"bucket\":\"bucket\",\"keyPrefix\":\"job-1\",\"gopSize\":48,\"frameRate\":25,"
+            + "\"frameCount\":202}",
+        manifest(jobId, 48, "25", 202).replace("\"bucket\"", "\"\""),
+        manifest(jobId, 48, "25", 202).replace("\"job-1\"", "\"\""),
+        manifest(jobId, 0, "25", 202),
+        manifest(jobId, 48, "0", 202),
+        manifest(jobId, 48, "-25", 202),
+        manifest(jobId, 48, "25", 0)
+    };
+
+    for (String body : invalid) {
+      deliver(body, false);
+    }
+
+    verify(packager, never()).pack(any());
+    verify(channel, times(invalid.length)).basicAck(DELIVERY_TAG, false);
+    verify(channel, never()).basicReject(anyLong(), anyBoolean());
+  }
+
+  @Test
+  @DisplayName("Acknowledges completed jobs and jobs rejected for an invalid manifest")
+  void completesDeliveries() throws IOException {
+    final var envelope = new Envelope(DELIVERY_TAG, false, "", "packaging");
+
+    DeliveryAcknowledgements.complete(channel, envelope, null);
+    DeliveryAcknowledgements.complete(channel, envelope,
+        new InvalidManifestException("gopSize", 0, "not positive"));
+
+    verify(channel, times(2)).basicAck(DELIVERY_TAG, false);
+    verify(channel, never()).basicReject(anyLong(), anyBoolean());
+  }
+
+  void deliver(String body, boolean redeliver) throws IOException {
+    consumer.handleDelivery("consumer", new Envelope(DELIVERY_TAG, redeliver, "", "packaging"),
+        null, body.getBytes(StandardCharsets.UTF_8));
+  }
+
+  static String manifest(String jobId, int gopSize, String frameRate, long frameCount) {
+    return String.format(MANIFEST, jobId, gopSize, frameRate, frameCount);
+  }
+}
@@ -0,0 +1,30 @@
+package io.github.akmal2409.job;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.akmal2409.job.PackagingJobManifest.MediaVariant;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class PackagingJobManifestTest {
+
+  @Test
+  @DisplayName("fromDirectoryName() parses the rendition directories it names")
+  void parsesRenditionDirectories() {
+    final var variant = new MediaVariant(1280, 720, 6_000_000);
+
+    assertThat(MediaVariant.fromDirectoryName("1280x720-6000000")).contains(variant);
+    assertThat(MediaVariant.fromDirectoryName(variant.directoryName())).contains(variant);
+    assertThat(variant.directoryName()).isEqualTo("1280x720-6000000");
+  }
+
+  @Test
+  @DisplayName("fromDirectoryName() skips directories that are not renditions")
+  void skipsOtherDirectories() {
+    for (String directoryName : new String[]{
+        "audio", "", "1280x720", "1280x720-", "1280x720-6000000-old", "x720-6000000",
+        "1280X720-6000000", "-1280x720-6000000", "1280x720-99999999999"}) {
+      assertThat(MediaVariant.fromDirectoryName(directoryName)).as(directoryName).isEmpty();
+    }
+  }
+}
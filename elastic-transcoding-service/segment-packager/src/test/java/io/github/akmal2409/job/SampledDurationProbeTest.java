@@ -0,0 +1,26 @@
+package io.github.akmal2409.job;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class SampledDurationProbeTest {
+
+  @Test
+  @DisplayName("sampleIndexes() picks every segment when there are as many samples or more")
+  void samplesEverySegment() {
+    assertThat(SampledDurationProbe.sampleIndexes(5, 5)).containsExactly(0, 1, 2, 3, 4);
+    assertThat(SampledDurationProbe.sampleIndexes(3, 10)).containsExactly(0, 1, 2);
+    assertThat(SampledDurationProbe.sampleIndexes(1, 4)).containsExactly(0);
+  }
+
+  @Test
+  @DisplayName("sampleIndexes() spreads the samples from the first to the last segment")
+  void spreadsSamples() {
+    assertThat(SampledDurationProbe.sampleIndexes(10, 1)).containsExactly(9);
+    assertThat(SampledDurationProbe.sampleIndexes(10, 2)).containsExactly(0, 9);
+    assertThat(SampledDurationProbe.sampleIndexes(10, 3)).containsExactly(0, 4, 9);
+    assertThat(SampledDurationProbe.sampleIndexes(100, 4)).containsExactly(0, 33, 66, 99);
+  }
+}
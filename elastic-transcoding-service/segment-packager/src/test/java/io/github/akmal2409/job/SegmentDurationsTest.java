@@ -0,0 +1,70 @@
+package io.github.akmal2409.job;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class SegmentDurationsTest {
+
+  static final FrameRate NTSC_FILM = new FrameRate(24000, 1001);
+
+  @Test
+  @DisplayName("The last segment has the frames left over after the full segments")
+  void lastSegmentShorterThanGop() {
+    final var durations = new SegmentDurations(NTSC_FILM, 48, 202);
+
+    assertThat(durations.segmentCount()).isEqualTo(5);
+    assertThat(durations.firstFrame(4)).isEqualTo(192);
+    assertThat(durations.frameCount(3)).isEqualTo(48);
+    assertThat(durations.frameCount(4)).isEqualTo(10);
+    assertThat(durations.durationMicros(0)).isEqualTo(2_002_000);
+    assertThat(durations.durationMicros(3)).isEqualTo(2_002_000);
+    assertThat(durations.durationMicros(4)).isEqualTo(417_083);
+    assertThat(durations.duration(4)).isEqualTo(0.417083);
+    assertThat(durations.totalDurationMicros()).isEqualTo(8_425_083);
+    assertThat(durations.maximumSegmentDuration()).isEqualTo(3);
+  }
+
+  @Test
+  @DisplayName("A video with fewer frames than the group of pictures is a single segment")
+  void frameCountBelowGop() {
+    final var durations = new SegmentDurations(new FrameRate(25, 1), 48, 30);
+
+    assertThat(durations.segmentCount()).isEqualTo(1);
+    assertThat(durations.frameCount(0)).isEqualTo(30);
+    assertThat(durations.duration(0)).isEqualTo(1.2);
+    assertThat(durations.totalDuration()).isEqualTo(1.2);
+    assertThat(durations.maximumSegmentDuration()).isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("maximumSegmentDuration() is whole seconds at least as long as every segment")
+  void maximumSegmentDurationInWholeSeconds() {
+    // exactly 2 seconds per segment
+    assertThat(new SegmentDurations(new FrameRate(25, 1), 50, 120).maximumSegmentDuration())
+        .isEqualTo(2);
+    // 6.006 seconds per segment
+    assertThat(new SegmentDurations(new FrameRate(30000, 1001), 180, 1_000)
+                   .maximumSegmentDuration()).isEqualTo(7);
+    // frames divide evenly into segments
+    assertThat(new SegmentDurations(NTSC_FILM, 48, 192).durationMicros(3)).isEqualTo(2_002_000);
+  }
+
+  @Test
+  @DisplayName("Rejects sizes that are not positive and segments out of range")
+  void rejectsInvalidArguments() {
+    assertThatThrownBy(() -> new SegmentDurations(NTSC_FILM, 0, 100))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new SegmentDurations(NTSC_FILM, 48, 0))
+        .isInstanceOf(IllegalArgumentException.class);
+
+    final var durations = new SegmentDurations(NTSC_FILM, 48, 202);
+
+    assertThatThrownBy(() -> durations.duration(5))
+        .isInstanceOf(IndexOutOfBoundsException.class);
+    assertThatThrownBy(() -> durations.frameCount(-1))
+        .isInstanceOf(IndexOutOfBoundsException.class);
+  }
+}
@@ -1,10 +1,27 @@
 package io.github.akmal2409;
 
+import com.sun.management.OperatingSystemMXBean;
+import java.lang.management.ManagementFactory;
 import java.nio.file.Path;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.function.Function;
 
 public class Configuration {
 
+  private final Function<String, String> environment;
+
+  public Configuration() {
+    this(System::getenv);
+  }
+
+  /**
+   * @param environment looks up the environment variables that override some of the defaults
+   */
+  Configuration(Function<String, String> environment) {
+    this.environment = environment;
+  }
+
   /**
    * To avoid creation of a simple maven project that will just duplicate some of the code to transcode the audio,
    * this worker will contain code for both and the role of it could be set at the startup
@@ -37,8 +54,121 @@ public class Configuration {
     return "audio-transcoding-queue";
   }
 
+  /**
+   * Number of partition queues the video jobs are routed to by segment affinity, 0 consumes from
+   * the video task queue directly. Set by the VIDEO_TASK_PARTITIONS environment variable, must
+   * match the partitions of the video slicer.
+   */
+  public int getVideoTaskPartitions() {
+    final String partitions = environment.apply("VIDEO_TASK_PARTITIONS");
+
+    return partitions == null || partitions.isBlank() ? 0 : Integer.parseInt(partitions.trim());
+  }
+
+  /**
+   * Partition whose jobs the worker takes first. Derived from the host name, so that a restarted
+   * worker keeps its partition. Workers that hash to the same partition share it, partitions
+   * without an owner are served by the others.
+   */
+  public int getHomePartition() {
+    final String hostName = Objects.requireNonNullElse(environment.apply("HOSTNAME"), getWorkerId());
+
+    return Math.floorMod(hostName.hashCode(), Math.max(1, getVideoTaskPartitions()));
+  }
+
+  /**
+   * Number of jobs processed at the same time. Each job runs its own ffmpeg processes, so the
+   * number is bounded both by the CPU cores and by the physical memory of the node.
+   */
   public int getConcurrency() {
-    return 1;
+    final int byCores = getAvailableProcessors() / getEncoderThreads();
+    final long byMemory = getTotalMemoryBytes() / getMemoryPerJobBytes();
+
+    return (int) Math.max(1, Math.min(byCores, byMemory));
+  }
+
+  /**
+   * Number of jobs whose inputs are downloaded at the same time, ahead of the encoders.
+   */
+  public int getFetchConcurrency() {
+    return 2;
+  }
+
+  /**
+   * Number of jobs whose outputs are uploaded at the same time, while the encoders proceed with
+   * the next jobs.
+   */
+  public int getUploadConcurrency() {
+    return 2;
+  }
+
+  /**
+   * Number of output files of a single job uploaded at the same time.
+   */
+  public int getFileUploadConcurrency() {
+    return 4;
+  }
+
+  /**
+   * Number of attempts of every single file download and upload before the job fails.
+   */
+  public int getTransferAttempts() {
+    return 3;
+  }
+
+  /**
+   * Number of cores a single job keeps busy, x264 does not scale well beyond that for the
+   * resolutions of a single segment.
+   */
+  public int getThreadsPerJob() {
+    return 4;
+  }
+
+  /**
+   * Largest number of outputs of a single ffmpeg run, i.e. the qualities of the ladder and the
+   * original quality segment of a fused run. Every output needs at least 1 encoder thread.
+   */
+  public int getOutputsPerJob() {
+    return 5;
+  }
+
+  /**
+   * Number of encoder threads of a single ffmpeg run, split between its outputs in proportion to
+   * their resolution. At least one per output, so that the split stays within the budget, and
+   * capped by the cores of the node. Together with {@link Configuration#getConcurrency()}, which
+   * is derived from it, the jobs never run more encoder threads than there are cores.
+   */
+  public int getEncoderThreads() {
+    return Math.min(Math.max(getThreadsPerJob(), getOutputsPerJob()), getAvailableProcessors());
+  }
+
+  public int getAvailableProcessors() {
+    return Runtime.getRuntime().availableProcessors();
+  }
+
+  /**
+   * Approximate peak memory of the ffmpeg processes of a single job.
+   */
+  public long getMemoryPerJobBytes() {
+    return 1024L * 1024 * 1024;
+  }
+
+  private long getTotalMemoryBytes() {
+    if (ManagementFactory.getOperatingSystemMXBean() instanceof OperatingSystemMXBean os) {
+      return os.getTotalMemorySize();
+    }
+
+    return Runtime.getRuntime().maxMemory();
+  }
+
+  /**
+   * Whether segments are decoded once and encoded into the original quality and all the output
+   * qualities by a single ffmpeg graph, instead of writing the original quality segment first and
+   * transcoding it in a separate two-pass run. Off unless the FUSED_ENCODING environment variable
+   * is true, as the fused graph encodes every quality in a single pass.
+   */
+  public boolean isFusedEncoding() {
+    return Boolean.parseBoolean(environment.apply("FUSED_ENCODING"));
   }
 
   public String getWorkerId() {
@@ -69,6 +199,50 @@ public class Configuration {
     return Path.of(System.getProperty("java.io.tmpdir"), ".transcoder-worker").toString();
   }
 
+  /**
+   * Directory of the cache of downloaded segments, must be on the same file system as the working
+   * directory so that cached segments are hard linked into the job directories.
+   */
+  public String getSegmentCacheDirectory() {
+    return Path.of(getWorkingDirectory(), ".segment-cache").toString();
+  }
+
+  /**
+   * Size of the downloaded segments after which the least recently used ones are evicted. Jobs of
+   * adjacent segment ranges share most of their input segments, so a few GiB cover the segments of
+   * the jobs in flight and of the next ones.
+   */
+  public long getSegmentCacheMaxBytes() {
+    return 4L * 1024 * 1024 * 1024;
+  }
+
+  /**
+   * Directory of the local result cache, must be on the same file system as the working directory
+   * so that cached outputs are restored by hard links instead of copies.
+   */
+  public String getResultCacheDirectory() {
+    return Path.of(getWorkingDirectory(), ".result-cache").toString();
+  }
+
+  /**
+   * Size of the local result cache after which the least recently used outputs are evicted.
+   */
+  public long getResultCacheMaxBytes() {
+    return 20L * 1024 * 1024 * 1024;
+  }
+
+  /**
+   * Bucket of the result cache shared by all the workers, null disables it. Outputs are copied in
+   * and out of it server-side, so it should be in the region of the output bucket.
+   */
+  public String getResultCacheBucket() {
+    return null;
+  }
+
+  public String getResultCacheKeyPrefix() {
+    return "transcoding-result-cache";
+  }
+
 
   public WorkerMode getWorkerMode() {
     return WorkerMode.AUDIO_TRANSCODER;
@@ -3,8 +3,15 @@ package io.github.akmal2409;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.kokorin.jaffree.ffprobe.FFprobe;
 import com.rabbitmq.client.ConnectionFactory;
+import io.github.akmal2409.Configuration.WorkerMode;
+import io.github.akmal2409.job.JobExecutor;
+import io.github.akmal2409.job.PipelinedJobExecutor;
 import io.github.akmal2409.job.S3Store;
 import io.github.akmal2409.job.Transcoder;
+import io.github.akmal2409.job.cache.LocalResultCache;
+import io.github.akmal2409.job.cache.RemoteResultCache;
+import io.github.akmal2409.job.cache.ResultCache;
+import io.github.akmal2409.job.cache.SegmentBlobCache;
 import java.io.IOException;
 import java.net.URI;
 import java.nio.file.Path;
@@ -34,6 +41,9 @@ public class DependencyContainer {
 
   private final AtomicReference<S3Store> s3Store = new AtomicReference<>();
   private final AtomicReference<Transcoder> transcoder = new AtomicReference<>();
+  private final AtomicReference<JobExecutor> jobExecutor = new AtomicReference<>();
+  private final AtomicReference<PipelinedJobExecutor> pipelinedJobExecutor = new AtomicReference<>();
+  private final AtomicReference<ResultCache> resultCache = new AtomicReference<>();
 
   private final AtomicReference<S3AsyncClient> s3AsyncClient = new AtomicReference<>();
   private final AtomicReference<S3TransferManager> s3TransferManager = new AtomicReference<>();
@@ -67,12 +77,56 @@ public class DependencyContainer {
     this.s3AsyncClient.set(newS3AsyncClient(awsCredentialsProvider));
     this.s3TransferManager.set(newS3TransferManager(s3AsyncClient.get()));
 
-    this.s3Store.set(new S3Store(s3TransferManager.get(), Path.of(configuration.getWorkingDirectory())));
+    this.s3Store.set(newS3Store(s3TransferManager.get(), s3AsyncClient.get()));
     this.transcoder.set(newTranscoder(ffmpegExecutor.get()));
+    this.jobExecutor.set(new JobExecutor(configuration.getConcurrency()));
+    this.pipelinedJobExecutor.set(new PipelinedJobExecutor(configuration.getFetchConcurrency(),
+        configuration.getConcurrency(), configuration.getUploadConcurrency()));
+    this.resultCache.set(newResultCache(s3AsyncClient.get()));
+  }
+
+  public ResultCache newResultCache(S3AsyncClient asyncClient) {
+    LocalResultCache local = null;
+
+    try {
+      local = new LocalResultCache(Path.of(configuration.getResultCacheDirectory()),
+          configuration.getResultCacheMaxBytes());
+    } catch (IOException e) {
+      log.warn("Cannot open local result cache at {}, continuing without it",
+          configuration.getResultCacheDirectory(), e);
+    }
+
+    final RemoteResultCache remote = configuration.getResultCacheBucket() == null ? null
+        : new RemoteResultCache(asyncClient, configuration.getResultCacheBucket(),
+            configuration.getResultCacheKeyPrefix());
+
+    return new ResultCache(local, remote);
+  }
+
+  public S3Store newS3Store(S3TransferManager transferManager, S3AsyncClient asyncClient) {
+    final Path workingDirectory = Path.of(configuration.getWorkingDirectory());
+
+    // only the overlapping segments of video jobs are downloaded more than once
+    if (!WorkerMode.VIDEO_TRANSCODER.equals(configuration.getWorkerMode())) {
+      return new S3Store(transferManager, workingDirectory, null, asyncClient,
+          configuration.getFileUploadConcurrency(), configuration.getTransferAttempts());
+    }
+
+    try {
+      return new S3Store(transferManager, workingDirectory,
+          new SegmentBlobCache(Path.of(configuration.getSegmentCacheDirectory()),
+              configuration.getSegmentCacheMaxBytes()), asyncClient,
+          configuration.getFileUploadConcurrency(), configuration.getTransferAttempts());
+    } catch (IOException e) {
+      log.warn("Cannot create segment cache at {}, continuing without it",
+          configuration.getSegmentCacheDirectory(), e);
+      return new S3Store(transferManager, workingDirectory, null, asyncClient,
+          configuration.getFileUploadConcurrency(), configuration.getTransferAttempts());
+    }
   }
 
   public Transcoder newTranscoder(FFmpegExecutor executor) {
-    return new Transcoder(executor);
+    return new Transcoder(executor, configuration.getEncoderThreads());
   }
   public ObjectMapper newObjectMapper() {
     final var mapper = new ObjectMapper();
@@ -130,4 +184,16 @@ public class DependencyContainer {
   public Transcoder getTranscoder() {
     return this.transcoder.get();
   }
+
+  public JobExecutor getJobExecutor() {
+    return this.jobExecutor.get();
+  }
+
+  public PipelinedJobExecutor getPipelinedJobExecutor() {
+    return this.pipelinedJobExecutor.get();
+  }
+
+  public ResultCache getResultCache() {
+    return this.resultCache.get();
+  }
 }
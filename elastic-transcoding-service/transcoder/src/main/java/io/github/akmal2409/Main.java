@@ -4,10 +4,15 @@ import com.rabbitmq.client.Channel;
 import com.rabbitmq.client.Connection;
 import com.rabbitmq.client.ConnectionFactory;
 import io.github.akmal2409.Configuration.WorkerMode;
+import io.github.akmal2409.job.AffinityRouting;
+import io.github.akmal2409.job.JobExecutor;
+import io.github.akmal2409.job.PipelinedJobExecutor;
 import io.github.akmal2409.job.audio.AudioTranscodingJobConsumer;
 import io.github.akmal2409.job.video.SegmentTranscodingJobConsumer;
 import java.io.IOException;
+import java.util.Map;
 import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -27,24 +32,77 @@ public class Main {
       final Connection connection = connectionFactory.newConnection();
       final Channel channel = connection.createChannel();
 
-      // set the number of messages to consume without acknowledging
-      channel.basicQos(configuration.getConcurrency());
-
       channel.queueDeclare(configuration.getTaskQueueName(), true, false, false, null);
 
+      final AutoCloseable executor;
+      final int capacity;
+
+      // set the number of messages to consume without acknowledging to the capacity of the executor,
+      // so that the broker never delivers more jobs than the worker can take
       if (WorkerMode.VIDEO_TRANSCODER.equals(configuration.getWorkerMode())) {
-        channel.basicConsume(configuration.getVideoTaskQueueName(),
-            new SegmentTranscodingJobConsumer(channel, dependencyContainer.getObjectMapper(), dependencyContainer.getS3Store(),
-                dependencyContainer.getTranscoder()));
+        final PipelinedJobExecutor jobExecutor = dependencyContainer.getPipelinedJobExecutor();
+        executor = jobExecutor;
+        capacity = jobExecutor.capacity();
+
+        final Supplier<SegmentTranscodingJobConsumer> consumers =
+            () -> new SegmentTranscodingJobConsumer(channel, dependencyContainer.getObjectMapper(),
+                dependencyContainer.getS3Store(), dependencyContainer.getTranscoder(), jobExecutor,
+                configuration.isFusedEncoding(), dependencyContainer.getResultCache());
+
+        if (configuration.getVideoTaskPartitions() > 0) {
+          consumePartitions(channel, configuration, capacity, consumers);
+        } else {
+          channel.basicQos(capacity);
+          channel.basicConsume(configuration.getVideoTaskQueueName(), consumers.get());
+        }
       } else {
+        final JobExecutor jobExecutor = dependencyContainer.getJobExecutor();
+        executor = jobExecutor;
+        capacity = jobExecutor.capacity();
+
+        channel.basicQos(capacity);
         channel.basicConsume(configuration.getAudioTaskQueueName(),
             new AudioTranscodingJobConsumer(channel, dependencyContainer.getS3Store(),
-                dependencyContainer.getObjectMapper(), dependencyContainer.getTranscoder()));
+                dependencyContainer.getObjectMapper(), dependencyContainer.getTranscoder(),
+                jobExecutor));
       }
 
-      log.debug("Started worker consumer, ready to process jobs");
+      Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+        try {
+          executor.close();
+        } catch (Exception e) {
+          log.error("Exception occurred when waiting for the jobs in flight", e);
+        }
+      }));
+
+      log.debug("Started worker consumer, ready to take {} jobs at once", capacity);
     } catch (IOException | TimeoutException e) {
       log.error("Exception occurred when establishing AMQP connection", e);
     }
   }
+
+  /**
+   * Consumes from every partition of the video task queue, from the home partition with a higher
+   * priority. The prefetch is shared by all the consumers of the channel, so the worker still
+   * never has more than capacity jobs in flight.
+   */
+  static void consumePartitions(Channel channel, Configuration configuration,
+      int capacity, Supplier<SegmentTranscodingJobConsumer> consumers) throws IOException {
+    final String queueName = configuration.getVideoTaskQueueName();
+    final int partitions = configuration.getVideoTaskPartitions();
+    final int homePartition = configuration.getHomePartition();
+
+    AffinityRouting.declare(channel, queueName, partitions);
+    channel.basicQos(capacity, true);
+
+    for (int i = 0; i < partitions; i++) {
+      final int priority = i == homePartition ? AffinityRouting.HOME_PARTITION_PRIORITY : 0;
+
+      channel.basicConsume(AffinityRouting.partitionQueueName(queueName, i), false,
+          Map.of("x-priority", priority), consumers.get());
+    }
+
+    log.debug("Consuming from {} partitions of queue {}, home partition {}", partitions,
+        queueName, homePartition);
+  }
 }
@@ -0,0 +1,63 @@
+package io.github.akmal2409.job;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Envelope;
+import java.io.IOException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Acknowledges deliveries from worker threads. Jobs with an invalid manifest are acknowledged
+ * since there is no sense to retry them. Failed jobs are requeued once, if they fail again after
+ * redelivery they are rejected.
+ */
+final class DeliveryAcknowledgements {
+
+  private static final Logger log = LoggerFactory.getLogger(DeliveryAcknowledgements.class);
+
+  private DeliveryAcknowledgements() {
+    throw new IllegalStateException("Cannot instantiate a utility class");
+  }
+
+  /**
+   * @param failure exception that the job has failed with or null if it completed
+   */
+  static void complete(Channel channel, Envelope envelope, Throwable failure) {
+    if (failure == null) {
+      ack(channel, envelope);
+    } else if (failure instanceof InvalidManifestException) {
+      // TODO: Send it to another queue for logging and auditing and alerting.
+      log.error("message=Rejected job because manifest is invalid;deliveryTag={}",
+          envelope.getDeliveryTag(), failure);
+      ack(channel, envelope);
+    } else {
+      final boolean requeue = !envelope.isRedeliver();
+
+      log.error("message=Job failed, delivery will be {};deliveryTag={}",
+          requeue ? "requeued" : "rejected", envelope.getDeliveryTag(), failure);
+      reject(channel, envelope, requeue);
+    }
+  }
+
+  static void ack(Channel channel, Envelope envelope) {
+    try {
+      // channel is shared by all workers
+      synchronized (channel) {
+        channel.basicAck(envelope.getDeliveryTag(), false);
+      }
+    } catch (IOException e) {
+      log.error("message=Failed to acknowledge delivery;deliveryTag={}",
+          envelope.getDeliveryTag(), e);
+    }
+  }
+
+  static void reject(Channel channel, Envelope envelope, boolean requeue) {
+    try {
+      synchronized (channel) {
+        channel.basicReject(envelope.getDeliveryTag(), requeue);
+      }
+    } catch (IOException e) {
+      log.error("message=Failed to reject delivery;deliveryTag={}", envelope.getDeliveryTag(), e);
+    }
+  }
+}
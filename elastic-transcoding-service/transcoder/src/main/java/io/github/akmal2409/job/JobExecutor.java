@@ -0,0 +1,101 @@
+package io.github.akmal2409.job;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Envelope;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs transcoding jobs on a bounded pool of worker threads, so that the AMQP dispatch thread
+ * only hands deliveries over and the worker processes up to {@link JobExecutor#capacity()} jobs at
+ * once. The channel prefetch must be set to the capacity, then the broker never delivers more jobs
+ * than there are free workers.
+ * <p>
+ * Deliveries are acknowledged from the worker thread once the job has completed, see
+ * {@link DeliveryAcknowledgements} for how failed jobs are handled.
+ */
+public class JobExecutor implements AutoCloseable {
+
+  private static final Logger log = LoggerFactory.getLogger(JobExecutor.class);
+  private static final long SHUTDOWN_TIMEOUT_MINUTES = 10;
+
+  private final int capacity;
+  private final ThreadPoolExecutor executor;
+
+  public JobExecutor(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be positive, got " + capacity);
+    }
+
+    this.capacity = capacity;
+    // the queue only absorbs deliveries that arrive after a worker has sent the ack but before it
+    // has returned to the pool, prefetch guarantees that there are no more than capacity of them
+    this.executor = new ThreadPoolExecutor(capacity, capacity, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(capacity), new JobThreadFactory("transcoding-job"));
+  }
+
+  /**
+   * @return maximum number of jobs that are processed at the same time
+   */
+  public int capacity() {
+    return capacity;
+  }
+
+  /**
+   * Schedules the job for the delivery on a worker thread. Returns immediately.
+   *
+   * @param channel  on which the delivery was received
+   * @param envelope of the delivery
+   * @param job      to run, the delivery is acknowledged if it completes without exception
+   */
+  public void execute(@NotNull Channel channel, @NotNull Envelope envelope, @NotNull Job job) {
+    try {
+      executor.execute(() -> run(channel, envelope, job));
+    } catch (RejectedExecutionException e) {
+      log.warn("message=Worker is at capacity or shutting down, requeueing delivery;deliveryTag={}",
+          envelope.getDeliveryTag());
+      DeliveryAcknowledgements.reject(channel, envelope, true);
+    }
+  }
+
+  private void run(Channel channel, Envelope envelope, Job job) {
+    Exception failure = null;
+
+    try {
+      job.run();
+    } catch (Exception e) {
+      failure = e;
+    }
+
+    DeliveryAcknowledgements.complete(channel, envelope, failure);
+  }
+
+  /**
+   * Stops accepting new jobs and waits for the running ones to complete.
+   */
+  @Override
+  public void close() throws InterruptedException {
+    executor.shutdown();
+
+    if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+      log.warn("message=Jobs did not complete within {} minutes, interrupting",
+          SHUTDOWN_TIMEOUT_MINUTES);
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Processing of a single delivery.
+   */
+  @FunctionalInterface
+  public interface Job {
+
+    void run() throws IOException;
+  }
+}
@@ -0,0 +1,23 @@
+package io.github.akmal2409.job;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Names worker threads after the stage they belong to, e.g. transcoding-encode-1.
+ */
+class JobThreadFactory implements ThreadFactory {
+
+  private final String namePrefix;
+  private final AtomicInteger threadCount = new AtomicInteger();
+
+  JobThreadFactory(String namePrefix) {
+    this.namePrefix = namePrefix;
+  }
+
+  @Override
+  public Thread newThread(@NotNull Runnable runnable) {
+    return new Thread(runnable, namePrefix + "-" + threadCount.incrementAndGet());
+  }
+}
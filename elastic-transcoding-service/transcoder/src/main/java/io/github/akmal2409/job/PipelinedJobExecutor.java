@@ -0,0 +1,164 @@
+package io.github.akmal2409.job;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Envelope;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs jobs as a pipeline of three stages, each one on its own bounded pool: network bound fetch,
+ * CPU bound encode and network bound upload. While a job is being encoded, the inputs of the next
+ * ones are already downloaded and the outputs of the previous ones are uploaded, so the encoders do
+ * not wait for S3.
+ * <p>
+ * The channel prefetch must be set to {@link PipelinedJobExecutor#capacity()}, which is the sum of
+ * the workers of all stages. Since there are never more jobs in flight than that, the queue of each
+ * stage is bounded by the capacity as well.
+ * <p>
+ * Deliveries are acknowledged once the upload stage has completed, see
+ * {@link DeliveryAcknowledgements} for how failed jobs are handled.
+ */
+public class PipelinedJobExecutor implements AutoCloseable {
+
+  private static final Logger log = LoggerFactory.getLogger(PipelinedJobExecutor.class);
+  private static final long SHUTDOWN_TIMEOUT_MINUTES = 10;
+
+  private final int capacity;
+  private final ThreadPoolExecutor fetchExecutor;
+  private final ThreadPoolExecutor encodeExecutor;
+  private final ThreadPoolExecutor uploadExecutor;
+
+  public PipelinedJobExecutor(int fetchConcurrency, int encodeConcurrency, int uploadConcurrency) {
+    if (fetchConcurrency < 1 || encodeConcurrency < 1 || uploadConcurrency < 1) {
+      throw new IllegalArgumentException(String.format(
+          "Concurrency of each stage must be positive, got fetch=%d, encode=%d, upload=%d",
+          fetchConcurrency, encodeConcurrency, uploadConcurrency));
+    }
+
+    this.capacity = fetchConcurrency + encodeConcurrency + uploadConcurrency;
+    this.fetchExecutor = newStageExecutor("transcoding-fetch", fetchConcurrency);
+    this.encodeExecutor = newStageExecutor("transcoding-encode", encodeConcurrency);
+    this.uploadExecutor = newStageExecutor("transcoding-upload", uploadConcurrency);
+  }
+
+  /**
+   * @return maximum number of jobs that are in flight across all stages
+   */
+  public int capacity() {
+    return capacity;
+  }
+
+  /**
+   * Schedules the job for the delivery. Returns immediately.
+   *
+   * @param channel  on which the delivery was received
+   * @param envelope of the delivery
+   * @param fetch    downloads the inputs of the job
+   * @param encode   transcodes the fetched inputs
+   * @param upload   uploads the outputs of the encode stage, the delivery is acknowledged once it
+   *                 completes
+   * @param <F>      output of the fetch stage
+   * @param <E>      output of the encode stage
+   */
+  public <F, E> void execute(@NotNull Channel channel, @NotNull Envelope envelope,
+      @NotNull Fetch<F> fetch, @NotNull Encode<F, E> encode, @NotNull Upload<E> upload) {
+    final CompletableFuture<F> fetched;
+
+    try {
+      fetched = CompletableFuture.supplyAsync(() -> {
+        try {
+          return fetch.run();
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }, fetchExecutor);
+    } catch (RejectedExecutionException e) {
+      log.warn("message=Worker is shutting down, requeueing delivery;deliveryTag={}",
+          envelope.getDeliveryTag());
+      DeliveryAcknowledgements.reject(channel, envelope, true);
+      return;
+    }
+
+    fetched.thenApplyAsync(input -> {
+             try {
+               return encode.run(input);
+             } catch (IOException e) {
+               throw new UncheckedIOException(e);
+             }
+           }, encodeExecutor)
+        .thenAcceptAsync(input -> {
+          try {
+            upload.run(input);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        }, uploadExecutor)
+        .whenComplete((ignored, e) -> DeliveryAcknowledgements.complete(channel, envelope,
+            unwrap(e)));
+  }
+
+  private Throwable unwrap(Throwable e) {
+    if (e instanceof CompletionException && e.getCause() != null) {
+      e = e.getCause();
+    }
+
+    if (e instanceof UncheckedIOException && e.getCause() != null) {
+      e = e.getCause();
+    }
+
+    return e;
+  }
+
+  /**
+   * Stops accepting new jobs and waits for the jobs in flight to pass through every stage. Stages
+   * are shut down in order, so that the later ones still accept jobs from the earlier ones.
+   */
+  @Override
+  public void close() throws InterruptedException {
+    shutdown(fetchExecutor);
+    shutdown(encodeExecutor);
+    shutdown(uploadExecutor);
+  }
+
+  private void shutdown(ThreadPoolExecutor executor) throws InterruptedException {
+    executor.shutdown();
+
+    if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+      log.warn("message=Stage did not complete within {} minutes, interrupting",
+          SHUTDOWN_TIMEOUT_MINUTES);
+      executor.shutdownNow();
+    }
+  }
+
+  private ThreadPoolExecutor newStageExecutor(String name, int concurrency) {
+    return new ThreadPoolExecutor(concurrency, concurrency, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(capacity), new JobThreadFactory(name));
+  }
+
+  @FunctionalInterface
+  public interface Fetch<O> {
+
+    O run() throws IOException;
+  }
+
+  @FunctionalInterface
+  public interface Encode<I, O> {
+
+    O run(I input) throws IOException;
+  }
+
+  @FunctionalInterface
+  public interface Upload<I> {
+
+    void run(I input) throws IOException;
+  }
+}
@@ -0,0 +1,21 @@
+package io.github.akmal2409.job;
+
+/**
+ * Rate control mode of the encoder for a single output quality.
+ */
+public enum RateControl {
+
+  /**
+   * Average bit rate encoded in two passes, the first one analyses the video so that the second one
+   * distributes the bit rate budget. Most accurate bit rate at twice the encode time.
+   */
+  TWO_PASS_ABR,
+
+  /**
+   * Single pass constant rate factor with the bit rate capped by the VBV buffer
+   * (<code>-maxrate</code> and <code>-bufsize</code> derived from the target bit rate). Simple
+   * scenes use less than the target bit rate, which is roughly half of the CPU time of
+   * {@link RateControl#TWO_PASS_ABR} at a similar quality.
+   */
+  CAPPED_CRF
+}
@@ -1,15 +1,29 @@
 package io.github.akmal2409.job;
 
+import io.github.akmal2409.job.cache.SegmentBlobCache;
+import io.github.akmal2409.utils.FileUtils;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.ChecksumAlgorithm;
+import software.amazon.awssdk.services.s3.model.ChecksumMode;
 import software.amazon.awssdk.transfer.s3.S3TransferManager;
 import software.amazon.awssdk.transfer.s3.model.CompletedFileDownload;
 import software.amazon.awssdk.transfer.s3.model.DirectoryUpload;
@@ -25,10 +39,47 @@ public class S3Store {
 
   private final S3TransferManager transferManager;
   private final Path downloadDirectory;
+  private final SegmentBlobCache downloadCache;
+  private final S3AsyncClient s3Client;
+  private final int uploadConcurrency;
+  private final int transferAttempts;
 
   public S3Store(S3TransferManager transferManager, Path downloadDirectory) {
+    this(transferManager, downloadDirectory, null);
+  }
+
+  /**
+   * @param downloadCache if present, downloaded files are cached and hard linked into the
+   *                      directories of the jobs, so that files needed by several jobs are
+   *                      downloaded once
+   */
+  public S3Store(S3TransferManager transferManager, Path downloadDirectory,
+      @Nullable SegmentBlobCache downloadCache) {
+    this(transferManager, downloadDirectory, downloadCache, null, 1, 1);
+  }
+
+  /**
+   * @param s3Client          if present, processed files are uploaded one by one with a CRC32C
+   *                          checksum that S3 verifies, instead of through the transfer manager
+   * @param uploadConcurrency maximum number of files of a directory uploaded at the same time
+   * @param transferAttempts  number of attempts of every single file download and upload, so that
+   *                          a failed file is transferred again without the rest of the job
+   */
+  public S3Store(S3TransferManager transferManager, Path downloadDirectory,
+      @Nullable SegmentBlobCache downloadCache, @Nullable S3AsyncClient s3Client,
+      int uploadConcurrency, int transferAttempts) {
+    if (uploadConcurrency < 1 || transferAttempts < 1) {
+      throw new IllegalArgumentException(String.format(
+          "Upload concurrency and transfer attempts must be positive, got %d and %d",
+          uploadConcurrency, transferAttempts));
+    }
+
     this.transferManager = transferManager;
     this.downloadDirectory = downloadDirectory;
+    this.downloadCache = downloadCache;
+    this.s3Client = s3Client;
+    this.uploadConcurrency = uploadConcurrency;
+    this.transferAttempts = transferAttempts;
   }
 
 
@@ -43,36 +94,91 @@ public class S3Store {
    */
   public Path downloadSamePrefixFiles(String bucket, String keyPrefix, String localDirectoryName, String... fileNames) {
 
-    final Path fileDownloadPath = this.downloadDirectory.resolve(localDirectoryName);
+    final Path fileDownloadPath = localDirectory(localDirectoryName);
     try {
       Files.createDirectories(fileDownloadPath);
     } catch (IOException e) {
       throw new DownloadFailedException("Cannot create folder for the job " + fileDownloadPath);
     }
 
-    final var downloadFutures = new ArrayList<CompletableFuture<CompletedFileDownload>>();
-
     log.debug("message=Starting download of files {} from bucket {} with keyPrefix {} to {};bucket={}",
         Arrays.toString(fileNames), bucket, keyPrefix, fileDownloadPath, bucket);
 
+    if (downloadCache != null) {
+      downloadCached(bucket, keyPrefix, fileDownloadPath, fileNames);
+      return fileDownloadPath;
+    }
+
+    final var downloadFutures = new ArrayList<CompletableFuture<CompletedFileDownload>>();
+
 
     for (String fileName: fileNames) {
       final var fileDestination = fileDownloadPath.resolve(fileName);
       final var fileKey = keyPrefix.concat("/").concat(fileName);
 
-      final var downloadRequest = DownloadFileRequest.builder()
-                                      .destination(fileDestination)
-                                      .getObjectRequest(obj -> obj.bucket(bucket)
-                                                                   .key(fileKey))
-                                      .build();
-
-      downloadFutures.add(transferManager.downloadFile(downloadRequest).completionFuture());
+      downloadFutures.add(withAttempts(transferAttempts,
+          () -> downloadFile(bucket, fileKey, fileDestination)));
     }
 
     downloadFutures.forEach(CompletableFuture::join);
     return fileDownloadPath;
   }
 
+  private void downloadCached(String bucket, String keyPrefix, Path fileDownloadPath,
+      String[] fileNames) {
+    final var leases = new ArrayList<SegmentBlobCache.Lease>(fileNames.length);
+
+    try {
+      // all the files are requested before waiting for any of them, so that the misses are
+      // downloaded in parallel
+      for (String fileName : fileNames) {
+        final var fileKey = keyPrefix.concat("/").concat(fileName);
+
+        leases.add(downloadCache.acquire(bucket, fileKey,
+            destination -> withAttempts(transferAttempts,
+                () -> downloadFile(bucket, fileKey, destination))));
+      }
+
+      for (int i = 0; i < fileNames.length; i++) {
+        final Path cachedFile = leases.get(i).file().join();
+
+        try {
+          FileUtils.linkOrCopy(cachedFile, fileDownloadPath.resolve(fileNames[i]));
+        } catch (IOException e) {
+          throw new DownloadFailedException(
+              "Cannot link cached file " + cachedFile + " into " + fileDownloadPath, e);
+        }
+      }
+    } finally {
+      leases.forEach(SegmentBlobCache.Lease::close);
+    }
+  }
+
+  /**
+   * Downloads the object with checksum validation enabled, so that the segments the slicer uploaded
+   * with a CRC32C checksum are verified against it once they have been received.
+   */
+  private CompletableFuture<CompletedFileDownload> downloadFile(String bucket, String key,
+      Path destination) {
+    return transferManager.downloadFile(DownloadFileRequest.builder()
+                                            .destination(destination)
+                                            .getObjectRequest(obj -> obj.bucket(bucket)
+                                                                         .key(key)
+                                                                         .checksumMode(
+                                                                             ChecksumMode.ENABLED))
+                                            .build())
+               .completionFuture();
+  }
+
+  /**
+   * @param localDirectoryName name of the directory passed to
+   *                           {@link S3Store#downloadSamePrefixFiles(String, String, String, String...)}
+   * @return path to the directory where the files are downloaded to
+   */
+  public Path localDirectory(String localDirectoryName) {
+    return this.downloadDirectory.resolve(localDirectoryName);
+  }
+
   /**
    * Uploads directory with processed files such as segments, index file, audio etc. to the
    * destination bucket with a prefix. Files located at the top of the folder will have
@@ -89,6 +195,11 @@ public class S3Store {
         "message=Starting upload of processed files from directory {} to bucket {} with key {};bucket={}",
         directory, bucket, keyPrefix, bucket);
 
+    if (s3Client != null) {
+      uploadFiles(bucket, keyPrefix, directory);
+      return;
+    }
+
     final var uploadRequest = UploadDirectoryRequest.builder()
                                   .followSymbolicLinks(false)
                                   .maxDepth(10)
@@ -106,10 +217,105 @@ public class S3Store {
           directory, bucket, keyPrefix, bucket);
     } catch (CompletionException e) {
       throw new UploadFailedException(
-          String.format("Upload of directory %s to bucket %s with key prefix {} failed",
+          String.format("Upload of directory %s to bucket %s with key prefix %s failed",
               directory, bucket, keyPrefix),
           e.getCause()
       );
     }
   }
+
+  /**
+   * Uploads the files of the directory with the same keys as the directory upload of the transfer
+   * manager, with at most {@link S3Store#uploadConcurrency} files in flight. Every file is sent
+   * with its CRC32C checksum, S3 rejects the file if the received content does not match it and
+   * the file alone is uploaded again.
+   */
+  private void uploadFiles(String bucket, String keyPrefix, Path directory) {
+    final List<Path> files;
+
+    try (Stream<Path> paths = Files.walk(directory)) {
+      files = paths.filter(Files::isRegularFile).collect(Collectors.toList());
+    } catch (IOException e) {
+      throw new UploadFailedException("Cannot list processed files in " + directory, e);
+    }
+
+    final var next = new AtomicInteger();
+    final var lanes = new ArrayList<CompletableFuture<Void>>(uploadConcurrency);
+
+    for (int i = 0; i < Math.min(uploadConcurrency, files.size()); i++) {
+      lanes.add(uploadNextFile(bucket, keyPrefix, directory, files, next));
+    }
+
+    try {
+      CompletableFuture.allOf(lanes.toArray(CompletableFuture[]::new)).join();
+      log.debug(
+          "message=Finished upload of {} processed files from directory {} to bucket {} with key {};bucket={}",
+          files.size(), directory, bucket, keyPrefix, bucket);
+    } catch (CompletionException e) {
+      throw new UploadFailedException(
+          String.format("Upload of directory %s to bucket %s with key prefix %s failed",
+              directory, bucket, keyPrefix),
+          e.getCause()
+      );
+    }
+  }
+
+  private CompletableFuture<Void> uploadNextFile(String bucket, String keyPrefix, Path directory,
+      List<Path> files, AtomicInteger next) {
+    final int index = next.getAndIncrement();
+
+    if (index >= files.size()) {
+      return CompletableFuture.completedFuture(null);
+    }
+
+    final Path file = files.get(index);
+    final String key = keyPrefix.concat("/").concat(
+        directory.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/"));
+
+    return withAttempts(transferAttempts, () -> uploadFile(bucket, key, file))
+               .thenCompose(ignored -> uploadNextFile(bucket, keyPrefix, directory, files, next));
+  }
+
+  private CompletableFuture<?> uploadFile(String bucket, String key, Path file) {
+    final String checksum;
+
+    try {
+      checksum = toBase64(FileUtils.crc32c(file));
+    } catch (IOException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+
+    return s3Client.putObject(request -> request.bucket(bucket)
+                                             .key(key)
+                                             .checksumAlgorithm(ChecksumAlgorithm.CRC32_C)
+                                             .checksumCRC32C(checksum),
+        AsyncRequestBody.fromFile(file));
+  }
+
+  private static String toBase64(long crc32c) {
+    return Base64.getEncoder().encodeToString(
+        ByteBuffer.allocate(Integer.BYTES).putInt((int) crc32c).array());
+  }
+
+  /**
+   * Runs the transfer again if it fails, up to the given number of attempts in total.
+   */
+  private static <T> CompletableFuture<T> withAttempts(int attempts,
+      Supplier<CompletableFuture<T>> transfer) {
+    CompletableFuture<T> attempt;
+
+    try {
+      attempt = transfer.get();
+    } catch (RuntimeException e) {
+      attempt = CompletableFuture.failedFuture(e);
+    }
+
+    if (attempts <= 1) {
+      return attempt;
+    }
+
+    return attempt.handle((result, e) -> e == null ? CompletableFuture.completedFuture(result)
+                                             : withAttempts(attempts - 1, transfer))
+               .thenCompose(future -> future);
+  }
 }
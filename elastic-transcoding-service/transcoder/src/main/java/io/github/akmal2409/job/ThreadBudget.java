@@ -0,0 +1,77 @@
+package io.github.akmal2409.job;
+
+/**
+ * Splits the encoder threads of a job between its outputs. An encoder left to pick its own thread
+ * count sizes it by the cores of the whole node, so the outputs of a job and the concurrent jobs
+ * oversubscribe the CPU, while the small outputs finish early and leave the largest one running on
+ * a few threads. Splitting the budget by the pixel rate of each output makes them finish at about
+ * the same time.
+ */
+public final class ThreadBudget {
+
+  private ThreadBudget() {
+  }
+
+  /**
+   * Splits the threads proportionally to the weights using the largest remainder method. Every
+   * output gets at least 1 thread, so if there are more outputs than threads the sum exceeds the
+   * budget, hence, the budget should be at least the number of outputs (see
+   * {@code Configuration#getEncoderThreads()}).
+   *
+   * @param threads total number of threads
+   * @param weights of the outputs (e.g. pixels per frame, as the frame rate is the same)
+   * @return number of threads of each output, in the order of the weights
+   */
+  public static int[] partition(int threads, long[] weights) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("Thread budget must be positive, got " + threads);
+    }
+
+    final int[] partition = new int[weights.length];
+    long totalWeight = 0;
+
+    for (int i = 0; i < weights.length; i++) {
+      if (weights[i] < 0) {
+        throw new IllegalArgumentException("Weight cannot be negative, got " + weights[i]);
+      }
+
+      partition[i] = 1;
+      totalWeight += weights[i];
+    }
+
+    int remaining = threads - weights.length;
+
+    if (remaining <= 0) {
+      return partition;
+    }
+
+    final int spare = remaining;
+    final double[] remainders = new double[weights.length];
+
+    for (int i = 0; i < weights.length; i++) {
+      final double share = totalWeight == 0
+                               ? (double) spare / weights.length
+                               : (double) spare * weights[i] / totalWeight;
+
+      partition[i] += (int) share;
+      remaining -= (int) share;
+      remainders[i] = share - (int) share;
+    }
+
+    // hand out the threads lost to rounding, largest remainder first
+    for (; remaining > 0; remaining--) {
+      int largest = 0;
+
+      for (int i = 1; i < remainders.length; i++) {
+        if (remainders[i] > remainders[largest]) {
+          largest = i;
+        }
+      }
+
+      partition[largest]++;
+      remainders[largest] = -1;
+    }
+
+    return partition;
+  }
+}
@@ -9,15 +9,19 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import net.bramp.ffmpeg.FFmpegExecutor;
 import net.bramp.ffmpeg.builder.FFmpegBuilder;
+import net.bramp.ffmpeg.builder.FFmpegOutputBuilder;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * The encoded segments are always encoded with h264, High profile and 4.0 level.
+ * The quality segments are encoded with the {@link io.github.akmal2409.job.encoder.Encoder} of
+ * each quality (h264, High profile and 4.0 level by default).
  * Original segment will always have h264, High 4:4:4 and 4.0 level
  */
 public class Transcoder {
@@ -25,9 +29,21 @@ public class Transcoder {
   private static final Logger log = LoggerFactory.getLogger(Transcoder.class);
 
   private final FFmpegExecutor ffmpegExecutor;
+  private final int threadBudget;
 
   public Transcoder(FFmpegExecutor ffmpegExecutor) {
+    this(ffmpegExecutor, 0);
+  }
+
+  /**
+   * @param ffmpegExecutor executor of the ffmpeg jobs
+   * @param threadBudget   number of encoder threads of a single ffmpeg run that are split between
+   *                       the quality outputs by {@link ThreadBudget}, if smaller than 1 the
+   *                       encoders pick their thread count themselves
+   */
+  public Transcoder(FFmpegExecutor ffmpegExecutor, int threadBudget) {
     this.ffmpegExecutor = ffmpegExecutor;
+    this.threadBudget = threadBudget;
   }
 
   /**
@@ -123,8 +139,10 @@ public class Transcoder {
   }
 
   /**
-   * Given at least 1 {@link VideoQualityTranscodingTask} transcodes the source video into the desired resolution and bitrate, while trying to
-   * preserve the quality by using a 2-pass job.
+   * Given at least 1 {@link VideoQualityTranscodingTask} transcodes the source video into the desired resolution and bitrate.
+   * Qualities with {@link RateControl#TWO_PASS_ABR} are encoded together in a 2-pass job to preserve the quality,
+   * qualities with {@link RateControl#CAPPED_CRF} and the ones whose encoder does not support 2 passes together in a
+   * single pass job.
    *
    * @param source video file that needs to be transcoded.
    * @param qualities that you want your video to be available in.
@@ -138,26 +156,87 @@ public class Transcoder {
       throw new TranscodingException("Source file doesn't exist");
     }
 
-    final var jobBuilder = new FFmpegBuilder()
-                               .addInput(source.toString());
+    final var twoPassTasks = new ArrayList<VideoQualityTranscodingTask>(qualities.length);
+    final var singlePassTasks = new ArrayList<VideoQualityTranscodingTask>(qualities.length);
 
     for (VideoQualityTranscodingTask task: qualities) {
-      final var containerFormat = FileUtils.getFileExtension(task.out().getFileName().toString());
-
-      jobBuilder.addOutput(task.out().toString())
-          .setVideoCodec("libx264")
-          .addExtraArgs("-profile:v", "high", "-level:v", "4")
-          .addExtraArgs("-tune", "film")
-          .setVideoBitRate(task.bitRate())
-          .addExtraArgs("-b:v", String.valueOf(task.bitRate()))
-          .setVideoFilter(String.format("scale=%d:%d", task.width(), task.height()))
-          .addExtraArgs("-preset", "slow")
-
-          .setFormat(containerFormat);
+      if (task.rateControl() == RateControl.TWO_PASS_ABR && task.encoder().supportsTwoPass()) {
+        twoPassTasks.add(task);
+      } else {
+        singlePassTasks.add(task);
+      }
+    }
+
+    // the runs are sequential, so each one gets the whole thread budget
+    if (!twoPassTasks.isEmpty()) {
+      final var jobBuilder = new FFmpegBuilder()
+                                 .addInput(source.toString());
+      final int[] threads = partitionThreads(twoPassTasks, 0);
+
+      for (int i = 0; i < twoPassTasks.size(); i++) {
+        final VideoQualityTranscodingTask task = twoPassTasks.get(i);
+        final var containerFormat = FileUtils.getFileExtension(task.out().getFileName().toString());
+
+        final var output = jobBuilder.addOutput(task.out().toString());
+        task.encoder().configure(output, task, 0, threadsOf(threads, i), true);
+
+        output.setVideoFilter(String.format("scale=%d:%d", task.width(), task.height()))
+            .setFormat(containerFormat);
+      }
+
+      ffmpegExecutor.createTwoPassJob(jobBuilder).run();
     }
 
+    if (!singlePassTasks.isEmpty()) {
+      final var jobBuilder = new FFmpegBuilder()
+                                 .addInput(source.toString())
+                                 .overrideOutputFiles(true);
+      final int[] threads = partitionThreads(singlePassTasks, 0);
+
+      for (int i = 0; i < singlePassTasks.size(); i++) {
+        final VideoQualityTranscodingTask task = singlePassTasks.get(i);
+        final var containerFormat = FileUtils.getFileExtension(task.out().getFileName().toString());
 
-    ffmpegExecutor.createTwoPassJob(jobBuilder).run();
+        final var output = jobBuilder.addOutput(task.out().toString());
+        task.encoder().configure(output, task, 0, threadsOf(threads, i), false);
+
+        output.setVideoFilter(String.format("scale=%d:%d", task.width(), task.height()))
+            .setFormat(containerFormat);
+      }
+
+      ffmpegExecutor.createJob(jobBuilder).run();
+    }
+  }
+
+  /**
+   * Splits the thread budget between the quality outputs by their pixels per frame.
+   *
+   * @param tasks          quality outputs of a single ffmpeg run
+   * @param originalPixels pixels per frame of the original quality output, which gets the first
+   *                       thread count of the result, 0 if the run has no such output
+   * @return thread count of each output or null if the encoders pick it themselves
+   */
+  private int[] partitionThreads(List<VideoQualityTranscodingTask> tasks, long originalPixels) {
+    if (threadBudget < 1) {
+      return null;
+    }
+
+    final int offset = originalPixels > 0 ? 1 : 0;
+    final long[] pixels = new long[tasks.size() + offset];
+
+    if (offset == 1) {
+      pixels[0] = originalPixels;
+    }
+
+    for (int i = 0; i < tasks.size(); i++) {
+      pixels[i + offset] = (long) tasks.get(i).width() * tasks.get(i).height();
+    }
+
+    return ThreadBudget.partition(threadBudget, pixels);
+  }
+
+  private int threadsOf(int[] threads, int index) {
+    return threads == null ? 0 : threads[index];
   }
 
   /**
@@ -198,6 +277,200 @@ public class Transcoder {
     }
   }
 
+  /**
+   * Joins the overlapping segments and cuts out the exact frame range of the target segment in a
+   * single ffmpeg run. The output is encoded losslessly with a fixed Group of Pictures (GOP) size,
+   * so it is a mezzanine for {@link Transcoder#transcodeToMultipleQualities}. Replaces
+   * {@link Transcoder#skipKFrames}, {@link Transcoder#joinVideosWithGopSize} and
+   * {@link Transcoder#extractFirstSegment}, which encode the frames twice and cut by duration.
+   * <p>
+   * Audio streams are dropped.
+   *
+   * @param videoPaths      overlapping segments in order of appearance
+   * @param outFile         output file with extension
+   * @param skipFirstFrames number of frames of the first segment that belong to the previous
+   *                        target segment
+   * @param frameCount      number of frames in the target segment, less are written if the
+   *                        segments end earlier
+   * @param gopSize         distance in frames between I-Frames
+   */
+  public void joinAndCutFrames(Path[] videoPaths, Path outFile, int skipFirstFrames,
+      int frameCount, int gopSize) {
+    if (videoPaths == null || videoPaths.length == 0) {
+      throw new TranscodingException("Video paths not provided");
+    } else if (skipFirstFrames < 0) {
+      throw new TranscodingException("skipFirstFrames is negative");
+    } else if (frameCount < 1) {
+      throw new TranscodingException("frameCount is smaller than 1 frame");
+    }
+
+    Path indexFile = null;
+
+    try {
+      Files.createDirectories(outFile.getParent());
+
+      indexFile = Files.createTempFile(null, null);
+      createFfmpegVideoIndexFile(indexFile, videoPaths);
+
+      // end_frame is exclusive, timestamps are reset so that the output starts at 0
+      final var frameRangeFilter = String.format(
+          "trim=start_frame=%d:end_frame=%d,setpts=PTS-STARTPTS",
+          skipFirstFrames, skipFirstFrames + frameCount);
+
+      final var jobBuilder = new FFmpegBuilder()
+                                 .addExtraArgs("-f", "concat", "-safe", "0")
+                                 .addInput(indexFile.toString())
+                                 .overrideOutputFiles(true)
+
+                                 .addOutput(outFile.toString())
+                                 .disableAudio()
+                                 .setVideoFilter(frameRangeFilter)
+                                 .addExtraArgs("-frames:v", String.valueOf(frameCount))
+                                 .setVideoCodec("libx264")
+                                 .addExtraArgs("-x264opts",
+                                     String.format("keyint=%d:min-keyint=%d:no-scenecut",
+                                         gopSize, gopSize))
+                                 .addExtraArgs("-profile:v", "high444", "-level:v", "4")
+                                 .setConstantRateFactor(0)
+                                 .done();
+
+      ffmpegExecutor.createJob(jobBuilder).run();
+      log.debug("Cut frames [{}, {}) of joined videos into {}", skipFirstFrames,
+          skipFirstFrames + frameCount, outFile);
+    } catch (IOException e) {
+      throw new TranscodingException("Exception occurred when generating index file", e);
+    } finally {
+      if (indexFile != null) {
+        try {
+          Files.deleteIfExists(indexFile);
+        } catch (IOException e) {
+          // will be cleaned up after the restart anyways
+        }
+      }
+    }
+  }
+
+  /**
+   * Fused variant of {@link Transcoder#joinAndCutFrames} followed by
+   * {@link Transcoder#transcodeToMultipleQualities}. A single ffmpeg graph decodes the overlapping
+   * segments once, cuts the frame range of the target segment and splits it into the original
+   * quality encode and one encode per quality, so that no intermediate file is written or decoded
+   * again.
+   * <p>
+   * Qualities are encoded in a single pass with the bit rate capped by the VBV buffer, as a two-pass
+   * encode would have to decode the segments twice. Qualities with {@link RateControl#TWO_PASS_ABR}
+   * therefore target their bit rate in a single pass. Audio streams are dropped.
+   *
+   * @param videoPaths      overlapping segments in order of appearance
+   * @param skipFirstFrames number of frames of the first segment that belong to the previous
+   *                        target segment
+   * @param frameCount      number of frames in the target segment
+   * @param gopSize         distance in frames between I-Frames, the same for every output
+   * @param originalOut     output of the lossless original quality segment
+   * @param qualities       that you want your video to be available in
+   */
+  public void joinCutAndTranscode(Path[] videoPaths, int skipFirstFrames, int frameCount,
+      int gopSize, Path originalOut, VideoQualityTranscodingTask... qualities) {
+    if (videoPaths == null || videoPaths.length == 0) {
+      throw new TranscodingException("Video paths not provided");
+    } else if (qualities == null || qualities.length == 0) {
+      throw new TranscodingException("At least 1 video quality with an output should be provided");
+    } else if (skipFirstFrames < 0) {
+      throw new TranscodingException("skipFirstFrames is negative");
+    } else if (frameCount < 1) {
+      throw new TranscodingException("frameCount is smaller than 1 frame");
+    }
+
+    final var keyframeOptions = String.format("keyint=%d:min-keyint=%d:no-scenecut",
+        gopSize, gopSize);
+    Path indexFile = null;
+
+    try {
+      Files.createDirectories(originalOut.getParent());
+
+      indexFile = Files.createTempFile(null, null);
+      createFfmpegVideoIndexFile(indexFile, videoPaths);
+
+      final var jobBuilder = new FFmpegBuilder()
+                                 .addExtraArgs("-f", "concat", "-safe", "0")
+                                 .addInput(indexFile.toString())
+                                 .overrideOutputFiles(true)
+                                 .setComplexFilter(buildSplitFilterGraph(skipFirstFrames,
+                                     frameCount, qualities));
+
+      // the resolution of the original is not known here, it is at least the one of the largest
+      // quality and usually the same
+      long originalPixels = 1;
+
+      for (VideoQualityTranscodingTask task : qualities) {
+        originalPixels = Math.max(originalPixels, (long) task.width() * task.height());
+      }
+
+      final int[] threads = partitionThreads(List.of(qualities), originalPixels);
+
+      final var originalOutput = jobBuilder.addOutput(originalOut.toString())
+                                     .addExtraArgs("-map", "[original]")
+                                     .addExtraArgs("-frames:v", String.valueOf(frameCount))
+                                     .setVideoCodec("libx264")
+                                     .addExtraArgs("-x264opts", keyframeOptions)
+                                     .addExtraArgs("-profile:v", "high444", "-level:v", "4")
+                                     .setConstantRateFactor(0);
+
+      if (threads != null) {
+        originalOutput.addExtraArgs("-threads", String.valueOf(threads[0]));
+      }
+
+      for (int i = 0; i < qualities.length; i++) {
+        final VideoQualityTranscodingTask task = qualities[i];
+        final var containerFormat = FileUtils.getFileExtension(task.out().getFileName().toString());
+
+        final var output = jobBuilder.addOutput(task.out().toString())
+                               .addExtraArgs("-map", "[quality" + i + "]")
+                               .addExtraArgs("-frames:v", String.valueOf(frameCount));
+        task.encoder().configure(output, task, gopSize, threadsOf(threads, i + 1), false);
+
+        output.setFormat(containerFormat);
+      }
+
+      ffmpegExecutor.createJob(jobBuilder).run();
+      log.debug("Cut frames [{}, {}) of joined videos into {} and {} qualities", skipFirstFrames,
+          skipFirstFrames + frameCount, originalOut, qualities.length);
+    } catch (IOException e) {
+      throw new TranscodingException("Exception occurred when generating index file", e);
+    } finally {
+      if (indexFile != null) {
+        try {
+          Files.deleteIfExists(indexFile);
+        } catch (IOException e) {
+          // will be cleaned up after the restart anyways
+        }
+      }
+    }
+  }
+
+  /**
+   * Builds the filter graph: [0:v] -> trim -> split -> [original], scale -> [quality_i]
+   */
+  private String buildSplitFilterGraph(int skipFirstFrames, int frameCount,
+      VideoQualityTranscodingTask[] qualities) {
+    final var graph = new StringBuilder();
+
+    graph.append(String.format(
+        "[0:v]trim=start_frame=%d:end_frame=%d,setpts=PTS-STARTPTS,split=%d[original]",
+        skipFirstFrames, skipFirstFrames + frameCount, qualities.length + 1));
+
+    for (int i = 0; i < qualities.length; i++) {
+      graph.append("[split").append(i).append(']');
+    }
+
+    for (int i = 0; i < qualities.length; i++) {
+      graph.append(String.format(";[split%d]scale=%d:%d[quality%d]", i, qualities[i].width(),
+          qualities[i].height(), i));
+    }
+
+    return graph.toString();
+  }
+
   /**
    * Transcodes the source audio to target with the specified codec and bitRate.
    *
@@ -1,5 +1,7 @@
 package io.github.akmal2409.job;
 
+import io.github.akmal2409.job.encoder.Encoder;
+import io.github.akmal2409.job.encoder.EncoderType;
 import java.nio.file.Path;
 
 /**
@@ -9,13 +11,29 @@ import java.nio.file.Path;
  * @param out output file name
  * @param width output video width in pixels
  * @param height output video height in pixels
- * @param bitRate output video bit rate (amount of information in a second)
+ * @param bitRate output video bit rate (amount of information in a second), for
+ * {@link RateControl#CAPPED_CRF} it is the maximum bit rate
+ * @param encoder video encoder of the output
+ * @param rateControl rate control mode of the encoder
+ * @param preset encoder preset (e.g. slow, medium), trades encode speed for compression
+ * @param crf constant rate factor, only used by {@link RateControl#CAPPED_CRF}
  */
 public record VideoQualityTranscodingTask(
     Path out,
     int width,
     int height,
-    int bitRate
+    int bitRate,
+    Encoder encoder,
+    RateControl rateControl,
+    String preset,
+    int crf
 ) {
 
+  public static final EncoderType DEFAULT_ENCODER = EncoderType.X264;
+  public static final RateControl DEFAULT_RATE_CONTROL = RateControl.TWO_PASS_ABR;
+
+  public VideoQualityTranscodingTask(Path out, int width, int height, int bitRate) {
+    this(out, width, height, bitRate, DEFAULT_ENCODER.encoder(), DEFAULT_RATE_CONTROL,
+        DEFAULT_ENCODER.encoder().defaultPreset(), DEFAULT_ENCODER.encoder().defaultCrf());
+  }
 }
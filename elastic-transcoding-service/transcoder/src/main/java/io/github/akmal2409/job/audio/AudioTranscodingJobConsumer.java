@@ -7,6 +7,7 @@ import com.rabbitmq.client.Channel;
 import com.rabbitmq.client.DefaultConsumer;
 import com.rabbitmq.client.Envelope;
 import io.github.akmal2409.job.InvalidManifestException;
+import io.github.akmal2409.job.JobExecutor;
 import io.github.akmal2409.job.S3Store;
 import io.github.akmal2409.job.Transcoder;
 import io.github.akmal2409.utils.FileUtils;
@@ -28,34 +29,43 @@ public class AudioTranscodingJobConsumer extends DefaultConsumer {
   private final S3Store s3Store;
   private final ObjectMapper mapper;
   private final Transcoder transcoder;
+  private final JobExecutor jobExecutor;
 
   public AudioTranscodingJobConsumer(Channel channel, S3Store s3Store, ObjectMapper mapper,
-      Transcoder transcoder) {
+      Transcoder transcoder, JobExecutor jobExecutor) {
     super(channel);
     this.s3Store = s3Store;
     this.mapper = mapper;
     this.transcoder = transcoder;
+    this.jobExecutor = jobExecutor;
   }
 
 
+  /**
+   * Hands the delivery over to the {@link JobExecutor}, the job is acknowledged by the worker
+   * thread once the transcoded audio has been uploaded.
+   */
   @Override
   public void handleDelivery(String consumerTag, Envelope envelope, BasicProperties properties,
-      byte[] body) throws IOException {
+      byte[] body) {
+    jobExecutor.execute(getChannel(), envelope, () -> transcode(consumerTag, body));
+  }
+
+  private void transcode(String consumerTag, byte[] body) throws IOException {
+    final AudioTranscodingJobManifest manifest;
 
-      AudioTranscodingJobManifest manifest = null;
     try {
       manifest = mapper.readValue(body, AudioTranscodingJobManifest.class);
-
-      validateManifest(manifest);
-      log.debug(
-          "message=Validated manifest. Starting with the job;jobId={};consumerTag={};jobType=audio_transcoding_job",
-          manifest.jobId(), consumerTag);
-    } catch (InvalidManifestException | JsonProcessingException e) {
+    } catch (JsonProcessingException e) {
       // TODO: redirect to some DLQ for alerts and monitoring
-      getChannel().basicAck(envelope.getDeliveryTag(), false);
-      throw e;
+      throw new InvalidManifestException("body", null, e.getOriginalMessage());
     }
 
+    validateManifest(manifest);
+    log.debug(
+        "message=Validated manifest. Starting with the job;jobId={};consumerTag={};jobType=audio_transcoding_job",
+        manifest.jobId(), consumerTag);
+
     final Path audioFilePath = s3Store.downloadSamePrefixFiles(manifest.sourceBucket(),
         manifest.sourceKeyPrefix(), manifest.jobId().toString(), manifest.fileName()).resolve(manifest.fileName());
 
@@ -0,0 +1,218 @@
+package io.github.akmal2409.job.cache;
+
+import io.github.akmal2409.utils.FileUtils;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the outputs of recent jobs on the local disk, one directory per cache key, and evicts the
+ * least recently used entries once their total size exceeds the limit. The recency survives
+ * restarts through the modification time of the entry directories.
+ * <p>
+ * Files are stored and restored by hard links where the file system allows it, so neither costs a
+ * copy and restored files stay valid even if the entry is evicted meanwhile. Restored files share
+ * the entry's inode, hence they must not be written to. Safe for concurrent use.
+ */
+public class LocalResultCache {
+
+  private static final Logger log = LoggerFactory.getLogger(LocalResultCache.class);
+  private static final String STAGING_PREFIX = ".staging-";
+
+  private final Path directory;
+  private final long maxBytes;
+
+  // access ordered, the first entry is the least recently used one
+  private final LinkedHashMap<String, Long> entrySizes = new LinkedHashMap<>(16, 0.75f, true);
+  private long totalBytes;
+
+  /**
+   * @param directory where the entries are stored, entries left by a previous run are reused
+   * @param maxBytes  total size of the entries after which the least recently used ones are evicted
+   */
+  public LocalResultCache(Path directory, long maxBytes) throws IOException {
+    this.directory = directory;
+    this.maxBytes = maxBytes;
+
+    Files.createDirectories(directory);
+    loadEntries();
+  }
+
+  /**
+   * Links the files of the entry into the target directory, keeping their relative paths. If the
+   * restore fails half way, the files restored so far are removed again.
+   *
+   * @return false if there is no entry for the key
+   */
+  public boolean restore(String key, Path target) throws IOException {
+    final Path entry = directory.resolve(key);
+    final var restored = new ArrayList<Path>();
+
+    synchronized (this) {
+      if (entrySizes.get(key) == null) {
+        return false;
+      }
+
+      // links are created under the lock, so that the entry is not evicted half way
+      try {
+        linkTree(entry, target, restored);
+        Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+      } catch (IOException | RuntimeException e) {
+        for (Path file : restored) {
+          Files.deleteIfExists(file);
+        }
+
+        throw e;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Adds the files of the source directory as a new entry. The files are staged first, so that a
+   * partially stored entry is never visible. The source files must not be modified afterwards.
+   */
+  public void store(String key, Path source) throws IOException {
+    final Path staging = directory.resolve(STAGING_PREFIX + UUID.randomUUID());
+
+    try {
+      final long size = linkTree(source, staging, new ArrayList<>());
+
+      synchronized (this) {
+        if (entrySizes.containsKey(key)) {
+          return;
+        }
+
+        try {
+          Files.move(staging, directory.resolve(key), StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+          return;
+        }
+
+        entrySizes.put(key, size);
+        totalBytes += size;
+        evict();
+      }
+    } finally {
+      if (Files.exists(staging)) {
+        FileUtils.deleteDirectory(staging);
+      }
+    }
+  }
+
+  /**
+   * @return total size of the entries in bytes
+   */
+  public synchronized long size() {
+    return totalBytes;
+  }
+
+  /**
+   * @return whether there is an entry for the key, does not affect its recency
+   */
+  public synchronized boolean contains(String key) {
+    return entrySizes.containsKey(key);
+  }
+
+  private void evict() throws IOException {
+    final Iterator<Map.Entry<String, Long>> iterator = entrySizes.entrySet().iterator();
+
+    while (totalBytes > maxBytes && iterator.hasNext()) {
+      final Map.Entry<String, Long> eldest = iterator.next();
+
+      FileUtils.deleteDirectory(directory.resolve(eldest.getKey()));
+      totalBytes -= eldest.getValue();
+      iterator.remove();
+
+      log.debug("message=Evicted result cache entry;key={};cacheBytes={}", eldest.getKey(),
+          totalBytes);
+    }
+  }
+
+  private void loadEntries() throws IOException {
+    final List<Path> entries;
+
+    try (Stream<Path> children = Files.list(directory)) {
+      entries = children.filter(Files::isDirectory).toList();
+    }
+
+    final var recency = new HashMap<Path, FileTime>();
+
+    for (Path entry : entries) {
+      if (entry.getFileName().toString().startsWith(STAGING_PREFIX)) {
+        // left over by a crash during store
+        FileUtils.deleteDirectory(entry);
+      } else {
+        recency.put(entry, Files.getLastModifiedTime(entry));
+      }
+    }
+
+    final List<Path> byRecency = recency.keySet().stream()
+                                     .sorted(Comparator.comparing(recency::get))
+                                     .toList();
+
+    for (Path entry : byRecency) {
+      final long size = sizeOf(entry);
+      entrySizes.put(entry.getFileName().toString(), size);
+      totalBytes += size;
+    }
+
+    evict();
+  }
+
+  /**
+   * Mirrors the directory tree, linking the files or copying them if they cannot be linked.
+   *
+   * @param created collects the files created in the target
+   * @return total size of the files
+   */
+  private static long linkTree(Path source, Path target, List<Path> created) throws IOException {
+    long size = 0;
+
+    try (Stream<Path> files = Files.walk(source)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        final Path destination = target.resolve(source.relativize(file).toString());
+
+        if (Files.isDirectory(file)) {
+          Files.createDirectories(destination);
+          continue;
+        }
+
+        FileUtils.linkOrCopy(file, destination);
+        created.add(destination);
+        size += Files.size(destination);
+      }
+    }
+
+    return size;
+  }
+
+  private static long sizeOf(Path entry) throws IOException {
+    try (Stream<Path> files = Files.walk(entry)) {
+      long size = 0;
+
+      for (Path file : (Iterable<Path>) files::iterator) {
+        if (Files.isRegularFile(file)) {
+          size += Files.size(file);
+        }
+      }
+
+      return size;
+    }
+  }
+}
@@ -0,0 +1,134 @@
+package io.github.akmal2409.job.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+/**
+ * Keeps the outputs of jobs in a bucket shared by all the workers, under
+ * {@code prefix/key/relative path}. Objects are only ever copied server-side, from the job outputs
+ * into the cache and from the cache into the outputs of a duplicate job, so that no bytes pass
+ * through the worker.
+ * <p>
+ * An entry becomes visible once its marker object has been written after all the files, hence
+ * partially stored entries are never used. Expiry of the entries is left to the lifecycle rules of
+ * the bucket.
+ */
+public class RemoteResultCache {
+
+  private static final Logger log = LoggerFactory.getLogger(RemoteResultCache.class);
+  private static final String COMPLETE_MARKER = ".complete";
+
+  private final S3AsyncClient s3Client;
+  private final String bucket;
+  private final String prefix;
+
+  /**
+   * @param bucket where the entries are stored
+   * @param prefix common key prefix of the entries
+   */
+  public RemoteResultCache(S3AsyncClient s3Client, String bucket, String prefix) {
+    this.s3Client = s3Client;
+    this.bucket = bucket;
+    this.prefix = prefix;
+  }
+
+  /**
+   * Copies the files of the entry to the destination, keeping their relative paths under the key
+   * prefix.
+   *
+   * @return false if there is no complete entry for the key
+   */
+  public boolean copyTo(String key, String destinationBucket, String destinationKeyPrefix) {
+    final String entryPrefix = entryPrefix(key);
+
+    try {
+      s3Client.headObject(request -> request.bucket(bucket).key(entryPrefix + COMPLETE_MARKER))
+          .join();
+    } catch (CompletionException e) {
+      if (isNotFound(e.getCause())) {
+        return false;
+      }
+
+      throw e;
+    }
+
+    final List<String> relativePaths = listEntry(entryPrefix);
+
+    copyAll(relativePaths, bucket, entryPrefix, destinationBucket, destinationKeyPrefix + "/");
+    log.debug("message=Copied {} files from result cache;key={};bucket={}", relativePaths.size(),
+        key, destinationBucket);
+
+    return true;
+  }
+
+  /**
+   * Copies the uploaded outputs of a job into a new entry.
+   *
+   * @param relativePaths paths of the outputs relative to the key prefix
+   */
+  public void storeFrom(String key, String sourceBucket, String sourceKeyPrefix,
+      List<String> relativePaths) {
+    final String entryPrefix = entryPrefix(key);
+
+    copyAll(relativePaths, sourceBucket, sourceKeyPrefix + "/", bucket, entryPrefix);
+
+    s3Client.putObject(request -> request.bucket(bucket).key(entryPrefix + COMPLETE_MARKER),
+        AsyncRequestBody.empty()).join();
+  }
+
+  private void copyAll(List<String> relativePaths, String sourceBucket, String sourcePrefix,
+      String destinationBucket, String destinationPrefix) {
+    final var copies = new ArrayList<CompletableFuture<?>>(relativePaths.size());
+
+    for (String relativePath : relativePaths) {
+      copies.add(s3Client.copyObject(request -> request.sourceBucket(sourceBucket)
+                                                    .sourceKey(sourcePrefix + relativePath)
+                                                    .destinationBucket(destinationBucket)
+                                                    .destinationKey(
+                                                        destinationPrefix + relativePath)));
+    }
+
+    CompletableFuture.allOf(copies.toArray(CompletableFuture[]::new)).join();
+  }
+
+  private List<String> listEntry(String entryPrefix) {
+    final var relativePaths = new ArrayList<String>();
+    String continuationToken = null;
+
+    do {
+      final String token = continuationToken;
+      final ListObjectsV2Response response = s3Client.listObjectsV2(
+          request -> request.bucket(bucket).prefix(entryPrefix).continuationToken(token)).join();
+
+      for (S3Object object : response.contents()) {
+        final String relativePath = object.key().substring(entryPrefix.length());
+
+        if (!COMPLETE_MARKER.equals(relativePath)) {
+          relativePaths.add(relativePath);
+        }
+      }
+
+      continuationToken = response.nextContinuationToken();
+    } while (continuationToken != null);
+
+    return relativePaths;
+  }
+
+  private String entryPrefix(String key) {
+    return prefix + "/" + key + "/";
+  }
+
+  private static boolean isNotFound(Throwable e) {
+    // HEAD responses have no body, so a missing object is not mapped to NoSuchKeyException
+    return e instanceof S3Exception s3Exception && s3Exception.statusCode() == 404;
+  }
+}
@@ -0,0 +1,153 @@
+package io.github.akmal2409.job.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Stream;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Content addressed cache of job outputs, so that retried and duplicate jobs skip the encoding. Jobs
+ * are identified by a hash of their source bytes and of the encoding parameters, see
+ * {@link ResultCache#key(Path[], String)}, hence a hit is an exact replay of the same encode.
+ * <p>
+ * Lookups go to the {@link LocalResultCache} of the worker first and then to the
+ * {@link RemoteResultCache} shared by all the workers. Either of them may be absent. The cache is
+ * an optimisation only, so its failures are logged and reported as misses.
+ */
+public class ResultCache {
+
+  private static final Logger log = LoggerFactory.getLogger(ResultCache.class);
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final LocalResultCache local;
+  private final RemoteResultCache remote;
+
+  public ResultCache(@Nullable LocalResultCache local, @Nullable RemoteResultCache remote) {
+    this.local = local;
+    this.remote = remote;
+  }
+
+  /**
+   * Computes the cache key of a job.
+   *
+   * @param sources    input files of the job in the order they are read by the encoder
+   * @param parameters everything else that affects the outputs, including their relative paths
+   * @return SHA-256 of the sources and the parameters as a hex string
+   */
+  public static String key(Path[] sources, String parameters) throws IOException {
+    final MessageDigest digest = newDigest();
+    final var buffer = new byte[BUFFER_SIZE];
+
+    for (Path source : sources) {
+      // the length separates the files, so that moving bytes between them changes the key
+      digest.update(ByteBuffer.allocate(Long.BYTES).putLong(Files.size(source)).array());
+
+      try (InputStream in = Files.newInputStream(source)) {
+        int read;
+
+        while ((read = in.read(buffer)) != -1) {
+          digest.update(buffer, 0, read);
+        }
+      }
+    }
+
+    digest.update(parameters.getBytes(StandardCharsets.UTF_8));
+
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+  /**
+   * Restores the outputs from the local disk of the worker.
+   *
+   * @return whether the outputs have been restored into the target directory
+   */
+  public boolean restoreLocal(String key, Path target) {
+    if (local == null) {
+      return false;
+    }
+
+    try {
+      return local.restore(key, target);
+    } catch (IOException | RuntimeException e) {
+      log.warn("message=Cannot restore outputs from local result cache;key={}", key, e);
+      return false;
+    }
+  }
+
+  /**
+   * Copies the outputs from the shared cache to their destination without downloading them.
+   *
+   * @return whether the outputs have been copied
+   */
+  public boolean copyRemote(String key, String bucket, String keyPrefix) {
+    if (remote == null) {
+      return false;
+    }
+
+    try {
+      return remote.copyTo(key, bucket, keyPrefix);
+    } catch (RuntimeException e) {
+      log.warn("message=Cannot copy outputs from remote result cache;key={};bucket={}", key, bucket,
+          e);
+      return false;
+    }
+  }
+
+  /**
+   * Adds the encoded outputs to the local cache of the worker.
+   */
+  public void storeLocal(String key, Path outputs) {
+    if (local == null) {
+      return;
+    }
+
+    try {
+      local.store(key, outputs);
+    } catch (IOException | RuntimeException e) {
+      log.warn("message=Cannot store outputs in local result cache;key={}", key, e);
+    }
+  }
+
+  /**
+   * Adds the uploaded outputs to the shared cache.
+   *
+   * @param outputs   local directory the outputs were uploaded from
+   * @param bucket    where the outputs were uploaded to
+   * @param keyPrefix under which the outputs were uploaded
+   */
+  public void storeRemote(String key, Path outputs, String bucket, String keyPrefix) {
+    if (remote == null) {
+      return;
+    }
+
+    try (Stream<Path> files = Files.walk(outputs)) {
+      final List<String> relativePaths = files.filter(Files::isRegularFile)
+                                             .map(file -> outputs.relativize(file).toString()
+                                                              .replace('\\', '/'))
+                                             .toList();
+
+      remote.storeFrom(key, bucket, keyPrefix, relativePaths);
+    } catch (IOException | RuntimeException e) {
+      log.warn("message=Cannot store outputs in remote result cache;key={};bucket={}", key, bucket,
+          e);
+    }
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not supported by the JVM", e);
+    }
+  }
+}
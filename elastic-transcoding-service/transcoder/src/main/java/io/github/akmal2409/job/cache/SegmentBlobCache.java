@@ -0,0 +1,224 @@
+package io.github.akmal2409.job.cache;
+
+import io.github.akmal2409.utils.FileUtils;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Node local cache of downloaded S3 objects. Jobs of overlapping segment ranges need many of the
+ * same segments, with the cache each of them is downloaded once per worker as long as it stays
+ * cached.
+ * <p>
+ * Concurrent requests of the same object share a single download. Every request holds a
+ * {@link Lease} on the object, which keeps it from being evicted until the lease is closed. Once
+ * the total size of the objects exceeds the limit, the least recently used objects without leases
+ * are evicted. Objects are meant to be hard linked into the job directories while the lease is
+ * held, the links stay valid after the eviction. Safe for concurrent use.
+ */
+public class SegmentBlobCache {
+
+  private static final Logger log = LoggerFactory.getLogger(SegmentBlobCache.class);
+  private static final String DOWNLOAD_PREFIX = ".download-";
+
+  private final Path directory;
+  private final long maxBytes;
+
+  // access ordered, the first entry is the least recently used one
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long totalBytes;
+
+  /**
+   * @param directory where the objects are stored, its previous contents are removed
+   * @param maxBytes  total size of the objects after which the least recently used ones are
+   *                  evicted
+   */
+  public SegmentBlobCache(Path directory, long maxBytes) throws IOException {
+    this.directory = directory;
+    this.maxBytes = maxBytes;
+
+    // the file names do not tell which object they hold, hence nothing can be reused
+    if (Files.exists(directory)) {
+      FileUtils.deleteDirectory(directory);
+    }
+
+    Files.createDirectories(directory);
+  }
+
+  /**
+   * Takes a lease on the object, downloading it if it is not cached yet and no other request is
+   * downloading it already.
+   *
+   * @param download downloads the object into the given file, only called on a miss
+   * @return lease that must be closed once the object has been linked or copied
+   */
+  public Lease acquire(String bucket, String key,
+      Function<Path, CompletableFuture<?>> download) {
+    final String id = bucket + "/" + key;
+    final Entry entry;
+    final boolean miss;
+
+    synchronized (this) {
+      final Entry cached = entries.get(id);
+      miss = cached == null;
+      entry = miss ? new Entry() : cached;
+
+      if (miss) {
+        entries.put(id, entry);
+      }
+
+      entry.leases++;
+    }
+
+    if (miss) {
+      download(id, entry, download);
+    } else {
+      log.debug("message=Segment cache hit;bucket={};key={}", bucket, key);
+    }
+
+    return new Lease(entry);
+  }
+
+  /**
+   * @return total size of the cached objects in bytes
+   */
+  public synchronized long size() {
+    return totalBytes;
+  }
+
+  private void download(String id, Entry entry, Function<Path, CompletableFuture<?>> download) {
+    final Path temporary = directory.resolve(DOWNLOAD_PREFIX + UUID.randomUUID());
+    final Path target = directory.resolve(fileName(id));
+    CompletableFuture<?> downloaded;
+
+    try {
+      downloaded = download.apply(temporary);
+    } catch (RuntimeException e) {
+      downloaded = CompletableFuture.failedFuture(e);
+    }
+
+    downloaded.whenComplete((ignored, e) -> {
+      if (e == null) {
+        try {
+          Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE,
+              StandardCopyOption.REPLACE_EXISTING);
+          cached(entry, target, Files.size(target));
+          return;
+        } catch (IOException ioException) {
+          e = ioException;
+        }
+      }
+
+      failed(id, entry, temporary, e);
+    });
+  }
+
+  private synchronized void cached(Entry entry, Path file, long size) {
+    entry.size = size;
+    totalBytes += size;
+    entry.file.complete(file);
+    evict();
+  }
+
+  private void failed(String id, Entry entry, Path temporary, Throwable failure) {
+    synchronized (this) {
+      // the next request downloads the object again
+      entries.remove(id, entry);
+    }
+
+    try {
+      Files.deleteIfExists(temporary);
+    } catch (IOException e) {
+      failure.addSuppressed(e);
+    }
+
+    entry.file.completeExceptionally(failure);
+  }
+
+  private synchronized void release(Entry entry) {
+    entry.leases--;
+
+    if (entry.leases == 0) {
+      evict();
+    }
+  }
+
+  private void evict() {
+    final Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+
+    while (totalBytes > maxBytes && iterator.hasNext()) {
+      final Map.Entry<String, Entry> candidate = iterator.next();
+      final Entry entry = candidate.getValue();
+
+      if (entry.leases > 0 || !entry.file.isDone()) {
+        continue;
+      }
+
+      try {
+        Files.deleteIfExists(entry.file.join());
+      } catch (IOException e) {
+        log.warn("message=Cannot delete evicted segment;key={}", candidate.getKey(), e);
+      }
+
+      totalBytes -= entry.size;
+      iterator.remove();
+    }
+  }
+
+  private static String fileName(String id) {
+    try {
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                                          .digest(id.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not supported by the JVM", e);
+    }
+  }
+
+  private static final class Entry {
+
+    private final CompletableFuture<Path> file = new CompletableFuture<>();
+    private int leases;
+    private long size;
+  }
+
+  /**
+   * Keeps the object from being evicted until it is closed.
+   */
+  public final class Lease implements AutoCloseable {
+
+    private final Entry entry;
+    private boolean closed;
+
+    private Lease(Entry entry) {
+      this.entry = entry;
+    }
+
+    /**
+     * @return cached file of the object, completes once the object has been downloaded
+     */
+    public CompletableFuture<Path> file() {
+      return entry.file;
+    }
+
+    @Override
+    public void close() {
+      if (!closed) {
+        closed = true;
+        release(entry);
+      }
+    }
+  }
+}
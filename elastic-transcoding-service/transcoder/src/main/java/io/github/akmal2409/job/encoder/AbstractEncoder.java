@@ -0,0 +1,51 @@
+package io.github.akmal2409.job.encoder;
+
+import io.github.akmal2409.job.RateControl;
+import io.github.akmal2409.job.VideoQualityTranscodingTask;
+import net.bramp.ffmpeg.builder.FFmpegOutputBuilder;
+
+/**
+ * Rate control shared by the encoders, all of them map the generic ffmpeg options to their own
+ * parameters.
+ */
+abstract class AbstractEncoder implements Encoder {
+
+  /**
+   * Peak bit rate of the outputs that target an average bit rate, relative to the target. The
+   * packager advertises it as the bandwidth of the variant, must be kept in sync with it.
+   */
+  static final int PEAK_BIT_RATE_FACTOR = 2;
+
+  @Override
+  public void configure(FFmpegOutputBuilder output, VideoQualityTranscodingTask task, int gopSize,
+      int threads, boolean twoPass) {
+    output.setVideoCodec(name())
+        .addExtraArgs("-preset", task.preset());
+
+    configureCodec(output, task, gopSize, threads);
+
+    final long maxRate;
+
+    if (!twoPass && task.rateControl() == RateControl.CAPPED_CRF) {
+      output.setConstantRateFactor(task.crf());
+      maxRate = task.bitRate();
+    } else {
+      // an average bit rate is kept only if complex scenes may go above it, hence, the peak is a
+      // multiple of the target rather than the target itself
+      output.setVideoBitRate(task.bitRate());
+      maxRate = (long) task.bitRate() * PEAK_BIT_RATE_FACTOR;
+    }
+
+    output.addExtraArgs("-maxrate", String.valueOf(maxRate),
+        "-bufsize", String.valueOf(maxRate * 2));
+  }
+
+  /**
+   * Adds the profile, keyframe and threading options.
+   *
+   * @param gopSize distance in frames between keyframes or 0 to let the encoder place them
+   * @param threads number of encoder threads or 0 to let the encoder choose
+   */
+  protected abstract void configureCodec(FFmpegOutputBuilder output,
+      VideoQualityTranscodingTask task, int gopSize, int threads);
+}
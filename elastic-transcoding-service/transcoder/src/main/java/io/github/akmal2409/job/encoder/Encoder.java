@@ -0,0 +1,54 @@
+package io.github.akmal2409.job.encoder;
+
+import io.github.akmal2409.job.RateControl;
+import io.github.akmal2409.job.VideoQualityTranscodingTask;
+import net.bramp.ffmpeg.builder.FFmpegOutputBuilder;
+
+/**
+ * Video encoder of the quality outputs. Every implementation runs on the CPU and comes with its own
+ * defaults tuned for segmented VOD, so that the transcoder produces any codec from the same job.
+ */
+public interface Encoder {
+
+  /**
+   * @return name of the ffmpeg encoder (e.g. libx264)
+   */
+  String name();
+
+  /**
+   * @return preset used if the quality does not specify one
+   */
+  String defaultPreset();
+
+  /**
+   * @return constant rate factor used if the quality does not specify one
+   */
+  int defaultCrf();
+
+  /**
+   * @return largest valid constant rate factor, the smallest one is 0
+   */
+  int maxCrf();
+
+  /**
+   * @return whether the encoder is driven by the ffmpeg <code>-pass</code> option, otherwise
+   * {@link RateControl#TWO_PASS_ABR} qualities are encoded in a single pass with a capped bit rate
+   */
+  boolean supportsTwoPass();
+
+  /**
+   * Adds the codec, profile, preset, rate control, keyframe and threading options of a quality
+   * output.
+   *
+   * @param output  of the quality
+   * @param task    quality to encode
+   * @param gopSize distance in frames between keyframes or 0 to let the encoder place them
+   * @param threads number of encoder threads or 0 to let the encoder choose
+   * @param twoPass whether the output is a part of a two-pass job, which targets the bit rate
+   *                instead of a constant rate factor. The bit rate is capped by the VBV buffer in
+   *                either case, at the bit rate of the task for a constant rate factor and at a
+   *                multiple of it for a targeted bit rate
+   */
+  void configure(FFmpegOutputBuilder output, VideoQualityTranscodingTask task, int gopSize,
+      int threads, boolean twoPass);
+}
@@ -0,0 +1,20 @@
+package io.github.akmal2409.job.encoder;
+
+/**
+ * Encoders that can be selected for a quality in the job manifest.
+ */
+public enum EncoderType {
+  X264(new X264Encoder()),
+  X265(new X265Encoder()),
+  SVT_AV1(new SvtAv1Encoder());
+
+  private final Encoder encoder;
+
+  EncoderType(Encoder encoder) {
+    this.encoder = encoder;
+  }
+
+  public Encoder encoder() {
+    return encoder;
+  }
+}
@@ -0,0 +1,59 @@
+package io.github.akmal2409.job.encoder;
+
+import io.github.akmal2409.job.VideoQualityTranscodingTask;
+import net.bramp.ffmpeg.builder.FFmpegOutputBuilder;
+
+/**
+ * AV1 encoded by SVT-AV1. Presets are numbers from 0 (slowest) to 13, 6 is a VOD trade-off between
+ * speed and compression. Keyframes are closed, so every segment can be decoded on its own.
+ * <p>
+ * The ffmpeg wrapper does not support the <code>-pass</code> option, two-pass qualities are encoded
+ * in a single pass.
+ */
+public class SvtAv1Encoder extends AbstractEncoder {
+
+  @Override
+  public String name() {
+    return "libsvtav1";
+  }
+
+  @Override
+  public String defaultPreset() {
+    return "6";
+  }
+
+  @Override
+  public int defaultCrf() {
+    return 35;
+  }
+
+  @Override
+  public int maxCrf() {
+    return 63;
+  }
+
+  @Override
+  public boolean supportsTwoPass() {
+    return false;
+  }
+
+  @Override
+  protected void configureCodec(FFmpegOutputBuilder output, VideoQualityTranscodingTask task,
+      int gopSize, int threads) {
+    output.setVideoPixelFormat("yuv420p");
+
+    final var params = new StringBuilder("irefresh-type=2");
+
+    if (gopSize > 0) {
+      output.addExtraArgs("-g", String.valueOf(gopSize));
+      params.append(":scd=0");
+    }
+
+    if (threads > 0) {
+      // SVT-AV1 sizes its thread pool by the logical processors parameter, not by -threads
+      params.append(":lp=").append(threads);
+    }
+
+    output.addExtraArgs("-svtav1-params", params.toString());
+  }
+}
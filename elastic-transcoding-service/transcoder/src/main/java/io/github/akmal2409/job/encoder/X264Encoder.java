@@ -0,0 +1,51 @@
+package io.github.akmal2409.job.encoder;
+
+import io.github.akmal2409.job.VideoQualityTranscodingTask;
+import net.bramp.ffmpeg.builder.FFmpegOutputBuilder;
+
+/**
+ * H.264 with High profile and 4.0 level, tuned for film content. Plays everywhere.
+ */
+public class X264Encoder extends AbstractEncoder {
+
+  @Override
+  public String name() {
+    return "libx264";
+  }
+
+  @Override
+  public String defaultPreset() {
+    return "slow";
+  }
+
+  @Override
+  public int defaultCrf() {
+    return 23;
+  }
+
+  @Override
+  public int maxCrf() {
+    return 51;
+  }
+
+  @Override
+  public boolean supportsTwoPass() {
+    return true;
+  }
+
+  @Override
+  protected void configureCodec(FFmpegOutputBuilder output, VideoQualityTranscodingTask task,
+      int gopSize, int threads) {
+    output.addExtraArgs("-profile:v", "high", "-level:v", "4")
+        .addExtraArgs("-tune", "film");
+
+    if (gopSize > 0) {
+      output.addExtraArgs("-x264opts",
+          String.format("keyint=%d:min-keyint=%d:no-scenecut", gopSize, gopSize));
+    }
+
+    if (threads > 0) {
+      output.addExtraArgs("-threads", String.valueOf(threads));
+    }
+  }
+}
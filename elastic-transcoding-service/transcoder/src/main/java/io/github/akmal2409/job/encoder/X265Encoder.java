@@ -0,0 +1,60 @@
+package io.github.akmal2409.job.encoder;
+
+import io.github.akmal2409.job.VideoQualityTranscodingTask;
+import net.bramp.ffmpeg.builder.FFmpegOutputBuilder;
+
+/**
+ * HEVC with Main profile and closed GOPs, so that every segment starts with a keyframe that does
+ * not reference the previous one. Tagged as hvc1, which Apple players require in MP4.
+ * <p>
+ * libx265 ignores the ffmpeg <code>-pass</code> option, two-pass qualities are encoded in a single
+ * pass.
+ */
+public class X265Encoder extends AbstractEncoder {
+
+  @Override
+  public String name() {
+    return "libx265";
+  }
+
+  @Override
+  public String defaultPreset() {
+    return "medium";
+  }
+
+  @Override
+  public int defaultCrf() {
+    return 28;
+  }
+
+  @Override
+  public int maxCrf() {
+    return 51;
+  }
+
+  @Override
+  public boolean supportsTwoPass() {
+    return false;
+  }
+
+  @Override
+  protected void configureCodec(FFmpegOutputBuilder output, VideoQualityTranscodingTask task,
+      int gopSize, int threads) {
+    output.addExtraArgs("-profile:v", "main")
+        .addExtraArgs("-tag:v", "hvc1")
+        .setVideoPixelFormat("yuv420p");
+
+    final var params = new StringBuilder("open-gop=0:log-level=error");
+
+    if (gopSize > 0) {
+      params.append(String.format(":keyint=%d:min-keyint=%d:scenecut=0", gopSize, gopSize));
+    }
+
+    if (threads > 0) {
+      // x265 sizes its thread pool by the pools parameter, not by -threads
+      params.append(":pools=").append(threads);
+    }
+
+    output.addExtraArgs("-x265-params", params.toString());
+  }
+}
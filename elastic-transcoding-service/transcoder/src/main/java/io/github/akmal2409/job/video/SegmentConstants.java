@@ -1,6 +1,6 @@
 package io.github.akmal2409.job.video;
 
-import io.github.akmal2409.utils.StringUtils;
+import java.util.Comparator;
 import java.util.regex.Pattern;
 
 public final class SegmentConstants {
@@ -13,13 +13,20 @@ public final class SegmentConstants {
   public static final Pattern SEGMENT_FILE_NAME_REGEX_PATTERN = Pattern.compile("^segment-(?<index>\\d{8})\\.mp4$");
   public static final String SEGMENT_FILE_NAME_INDEX_CAPTURING_GROUP_NAME = "index";
 
+  /**
+   * The comparator assumes that the input file names are already valid segment names. Prefer
+   * parsing names once with {@link SegmentFileName#parse(String)} and sorting with
+   * {@link SegmentFileName#INDEX_COMPARATOR} when sorting many names.
+   */
+  public static final Comparator<String> SEGMENT_FILE_NAME_COMPARATOR = (firstName, secondName) ->
+      Integer.compare(SegmentFileName.parseIndex(firstName), SegmentFileName.parseIndex(secondName));
+
   /**
    * Converts segment index to file name with padding
    * @param index
    * @return
    */
   public static String segmentIndexToFileName(int index) {
-    return String.format("segment-%s.mp4", StringUtils.padLeft(String.valueOf(index),
-        8, '0'));
+    return SegmentFileName.format(index);
   }
 }
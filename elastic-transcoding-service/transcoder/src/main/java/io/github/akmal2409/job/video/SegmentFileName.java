@@ -0,0 +1,96 @@
+package io.github.akmal2409.job.video;
+
+import java.util.Comparator;
+import java.util.Optional;
+
+/**
+ * File name of a segment with its index already parsed, so that segments can be sorted without
+ * parsing the name on every comparison. Names follow
+ * {@link SegmentConstants#SEGMENT_FILE_NAME_PATTERN}, the index is parsed by hand since the pattern
+ * has a fixed width.
+ * <p>
+ * Must be kept in sync with the copy in the video-slicer.
+ *
+ * @param fileName name of the segment file (e.g. segment-00000001.mp4)
+ * @param index    index of the segment
+ */
+public record SegmentFileName(
+    String fileName,
+    int index
+) {
+
+  public static final String PREFIX = "segment-";
+  public static final String SUFFIX = ".mp4";
+  public static final int INDEX_DIGITS = 8;
+
+  private static final int LENGTH = PREFIX.length() + INDEX_DIGITS + SUFFIX.length();
+
+  /**
+   * Orders segments by their index, which is their order of appearance in the video.
+   */
+  public static final Comparator<SegmentFileName> INDEX_COMPARATOR = Comparator.comparingInt(
+      SegmentFileName::index);
+
+  /**
+   * @param fileName name of a file without any directories
+   * @return parsed segment name or empty if the file is not a segment
+   */
+  public static Optional<SegmentFileName> parse(String fileName) {
+    final int index = parseIndex(fileName);
+
+    return index < 0 ? Optional.empty() : Optional.of(new SegmentFileName(fileName, index));
+  }
+
+  /**
+   * Extracts the index from the segment file name.
+   *
+   * @param fileName name of a file without any directories
+   * @return index of the segment or -1 if the file is not a segment
+   */
+  public static int parseIndex(String fileName) {
+    if (fileName.length() != LENGTH || !fileName.startsWith(PREFIX)
+            || !fileName.endsWith(SUFFIX)) {
+      return -1;
+    }
+
+    int index = 0;
+
+    for (int i = PREFIX.length(); i < PREFIX.length() + INDEX_DIGITS; i++) {
+      final int digit = fileName.charAt(i) - '0';
+
+      if (digit < 0 || digit > 9) {
+        return -1;
+      }
+
+      index = index * 10 + digit;
+    }
+
+    return index;
+  }
+
+  /**
+   * Formats the segment file name for the given index, equivalent to formatting
+   * {@link SegmentConstants#SEGMENT_FILE_NAME_PATTERN} but without parsing the pattern.
+   */
+  public static String format(int index) {
+    if (index < 0) {
+      throw new IllegalArgumentException("Segment index cannot be negative, got " + index);
+    }
+
+    final var name = new char[LENGTH];
+    PREFIX.getChars(0, PREFIX.length(), name, 0);
+    SUFFIX.getChars(0, SUFFIX.length(), name, PREFIX.length() + INDEX_DIGITS);
+
+    for (int i = PREFIX.length() + INDEX_DIGITS - 1; i >= PREFIX.length(); i--) {
+      name[i] = (char) ('0' + index % 10);
+      index /= 10;
+    }
+
+    if (index != 0) {
+      throw new IllegalArgumentException(
+          "Segment index does not fit into " + INDEX_DIGITS + " digits");
+    }
+
+    return new String(name);
+  }
+}
@@ -1,21 +1,28 @@
 package io.github.akmal2409.job.video;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.rabbitmq.client.AMQP.BasicProperties;
 import com.rabbitmq.client.Channel;
 import com.rabbitmq.client.DefaultConsumer;
 import com.rabbitmq.client.Envelope;
 import io.github.akmal2409.job.InvalidManifestException;
+import io.github.akmal2409.job.PipelinedJobExecutor;
+import io.github.akmal2409.job.RateControl;
 import io.github.akmal2409.job.S3Store;
 import io.github.akmal2409.job.Transcoder;
 import io.github.akmal2409.job.TranscodingException;
 import io.github.akmal2409.job.VideoQualityTranscodingTask;
+import io.github.akmal2409.job.cache.ResultCache;
+import io.github.akmal2409.job.encoder.Encoder;
 import io.github.akmal2409.job.video.TranscodingJobManifest.VideoQuality;
 import io.github.akmal2409.utils.FileUtils;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.Objects;
+import java.util.StringJoiner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.utils.StringUtils;
@@ -24,105 +31,203 @@ public class SegmentTranscodingJobConsumer extends DefaultConsumer {
 
   private static final Logger log = LoggerFactory.getLogger(SegmentTranscodingJobConsumer.class);
 
+  /**
+   * Part of the result cache key, must be bumped whenever the same parameters start producing
+   * different outputs (e.g. a change of the encoder arguments).
+   */
+  private static final String CACHE_KEY_VERSION = "1";
+
   private final ObjectMapper mapper;
   private final S3Store s3Store;
   private final Transcoder transcoder;
+  private final PipelinedJobExecutor jobExecutor;
+  private final boolean fusedEncoding;
+  private final ResultCache resultCache;
 
-  public SegmentTranscodingJobConsumer(Channel channel, ObjectMapper mapper, S3Store s3Store, Transcoder transcoder) {
+  /**
+   * @param fusedEncoding whether the original quality segment and all the qualities are encoded in
+   *                      a single ffmpeg graph, see {@link Transcoder#joinCutAndTranscode}. Jobs
+   *                      with two-pass qualities are never fused
+   * @param resultCache   outputs of previous jobs, looked up before encoding
+   */
+  public SegmentTranscodingJobConsumer(Channel channel, ObjectMapper mapper, S3Store s3Store,
+      Transcoder transcoder, PipelinedJobExecutor jobExecutor, boolean fusedEncoding,
+      ResultCache resultCache) {
     super(channel);
     this.mapper = mapper;
     this.s3Store = s3Store;
     this.transcoder = transcoder;
+    this.jobExecutor = jobExecutor;
+    this.fusedEncoding = fusedEncoding;
+    this.resultCache = resultCache;
   }
 
+  /**
+   * Hands the delivery over to the {@link PipelinedJobExecutor}. Segments are downloaded, encoded
+   * and uploaded on separate stages and the job is acknowledged once the transcoded segments have
+   * been uploaded.
+   */
   @Override
   public void handleDelivery(String consumerTag, Envelope envelope, BasicProperties properties,
-      byte[] body) throws IOException {
+      byte[] body) {
+    jobExecutor.execute(getChannel(), envelope,
+        () -> fetch(consumerTag, body),
+        job -> deleteOnFailure(job, () -> encode(consumerTag, job)),
+        job -> upload(consumerTag, job));
+  }
 
-    final TranscodingJobManifest manifest = mapper.readValue(body, TranscodingJobManifest.class);
+  private SegmentJob fetch(String consumerTag, byte[] body) throws IOException {
+    final TranscodingJobManifest manifest;
 
     try {
-      validateManifest(manifest);
-      log.debug(
-          "message=Validated manifest. Starting with the job;jobId={};consumerTag={};jobType=video_video_transcoding_job",
-          manifest.jobId(), consumerTag);
-    } catch (InvalidManifestException e) {
-      // no sense to retry if manifest is corrupted
-      // TODO: Send it to another queue for logging and auditing and alerting.
-      log.error(
-          "message=Rejected job because manifest is invalid;jobId={};consumerTag={}j;obType=video_transcoding_job",
-          manifest.jobId(), consumerTag);
-      getChannel().basicAck(envelope.getDeliveryTag(), false);
-      throw e;
+      manifest = mapper.readValue(body, TranscodingJobManifest.class);
+    } catch (JsonProcessingException e) {
+      throw new InvalidManifestException("body", null, e.getOriginalMessage());
     }
 
+    validateManifest(manifest);
+    log.debug(
+        "message=Validated manifest. Starting with the job;jobId={};consumerTag={};jobType=video_video_transcoding_job",
+        manifest.jobId(), consumerTag);
+
     final String[] segmentNames = manifest.segmentFileNames().clone();
     Arrays.sort(segmentNames);
 
     // given source key points to the whole "folder" containing index file, audio and segments, we are only interested in segments
-    // that is why the path is concatenated with /segments
-    final Path segmentsPath = s3Store.downloadSamePrefixFiles(
-        manifest.sourceBucket(), manifest.sourceKeyPrefix().concat("/segments"),
-        manifest.jobId().toString(),
-        manifest.segmentFileNames()
-    );
+    // that is why the path is concatenated with /segments. Segments of the same job can be processed concurrently,
+    // hence, each one is downloaded into its own directory
+    final String localDirectoryName = manifest.jobId() + "-" + manifest.segmentIndex();
+    final Path segmentsPath;
+
+    try {
+      segmentsPath = s3Store.downloadSamePrefixFiles(
+          manifest.sourceBucket(), manifest.sourceKeyPrefix().concat("/segments"),
+          localDirectoryName,
+          manifest.segmentFileNames()
+      );
+    } catch (RuntimeException e) {
+      deleteQuietly(s3Store.localDirectory(localDirectoryName), e);
+      throw e;
+    }
+
     log.debug(
         "message=Downloaded segment files for the job. Number of segments {}. Downloaded to: {};jobId={};consumerTag={}j;obType=video_transcoding_job",
         segmentNames.length, segmentsPath, manifest.jobId(), consumerTag);
 
-    try {
-      // so that video is not passed through encoding without any reason (loss of quality)
-      if (manifest.skipFirstFrames() > 0) {
-        final var firstSegment = segmentsPath.resolve(segmentNames[0]);
-        skipVideoFrames(firstSegment, manifest.skipFirstFrames());
-        log.debug(
-            "message=Skipped {} frames from first segment {};jobId={};consumerTag={};jobType=video_transcoding_job",
-            manifest.skipFirstFrames(), segmentNames[0], manifest.jobId(), consumerTag);
-      }
+    return new SegmentJob(manifest, segmentNames, segmentsPath, null, false);
+  }
+
+  private SegmentJob encode(String consumerTag, SegmentJob job) throws IOException {
+    final TranscodingJobManifest manifest = job.manifest();
+    final String[] segmentNames = job.segmentNames();
+    final Path segmentsPath = job.segmentsPath();
+
+    // each segment is under the segments folder (the one we downloaded to) so we just need to concat those together
+    final Path[] segmentPaths = buildSegmentPaths(segmentsPath, segmentNames);
 
-      // each segment is under the segments folder (the one we downloaded to) so we just need to concat those together
-      final Path[] segmentPaths = buildSegmentPaths(segmentsPath, segmentNames);
-      // because we are transcoding using overlapping segments to get target duration, we need to join them into 1 file with a fixed GOP
-      final Path joinedEncodedSegments = segmentsPath.resolve("joined.mp4");
+    final Path processedFilesPath = job.processedFilesPath();
 
-      // so it joins the k-segments into 1 and then cuts after GOP size and gets the first chunk, the rest is discarded as it was only used to get the target segment
-      transcoder.joinVideosWithGopSize(segmentPaths, joinedEncodedSegments, manifest.gopSize());
+    // the segment we have currently encoded was encoded using highest settings to preserve the quality, that is why we keep it in a separate folder
+    // with original bit rate and resolution
+    final Path originalQualitySegmentPath = processedFilesPath.resolve(
+        String.format("%dx%d-%d", manifest.originalQuality().width(),
+            manifest.originalQuality().height(),
+            manifest.originalQuality().bitRate()));
 
-      final Path processedFilesPath = segmentsPath.resolve("processed");
+    final Path processedSegment = originalQualitySegmentPath
+                                      .resolve(SegmentConstants.segmentIndexToFileName(
+                                          manifest.segmentIndex()));
 
-      // the segment we have currently encoded was encoded using highest settings to preserve the quality, that is why we keep it in a separate folder
-      // with original bit rate and resolution
-      final Path originalQualitySegmentPath = processedFilesPath.resolve(
-          String.format("%dx%d-%d", manifest.originalQuality().width(),
-              manifest.originalQuality().height(),
-              manifest.originalQuality().bitRate()));
+    final VideoQualityTranscodingTask[] qualityTasks = buildQualityTasks(manifest,
+        processedSegment.getFileName().toString(), processedFilesPath);
+    final boolean fused = fuses(fusedEncoding, qualityTasks);
 
-      final Path processedSegment = originalQualitySegmentPath
-                                        .resolve(SegmentConstants.segmentIndexToFileName(
-                                            manifest.segmentIndex()));
+    // retried and duplicate jobs have the same source bytes and parameters, their outputs are reused
+    final String cacheKey = ResultCache.key(segmentPaths,
+        cacheKeyParameters(manifest, fused, processedFilesPath, processedSegment, qualityTasks));
 
-      transcoder.extractFirstSegment(joinedEncodedSegments, processedSegment,
-          manifest.targetSegmentDurationSeconds());
+    if (resultCache.restoreLocal(cacheKey, processedFilesPath)) {
+      log.debug(
+          "message=Restored segment with index {} from local result cache;cacheKey={};jobId={};consumerTag={};jobType=video_transcoding_job",
+          manifest.segmentIndex(), cacheKey, manifest.jobId(), consumerTag);
+
+      return new SegmentJob(manifest, segmentNames, segmentsPath, cacheKey, false);
+    }
+
+    if (resultCache.copyRemote(cacheKey, manifest.outputBucket(), manifest.outputKeyPrefix())) {
+      log.debug(
+          "message=Copied segment with index {} from remote result cache;cacheKey={};jobId={};consumerTag={};jobType=video_transcoding_job",
+          manifest.segmentIndex(), cacheKey, manifest.jobId(), consumerTag);
+
+      return new SegmentJob(manifest, segmentNames, segmentsPath, cacheKey, true);
+    }
+
+    if (fused) {
+      // the segments are decoded once and the cut frames are fed to every encoder at the same time
+      transcoder.joinCutAndTranscode(segmentPaths, manifest.skipFirstFrames(), manifest.gopSize(),
+          manifest.gopSize(), processedSegment, qualityTasks);
+    } else {
+      // because we are transcoding using overlapping segments, they are joined, the frames belonging to the previous target segment are skipped
+      // and exactly one GOP is kept, the rest is discarded as it was only used to get the target segment
+      transcoder.joinAndCutFrames(segmentPaths, processedSegment, manifest.skipFirstFrames(),
+          manifest.gopSize(), manifest.gopSize());
       log.debug(
           "message=Finished transcoding segment with index {} at {};jobId={};consumerTag={};jobType=video_transcoding_job",
           manifest.segmentIndex(), processedSegment, manifest.jobId(), consumerTag);
 
-      transcodeToDifferentBitRates(manifest, processedSegment, processedFilesPath);
+      transcoder.transcodeToMultipleQualities(processedSegment, qualityTasks);
+    }
 
-      log.debug(
-          "message=Finished transcoding original segment with index {} to {} qualities;jobId={};consumerTag={};jobType=video_transcoding_job",
-          manifest.segmentIndex(), manifest.outputQualities().length, manifest.jobId(),
-          consumerTag);
+    log.debug(
+        "message=Finished transcoding original segment with index {} to {} qualities;jobId={};consumerTag={};jobType=video_transcoding_job",
+        manifest.segmentIndex(), manifest.outputQualities().length, manifest.jobId(),
+        consumerTag);
+
+    resultCache.storeLocal(cacheKey, processedFilesPath);
+
+    return new SegmentJob(manifest, segmentNames, segmentsPath, cacheKey, false);
+  }
+
+  private void upload(String consumerTag, SegmentJob job) throws IOException {
+    final TranscodingJobManifest manifest = job.manifest();
+
+    try {
+      if (job.uploaded()) {
+        return;
+      }
 
       s3Store.uploadProcessedFiles(manifest.outputBucket(), manifest.outputKeyPrefix(),
-          processedFilesPath);
+          job.processedFilesPath());
       log.debug(
           "message=Finished uploading segments to bucket;bucket={};key={};jobId={};consumerTag={};jobType=video_transcoding_job",
           manifest.outputBucket(), manifest.outputKeyPrefix(), manifest.jobId(), consumerTag);
 
-      getChannel().basicAck(envelope.getDeliveryTag(), false);
+      resultCache.storeRemote(job.cacheKey(), job.processedFilesPath(), manifest.outputBucket(),
+          manifest.outputKeyPrefix());
     } finally {
-      FileUtils.deleteDirectory(segmentsPath);
+      FileUtils.deleteDirectory(job.segmentsPath());
+    }
+  }
+
+  /**
+   * Removes the working directory of the job if the stage fails, since the job will not reach the
+   * upload stage that cleans it up otherwise.
+   */
+  private SegmentJob deleteOnFailure(SegmentJob job, PipelinedJobExecutor.Fetch<SegmentJob> stage)
+      throws IOException {
+    try {
+      return stage.run();
+    } catch (IOException | RuntimeException e) {
+      deleteQuietly(job.segmentsPath(), e);
+      throw e;
+    }
+  }
+
+  private void deleteQuietly(Path directory, Exception failure) {
+    try {
+      FileUtils.deleteDirectory(directory);
+    } catch (IOException e) {
+      failure.addSuppressed(e);
     }
   }
 
@@ -132,11 +237,11 @@ public class SegmentTranscodingJobConsumer extends DefaultConsumer {
    * video_quality_i => $context_path/$widthx$height-$bitRate/segment-i.container
    *
    * @param manifest transcoding job manifest
-   * @param segmentPath path to the raw segment that need to be transcoded into multiple qualities and bit rates
+   * @param segmentFileName file name of the transcoded segment
    * @param contextPath output directory where the segments are going to be placed.
    */
-  private void transcodeToDifferentBitRates(TranscodingJobManifest manifest, Path segmentPath,
-      Path contextPath) {
+  private VideoQualityTranscodingTask[] buildQualityTasks(TranscodingJobManifest manifest,
+      String segmentFileName, Path contextPath) {
     final VideoQualityTranscodingTask[] tasks = new VideoQualityTranscodingTask[manifest.outputQualities().length];
 
     VideoQuality quality;
@@ -147,7 +252,7 @@ public class SegmentTranscodingJobConsumer extends DefaultConsumer {
 
       transcodedSegmentPath = contextPath.resolve(String.format("%dx%d-%d", quality.width(),
           quality.height(),
-          quality.bitRate())).resolve(segmentPath.getFileName().toString());
+          quality.bitRate())).resolve(segmentFileName);
 
       try {
         Files.createDirectories(transcodedSegmentPath.getParent());
@@ -156,11 +261,59 @@ public class SegmentTranscodingJobConsumer extends DefaultConsumer {
             "Cannot create a directory for segment quality " + transcodedSegmentPath);
       }
 
+      final Encoder encoder = Objects.requireNonNullElse(quality.encoder(),
+          VideoQualityTranscodingTask.DEFAULT_ENCODER).encoder();
+
       tasks[i] = new VideoQualityTranscodingTask(transcodedSegmentPath, quality.width(),
-          quality.height(), quality.bitRate());
+          quality.height(), quality.bitRate(), encoder,
+          Objects.requireNonNullElse(quality.rateControl(),
+              VideoQualityTranscodingTask.DEFAULT_RATE_CONTROL),
+          Objects.requireNonNullElse(quality.preset(), encoder.defaultPreset()),
+          Objects.requireNonNullElse(quality.crf(), encoder.defaultCrf()));
+    }
+
+    return tasks;
+  }
+
+  /**
+   * Describes everything apart from the source bytes that determines the outputs of the job,
+   * including where they are placed relative to the output key prefix.
+   */
+  private String cacheKeyParameters(TranscodingJobManifest manifest, boolean fused,
+      Path processedFilesPath, Path processedSegment, VideoQualityTranscodingTask[] qualityTasks) {
+    final var parameters = new StringJoiner(";")
+                               .add(CACHE_KEY_VERSION)
+                               .add(String.valueOf(fused))
+                               .add(String.valueOf(manifest.skipFirstFrames()))
+                               .add(String.valueOf(manifest.gopSize()))
+                               .add(processedFilesPath.relativize(processedSegment).toString());
+
+    for (VideoQualityTranscodingTask task : qualityTasks) {
+      parameters.add(String.format("%s:%dx%d:%d:%s:%s:%s:%d",
+          processedFilesPath.relativize(task.out()), task.width(), task.height(), task.bitRate(),
+          task.encoder().name(), task.rateControl(), task.preset(), task.crf()));
     }
 
-    transcoder.transcodeToMultipleQualities(segmentPath, tasks);
+    return parameters.toString();
+  }
+
+  /**
+   * The fused graph encodes every quality in a single pass, hence, it is used only if no quality
+   * asks for a two-pass encode its encoder supports. Otherwise the job falls back to the original
+   * quality segment and a separate two-pass run, instead of silently lowering the quality.
+   */
+  static boolean fuses(boolean fusedEncoding, VideoQualityTranscodingTask[] qualityTasks) {
+    if (!fusedEncoding) {
+      return false;
+    }
+
+    for (VideoQualityTranscodingTask task : qualityTasks) {
+      if (task.rateControl() == RateControl.TWO_PASS_ABR && task.encoder().supportsTwoPass()) {
+        return false;
+      }
+    }
+
+    return true;
   }
 
   private Path[] buildSegmentPaths(Path rootPath, String[] segmentNames) {
@@ -173,22 +326,6 @@ public class SegmentTranscodingJobConsumer extends DefaultConsumer {
     return paths;
   }
 
-  /**
-   * Uses Transcode class to skip n-frames writing it into a new file and then deleting the preivous
-   * one and renaming the new one into the old name.
-   *
-   * @param videoPath      path to the video whose frames need to be dropped
-   * @param skipFrameCount number of first frames that need to be dropped
-   */
-  private void skipVideoFrames(Path videoPath, int skipFrameCount) throws IOException {
-    final var tmpFile = videoPath.getParent().resolve("tmp-skipped.mp4");
-    transcoder.skipKFrames(videoPath, tmpFile, skipFrameCount);
-
-    Files.delete(videoPath);
-    Files.move(tmpFile,
-        videoPath); // rename video with skipped frames into the original input video
-  }
-
   private void validateManifest(TranscodingJobManifest manifest) {
     if (manifest.jobId() == null) {
       throw new InvalidManifestException("jobId", null, "empty");
@@ -238,5 +375,47 @@ public class SegmentTranscodingJobConsumer extends DefaultConsumer {
     if (manifest.outputQualities() == null || manifest.outputQualities().length == 0) {
       throw new InvalidManifestException("outputQualities", null, "no qualities provided");
     }
+
+    for (VideoQuality quality : manifest.outputQualities()) {
+      if (quality.bitRate() < 1) {
+        throw new InvalidManifestException("outputQualities.bitRate", quality.bitRate(),
+            "bit rate smaller than 1");
+      }
+
+      if (quality.preset() != null && StringUtils.isEmpty(quality.preset())) {
+        throw new InvalidManifestException("outputQualities.preset", quality.preset(), "empty");
+      }
+
+      final int maxCrf = Objects.requireNonNullElse(quality.encoder(),
+          VideoQualityTranscodingTask.DEFAULT_ENCODER).encoder().maxCrf();
+
+      if (quality.crf() != null && (quality.crf() < 0 || quality.crf() > maxCrf)) {
+        throw new InvalidManifestException("outputQualities.crf", quality.crf(),
+            "outside of range [0, " + maxCrf + "]");
+      }
+    }
+  }
+
+  /**
+   * State of a job passed between the pipeline stages.
+   *
+   * @param manifest     of the job
+   * @param segmentNames sorted names of the overlapping segments
+   * @param segmentsPath working directory of the job where the segments were downloaded to
+   * @param cacheKey     result cache key of the job, null until the segments have been hashed
+   * @param uploaded     whether the outputs are already in the output bucket, copied there from
+   *                     the remote result cache
+   */
+  private record SegmentJob(
+      TranscodingJobManifest manifest,
+      String[] segmentNames,
+      Path segmentsPath,
+      String cacheKey,
+      boolean uploaded
+  ) {
+
+    Path processedFilesPath() {
+      return segmentsPath.resolve("processed");
+    }
   }
 }
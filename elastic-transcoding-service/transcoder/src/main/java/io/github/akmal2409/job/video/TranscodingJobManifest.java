@@ -1,5 +1,7 @@
 package io.github.akmal2409.job.video;
 
+import io.github.akmal2409.job.RateControl;
+import io.github.akmal2409.job.encoder.EncoderType;
 import java.util.Arrays;
 import java.util.Objects;
 import java.util.UUID;
@@ -30,12 +32,26 @@ public record TranscodingJobManifest(
     VideoQuality originalQuality
 ) {
 
+  /**
+   * @param encoder     video encoder, x264 if not set
+   * @param rateControl rate control mode of the encoder, two-pass ABR if not set
+   * @param preset      encoder preset, default of the encoder if not set
+   * @param crf         constant rate factor of the capped CRF mode, default of the encoder if not
+   *                    set
+   */
   public static record VideoQuality(
       int width,
       int height,
-      int bitRate
+      int bitRate,
+      EncoderType encoder,
+      RateControl rateControl,
+      String preset,
+      Integer crf
   ) {
 
+    public VideoQuality(int width, int height, int bitRate) {
+      this(width, height, bitRate, null, null, null, null);
+    }
   }
   @Override
   public boolean equals(Object o) {
@@ -1,14 +1,20 @@
 package io.github.akmal2409.utils;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.FileVisitResult;
 import java.nio.file.FileVisitor;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.zip.CRC32C;
 
 public final class FileUtils {
 
+  private static final int CHECKSUM_BUFFER_BYTES = 1024 * 1024;
+
   private FileUtils() {
     throw new IllegalStateException("Cannot instantiate a utility class");
   }
@@ -27,6 +33,39 @@ public final class FileUtils {
     return fileName.substring(lastDotIndex + 1);
   }
 
+  /**
+   * Creates a hard link to the source file or copies it if the file system does not allow the link
+   * (e.g. the paths are on different file systems). An existing target is replaced.
+   */
+  public static void linkOrCopy(Path source, Path target) throws IOException {
+    Files.deleteIfExists(target);
+
+    try {
+      Files.createLink(target, source);
+    } catch (UnsupportedOperationException | IOException e) {
+      Files.copy(source, target);
+    }
+  }
+
+  /**
+   * @return CRC32C checksum of the contents of the file, the algorithm S3 uses for the
+   * {@code x-amz-checksum-crc32c} header
+   */
+  public static long crc32c(Path file) throws IOException {
+    final var checksum = new CRC32C();
+    final var buffer = ByteBuffer.allocateDirect(CHECKSUM_BUFFER_BYTES);
+
+    try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      while (channel.read(buffer) != -1) {
+        buffer.flip();
+        checksum.update(buffer);
+        buffer.clear();
+      }
+    }
+
+    return checksum.getValue();
+  }
+
   public static void deleteDirectory(Path directory) throws IOException {
     Files.walkFileTree(directory, new FileVisitor<>() {
       @Override
@@ -0,0 +1,66 @@
+package io.github.akmal2409;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ConfigurationTest {
+
+  @Test
+  @DisplayName("Fused encoding is off unless enabled by the environment")
+  void fusedEncodingFromEnvironment() {
+    assertThat(configuration(Map.of()).isFusedEncoding()).isFalse();
+    assertThat(configuration(Map.of("FUSED_ENCODING", "true")).isFusedEncoding()).isTrue();
+  }
+
+  @Test
+  @DisplayName("Video task partitions and the home partition are set by the environment")
+  void videoTaskPartitionsFromEnvironment() {
+    assertThat(configuration(Map.of()).getVideoTaskPartitions()).isZero();
+
+    final var configuration = configuration(
+        Map.of("VIDEO_TASK_PARTITIONS", "4", "HOSTNAME", "transcoder-1"));
+
+    assertThat(configuration.getVideoTaskPartitions()).isEqualTo(4);
+    assertThat(configuration.getHomePartition())
+        .isEqualTo(Math.floorMod("transcoder-1".hashCode(), 4));
+  }
+
+  @Test
+  @DisplayName("Encoder threads cover every output and bound the concurrency")
+  void encoderThreadsCoverOutputs() {
+    final var configuration = withCores(16);
+
+    // 5 outputs of a fused run over a budget of 4 threads per job
+    assertThat(configuration.getOutputsPerJob()).isGreaterThan(configuration.getThreadsPerJob());
+    assertThat(configuration.getEncoderThreads()).isEqualTo(5);
+    assertThat(configuration.getConcurrency()).isEqualTo(3);
+    assertThat(configuration.getConcurrency() * configuration.getEncoderThreads())
+        .isLessThanOrEqualTo(16);
+
+    final var twoCores = withCores(2);
+
+    assertThat(twoCores.getEncoderThreads()).isEqualTo(2);
+    assertThat(twoCores.getConcurrency()).isEqualTo(1);
+  }
+
+  static Configuration withCores(int cores) {
+    return new Configuration(Map.<String, String>of()::get) {
+      @Override
+      public int getAvailableProcessors() {
+        return cores;
+      }
+
+      @Override
+      public long getMemoryPerJobBytes() {
+        return 1;
+      }
+    };
+  }
+
+  static Configuration configuration(Map<String, String> environment) {
+    return new Configuration(environment::get);
+  }
+}
@@ -0,0 +1,47 @@
+package io.github.akmal2409;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Consumer;
+import io.github.akmal2409.job.AffinityRouting;
+import io.github.akmal2409.job.video.SegmentTranscodingJobConsumer;
+import java.io.IOException;
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class MainTest {
+
+  @Test
+  @DisplayName("Consumes from every partition, from the home partition with a higher priority")
+  void consumesPartitions() throws IOException {
+    final var channel = mock(Channel.class);
+    final var configuration = new Configuration(
+        Map.of("VIDEO_TASK_PARTITIONS", "3", "HOSTNAME", "transcoder-1")::get);
+    final int home = configuration.getHomePartition();
+    final String queueName = configuration.getVideoTaskQueueName();
+
+    Main.consumePartitions(channel, configuration, 2,
+        () -> mock(SegmentTranscodingJobConsumer.class));
+
+    verify(channel).exchangeDeclare(AffinityRouting.exchangeName(queueName),
+        AffinityRouting.EXCHANGE_TYPE, true);
+    verify(channel).basicQos(2, true);
+
+    for (int i = 0; i < 3; i++) {
+      final int priority = i == home ? AffinityRouting.HOME_PARTITION_PRIORITY : 0;
+
+      verify(channel).basicConsume(eq(AffinityRouting.partitionQueueName(queueName, i)),
+          eq(false), eq(Map.of("x-priority", priority)), any(Consumer.class));
+    }
+
+    verify(channel, times(3)).basicConsume(anyString(), eq(false), any(Map.class),
+        any(Consumer.class));
+  }
+}
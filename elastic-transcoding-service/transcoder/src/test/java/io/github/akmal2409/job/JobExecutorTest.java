@@ -0,0 +1,99 @@
+package io.github.akmal2409.job;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Envelope;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class JobExecutorTest {
+
+  private static final long VERIFY_TIMEOUT_MS = 2000;
+
+  @Mock
+  Channel channel;
+
+  @Test
+  @DisplayName("Acknowledges delivery from the worker thread once the job completes")
+  void acknowledgesCompletedJob() throws Exception {
+    try (var executor = new JobExecutor(1)) {
+      executor.execute(channel, envelope(1, false), () -> {});
+
+      verify(channel, timeout(VERIFY_TIMEOUT_MS)).basicAck(1, false);
+    }
+  }
+
+  @Test
+  @DisplayName("Acknowledges delivery with invalid manifest since it cannot be retried")
+  void acknowledgesInvalidManifest() throws Exception {
+    try (var executor = new JobExecutor(1)) {
+      executor.execute(channel, envelope(1, false), () -> {
+        throw new InvalidManifestException("jobId", null, "empty");
+      });
+
+      verify(channel, timeout(VERIFY_TIMEOUT_MS)).basicAck(1, false);
+    }
+  }
+
+  @Test
+  @DisplayName("Requeues failed job once and rejects it after redelivery")
+  void requeuesFailedJobOnce() throws Exception {
+    try (var executor = new JobExecutor(1)) {
+      executor.execute(channel, envelope(1, false), () -> {
+        throw new TranscodingException("failed");
+      });
+      executor.execute(channel, envelope(2, true), () -> {
+        throw new TranscodingException("failed");
+      });
+
+      verify(channel, timeout(VERIFY_TIMEOUT_MS)).basicReject(1, true);
+      verify(channel, timeout(VERIFY_TIMEOUT_MS)).basicReject(2, false);
+    }
+  }
+
+  @Test
+  @DisplayName("Runs up to capacity jobs at the same time")
+  void runsJobsConcurrently() throws Exception {
+    final int capacity = 4;
+    final var started = new CountDownLatch(capacity);
+    final var release = new CountDownLatch(1);
+
+    try (var executor = new JobExecutor(capacity)) {
+      for (int i = 0; i < capacity; i++) {
+        executor.execute(channel, envelope(i, false), () -> {
+          started.countDown();
+
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        });
+      }
+
+      assertThat(started.await(VERIFY_TIMEOUT_MS, TimeUnit.MILLISECONDS)).isTrue();
+      release.countDown();
+    }
+  }
+
+  @Test
+  @DisplayName("Throws IllegalArgumentException if capacity is not positive")
+  void rejectsInvalidCapacity() {
+    assertThatThrownBy(() -> new JobExecutor(0))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private Envelope envelope(long deliveryTag, boolean redelivered) {
+    return new Envelope(deliveryTag, redelivered, "", "video-transcoding-queue");
+  }
+}
@@ -0,0 +1,127 @@
+package io.github.akmal2409.job;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Envelope;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class PipelinedJobExecutorTest {
+
+  private static final long VERIFY_TIMEOUT_MS = 2000;
+
+  @Mock
+  Channel channel;
+
+  @Test
+  @DisplayName("Passes output of each stage to the next one and acknowledges after upload")
+  void runsStagesInOrder() throws Exception {
+    final var uploaded = new StringBuilder();
+
+    try (var executor = new PipelinedJobExecutor(1, 1, 1)) {
+      executor.execute(channel, envelope(1, false),
+          () -> "fetched",
+          fetched -> fetched + "-encoded",
+          uploaded::append);
+
+      verify(channel, timeout(VERIFY_TIMEOUT_MS)).basicAck(1, false);
+    }
+
+    assertThat(uploaded).hasToString("fetched-encoded");
+  }
+
+  @Test
+  @DisplayName("Fetches next job while the previous one is being encoded")
+  void fetchesWhileEncoding() throws Exception {
+    final var secondFetched = new CountDownLatch(1);
+    final var releaseEncoder = new CountDownLatch(1);
+
+    try (var executor = new PipelinedJobExecutor(1, 1, 1)) {
+      executor.execute(channel, envelope(1, false),
+          () -> 1,
+          input -> {
+            try {
+              releaseEncoder.await();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            return input;
+          },
+          input -> {});
+      executor.execute(channel, envelope(2, false),
+          () -> {
+            secondFetched.countDown();
+            return 2;
+          },
+          input -> input,
+          input -> {});
+
+      assertThat(secondFetched.await(VERIFY_TIMEOUT_MS, TimeUnit.MILLISECONDS)).isTrue();
+      verify(channel, never()).basicAck(anyLong(), anyBoolean());
+
+      releaseEncoder.countDown();
+
+      verify(channel, timeout(VERIFY_TIMEOUT_MS)).basicAck(1, false);
+      verify(channel, timeout(VERIFY_TIMEOUT_MS)).basicAck(2, false);
+    }
+  }
+
+  @Test
+  @DisplayName("Requeues delivery if any stage fails and skips the following stages")
+  void requeuesFailedJob() throws Exception {
+    final var uploaded = new CountDownLatch(1);
+
+    try (var executor = new PipelinedJobExecutor(1, 1, 1)) {
+      executor.execute(channel, envelope(1, false),
+          () -> "fetched",
+          fetched -> {
+            throw new IOException("encoder failed");
+          },
+          input -> uploaded.countDown());
+
+      verify(channel, timeout(VERIFY_TIMEOUT_MS)).basicReject(1, true);
+    }
+
+    assertThat(uploaded.getCount()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Acknowledges delivery with invalid manifest")
+  void acknowledgesInvalidManifest() throws Exception {
+    try (var executor = new PipelinedJobExecutor(1, 1, 1)) {
+      executor.execute(channel, envelope(1, false),
+          () -> {
+            throw new InvalidManifestException("jobId", null, "empty");
+          },
+          fetched -> fetched,
+          input -> {});
+
+      verify(channel, timeout(VERIFY_TIMEOUT_MS)).basicAck(1, false);
+    }
+  }
+
+  @Test
+  @DisplayName("Capacity is the sum of the workers of all stages")
+  void capacityIsSumOfStages() throws Exception {
+    try (var executor = new PipelinedJobExecutor(2, 8, 3)) {
+      assertThat(executor.capacity()).isEqualTo(13);
+    }
+  }
+
+  private Envelope envelope(long deliveryTag, boolean redelivered) {
+    return new Envelope(deliveryTag, redelivered, "", "video-transcoding-queue");
+  }
+}
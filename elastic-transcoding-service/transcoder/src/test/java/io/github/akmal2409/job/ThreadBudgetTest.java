@@ -0,0 +1,46 @@
+package io.github.akmal2409.job;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Arrays;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ThreadBudgetTest {
+
+  @Test
+  @DisplayName("Splits threads proportionally to pixels per frame")
+  void splitsProportionally() {
+    final long[] pixels = {1920L * 1080, 1280L * 720, 854L * 480, 640L * 360};
+
+    assertThat(ThreadBudget.partition(16, pixels)).containsExactly(8, 4, 2, 2);
+  }
+
+  @Test
+  @DisplayName("Hands out exactly the budget when shares do not divide evenly")
+  void usesWholeBudget() {
+    final long[] pixels = {1920L * 1080, 1920L * 1080, 640L * 360};
+
+    assertThat(Arrays.stream(ThreadBudget.partition(7, pixels)).sum()).isEqualTo(7);
+  }
+
+  @Test
+  @DisplayName("Gives every output at least 1 thread")
+  void givesAtLeastOneThread() {
+    assertThat(ThreadBudget.partition(2, new long[]{5, 5, 5})).containsExactly(1, 1, 1);
+  }
+
+  @Test
+  @DisplayName("Splits threads equally if all weights are 0")
+  void splitsEquallyWithoutWeights() {
+    assertThat(ThreadBudget.partition(6, new long[]{0, 0})).containsExactly(3, 3);
+  }
+
+  @Test
+  @DisplayName("Throws IllegalArgumentException if budget is not positive")
+  void rejectsInvalidBudget() {
+    assertThatThrownBy(() -> ThreadBudget.partition(0, new long[]{1}))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -4,6 +4,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import com.github.kokorin.jaffree.ffprobe.FFprobe;
 import com.github.kokorin.jaffree.ffprobe.FFprobeResult;
+import io.github.akmal2409.job.encoder.EncoderType;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
@@ -83,6 +84,52 @@ class TranscoderIT {
   }
 
 
+  @Test
+  @DisplayName("Joins videos and cuts exact frame range")
+  void joinsAndCutsFrames() throws IOException {
+    final Path[] paths = {testVideoPath, testVideoPath};
+    final Path out = Files.createTempDirectory(null).resolve("out.mp4");
+    final int frameCount = countFrames(testVideoPath);
+
+    // range spans both videos
+    transcoder.joinAndCutFrames(paths, out, frameCount - 10, 30, 30);
+
+    assertThat(countFrames(out)).isEqualTo(30);
+  }
+
+
+  @Test
+  @DisplayName("Joins videos and cuts until the end if there are less frames than requested")
+  void joinsAndCutsFramesUntilEnd() throws IOException {
+    final Path[] paths = {testVideoPath};
+    final Path out = Files.createTempDirectory(null).resolve("out.mp4");
+    final int frameCount = countFrames(testVideoPath);
+
+    transcoder.joinAndCutFrames(paths, out, 10, frameCount, 30);
+
+    assertThat(countFrames(out)).isEqualTo(frameCount - 10);
+  }
+
+
+  @Test
+  @DisplayName("Cuts frame range and encodes original and all qualities in one run")
+  void joinsCutsAndTranscodes() throws IOException {
+    final Path[] paths = {testVideoPath, testVideoPath};
+    final Path directory = Files.createTempDirectory(null);
+    final Path original = directory.resolve("original").resolve("out.mp4");
+    final Path lowQuality = directory.resolve("low.mp4");
+    final int frameCount = countFrames(testVideoPath);
+
+    transcoder.joinCutAndTranscode(paths, frameCount - 10, 30, 30, original,
+        new VideoQualityTranscodingTask(lowQuality, 320, 180, 100));
+
+    assertThat(countFrames(original)).isEqualTo(30);
+    assertThat(countFrames(lowQuality)).isEqualTo(30);
+    assertThat(getResolution(original)).containsExactly(testVideoWidth, testVideoHeight);
+    assertThat(getResolution(lowQuality)).containsExactly(320, 180);
+  }
+
+
   @Test
   @DisplayName("Transcodes to different quality")
   void transcodesToMultipleQualities() throws IOException {
@@ -108,6 +155,45 @@ class TranscoderIT {
   }
 
 
+  @Test
+  @DisplayName("Transcodes qualities with different rate control modes")
+  void transcodesWithMixedRateControl() throws IOException {
+    final Path directory = Files.createTempDirectory(null);
+    final Path twoPassOut = directory.resolve("two-pass.mp4");
+    final Path cappedCrfOut = directory.resolve("capped-crf.mp4");
+
+    transcoder.transcodeToMultipleQualities(testVideoPath,
+        new VideoQualityTranscodingTask(twoPassOut, 320, 180, 100),
+        new VideoQualityTranscodingTask(cappedCrfOut, 320, 180, 100, EncoderType.X264.encoder(),
+            RateControl.CAPPED_CRF, "medium", 23));
+
+    assertThat(getResolution(twoPassOut)).containsExactly(320, 180);
+    assertThat(getResolution(cappedCrfOut)).containsExactly(320, 180);
+    assertThat(getBitRate(cappedCrfOut)).isLessThanOrEqualTo(110f);
+  }
+
+
+  @Test
+  @DisplayName("Transcodes qualities with different encoders in one run")
+  void transcodesWithDifferentEncoders() throws IOException {
+    final Path directory = Files.createTempDirectory(null);
+    final Path hevcOut = directory.resolve("hevc.mp4");
+    final Path av1Out = directory.resolve("av1.mp4");
+    final var hevc = EncoderType.X265.encoder();
+    final var av1 = EncoderType.SVT_AV1.encoder();
+
+    transcoder.transcodeToMultipleQualities(testVideoPath,
+        new VideoQualityTranscodingTask(hevcOut, 320, 180, 100, hevc, RateControl.TWO_PASS_ABR,
+            hevc.defaultPreset(), hevc.defaultCrf()),
+        new VideoQualityTranscodingTask(av1Out, 320, 180, 100, av1, RateControl.CAPPED_CRF,
+            av1.defaultPreset(), av1.defaultCrf()));
+
+    assertThat(getCodecName(hevcOut)).isEqualTo("hevc");
+    assertThat(getCodecName(av1Out)).isEqualTo("av1");
+    assertThat(getResolution(av1Out)).containsExactly(320, 180);
+  }
+
+
   @Test
   @DisplayName("Transcodes audio to different bitRate")
   void transcodesToDifferentBitRateAudio() throws IOException {
@@ -137,6 +223,14 @@ class TranscoderIT {
     return resolution;
   }
 
+  private String getCodecName(Path video) {
+    return ffprobe.setInput(video)
+               .setShowEntries("stream")
+               .execute()
+               .getStreams().get(0)
+               .getCodecName();
+  }
+
   private float getBitRate(Path video) {
     return getBitRateInBits(video)/1000f;
   }
@@ -0,0 +1,78 @@
+package io.github.akmal2409.job.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class LocalResultCacheTest {
+
+  @Test
+  @DisplayName("Restores stored outputs keeping their relative paths")
+  void restoresStoredOutputs() throws IOException {
+    final var cache = new LocalResultCache(Files.createTempDirectory(null), 1024);
+    final Path outputs = outputs("segment");
+    final Path target = Files.createTempDirectory(null);
+
+    cache.store("key", outputs);
+
+    assertThat(cache.restore("key", target)).isTrue();
+    assertThat(Files.readString(target.resolve("640x360-800000").resolve("segment-00000001.mp4")))
+        .isEqualTo("segment");
+  }
+
+  @Test
+  @DisplayName("Returns false if there is no entry for the key")
+  void missesUnknownKey() throws IOException {
+    final var cache = new LocalResultCache(Files.createTempDirectory(null), 1024);
+
+    assertThat(cache.restore("key", Files.createTempDirectory(null))).isFalse();
+  }
+
+  @Test
+  @DisplayName("Evicts the least recently used entry once the size limit is exceeded")
+  void evictsLeastRecentlyUsed() throws IOException {
+    final var cache = new LocalResultCache(Files.createTempDirectory(null), 20);
+
+    cache.store("first", outputs("0123456789"));
+    cache.store("second", outputs("0123456789"));
+    cache.restore("first", Files.createTempDirectory(null));
+    cache.store("third", outputs("0123456789"));
+
+    assertThat(cache.contains("first")).isTrue();
+    assertThat(cache.contains("second")).isFalse();
+    assertThat(cache.contains("third")).isTrue();
+    assertThat(cache.size()).isEqualTo(20);
+  }
+
+  @Test
+  @DisplayName("Reuses entries of a previous run in their order of use")
+  void reloadsEntries() throws IOException {
+    final Path directory = Files.createTempDirectory(null);
+    final var cache = new LocalResultCache(directory, 20);
+
+    cache.store("first", outputs("0123456789"));
+    cache.store("second", outputs("0123456789"));
+    Files.setLastModifiedTime(directory.resolve("first"), FileTime.fromMillis(2000));
+    Files.setLastModifiedTime(directory.resolve("second"), FileTime.fromMillis(1000));
+
+    final var reloaded = new LocalResultCache(directory, 20);
+    reloaded.store("third", outputs("0123456789"));
+
+    assertThat(reloaded.contains("first")).isTrue();
+    assertThat(reloaded.contains("second")).isFalse();
+  }
+
+  private Path outputs(String content) throws IOException {
+    final Path directory = Files.createTempDirectory(null);
+    final Path quality = Files.createDirectories(directory.resolve("640x360-800000"));
+
+    Files.writeString(quality.resolve("segment-00000001.mp4"), content);
+
+    return directory;
+  }
+}
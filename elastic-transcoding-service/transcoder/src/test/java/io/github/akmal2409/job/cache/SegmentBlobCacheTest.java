@@ -0,0 +1,102 @@
+package io.github.akmal2409.job.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class SegmentBlobCacheTest {
+
+  final AtomicInteger downloads = new AtomicInteger();
+
+  @Test
+  @DisplayName("Downloads an object once for concurrent requests")
+  void sharesPendingDownload() throws IOException {
+    final var cache = new SegmentBlobCache(Files.createTempDirectory(null), 1024);
+    final var pending = new CompletableFuture<Void>();
+    final var written = new CompletableFuture<Path>();
+
+    try (var first = cache.acquire("bucket", "segment-00000001.mp4", file -> {
+      downloads.incrementAndGet();
+      written.complete(file);
+      return pending;
+    }); var second = cache.acquire("bucket", "segment-00000001.mp4", download("unused"))) {
+      Files.writeString(written.join(), "segment");
+      pending.complete(null);
+
+      assertThat(Files.readString(second.file().join())).isEqualTo("segment");
+      assertThat(first.file().join()).isEqualTo(second.file().join());
+    }
+
+    assertThat(downloads).hasValue(1);
+  }
+
+  @Test
+  @DisplayName("Serves cached objects without downloading them again")
+  void servesCachedObject() throws IOException {
+    final var cache = new SegmentBlobCache(Files.createTempDirectory(null), 1024);
+
+    cache.acquire("bucket", "segment-00000001.mp4", download("segment")).close();
+
+    try (var lease = cache.acquire("bucket", "segment-00000001.mp4", download("segment"))) {
+      assertThat(Files.readString(lease.file().join())).isEqualTo("segment");
+    }
+
+    assertThat(downloads).hasValue(1);
+  }
+
+  @Test
+  @DisplayName("Evicts the least recently used object without leases once the size limit is exceeded")
+  void evictsUnleasedObjects() throws IOException {
+    final var cache = new SegmentBlobCache(Files.createTempDirectory(null), 20);
+
+    final var leased = cache.acquire("bucket", "first", download("0123456789"));
+    cache.acquire("bucket", "second", download("0123456789")).close();
+    cache.acquire("bucket", "third", download("0123456789")).close();
+
+    assertThat(Files.exists(leased.file().join())).isTrue();
+    assertThat(cache.size()).isEqualTo(20);
+    leased.close();
+
+    cache.acquire("bucket", "second", download("0123456789")).close();
+    assertThat(downloads).hasValue(4);
+  }
+
+  @Test
+  @DisplayName("Downloads an object again after a failed download")
+  void retriesFailedDownload() throws IOException {
+    final var cache = new SegmentBlobCache(Files.createTempDirectory(null), 1024);
+
+    try (var failed = cache.acquire("bucket", "segment-00000001.mp4",
+        file -> CompletableFuture.failedFuture(new IOException("unavailable")))) {
+      assertThatThrownBy(() -> failed.file().join()).isInstanceOf(CompletionException.class);
+    }
+
+    try (var lease = cache.acquire("bucket", "segment-00000001.mp4", download("segment"))) {
+      assertThat(Files.readString(lease.file().join())).isEqualTo("segment");
+    }
+  }
+
+  private Function<Path, CompletableFuture<?>> download(String content) {
+    return file -> {
+      downloads.incrementAndGet();
+
+      try {
+        Files.writeString(file, content);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+
+      return CompletableFuture.completedFuture(null);
+    };
+  }
+}
@@ -0,0 +1,83 @@
+package io.github.akmal2409.job.encoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.akmal2409.job.RateControl;
+import io.github.akmal2409.job.VideoQualityTranscodingTask;
+import java.nio.file.Path;
+import java.util.List;
+import net.bramp.ffmpeg.builder.FFmpegBuilder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class EncoderTest {
+
+  @Test
+  @DisplayName("x264 sets fixed GOP, threads and capped CRF")
+  void x264CappedCrf() {
+    final var args = buildArgs(EncoderType.X264, RateControl.CAPPED_CRF, 60, 3, false);
+
+    assertThat(args).containsSubsequence("-vcodec", "libx264");
+    assertThat(args).containsSubsequence("-x264opts", "keyint=60:min-keyint=60:no-scenecut");
+    assertThat(args).containsSubsequence("-threads", "3");
+    assertThat(args).containsSubsequence("-crf", "23");
+    assertThat(args).containsSubsequence("-maxrate", "3000", "-bufsize", "6000");
+  }
+
+  @Test
+  @DisplayName("x264 targets bit rate once and caps it at a multiple of it in two-pass job")
+  void x264TwoPass() {
+    final var args = buildArgs(EncoderType.X264, RateControl.TWO_PASS_ABR, 0, 0, true);
+
+    assertThat(args).containsSubsequence("-b:v", "3000");
+    assertThat(args).filteredOn("-b:v"::equals).hasSize(1);
+    assertThat(args).containsSubsequence("-maxrate", "6000", "-bufsize", "12000");
+    assertThat(args).doesNotContain("-crf", "-x264opts", "-threads");
+  }
+
+  @Test
+  @DisplayName("x265 passes GOP and threads as x265 parameters with closed GOPs")
+  void x265Params() {
+    final var args = buildArgs(EncoderType.X265, RateControl.CAPPED_CRF, 60, 4, false);
+
+    assertThat(args).containsSubsequence("-vcodec", "libx265");
+    assertThat(args).containsSubsequence("-tag:v", "hvc1");
+    assertThat(args).containsSubsequence("-x265-params",
+        "open-gop=0:log-level=error:keyint=60:min-keyint=60:scenecut=0:pools=4");
+    assertThat(args).containsSubsequence("-crf", "28");
+    assertThat(args).doesNotContain("-threads");
+  }
+
+  @Test
+  @DisplayName("SVT-AV1 passes GOP and threads as SVT-AV1 parameters")
+  void svtAv1Params() {
+    final var args = buildArgs(EncoderType.SVT_AV1, RateControl.CAPPED_CRF, 60, 4, false);
+
+    assertThat(args).containsSubsequence("-vcodec", "libsvtav1");
+    assertThat(args).containsSubsequence("-preset", "6");
+    assertThat(args).containsSubsequence("-g", "60");
+    assertThat(args).containsSubsequence("-svtav1-params", "irefresh-type=2:scd=0:lp=4");
+    assertThat(args).containsSubsequence("-crf", "35");
+  }
+
+  @Test
+  @DisplayName("Only x264 supports two-pass jobs")
+  void twoPassSupport() {
+    assertThat(EncoderType.X264.encoder().supportsTwoPass()).isTrue();
+    assertThat(EncoderType.X265.encoder().supportsTwoPass()).isFalse();
+    assertThat(EncoderType.SVT_AV1.encoder().supportsTwoPass()).isFalse();
+  }
+
+  private List<String> buildArgs(EncoderType type, RateControl rateControl, int gopSize,
+      int threads, boolean twoPass) {
+    final Encoder encoder = type.encoder();
+    final var task = new VideoQualityTranscodingTask(Path.of("out.mp4"), 1280, 720, 3000, encoder,
+        rateControl, encoder.defaultPreset(), encoder.defaultCrf());
+    final var builder = new FFmpegBuilder().addInput("in.mp4");
+    final var output = builder.addOutput("out.mp4");
+
+    encoder.configure(output, task, gopSize, threads, twoPass);
+
+    return builder.build();
+  }
+}
@@ -0,0 +1,60 @@
+package io.github.akmal2409.job.video;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Arrays;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Same names as the test of the video-slicer copy, so that both copies agree on them.
+ */
+class SegmentFileNameTest {
+
+  @Test
+  @DisplayName("parseIndex() extracts index of names produced by the segment file name pattern")
+  void parsesFormattedNames() {
+    for (int index : new int[]{0, 7, 1234, 99_999_999}) {
+      final String fileName = String.format(SegmentConstants.SEGMENT_FILE_NAME_PATTERN, index);
+
+      assertThat(SegmentFileName.parseIndex(fileName)).isEqualTo(index);
+      assertThat(SegmentFileName.format(index)).isEqualTo(fileName);
+      assertThat(SegmentConstants.segmentIndexToFileName(index)).isEqualTo(fileName);
+      assertThat(SegmentConstants.SEGMENT_FILE_NAME_REGEX_PATTERN.matcher(fileName).matches())
+          .isTrue();
+    }
+  }
+
+  @Test
+  @DisplayName("parseIndex() returns -1 for names that are not segments")
+  void rejectsOtherFiles() {
+    assertThat(SegmentFileName.parseIndex("index.json")).isEqualTo(-1);
+    assertThat(SegmentFileName.parseIndex("segment-0000001.mp4")).isEqualTo(-1);
+    assertThat(SegmentFileName.parseIndex("segment-000000010.mp4")).isEqualTo(-1);
+    assertThat(SegmentFileName.parseIndex("segment-0000a001.mp4")).isEqualTo(-1);
+    assertThat(SegmentFileName.parseIndex("segment-00000001.mkv")).isEqualTo(-1);
+    assertThat(SegmentFileName.parse("audio.m4a")).isEmpty();
+  }
+
+  @Test
+  @DisplayName("Parsed names are ordered by index")
+  void ordersByIndex() {
+    final SegmentFileName[] names = Arrays.stream(new int[]{10, 2, 100, 0})
+                                        .mapToObj(SegmentFileName::format)
+                                        .map(name -> SegmentFileName.parse(name).orElseThrow())
+                                        .sorted(SegmentFileName.INDEX_COMPARATOR)
+                                        .toArray(SegmentFileName[]::new);
+
+    assertThat(names).extracting(SegmentFileName::index).containsExactly(0, 2, 10, 100);
+  }
+
+  @Test
+  @DisplayName("format() throws IllegalArgumentException if index does not fit")
+  void formatRejectsInvalidIndex() {
+    assertThatThrownBy(() -> SegmentFileName.format(-1))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> SegmentFileName.format(100_000_000))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -0,0 +1,37 @@
+package io.github.akmal2409.job.video;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.akmal2409.job.RateControl;
+import io.github.akmal2409.job.VideoQualityTranscodingTask;
+import io.github.akmal2409.job.encoder.EncoderType;
+import java.nio.file.Path;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class SegmentTranscodingJobConsumerTest {
+
+  @Test
+  @DisplayName("Jobs with a two-pass quality are not fused")
+  void twoPassQualitiesAreNotFused() {
+    final var crf = task(EncoderType.X264, RateControl.CAPPED_CRF);
+    final var twoPass = task(EncoderType.X264, RateControl.TWO_PASS_ABR);
+
+    assertThat(SegmentTranscodingJobConsumer.fuses(true, new VideoQualityTranscodingTask[]{crf}))
+        .isTrue();
+    assertThat(SegmentTranscodingJobConsumer.fuses(false, new VideoQualityTranscodingTask[]{crf}))
+        .isFalse();
+    assertThat(SegmentTranscodingJobConsumer.fuses(true,
+        new VideoQualityTranscodingTask[]{crf, twoPass})).isFalse();
+
+    // SVT-AV1 has no two-pass mode, its two-pass qualities are single-pass on either path
+    final var av1 = task(EncoderType.SVT_AV1, RateControl.TWO_PASS_ABR);
+    assertThat(SegmentTranscodingJobConsumer.fuses(true,
+        new VideoQualityTranscodingTask[]{crf, av1})).isTrue();
+  }
+
+  static VideoQualityTranscodingTask task(EncoderType type, RateControl rateControl) {
+    return new VideoQualityTranscodingTask(Path.of("out.mp4"), 1280, 720, 3000, type.encoder(),
+        rateControl, type.encoder().defaultPreset(), type.encoder().defaultCrf());
+  }
+}
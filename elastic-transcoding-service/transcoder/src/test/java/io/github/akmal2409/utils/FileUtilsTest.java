@@ -2,6 +2,8 @@ package io.github.akmal2409.utils;
 
 import static org.assertj.core.api.Assertions.*;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
@@ -49,4 +51,13 @@ class FileUtilsTest {
     assertThat(FileUtils.getFileExtension(filename))
         .isEqualTo(expectedExtension);
   }
+
+
+  @Test
+  @DisplayName("crc32c() computes the CRC32C checksum of the file contents")
+  void crc32cOfFile() throws IOException {
+    final var file = Files.writeString(Files.createTempFile(null, null), "123456789");
+
+    assertThat(FileUtils.crc32c(file)).isEqualTo(0xE3069283L);
+  }
 }
@@ -3,14 +3,18 @@ package com.github.akmal2409.netflix.videoslicer;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.akmal2409.netflix.videoslicer.config.WorkerConfiguration;
 import com.github.akmal2409.netflix.videoslicer.job.S3Store;
+import com.github.akmal2409.netflix.videoslicer.job.TransferSettings;
 import com.github.akmal2409.netflix.videoslicer.processing.FFmpegMediaExtractor;
 import com.github.akmal2409.netflix.videoslicer.processing.MediaExtractor;
+import com.github.akmal2409.netflix.videoslicer.processing.analyser.ComplexityAnalyser;
+import com.github.akmal2409.netflix.videoslicer.processing.analyser.FFmpegComplexityAnalyser;
 import com.github.akmal2409.netflix.videoslicer.processing.analyser.FFprobeVideoAnalyser;
 import com.github.akmal2409.netflix.videoslicer.processing.analyser.VideoAnalyser;
 import com.rabbitmq.client.ConnectionFactory;
 import java.io.IOException;
 import java.net.URI;
 import java.nio.file.Path;
+import java.util.concurrent.Executors;
 import net.bramp.ffmpeg.FFmpeg;
 import net.bramp.ffmpeg.FFmpegExecutor;
 import net.bramp.ffmpeg.FFprobe;
@@ -19,6 +23,8 @@ import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 import software.amazon.awssdk.transfer.s3.S3TransferManager;
 
 /**
@@ -57,6 +63,17 @@ public class DependencyFactory {
                  .build();
     }
 
+  public S3Presigner newS3Presigner(AwsCredentialsProvider credentialsProvider) {
+    return S3Presigner.builder()
+               .region(Region.of(configuration.getS3Region()))
+               .endpointOverride(URI.create(configuration.getS3Endpoint()))
+               .credentialsProvider(credentialsProvider)
+               .serviceConfiguration(S3Configuration.builder()
+                                         .pathStyleAccessEnabled(true)
+                                         .build())
+               .build();
+  }
+
   public S3TransferManager newS3TransferManager(S3AsyncClient asyncClient) {
     return S3TransferManager.builder()
                .s3Client(asyncClient)
@@ -96,7 +113,36 @@ public class DependencyFactory {
         transferManager);
   }
 
-  public VideoAnalyser newVideoAnalyser(com.github.kokorin.jaffree.ffprobe.FFprobe ffprobe) {
-    return new FFprobeVideoAnalyser(ffprobe);
+  public S3Store videoStore(S3TransferManager transferManager, S3Presigner presigner,
+      S3AsyncClient asyncClient) {
+    return new S3Store(Path.of(configuration.getJobsFileFolder()),
+        transferManager, presigner, asyncClient, configuration.getMaxUploadsInFlight(),
+        new TransferSettings(configuration.getTransferPartSizeMib() * 1024 * 1024,
+            configuration.getTransferPartConcurrency(), configuration.getTransferPartAttempts()));
+  }
+
+  /**
+   * Creates complexity analyser if {@link WorkerConfiguration#isComplexityAnalysis()} is enabled.
+   *
+   * @return analyser or null if the analysis is disabled
+   */
+  public ComplexityAnalyser newComplexityAnalyser(FFmpegExecutor executor) {
+    if (!configuration.isComplexityAnalysis()) {
+      return null;
+    }
+
+    return new FFmpegComplexityAnalyser(executor, this::newJaffreeFFprobe);
+  }
+
+  /**
+   * Creates analyser that obtains a new ffprobe instance per probe. Segments are probed on a
+   * bounded pool sized by {@link WorkerConfiguration#getSegmentProbeConcurrency()}, or sequentially
+   * if the concurrency is 1.
+   */
+  public VideoAnalyser newVideoAnalyser() {
+    final int concurrency = configuration.getSegmentProbeConcurrency();
+
+    return new FFprobeVideoAnalyser(this::newJaffreeFFprobe,
+        concurrency > 1 ? Executors.newFixedThreadPool(concurrency) : null);
   }
 }
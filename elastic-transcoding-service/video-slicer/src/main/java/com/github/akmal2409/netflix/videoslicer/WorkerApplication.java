@@ -3,12 +3,14 @@ package com.github.akmal2409.netflix.videoslicer;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.akmal2409.netflix.videoslicer.config.WorkerConfiguration;
 import com.github.akmal2409.netflix.videoslicer.config.loader.ConfigurationLoader;
+import com.github.akmal2409.netflix.videoslicer.coordinator.TranscodingJobPublisher;
 import com.github.akmal2409.netflix.videoslicer.exception.AlreadyRunningException;
 import com.github.akmal2409.netflix.videoslicer.exception.AsyncMessagingPlatformException;
 import com.github.akmal2409.netflix.videoslicer.exception.DeadWorkerException;
 import com.github.akmal2409.netflix.videoslicer.job.JobConsumer;
 import com.github.akmal2409.netflix.videoslicer.job.S3Store;
 import com.github.akmal2409.netflix.videoslicer.processing.MediaExtractor;
+import com.github.akmal2409.netflix.videoslicer.processing.analyser.ComplexityAnalyser;
 import com.github.akmal2409.netflix.videoslicer.processing.analyser.VideoAnalyser;
 import com.rabbitmq.client.Channel;
 import com.rabbitmq.client.Connection;
@@ -41,6 +43,7 @@ public class WorkerApplication {
 
   private MediaExtractor mediaExtractor;
   private VideoAnalyser videoAnalyser;
+  private ComplexityAnalyser complexityAnalyser;
   private S3Client s3Client;
   private S3TransferManager transferManager;
   private S3Store s3VideoStore;
@@ -51,6 +54,7 @@ public class WorkerApplication {
 
   private Connection activeConnection;
   private Channel activeChannel;
+  private Channel publisherChannel;
 
   public WorkerApplication(ConfigurationLoader<WorkerConfiguration> configLoader) {
     this.configLoader = configLoader;
@@ -79,7 +83,10 @@ public class WorkerApplication {
 
       activeChannel.basicConsume(configuration.getJobQueue(), new JobConsumer(
           activeChannel, mediaExtractor, mapper, s3VideoStore,
-          Executors.newFixedThreadPool(2), videoAnalyser));
+          Executors.newFixedThreadPool(2), videoAnalyser, configuration.getAnalysisMode(),
+          configuration.getSourceMode(), newTranscodingJobPublisher(), complexityAnalyser,
+          configuration.getComplexitySampleInterval(),
+          configuration.getComplexityReferenceBitsPerPixel()));
 
     } catch (IOException | TimeoutException e) {
       throw new AsyncMessagingPlatformException("Issue with AMQP connection", e);
@@ -97,6 +104,19 @@ public class WorkerApplication {
     }
   }
 
+  private TranscodingJobPublisher newTranscodingJobPublisher() throws IOException {
+    if (configuration.getTranscodingQueue() == null) {
+      return null;
+    }
+
+    // publisher confirms are enabled on a separate channel, so they do not interfere with acks
+    this.publisherChannel = activeConnection.createChannel();
+
+    return new TranscodingJobPublisher(publisherChannel, mapper,
+        configuration.getTranscodingQueue(), configuration.getTranscodingPartitions(),
+        configuration.getTranscodingAffinitySpan());
+  }
+
   public void shutdown() {
     lock.lock();
 
@@ -110,6 +130,9 @@ public class WorkerApplication {
       if (activeChannel != null && activeChannel.isOpen()) {
         activeChannel.close();
       }
+      if (publisherChannel != null && publisherChannel.isOpen()) {
+        publisherChannel.close();
+      }
       if (activeConnection != null && activeConnection.isOpen()) {
         activeConnection.close();
       }
@@ -133,12 +156,15 @@ public class WorkerApplication {
       final var awsCredentialsProvider = dependencyFactory.newAwsCredentialsProvider();
       s3Client = dependencyFactory.newS3Client(awsCredentialsProvider);
 
-      mediaExtractor = dependencyFactory.newVideoSlicer(dependencyFactory.ffmpegExecutor());
-      videoAnalyser = dependencyFactory.newVideoAnalyser(dependencyFactory.newJaffreeFFprobe());
+      final var ffmpegExecutor = dependencyFactory.ffmpegExecutor();
+      mediaExtractor = dependencyFactory.newVideoSlicer(ffmpegExecutor);
+      complexityAnalyser = dependencyFactory.newComplexityAnalyser(ffmpegExecutor);
+      videoAnalyser = dependencyFactory.newVideoAnalyser();
 
-      transferManager = dependencyFactory.newS3TransferManager(
-          dependencyFactory.newS3AsyncClient(awsCredentialsProvider));
-      s3VideoStore = dependencyFactory.videoStore(transferManager);
+      final var s3AsyncClient = dependencyFactory.newS3AsyncClient(awsCredentialsProvider);
+      transferManager = dependencyFactory.newS3TransferManager(s3AsyncClient);
+      s3VideoStore = dependencyFactory.videoStore(transferManager,
+          dependencyFactory.newS3Presigner(awsCredentialsProvider), s3AsyncClient);
       rabbitConnectionFactory = dependencyFactory.newConnectionFactory();
       mapper = dependencyFactory.newObjectMapper();
 
@@ -1,7 +1,6 @@
 package com.github.akmal2409.netflix.videoslicer.config;
 
 import java.util.Comparator;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public final class SegmentConstants {
@@ -15,21 +14,12 @@ public final class SegmentConstants {
   public static final String SEGMENT_FILE_NAME_INDEX_CAPTURING_GROUP_NAME = "index";
 
   /**
-   * The comparator assumes that the input file names are already valid and contain named capturing group.
+   * The comparator assumes that the input file names are already valid segment names. Prefer
+   * parsing names once with {@link SegmentFileName#parse(String)} and sorting with
+   * {@link SegmentFileName#INDEX_COMPARATOR} when sorting many names.
    */
-  public static final Comparator<String> SEGMENT_FILE_NAME_COMPARATOR = (firstName, secondName) -> {
-
-    final Matcher firstMatcher = SegmentConstants.SEGMENT_FILE_NAME_REGEX_PATTERN.matcher(firstName);
-    final Matcher secondMatcher = SegmentConstants.SEGMENT_FILE_NAME_REGEX_PATTERN.matcher(secondName);
-
-    firstMatcher.find();
-    secondMatcher.find();
-
-    final int firstIndex = Integer.parseInt(firstMatcher.group(SEGMENT_FILE_NAME_INDEX_CAPTURING_GROUP_NAME));
-    final int secondIndex = Integer.parseInt(secondMatcher.group(SEGMENT_FILE_NAME_INDEX_CAPTURING_GROUP_NAME));
-
-    return Integer.compare(firstIndex, secondIndex);
-  };
+  public static final Comparator<String> SEGMENT_FILE_NAME_COMPARATOR = (firstName, secondName) ->
+      Integer.compare(SegmentFileName.parseIndex(firstName), SegmentFileName.parseIndex(secondName));
 
 
 }
@@ -1,8 +1,16 @@
 package com.github.akmal2409.netflix.videoslicer.config;
 
+import com.github.akmal2409.netflix.videoslicer.config.loader.ConfigurationLoader;
 import com.github.akmal2409.netflix.videoslicer.config.loader.ConfigurationProperty;
+import com.github.akmal2409.netflix.videoslicer.job.SourceMode;
+import com.github.akmal2409.netflix.videoslicer.processing.analyser.AnalysisMode;
 import java.nio.file.Path;
 
+/**
+ * Fields are set reflectively by the {@link ConfigurationLoader}. Fields whose default is a
+ * constant expression must not be final, otherwise the compiler inlines the default into the getter
+ * and the loaded value is ignored.
+ */
 public class WorkerConfiguration {
 
   @ConfigurationProperty(
@@ -26,6 +34,76 @@ public class WorkerConfiguration {
   )
   private final int workerConcurrentJobs = 1;
 
+  @ConfigurationProperty(
+      key = "worker.analysis-mode",
+      description = "Segment analysis strategy: SEGMENT_PROBE or PACKET_INDEX",
+      defaultValue = "SEGMENT_PROBE"
+  )
+  private final String analysisMode = AnalysisMode.SEGMENT_PROBE.name();
+
+  @ConfigurationProperty(
+      key = "worker.segment-probe-concurrency",
+      description = "Maximum number of ffprobe processes analysing segments at once (1 to probe sequentially)",
+      defaultValue = "number of available processors"
+  )
+  private final int segmentProbeConcurrency = Runtime.getRuntime().availableProcessors();
+
+  @ConfigurationProperty(
+      key = "worker.source-mode",
+      description = "How the source video is accessed: DOWNLOAD or STREAM",
+      defaultValue = "DOWNLOAD"
+  )
+  private final String sourceMode = SourceMode.DOWNLOAD.name();
+
+  @ConfigurationProperty(
+      key = "worker.max-uploads-in-flight",
+      description = "Maximum number of processed files of a job uploaded at once",
+      defaultValue = "number of available processors"
+  )
+  private final int maxUploadsInFlight = Runtime.getRuntime().availableProcessors();
+
+  @ConfigurationProperty(
+      key = "worker.transfer-part-size-mib",
+      description = "Size of a part of resumable multipart downloads and uploads in MiB, at least 5",
+      defaultValue = "8"
+  )
+  private int transferPartSizeMib = 8;
+
+  @ConfigurationProperty(
+      key = "worker.transfer-part-concurrency",
+      description = "Number of parts of a single file transferred at once, each one is buffered in memory",
+      defaultValue = "4"
+  )
+  private int transferPartConcurrency = 4;
+
+  @ConfigurationProperty(
+      key = "worker.transfer-part-attempts",
+      description = "Number of times a part is attempted before the transfer fails",
+      defaultValue = "3"
+  )
+  private int transferPartAttempts = 3;
+
+  @ConfigurationProperty(
+      key = "worker.complexity-analysis",
+      description = "Whether sampled segments are probed to fit the transcoding bit rate ladder to the title",
+      defaultValue = "false"
+  )
+  private boolean complexityAnalysis = false;
+
+  @ConfigurationProperty(
+      key = "worker.complexity-sample-interval",
+      description = "Every n-th segment is probed by the complexity analysis",
+      defaultValue = "10"
+  )
+  private int complexitySampleInterval = 10;
+
+  @ConfigurationProperty(
+      key = "worker.complexity-reference-bits-per-pixel",
+      description = "Bits per pixel of typical content in the 360p probe encode, the requested ladder is sized for it",
+      defaultValue = "0.1"
+  )
+  private double complexityReferenceBitsPerPixel = 0.1;
+
   @ConfigurationProperty(
       key = "worker.jobs-file-folder",
       description = "Absolute path a file folder to store job related files"
@@ -39,6 +117,26 @@ public class WorkerConfiguration {
   )
   private final String jobQueue = null;
 
+  @ConfigurationProperty(
+      key = "worker.transcoding-queue-name",
+      description = "Queue to which transcoding jobs are published, publishing is disabled if not set"
+  )
+  private final String transcodingQueue = null;
+
+  @ConfigurationProperty(
+      key = "worker.transcoding-partitions",
+      description = "Number of partition queues transcoding jobs are routed to by segment affinity, 0 publishes to the transcoding queue directly. Must match the transcoders",
+      defaultValue = "0"
+  )
+  private int transcodingPartitions = 0;
+
+  @ConfigurationProperty(
+      key = "worker.transcoding-affinity-span",
+      description = "Number of consecutive segments whose transcoding jobs are routed to the same partition",
+      defaultValue = "8"
+  )
+  private int transcodingAffinitySpan = 8;
+
   @ConfigurationProperty(
       key = "binaries.ffmpeg-path",
       description = "Absolute path to ffmpeg binary"
@@ -83,6 +181,46 @@ public class WorkerConfiguration {
     return workerConcurrentJobs;
   }
 
+  public AnalysisMode getAnalysisMode() {
+    return AnalysisMode.valueOf(analysisMode.toUpperCase());
+  }
+
+  public int getSegmentProbeConcurrency() {
+    return segmentProbeConcurrency;
+  }
+
+  public SourceMode getSourceMode() {
+    return SourceMode.valueOf(sourceMode.toUpperCase());
+  }
+
+  public int getMaxUploadsInFlight() {
+    return maxUploadsInFlight;
+  }
+
+  public int getTransferPartSizeMib() {
+    return transferPartSizeMib;
+  }
+
+  public int getTransferPartConcurrency() {
+    return transferPartConcurrency;
+  }
+
+  public int getTransferPartAttempts() {
+    return transferPartAttempts;
+  }
+
+  public boolean isComplexityAnalysis() {
+    return complexityAnalysis;
+  }
+
+  public int getComplexitySampleInterval() {
+    return complexitySampleInterval;
+  }
+
+  public double getComplexityReferenceBitsPerPixel() {
+    return complexityReferenceBitsPerPixel;
+  }
+
   public String getJobsFileFolder() {
     return jobsFileFolder;
   }
@@ -91,6 +229,18 @@ public class WorkerConfiguration {
     return jobQueue;
   }
 
+  public String getTranscodingQueue() {
+    return transcodingQueue;
+  }
+
+  public int getTranscodingPartitions() {
+    return transcodingPartitions;
+  }
+
+  public int getTranscodingAffinitySpan() {
+    return transcodingAffinitySpan;
+  }
+
   public String getFfmpegPath() {
     return ffmpegPath;
   }
@@ -117,12 +267,25 @@ public class WorkerConfiguration {
                "rabbitmqHost='" + rabbitmqHost + '\'' +
                ", rabbitmqPort=" + rabbitmqPort +
                ", workerConcurrentJobs=" + workerConcurrentJobs +
+               ", analysisMode='" + analysisMode + '\'' +
+               ", segmentProbeConcurrency=" + segmentProbeConcurrency +
+               ", sourceMode='" + sourceMode + '\'' +
+               ", maxUploadsInFlight=" + maxUploadsInFlight +
+               ", transferPartSizeMib=" + transferPartSizeMib +
+               ", transferPartConcurrency=" + transferPartConcurrency +
+               ", transferPartAttempts=" + transferPartAttempts +
+               ", complexityAnalysis=" + complexityAnalysis +
+               ", complexitySampleInterval=" + complexitySampleInterval +
+               ", complexityReferenceBitsPerPixel=" + complexityReferenceBitsPerPixel +
                ", ffmpegPath='" + ffmpegPath + '\'' +
                ", ffprobePath='" + ffprobePath + '\'' +
                ", s3Endpoint='" + s3Endpoint + '\'' +
                ", s3Region='" + s3Region + '\'' +
                ", jobsFileFolder='" + jobsFileFolder + '\'' +
                ", jobQueue='" + jobQueue + '\'' +
+               ", transcodingQueue='" + transcodingQueue + '\'' +
+               ", transcodingPartitions=" + transcodingPartitions +
+               ", transcodingAffinitySpan=" + transcodingAffinitySpan +
                ", path='" + path + '\'' +
                '}';
   }
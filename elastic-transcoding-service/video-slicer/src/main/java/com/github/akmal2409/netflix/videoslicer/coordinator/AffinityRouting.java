@@ -0,0 +1,62 @@
+package com.github.akmal2409.netflix.videoslicer.coordinator;
+
+import com.rabbitmq.client.Channel;
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Topology of the affinity routing of transcoding jobs. Jobs are published to a consistent hash
+ * exchange (requires the rabbitmq_consistent_hash_exchange plugin) that spreads them over a fixed
+ * number of durable partition queues. The routing key is made of the job id and the range of
+ * segment indices the job belongs to, so that neighbouring jobs, which share most of their
+ * overlapping segments, end up in the same partition and are transcoded by the same worker.
+ * <p>
+ * Both the publisher and the transcoders declare the topology, whichever starts first. The number
+ * of partitions can only be increased, since bindings of removed partitions are not deleted.
+ * <p>
+ * Must be kept in sync with the copy in the transcoder.
+ */
+public final class AffinityRouting {
+
+  public static final String EXCHANGE_TYPE = "x-consistent-hash";
+
+  /**
+   * Weight of every partition in the hash ring, all partitions take an equal share of the jobs.
+   */
+  private static final String PARTITION_WEIGHT = "1";
+
+  private AffinityRouting() {
+    throw new IllegalStateException("Cannot instantiate a utility class");
+  }
+
+  public static String exchangeName(String queueName) {
+    return queueName + ".affinity";
+  }
+
+  public static String partitionQueueName(String queueName, int partition) {
+    return queueName + ".partition-" + partition;
+  }
+
+  /**
+   * @param span number of consecutive segment indices routed with the same key
+   */
+  public static String routingKey(UUID jobId, int segmentIndex, int span) {
+    return jobId + ":" + segmentIndex / span;
+  }
+
+  /**
+   * Declares the exchange and the partition queues bound to it, declarations are idempotent.
+   */
+  public static void declare(Channel channel, String queueName, int partitions)
+      throws IOException {
+    final String exchange = exchangeName(queueName);
+    channel.exchangeDeclare(exchange, EXCHANGE_TYPE, true);
+
+    for (int i = 0; i < partitions; i++) {
+      final String partitionQueue = partitionQueueName(queueName, i);
+
+      channel.queueDeclare(partitionQueue, true, false, false, null);
+      channel.queueBind(partitionQueue, exchange, PARTITION_WEIGHT);
+    }
+  }
+}
@@ -0,0 +1,12 @@
+package com.github.akmal2409.netflix.videoslicer.coordinator;
+
+/**
+ * Video encoder of a quality, see the transcoder for the details.
+ * <p>
+ * Must be kept in sync with the copy in the transcoder.
+ */
+public enum EncoderType {
+  X264,
+  X265,
+  SVT_AV1
+}
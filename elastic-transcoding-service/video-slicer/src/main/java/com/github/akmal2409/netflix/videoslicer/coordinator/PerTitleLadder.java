@@ -0,0 +1,54 @@
+package com.github.akmal2409.netflix.videoslicer.coordinator;
+
+import com.github.akmal2409.netflix.videoslicer.coordinator.TranscodingJobManifest.VideoQuality;
+
+/**
+ * Fits the requested bit rate ladder to the complexity of a title. The requested ladder is sized
+ * for typical content, so it is treated as the upper bound: every rung is scaled by the ratio of
+ * the bits per pixel the title needed in the probe encodes to the bits per pixel of typical
+ * content. The shape of the ladder is preserved, hence rungs of the same resolution stay apart.
+ */
+public final class PerTitleLadder {
+
+  /**
+   * Lower bound of the scale, so that even static content keeps enough bits for the occasional
+   * complex scene that the samples have missed.
+   */
+  public static final double MIN_SCALE = 0.4;
+
+  private PerTitleLadder() {
+  }
+
+  /**
+   * @param bitsPerPixel          measured bits per pixel of the title
+   * @param referenceBitsPerPixel bits per pixel of typical content for which the ladder is sized
+   * @return factor in range [{@link PerTitleLadder#MIN_SCALE}, 1] the ladder is scaled by
+   */
+  public static double scale(double bitsPerPixel, double referenceBitsPerPixel) {
+    if (referenceBitsPerPixel <= 0) {
+      throw new IllegalArgumentException(
+          "Reference bits per pixel must be positive, got " + referenceBitsPerPixel);
+    }
+
+    return Math.max(MIN_SCALE, Math.min(1, bitsPerPixel / referenceBitsPerPixel));
+  }
+
+  /**
+   * @param ladder requested qualities
+   * @param scale  factor from {@link PerTitleLadder#scale(double, double)}
+   * @return qualities with scaled bit rates, all the other settings are kept
+   */
+  public static VideoQuality[] apply(VideoQuality[] ladder, double scale) {
+    final var fitted = new VideoQuality[ladder.length];
+
+    for (int i = 0; i < ladder.length; i++) {
+      final VideoQuality quality = ladder[i];
+
+      fitted[i] = new VideoQuality(quality.width(), quality.height(),
+          (int) Math.max(1, Math.round(quality.bitRate() * scale)), quality.encoder(),
+          quality.rateControl(), quality.preset(), quality.crf());
+    }
+
+    return fitted;
+  }
+}
@@ -0,0 +1,12 @@
+package com.github.akmal2409.netflix.videoslicer.coordinator;
+
+/**
+ * Rate control mode of the encoder for a single output quality, see the transcoder for the
+ * details.
+ * <p>
+ * Must be kept in sync with the copy in the transcoder.
+ */
+public enum RateControl {
+  TWO_PASS_ABR,
+  CAPPED_CRF
+}
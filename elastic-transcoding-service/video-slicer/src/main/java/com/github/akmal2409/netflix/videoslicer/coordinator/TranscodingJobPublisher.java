@@ -0,0 +1,110 @@
+package com.github.akmal2409.netflix.videoslicer.coordinator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.akmal2409.netflix.videoslicer.exception.AsyncMessagingPlatformException;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.MessageProperties;
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.TimeoutException;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Publishes transcoding jobs of a video to the video transcoding queue, or with affinity routing
+ * to the partitions of the queue, see {@link AffinityRouting}. The channel is put into
+ * publisher confirm mode and messages are confirmed in batches, so that a job is only considered
+ * published once the broker has taken responsibility for every message, without paying a round
+ * trip per message.
+ * <p>
+ * The channel must be dedicated to the publisher, publishing is serialized because channels must
+ * not be shared between threads for publishing.
+ */
+public class TranscodingJobPublisher {
+
+  private static final Logger log = LoggerFactory.getLogger(TranscodingJobPublisher.class);
+
+  static final int CONFIRM_BATCH_SIZE = 64;
+  private static final long CONFIRM_TIMEOUT_MS = 30_000;
+
+  private final Channel channel;
+  private final ObjectMapper mapper;
+  private final String queueName;
+  private final int partitions;
+  private final int affinitySpan;
+
+  public TranscodingJobPublisher(@NotNull Channel channel, @NotNull ObjectMapper mapper,
+      @NotNull String queueName) {
+    this(channel, mapper, queueName, 0, 1);
+  }
+
+  /**
+   * @param partitions   number of partition queues, 0 publishes directly to the queue
+   * @param affinitySpan number of consecutive segments whose jobs are routed to the same partition
+   */
+  public TranscodingJobPublisher(@NotNull Channel channel, @NotNull ObjectMapper mapper,
+      @NotNull String queueName, int partitions, int affinitySpan) {
+    if (partitions < 0 || affinitySpan < 1) {
+      throw new IllegalArgumentException(String.format(
+          "Partitions cannot be negative and affinity span must be positive, got partitions=%d, span=%d",
+          partitions, affinitySpan));
+    }
+
+    this.channel = channel;
+    this.mapper = mapper;
+    this.queueName = queueName;
+    this.partitions = partitions;
+    this.affinitySpan = affinitySpan;
+
+    try {
+      channel.confirmSelect();
+
+      if (partitions > 0) {
+        AffinityRouting.declare(channel, queueName, partitions);
+      } else {
+        channel.queueDeclare(queueName, true, false, false, null);
+      }
+    } catch (IOException e) {
+      throw new AsyncMessagingPlatformException("Cannot set up transcoding job publisher", e);
+    }
+  }
+
+  /**
+   * Publishes all manifests as persistent messages and waits for broker confirmations after every
+   * {@link TranscodingJobPublisher#CONFIRM_BATCH_SIZE} messages and after the last one.
+   *
+   * @param jobId     id of the job the manifests belong to.
+   * @param manifests one per target segment.
+   * @throws AsyncMessagingPlatformException if publishing failed or any message was nacked.
+   */
+  public synchronized void publish(@NotNull UUID jobId,
+      @NotNull TranscodingJobManifest[] manifests) {
+    try {
+      for (int i = 0; i < manifests.length; i++) {
+        if (partitions > 0) {
+          channel.basicPublish(AffinityRouting.exchangeName(queueName),
+              AffinityRouting.routingKey(jobId, manifests[i].segmentIndex(), affinitySpan),
+              MessageProperties.PERSISTENT_BASIC, mapper.writeValueAsBytes(manifests[i]));
+        } else {
+          channel.basicPublish("", queueName, MessageProperties.PERSISTENT_BASIC,
+              mapper.writeValueAsBytes(manifests[i]));
+        }
+
+        if ((i + 1) % CONFIRM_BATCH_SIZE == 0 || i == manifests.length - 1) {
+          channel.waitForConfirmsOrDie(CONFIRM_TIMEOUT_MS);
+        }
+      }
+    } catch (IOException | TimeoutException e) {
+      throw new AsyncMessagingPlatformException(
+          "Failed to publish transcoding jobs for job " + jobId, e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new AsyncMessagingPlatformException(
+          "Interrupted while publishing transcoding jobs for job " + jobId, e);
+    }
+
+    log.debug("message=Published {} transcoding jobs to queue {};jobId={}",
+        manifests.length, queueName, jobId);
+  }
+}
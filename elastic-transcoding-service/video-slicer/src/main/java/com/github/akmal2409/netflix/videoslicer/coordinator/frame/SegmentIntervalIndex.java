@@ -0,0 +1,124 @@
+package com.github.akmal2409.netflix.videoslicer.coordinator.frame;
+
+/**
+ * Read-only index of segment frame intervals backed by two parallel int arrays, so that lookups do
+ * not allocate search keys or go through comparators. Position i in the index is the position of
+ * the segment in the array the index was built from (sorted by start frame).
+ */
+public final class SegmentIntervalIndex {
+
+  private final int[] starts;
+  private final int[] ends; // inclusive
+
+  private SegmentIntervalIndex(int[] starts, int[] ends) {
+    this.starts = starts;
+    this.ends = ends;
+  }
+
+  /**
+   * Builds the index from segments that must be sorted by their start frame.
+   *
+   * @throws IllegalArgumentException if there are no segments or they are not sorted
+   */
+  public static SegmentIntervalIndex of(Segment[] segments) {
+    if (segments.length == 0) {
+      throw new IllegalArgumentException("Cannot index an empty array of segments");
+    }
+
+    final int[] starts = new int[segments.length];
+    final int[] ends = new int[segments.length];
+
+    for (int i = 0; i < segments.length; i++) {
+      starts[i] = segments[i].startFrame();
+      ends[i] = segments[i].endFrame();
+
+      if (i > 0 && starts[i] < starts[i - 1]) {
+        throw new IllegalArgumentException(
+            "Segments must be sorted by start frame, segment at " + i + " starts before previous");
+      }
+    }
+
+    return new SegmentIntervalIndex(starts, ends);
+  }
+
+  public int size() {
+    return starts.length;
+  }
+
+  public int startFrame(int position) {
+    return starts[position];
+  }
+
+  public int endFrame(int position) {
+    return ends[position];
+  }
+
+  /**
+   * @return position of the last segment whose start frame is less than or equal to the frame, or
+   * -1 if every segment starts after it.
+   */
+  public int floor(int frame) {
+    int lo = 0;
+    int hi = starts.length - 1;
+    int result = -1;
+
+    while (lo <= hi) {
+      final int mid = (lo + hi) >>> 1;
+
+      if (starts[mid] <= frame) {
+        result = mid;
+        lo = mid + 1;
+      } else {
+        hi = mid - 1;
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * @return position of the first segment whose end frame is greater than or equal to the frame, or
+   * the last position if every segment ends before it.
+   */
+  public int ceil(int frame) {
+    int lo = 0;
+    int hi = ends.length - 1;
+
+    while (lo < hi) {
+      final int mid = (lo + hi) >>> 1;
+
+      if (ends[mid] < frame) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+
+    return lo;
+  }
+
+  /**
+   * Same as {@link SegmentIntervalIndex#floor(int)} but scans forward from a position known to be
+   * at or before the result. Used when frames are looked up in ascending order, then the total
+   * cost of all lookups is linear.
+   */
+  public int floorFrom(int position, int frame) {
+    while (position + 1 < starts.length && starts[position + 1] <= frame) {
+      position++;
+    }
+
+    return position;
+  }
+
+  /**
+   * Same as {@link SegmentIntervalIndex#ceil(int)} but scans forward from a position known to be at
+   * or before the result.
+   */
+  public int ceilFrom(int position, int frame) {
+    while (position < ends.length - 1 && ends[position] < frame) {
+      position++;
+    }
+
+    return position;
+  }
+}
@@ -1,6 +1,5 @@
 package com.github.akmal2409.netflix.videoslicer.coordinator.frame;
 
-import com.github.akmal2409.netflix.videoslicer.coordinator.util.ArrayUtils;
 import java.util.Arrays;
 import java.util.Comparator;
 import org.slf4j.Logger;
@@ -11,11 +10,22 @@ public class TranscodingJobCoordinator {
   private static final Logger log = LoggerFactory.getLogger(TranscodingJobCoordinator.class);
 
   private static final Comparator<Segment> SEGMENT_BY_START_FRAME_COMPARATOR = Comparator.comparingInt(Segment::startFrame);
-  private static final Comparator<Segment> SEGMENT_BY_END_FRAME_COMPARATOR = Comparator.comparingInt(Segment::endFrame);
 
+  /**
+   * Builds one job per target segment of {@code gopSize} frames. Target segments are visited in
+   * ascending order of frames, hence, overlapping segments are found with a single forward sweep
+   * over the {@link SegmentIntervalIndex} and the only allocations are the jobs themselves.
+   * <p>
+   * Segments are sorted in place by their start frame if they are not sorted yet, positions of
+   * overlapping segments in the jobs refer to that order.
+   */
   public OverlappingSegmentTranscodingJob[] buildJobs(TranscodingConfiguration config,
       Segment[] segments) {
-    Arrays.sort(segments, SEGMENT_BY_START_FRAME_COMPARATOR);
+    if (!isSortedByStartFrame(segments)) {
+      Arrays.sort(segments, SEGMENT_BY_START_FRAME_COMPARATOR);
+    }
+
+    final SegmentIntervalIndex index = SegmentIntervalIndex.of(segments);
 
     final int targetSegmentCount = (int) Math.ceil(config.totalFrames()/(double) config.gopSize());
 
@@ -24,31 +34,29 @@ public class TranscodingJobCoordinator {
     int segmentStart = 0;
     int segmentEnd = config.gopSize() - 1; // [start, end] form 1 Group of Pictures
 
-    int coveringSetStart; // overlapping segment start
-    int coveringSetEnd; // overlapping segment end
-    Segment target; // target segment for binary search comparison
+    int coveringSetStart = 0; // overlapping segment start
+    int coveringSetEnd = 0; // overlapping segment end
 
     for (int segmentIndex = 0; segmentIndex < targetSegmentCount; segmentIndex++) {
       // find set S = {s_i, s_(i+1),..., s_(i+k)} such that:
       // s_i.startFrame is the largest frame <= segmentStart
       // and s_(i+k).endFrame is the smallest frame >= segmentEnd
-      target = new Segment(null, -1, segmentStart, segmentEnd);
-
-      coveringSetStart = ArrayUtils.binarySearchFloor(segments,
-          target, SEGMENT_BY_START_FRAME_COMPARATOR, 0, segments.length);
-
-      coveringSetEnd = ArrayUtils.binarySearchCeil(segments,
-          target, SEGMENT_BY_END_FRAME_COMPARATOR, 0, segments.length);
-
-      log.debug(
-          "[SEGMENT {}] overlapping_segment_interval=[{}, {}] frames=[{}, {}] skip={} frames",
-          segmentIndex, coveringSetStart, coveringSetEnd,
-          segmentStart, segmentEnd, segmentStart - segments[coveringSetStart].startFrame()
-      );
+      // both bounds only move forward because target segments are ascending
+      coveringSetStart = index.floorFrom(coveringSetStart, segmentStart);
+      coveringSetEnd = index.ceilFrom(Math.max(coveringSetStart, coveringSetEnd), segmentEnd);
+
+      final int skipFrames = segmentStart - index.startFrame(coveringSetStart);
+
+      if (log.isDebugEnabled()) {
+        log.debug(
+            "[SEGMENT {}] overlapping_segment_interval=[{}, {}] frames=[{}, {}] skip={} frames",
+            segmentIndex, coveringSetStart, coveringSetEnd,
+            segmentStart, segmentEnd, skipFrames
+        );
+      }
 
       jobs[segmentIndex] = new OverlappingSegmentTranscodingJob(
-          segmentIndex, segmentStart, segmentEnd, coveringSetStart, coveringSetEnd,
-          segmentStart - segments[coveringSetStart].startFrame()
+          segmentIndex, segmentStart, segmentEnd, coveringSetStart, coveringSetEnd, skipFrames
       );
 
       segmentStart = segmentEnd + 1;
@@ -61,5 +69,15 @@ public class TranscodingJobCoordinator {
     }
 
     return jobs;
-   }
+  }
+
+  private static boolean isSortedByStartFrame(Segment[] segments) {
+    for (int i = 1; i < segments.length; i++) {
+      if (segments[i].startFrame() < segments[i - 1].startFrame()) {
+        return false;
+      }
+    }
+
+    return true;
+  }
 }
@@ -0,0 +1,375 @@
+package com.github.akmal2409.netflix.videoslicer.job;
+
+import com.github.akmal2409.netflix.videoslicer.job.exception.ProcessedFilesUploadFailedException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.stream.IntStream;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.ChecksumAlgorithm;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+
+/**
+ * Uploads processed files of a single job one by one as soon as they are ready, instead of
+ * uploading the whole output directory at the end of the job. Each file is sent as a multipart
+ * upload (or a single put if it fits in one part) and at most {@code maxUploadsInFlight} files are
+ * transferred at once, {@link IncrementalUpload#upload(Path, String, boolean)} blocks the caller
+ * until a slot frees up.
+ * <p>
+ * Every part is sent with its CRC32C, which S3 verifies before accepting the part, and failed parts
+ * are retried on their own. The progress of multipart uploads is persisted in the state directory,
+ * see {@link PartManifest}, so that a retried job does not upload the parts again whose bytes have
+ * not changed. A failed multipart upload is therefore kept open along with its manifest, it is
+ * aborted only if no state is persisted. Uploads of jobs that are never retried are left to the
+ * lifecycle rule of the bucket for incomplete multipart uploads.
+ * <p>
+ * {@link IncrementalUpload#commit(Path)} waits for all the files and only then uploads the index,
+ * so the presence of index.json in the bucket means that the job output is complete.
+ */
+public class IncrementalUpload {
+
+  private static final Logger log = LoggerFactory.getLogger(IncrementalUpload.class);
+
+  /**
+   * Default size of a single part, S3 requires at least 5MiB for every part except the last one.
+   */
+  static final int PART_SIZE_BYTES = TransferSettings.DEFAULT.partSizeBytes();
+
+  private final S3AsyncClient s3Client;
+  private final UUID jobId;
+  private final String bucket;
+  private final String keyPrefix;
+  private final Semaphore uploadSlots;
+  private final Queue<CompletableFuture<Void>> uploads = new ConcurrentLinkedQueue<>();
+  private final TransferSettings transferSettings;
+  private final Path stateDirectory;
+
+  IncrementalUpload(@NotNull S3AsyncClient s3Client, @NotNull UUID jobId, @NotNull String bucket,
+      @NotNull String keyPrefix, int maxUploadsInFlight) {
+    this(s3Client, jobId, bucket, keyPrefix, maxUploadsInFlight, TransferSettings.DEFAULT, null);
+  }
+
+  /**
+   * @param stateDirectory where the progress of multipart uploads is persisted, nothing is
+   *                       persisted if null
+   */
+  IncrementalUpload(@NotNull S3AsyncClient s3Client, @NotNull UUID jobId, @NotNull String bucket,
+      @NotNull String keyPrefix, int maxUploadsInFlight,
+      @NotNull TransferSettings transferSettings, @Nullable Path stateDirectory) {
+    if (maxUploadsInFlight < 1) {
+      throw new IllegalArgumentException(
+          "Number of uploads in flight must be positive, got " + maxUploadsInFlight);
+    }
+
+    this.s3Client = s3Client;
+    this.jobId = jobId;
+    this.bucket = bucket;
+    this.keyPrefix = keyPrefix;
+    this.uploadSlots = new Semaphore(maxUploadsInFlight);
+    this.transferSettings = transferSettings;
+    this.stateDirectory = stateDirectory;
+  }
+
+  /**
+   * Starts an upload of the file under {keyPrefix}/{relativeKey}. Blocks if the maximum number of
+   * uploads is already in flight.
+   *
+   * @param file        to upload, must not be modified anymore
+   * @param relativeKey key relative to the key prefix of the job
+   * @param deleteAfter whether the file should be removed from disk once uploaded
+   */
+  public void upload(@NotNull Path file, @NotNull String relativeKey, boolean deleteAfter) {
+    uploadSlots.acquireUninterruptibly();
+
+    final String key = keyPrefix + "/" + relativeKey;
+    final CompletableFuture<Void> upload;
+
+    try {
+      upload = uploadFile(file, key);
+    } catch (RuntimeException e) {
+      uploadSlots.release();
+      throw e;
+    }
+
+    uploads.add(upload.whenComplete((ignored, e) -> {
+      uploadSlots.release();
+
+      if (e == null && deleteAfter) {
+        deleteQuietly(file);
+      }
+    }));
+  }
+
+  /**
+   * Waits for all started uploads to complete.
+   *
+   * @throws ProcessedFilesUploadFailedException if any of the uploads failed.
+   */
+  public void awaitUploads() {
+    try {
+      CompletableFuture.allOf(uploads.toArray(CompletableFuture[]::new)).join();
+    } catch (CompletionException e) {
+      throw new ProcessedFilesUploadFailedException(e.getCause(), bucket, keyPrefix);
+    }
+  }
+
+  /**
+   * Waits for all started uploads and then uploads the index file, which marks the output of the
+   * job as complete.
+   *
+   * @param indexFile path to index.json
+   * @throws ProcessedFilesUploadFailedException if any of the uploads failed.
+   */
+  public void commit(@NotNull Path indexFile) {
+    awaitUploads();
+    upload(indexFile, indexFile.getFileName().toString(), false);
+    awaitUploads();
+
+    log.debug("message=Committed job output to bucket {} with key {};jobId={}",
+        bucket, keyPrefix, jobId);
+  }
+
+  private CompletableFuture<Void> uploadFile(Path file, String key) {
+    final long size;
+
+    try {
+      size = Files.size(file);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot read size of " + file, e);
+    }
+
+    log.debug("message=Starting upload of {} to bucket {} with key {};jobId={};size={}",
+        file, bucket, key, jobId, size);
+
+    if (size <= transferSettings.partSizeBytes()) {
+      return PartTransfers.withAttempts(transferSettings.partAttempts(),
+                 () -> putFile(file, key, size))
+                 .thenAccept(response -> log.debug(
+                     "message=Finished upload of {};jobId={}", key, jobId));
+    }
+
+    final int partCount = transferSettings.partCount(size);
+    final Path manifestPath = manifestPath(key);
+
+    return resumeOrCreateUpload(key, size, manifestPath)
+               .thenCompose(manifest -> {
+                 final String uploadId = manifest.objectId();
+
+                 return uploadParts(file, key, size, manifest, manifestPath)
+                            .thenCompose(parts -> s3Client.completeMultipartUpload(
+                                CompleteMultipartUploadRequest.builder()
+                                    .bucket(bucket)
+                                    .key(key)
+                                    .uploadId(uploadId)
+                                    .multipartUpload(m -> m.parts(parts))
+                                    .build()))
+                            .whenComplete((response, e) -> {
+                              if (e == null) {
+                                deleteQuietly(manifestPath);
+                              } else if (manifestPath != null) {
+                                // a retry of the job resumes the upload from the manifest
+                                log.error("message=Keeping multipart upload of {};jobId={}",
+                                    key, jobId, e);
+                              } else {
+                                log.error("message=Aborting multipart upload of {};jobId={}",
+                                    key, jobId, e);
+                                s3Client.abortMultipartUpload(
+                                    AbortMultipartUploadRequest.builder()
+                                        .bucket(bucket)
+                                        .key(key)
+                                        .uploadId(uploadId)
+                                        .build());
+                              }
+                            });
+               })
+               .thenAccept(response -> log.debug(
+                   "message=Finished multipart upload of {};jobId={};parts={}",
+                   key, jobId, partCount));
+  }
+
+  private CompletableFuture<PutObjectResponse> putFile(Path file, String key, long size) {
+    final ByteBuffer bytes = readPart(file, 0, (int) size);
+
+    return s3Client.putObject(PutObjectRequest.builder()
+                                  .bucket(bucket)
+                                  .key(key)
+                                  .checksumAlgorithm(ChecksumAlgorithm.CRC32_C)
+                                  .checksumCRC32C(
+                                      PartManifest.toBase64(PartManifest.crc32c(bytes)))
+                                  .build(),
+        AsyncRequestBody.fromByteBuffer(bytes));
+  }
+
+  /**
+   * Continues the multipart upload recorded in the manifest of a previous attempt if it still
+   * exists, otherwise starts a new one.
+   */
+  private CompletableFuture<PartManifest> resumeOrCreateUpload(String key, long size,
+      Path manifestPath) {
+    final Optional<PartManifest> previous = manifestPath == null ? Optional.empty()
+        : PartManifest.load(manifestPath)
+              .filter(m -> m.matches(size, transferSettings.partSizeBytes()));
+
+    if (previous.isPresent()) {
+      final PartManifest manifest = previous.get();
+
+      return s3Client.listParts(b -> b.bucket(bucket).key(key).uploadId(manifest.objectId())
+                                         .maxParts(1))
+                 .handle((response, e) -> {
+                   if (e == null) {
+                     log.debug("message=Resuming multipart upload of {};jobId={};parts={}", key,
+                         jobId, manifest.parts().size());
+                     return CompletableFuture.completedFuture(manifest);
+                   }
+
+                   // the upload has been aborted or has expired
+                   return createUpload(key, size, manifestPath);
+                 })
+                 .thenCompose(future -> future);
+    }
+
+    return createUpload(key, size, manifestPath);
+  }
+
+  private CompletableFuture<PartManifest> createUpload(String key, long size, Path manifestPath) {
+    return s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                                              .bucket(bucket)
+                                              .key(key)
+                                              .checksumAlgorithm(ChecksumAlgorithm.CRC32_C)
+                                              .build())
+               .thenApply(created -> {
+                 final PartManifest manifest = PartManifest.create(size,
+                     transferSettings.partSizeBytes(), created.uploadId());
+
+                 if (manifestPath != null) {
+                   manifest.save(manifestPath);
+                 }
+
+                 return manifest;
+               });
+  }
+
+  /**
+   * Uploads the parts that are not in the manifest yet or whose bytes have changed since, with at
+   * most {@link TransferSettings#partConcurrency()} parts of the file in memory.
+   */
+  private CompletableFuture<List<CompletedPart>> uploadParts(Path file, String key, long size,
+      PartManifest manifest, Path manifestPath) {
+    final List<Integer> partNumbers = IntStream.rangeClosed(1, transferSettings.partCount(size))
+                                          .boxed()
+                                          .toList();
+
+    return PartTransfers.transfer(partNumbers, transferSettings.partConcurrency(),
+            partNumber -> uploadPart(file, key, size, partNumber, manifest, manifestPath))
+               .thenApply(ignored -> manifest.parts().entrySet().stream()
+                                         .map(part -> CompletedPart.builder()
+                                                          .partNumber(part.getKey())
+                                                          .eTag(part.getValue().eTag())
+                                                          .checksumCRC32C(PartManifest.toBase64(
+                                                              part.getValue().crc32c()))
+                                                          .build())
+                                         .toList());
+  }
+
+  private CompletableFuture<Void> uploadPart(Path file, String key, long size, int partNumber,
+      PartManifest manifest, Path manifestPath) {
+    final long offset = transferSettings.partOffset(partNumber);
+    final ByteBuffer part = readPart(file, offset,
+        (int) Math.min(transferSettings.partSizeBytes(), size - offset));
+    final long crc32c = PartManifest.crc32c(part);
+
+    if (manifest.part(partNumber).filter(uploaded -> uploaded.crc32c() == crc32c).isPresent()) {
+      return CompletableFuture.completedFuture(null);
+    }
+
+    final UploadPartRequest request = UploadPartRequest.builder()
+                                          .bucket(bucket)
+                                          .key(key)
+                                          .uploadId(manifest.objectId())
+                                          .partNumber(partNumber)
+                                          .contentLength((long) part.remaining())
+                                          .checksumAlgorithm(ChecksumAlgorithm.CRC32_C)
+                                          .checksumCRC32C(PartManifest.toBase64(crc32c))
+                                          .build();
+
+    return PartTransfers.withAttempts(transferSettings.partAttempts(),
+            () -> s3Client.uploadPart(request, AsyncRequestBody.fromByteBuffer(part.duplicate())))
+               .thenAccept(response -> {
+                 final var uploaded = new PartManifest.Part(response.eTag(), crc32c);
+
+                 if (manifestPath == null) {
+                   manifest.record(partNumber, uploaded);
+                 } else {
+                   manifest.complete(partNumber, uploaded, manifestPath);
+                 }
+               });
+  }
+
+  private ByteBuffer readPart(Path file, long offset, int length) {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final ByteBuffer buffer = ByteBuffer.allocate(length);
+
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer, offset + buffer.position()) < 0) {
+          break;
+        }
+      }
+
+      return buffer.flip();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot read part of " + file + " at offset " + offset, e);
+    }
+  }
+
+  private Path manifestPath(String key) {
+    if (stateDirectory == null) {
+      return null;
+    }
+
+    try {
+      Files.createDirectories(stateDirectory);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot create transfer state directory " + stateDirectory,
+          e);
+    }
+
+    return stateDirectory.resolve(URLEncoder.encode(key, StandardCharsets.UTF_8) + ".jsonl");
+  }
+
+  private void deleteQuietly(Path file) {
+    if (file == null) {
+      return;
+    }
+
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      log.warn("message=Failed to remove uploaded file {};jobId={}", file, jobId, e);
+    }
+  }
+}
@@ -2,10 +2,27 @@ package com.github.akmal2409.netflix.videoslicer.job;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.akmal2409.netflix.videoslicer.config.SegmentConstants;
+import com.github.akmal2409.netflix.videoslicer.config.SegmentFileName;
+import com.github.akmal2409.netflix.videoslicer.coordinator.PerTitleLadder;
+import com.github.akmal2409.netflix.videoslicer.coordinator.TranscodingJobManifest;
+import com.github.akmal2409.netflix.videoslicer.coordinator.TranscodingJobManifest.VideoQuality;
+import com.github.akmal2409.netflix.videoslicer.coordinator.TranscodingJobPublisher;
+import com.github.akmal2409.netflix.videoslicer.coordinator.frame.OverlappingSegmentTranscodingJob;
 import com.github.akmal2409.netflix.videoslicer.coordinator.frame.Segment;
+import com.github.akmal2409.netflix.videoslicer.coordinator.frame.TranscodingConfiguration;
+import com.github.akmal2409.netflix.videoslicer.coordinator.frame.TranscodingJobCoordinator;
+import com.github.akmal2409.netflix.videoslicer.job.PreprocessingManifest.TranscodingTarget;
+import com.github.akmal2409.netflix.videoslicer.job.ProcessedIndex.ContentComplexity;
 import com.github.akmal2409.netflix.videoslicer.job.ProcessedIndex.ProcessedSegment;
 import com.github.akmal2409.netflix.videoslicer.job.exception.JobExecutionFailureException;
+import com.github.akmal2409.netflix.videoslicer.job.exception.ProcessedFilesUploadFailedException;
 import com.github.akmal2409.netflix.videoslicer.processing.MediaExtractor;
+import com.github.akmal2409.netflix.videoslicer.processing.SegmentWatcher;
+import com.github.akmal2409.netflix.videoslicer.processing.analyser.AnalysisMode;
+import com.github.akmal2409.netflix.videoslicer.processing.analyser.ComplexityAnalyser;
+import com.github.akmal2409.netflix.videoslicer.processing.analyser.KeyframeIndex;
+import com.github.akmal2409.netflix.videoslicer.processing.analyser.TitleComplexity;
+import com.github.akmal2409.netflix.videoslicer.processing.analyser.VideoAnalysisException;
 import com.github.akmal2409.netflix.videoslicer.processing.analyser.VideoAnalyser;
 import com.github.akmal2409.netflix.videoslicer.processing.analyser.VideoIndex;
 import com.rabbitmq.client.AMQP.BasicProperties;
@@ -13,6 +30,7 @@ import com.rabbitmq.client.Channel;
 import com.rabbitmq.client.DefaultConsumer;
 import com.rabbitmq.client.Envelope;
 import java.io.IOException;
+import java.net.URI;
 import java.nio.file.FileVisitResult;
 import java.nio.file.FileVisitor;
 import java.nio.file.Files;
@@ -21,9 +39,13 @@ import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.time.Duration;
 import java.util.Arrays;
+import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
+import java.util.function.ObjIntConsumer;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,20 +54,71 @@ public class JobConsumer extends DefaultConsumer {
 
   private static final Logger log = LoggerFactory.getLogger(JobConsumer.class);
 
+  /**
+   * The pre-signed source URL must stay valid until ffmpeg has read the whole source.
+   */
+  private static final Duration SOURCE_URL_VALIDITY = Duration.ofHours(12);
+  private static final String SEGMENTS_KEY_PREFIX = "segments/";
+
   private final MediaExtractor mediaExtractor;
   private final ObjectMapper objectMapper;
   private final S3Store s3Store;
   private final Executor executor;
   private final VideoAnalyser videoAnalyser;
+  private final AnalysisMode analysisMode;
+  private final SourceMode sourceMode;
+  private final TranscodingJobPublisher transcodingJobPublisher;
+  private final TranscodingJobCoordinator transcodingJobCoordinator;
+  private final ComplexityAnalyser complexityAnalyser;
+  private final int complexitySampleInterval;
+  private final double referenceBitsPerPixel;
 
   public JobConsumer(Channel channel, MediaExtractor mediaExtractor, ObjectMapper objectMapper,
       S3Store videoStore, Executor executor, VideoAnalyser videoAnalyser) {
+    this(channel, mediaExtractor, objectMapper, videoStore, executor, videoAnalyser,
+        AnalysisMode.SEGMENT_PROBE);
+  }
+
+  public JobConsumer(Channel channel, MediaExtractor mediaExtractor, ObjectMapper objectMapper,
+      S3Store videoStore, Executor executor, VideoAnalyser videoAnalyser,
+      AnalysisMode analysisMode) {
+    this(channel, mediaExtractor, objectMapper, videoStore, executor, videoAnalyser,
+        analysisMode, SourceMode.DOWNLOAD, null);
+  }
+
+  public JobConsumer(Channel channel, MediaExtractor mediaExtractor, ObjectMapper objectMapper,
+      S3Store videoStore, Executor executor, VideoAnalyser videoAnalyser,
+      AnalysisMode analysisMode, SourceMode sourceMode,
+      TranscodingJobPublisher transcodingJobPublisher) {
+    this(channel, mediaExtractor, objectMapper, videoStore, executor, videoAnalyser, analysisMode,
+        sourceMode, transcodingJobPublisher, null, 1, 1);
+  }
+
+  /**
+   * @param complexityAnalyser       probes the sampled segments to fit the bit rate ladder to the
+   *                                 title, null to transcode to the requested ladder as is
+   * @param complexitySampleInterval every n-th segment is probed, starting with the first one
+   * @param referenceBitsPerPixel    bits per pixel of typical content in the probe encode, for which
+   *                                 the requested ladder is sized
+   */
+  public JobConsumer(Channel channel, MediaExtractor mediaExtractor, ObjectMapper objectMapper,
+      S3Store videoStore, Executor executor, VideoAnalyser videoAnalyser,
+      AnalysisMode analysisMode, SourceMode sourceMode,
+      TranscodingJobPublisher transcodingJobPublisher, ComplexityAnalyser complexityAnalyser,
+      int complexitySampleInterval, double referenceBitsPerPixel) {
     super(channel);
     this.mediaExtractor = mediaExtractor;
     this.objectMapper = objectMapper;
     this.s3Store = videoStore;
     this.executor = executor;
     this.videoAnalyser = videoAnalyser;
+    this.analysisMode = analysisMode;
+    this.sourceMode = sourceMode;
+    this.transcodingJobPublisher = transcodingJobPublisher;
+    this.transcodingJobCoordinator = new TranscodingJobCoordinator();
+    this.complexityAnalyser = complexityAnalyser;
+    this.complexitySampleInterval = Math.max(1, complexitySampleInterval);
+    this.referenceBitsPerPixel = referenceBitsPerPixel;
   }
 
   /**
@@ -55,6 +128,20 @@ public class JobConsumer extends DefaultConsumer {
    * video into segments of size close to segmentDuration (cannot be exact due to I-Frame positions)
    * 3) Extract the audio from the video 4) Index the video files and create a JSON file containing
    * segments and their durations 5) Upload segments, audio and index.json to the output bucket.
+   * Segments are uploaded while the video is still being sliced and index.json is always uploaded
+   * last, see {@link IncrementalUpload}. If the manifest requests transcoding, one transcoding job
+   * per target segment is published as soon as the segments are uploaded.
+   * <p>
+   * If a complexity analyser is configured and transcoding is requested, every n-th segment is
+   * probed while the video is being sliced and the requested ladder is fitted to the title, see
+   * {@link PerTitleLadder}. The fitted ladder is written to index.json and used by the transcoding
+   * jobs.
+   * <p>
+   * In {@link AnalysisMode#PACKET_INDEX} mode the source is indexed once at packet level and segment
+   * boundaries are derived from keyframe positions, so step 4 does not probe any segment.
+   * <p>
+   * In {@link SourceMode#STREAM} mode the source is never downloaded, see
+   * {@link JobConsumer#processStreamedSource(PreprocessingManifest, Envelope, String)}.
    *
    * @param consumerTag the <i>consumer tag</i> associated with the consumer
    * @param envelope    packaging data for the message
@@ -76,45 +163,80 @@ public class JobConsumer extends DefaultConsumer {
       // for now just drop and reject
       // TODO: send it it another queue, where alert can be dispatched
       getChannel().basicAck(envelope.getDeliveryTag(), false);
+    } else if (SourceMode.STREAM.equals(sourceMode)) {
+      processStreamedSource(manifest, envelope, consumerTag);
     } else {
       final JobVideoSource videoSource = s3Store.downloadSource(manifest.jobId(),
           manifest.sourceBucket(), manifest.sourceFileKey());
+      final Path jobDirectory = videoSource.filePath().getParent();
+      boolean resumable = false;
 
-      final var outputFileDirectory = videoSource.filePath().getParent().resolve("processed");
-
-      // extracting frame rate and total number of frames in the video.
-      final VideoIndex videoIndex = videoAnalyser.analyse(videoSource.filePath());
+      try {
+        final var outputFileDirectory = jobDirectory.resolve("processed");
+
+        // extracting frame rate and total number of frames in the video.
+        final KeyframeIndex keyframeIndex;
+        final VideoIndex videoIndex;
+
+        if (AnalysisMode.PACKET_INDEX.equals(analysisMode)) {
+          keyframeIndex = videoAnalyser.indexKeyframes(videoSource.filePath());
+          videoIndex = keyframeIndex.video();
+        } else {
+          keyframeIndex = null;
+          videoIndex = videoAnalyser.analyse(videoSource.filePath());
+        }
 
-      final var audioFilePath = outputFileDirectory.resolve("audio.m4a");
+        final var audioFilePath = outputFileDirectory.resolve("audio.m4a");
 
-      try {
         final var audioExtractionFuture = CompletableFuture.runAsync(() ->
                                                                          mediaExtractor.extractAudio(
                                                                              videoSource.filePath(),
                                                                              audioFilePath),
             executor);
 
+        final var upload = s3Store.startIncrementalUpload(manifest.jobId(),
+            manifest.outputBucket(), manifest.outputFileKeyPrefix());
+
         // while the audio task is running async, we can wait for segmentation to finish and then index all files
         final var segmentsPath = outputFileDirectory.resolve("segments");
-        mediaExtractor.slice(
-            videoSource.filePath(),
-            segmentsPath,
-            Duration.ofSeconds(manifest.segmentDurationSeconds()),
-            SegmentConstants.SEGMENT_FILE_NAME_PATTERN);
+        Files.createDirectories(segmentsPath);
+
+        final var titleComplexity = new TitleComplexity();
+
+        // segments are uploaded as soon as the muxer closes them, they are kept on disk because
+        // they might still be probed below
+        try (var watcher = newSegmentWatcher(segmentsPath, (segment, index) -> {
+          probeComplexity(manifest, segment, index, titleComplexity);
+          upload.upload(segment, SEGMENTS_KEY_PREFIX + segment.getFileName(), false);
+        })) {
+          watcher.start(executor);
+
+          mediaExtractor.slice(
+              videoSource.filePath(),
+              segmentsPath,
+              Duration.ofSeconds(manifest.segmentDurationSeconds()),
+              SegmentConstants.SEGMENT_FILE_NAME_PATTERN);
+
+          watcher.finish();
+        }
 
         audioExtractionFuture.join();
+        upload.upload(audioFilePath, audioFilePath.getFileName().toString(), false);
 
         // Now we need to get start and end frame numbers of each segment
-        final Segment[] segments = videoAnalyser.analyseSegments(segmentsPath,
-            (path) -> SegmentConstants.SEGMENT_FILE_NAME_REGEX_PATTERN.matcher(
-                path.getFileName().toString()).matches(),
-            (p1, p2) -> SegmentConstants.SEGMENT_FILE_NAME_COMPARATOR.compare(
-                p1.getFileName().toString(), p2.getFileName().toString())
-        );
+        final Segment[] segments;
+
+        if (keyframeIndex != null) {
+          segments = keyframeIndex.deriveSegments(
+              Duration.ofSeconds(manifest.segmentDurationSeconds()),
+              SegmentConstants.SEGMENT_FILE_NAME_PATTERN);
+        } else {
+          segments = videoAnalyser.analyseSegments(segmentsPath, SegmentFileName::parseIndex);
+        }
 
         final ProcessedIndex finalIndex = createCompleteFileIndex(videoIndex, segments,
             manifest, audioFilePath.getFileName()
-                          .toString()); // index will be written as json file along the files in an output bucket under index.json
+                          .toString(), fitLadder(manifest, titleComplexity)); // index will be written as json file along the files in an output bucket under index.json
 
         final var indexFilePath = segmentsPath.getParent().resolve("index.json");
 
@@ -127,25 +249,260 @@ public class JobConsumer extends DefaultConsumer {
           throw new JobExecutionFailureException("Failed to write index file", manifest.jobId());
         }
 
-        s3Store.uploadProcessedFiles(manifest.outputBucket(),
-            manifest.outputFileKeyPrefix(), outputFileDirectory);
+        upload.commit(indexFilePath);
+        publishTranscodingJobs(manifest, finalIndex, segments);
 
         getChannel().basicAck(envelope.getDeliveryTag(),
             false); // acknowledge it and complete execution
-        
+
+      } catch (ProcessedFilesUploadFailedException e) {
+        resumable = true;
+        throw e;
       } finally {
-        cleanupFiles(videoSource.filePath().getParent());
+        cleanupFiles(jobDirectory, manifest.jobId(), resumable);
+      }
+
+
+    }
+  }
+
+  /**
+   * Streaming variant of the pipeline. ffmpeg reads the source directly from the bucket through a
+   * pre-signed URL (ranged HTTP reads, hence MP4s with the moov atom at the end are supported as
+   * well) and slices the video and extracts the audio in a single pass. Every segment is counted,
+   * uploaded and removed from disk as soon as the muxer closes it, so network and CPU time overlap
+   * and the scratch space needed is in the order of a few segments rather than the whole source.
+   */
+  private void processStreamedSource(PreprocessingManifest manifest, Envelope envelope,
+      String consumerTag) throws IOException {
+    final Path jobDirectory = s3Store.prepareJobDirectory(manifest.jobId());
+    boolean resumable = false;
+
+    try {
+      final URI source = s3Store.presignSource(manifest.jobId(), manifest.sourceBucket(),
+          manifest.sourceFileKey(), SOURCE_URL_VALIDITY);
+
+      final VideoIndex headerIndex = videoAnalyser.analyseHeaders(source.toString(),
+          manifest.sourceBucket() + "/" + manifest.sourceFileKey());
+
+      final var outputFileDirectory = jobDirectory.resolve("processed");
+      final var segmentsPath = outputFileDirectory.resolve("segments");
+      final var audioFilePath = outputFileDirectory.resolve("audio.m4a");
+      final var upload = s3Store.startIncrementalUpload(manifest.jobId(),
+          manifest.outputBucket(), manifest.outputFileKeyPrefix());
+
+      Files.createDirectories(segmentsPath);
+
+      final Map<Integer, Integer> segmentFrames = new ConcurrentHashMap<>();
+      final var titleComplexity = new TitleComplexity();
+
+      try (var watcher = newSegmentWatcher(segmentsPath, (segment, index) -> {
+        segmentFrames.put(index, videoAnalyser.countFrames(segment));
+        probeComplexity(manifest, segment, index, titleComplexity);
+        upload.upload(segment, SEGMENTS_KEY_PREFIX + segment.getFileName(), true);
+      })) {
+        watcher.start(executor);
+
+        mediaExtractor.sliceRemote(source, segmentsPath,
+            Duration.ofSeconds(manifest.segmentDurationSeconds()),
+            SegmentConstants.SEGMENT_FILE_NAME_PATTERN, audioFilePath);
+
+        watcher.finish();
+      }
+
+      upload.upload(audioFilePath, audioFilePath.getFileName().toString(), true);
+
+      // frame numbers are only known once every segment has been counted
+      final Segment[] segments = countedSegments(segmentFrames, manifest.jobId());
+      final int startFrame = segments[segments.length - 1].endFrame() + 1;
+
+      final var videoIndex = new VideoIndex(headerIndex.frameRate(), startFrame,
+          headerIndex.width(), headerIndex.height());
+
+      final ProcessedIndex finalIndex = createCompleteFileIndex(videoIndex, segments,
+          manifest, audioFilePath.getFileName().toString(),
+          fitLadder(manifest, titleComplexity));
+
+      final var indexFilePath = outputFileDirectory.resolve("index.json");
+
+      try {
+        writeIndexFile(indexFilePath, finalIndex);
+      } catch (IOException e) {
+        log.error("message=Failed to write index.json on disk;job_id={};consumer_tag={}",
+            manifest.jobId(), consumerTag);
+
+        throw new JobExecutionFailureException("Failed to write index file", manifest.jobId());
+      }
+
+      upload.commit(indexFilePath);
+      publishTranscodingJobs(manifest, finalIndex, segments);
+
+      getChannel().basicAck(envelope.getDeliveryTag(), false);
+    } catch (ProcessedFilesUploadFailedException e) {
+      resumable = true;
+      throw e;
+    } finally {
+      cleanupFiles(jobDirectory, manifest.jobId(), resumable);
+    }
+  }
+
+  /**
+   * Publishes one transcoding job per target segment (GOP) of the video. Segments and index.json
+   * must be in the bucket before the jobs are visible to the transcoders, hence, this is called only
+   * once the output is committed.
+   */
+  private void publishTranscodingJobs(PreprocessingManifest manifest, ProcessedIndex index,
+      Segment[] segments) {
+    if (manifest.transcoding() == null) {
+      return;
+    }
+
+    if (transcodingJobPublisher == null) {
+      log.warn("message=Transcoding requested but publisher is not configured;jobId={}",
+          manifest.jobId());
+      return;
+    }
+
+    final OverlappingSegmentTranscodingJob[] jobs = transcodingJobCoordinator.buildJobs(
+        new TranscodingConfiguration(index.gopSize(), index.totalFrames()), segments);
+
+    final TranscodingTarget target = manifest.transcoding();
+    final VideoQuality[] outputQualities = index.complexity() != null
+                                               ? index.complexity().outputQualities()
+                                               : target.outputQualities();
+    final var originalQuality = new VideoQuality(index.width(), index.height(),
+        target.originalBitRate());
+    final var manifests = new TranscodingJobManifest[jobs.length];
+
+    for (int i = 0; i < jobs.length; i++) {
+      final OverlappingSegmentTranscodingJob job = jobs[i];
+      final var segmentFileNames = new String[job.overlappingSegmentEnd()
+                                                  - job.overlappingSegmentStart() + 1];
+
+      for (int j = 0; j < segmentFileNames.length; j++) {
+        segmentFileNames[j] = segments[job.overlappingSegmentStart() + j].fileName();
       }
 
+      manifests[i] = new TranscodingJobManifest(
+          manifest.jobId(),
+          manifest.outputBucket(),
+          manifest.outputFileKeyPrefix(),
+          target.outputBucket(),
+          target.outputKeyPrefix(),
+          job.segmentIndex(),
+          manifest.segmentDurationSeconds(),
+          segmentFileNames,
+          job.skipFirstSegmentFrames(),
+          index.gopSize(),
+          outputQualities,
+          originalQuality
+      );
+    }
+
+    transcodingJobPublisher.publish(manifest.jobId(), manifests);
+  }
+
+  /**
+   * Probes the segment if it is one of the samples. A failed probe only drops the sample, the
+   * ladder is fitted to the remaining ones or left as requested.
+   */
+  private void probeComplexity(PreprocessingManifest manifest, Path segment, int index,
+      TitleComplexity titleComplexity) {
+    if (complexityAnalyser == null || manifest.transcoding() == null
+            || index % complexitySampleInterval != 0) {
+      return;
+    }
+
+    try {
+      titleComplexity.add(complexityAnalyser.probe(segment));
+    } catch (VideoAnalysisException e) {
+      log.warn("message=Complexity probe failed, skipping sample;jobId={};segment={}",
+          manifest.jobId(), segment.getFileName(), e);
+    }
+  }
+
+  /**
+   * @return requested ladder fitted to the probed complexity or null if no segment was probed
+   */
+  private ContentComplexity fitLadder(PreprocessingManifest manifest,
+      TitleComplexity titleComplexity) {
+    if (manifest.transcoding() == null || titleComplexity.sampledSegments() == 0) {
+      return null;
+    }
+
+    final double scale = PerTitleLadder.scale(titleComplexity.bitsPerPixel(),
+        referenceBitsPerPixel);
+
+    log.info(
+        "message=Fitted bit rate ladder to title;jobId={};sampledSegments={};bitsPerPixel={};scale={}",
+        manifest.jobId(), titleComplexity.sampledSegments(), titleComplexity.bitsPerPixel(), scale);
+
+    return new ContentComplexity(titleComplexity.sampledSegments(),
+        titleComplexity.bitsPerPixel(), scale,
+        PerTitleLadder.apply(manifest.transcoding().outputQualities(), scale));
+  }
+
+  /**
+   * Assigns frame ranges to the segments counted by the watcher. The indexes must be exactly 0 to
+   * n - 1, a gap means that a segment was never counted (e.g. its file name was skipped by the
+   * muxer) and the frame numbers of every later segment would be wrong.
+   *
+   * @param segmentFrames frame count by segment index
+   */
+  private static Segment[] countedSegments(Map<Integer, Integer> segmentFrames, UUID jobId) {
+    if (segmentFrames.isEmpty()) {
+      throw new JobExecutionFailureException("Muxer produced no segments", jobId);
+    }
+
+    final var segments = new Segment[segmentFrames.size()];
+    int startFrame = 0;
+
+    for (int i = 0; i < segments.length; i++) {
+      final Integer frames = segmentFrames.get(i);
+
+      if (frames == null) {
+        throw new JobExecutionFailureException(String.format(
+            "Segment %d has not been counted, expected segment indexes 0 to %d", i,
+            segments.length - 1), jobId);
+      }
 
+      segments[i] = new Segment(String.format(SegmentConstants.SEGMENT_FILE_NAME_PATTERN, i), i,
+          startFrame, startFrame + frames - 1);
+      startFrame += frames;
     }
+
+    return segments;
+  }
+
+  private SegmentWatcher newSegmentWatcher(Path segmentsPath,
+      ObjIntConsumer<Path> closedSegmentConsumer) {
+    return new SegmentWatcher(segmentsPath,
+        SegmentConstants.SEGMENT_FILE_NAME_PATTERN,
+        SegmentFileName::parseIndex,
+        closedSegmentConsumer);
   }
 
   /**
-   * Removes all intermediary files that were required by the pipeline.
+   * Removes all intermediary files that were required by the pipeline and releases the job
+   * directory. If the uploads failed, the directory is kept, so that the redelivered job resumes
+   * them from the transfer state, the next attempt removes everything else, see
+   * {@link S3Store#downloadSource(UUID, String, String)}.
    * @param directory path where all the files and directories reside.
+   * @param resumable whether the job failed in a way a retry resumes
    */
-  private void cleanupFiles(Path directory) throws IOException {
+  private void cleanupFiles(Path directory, UUID jobId, boolean resumable) throws IOException {
+    try {
+      if (resumable && s3Store.hasTransferState(jobId)) {
+        log.info("message=Keeping job directory to resume the uploads on retry;jobId={}", jobId);
+      } else {
+        deleteDirectory(directory);
+      }
+    } finally {
+      s3Store.releaseJobDirectory(jobId);
+    }
+  }
+
+  private void deleteDirectory(Path directory) throws IOException {
     Files.walkFileTree(directory, Set.of(), 10, new FileVisitor<>() {
       @Override
       public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
@@ -185,7 +542,7 @@ public class JobConsumer extends DefaultConsumer {
 
 
   private ProcessedIndex createCompleteFileIndex(VideoIndex videoIndex, Segment[] segments,
-      PreprocessingManifest manifest, String audioFileName) {
+      PreprocessingManifest manifest, String audioFileName, ContentComplexity complexity) {
     final ProcessedSegment[] mappedSegments = Arrays.stream(segments)
                                                   .map(
                                                       segment -> new ProcessedSegment(
@@ -206,7 +563,8 @@ public class JobConsumer extends DefaultConsumer {
         videoIndex.height(),
         gopSize,
         manifest.segmentDurationSeconds(),
-        mappedSegments
+        mappedSegments,
+        complexity
     );
   }
 
@@ -237,6 +595,21 @@ public class JobConsumer extends DefaultConsumer {
       invalidProps.append("segmentDurationSeconds is less than 1, ");
     }
 
+    if (manifest.transcoding() != null) {
+      if (StringUtils.isEmpty(manifest.transcoding().outputBucket())) {
+        invalidProps.append("transcoding.outputBucket is missing, ");
+      }
+
+      if (StringUtils.isEmpty(manifest.transcoding().outputKeyPrefix())) {
+        invalidProps.append("transcoding.outputKeyPrefix is missing, ");
+      }
+
+      if (manifest.transcoding().outputQualities() == null
+              || manifest.transcoding().outputQualities().length == 0) {
+        invalidProps.append("transcoding.outputQualities is missing, ");
+      }
+    }
+
     if (!invalidProps.isEmpty()) {
       invalidProps.delete(invalidProps.length() - 2, invalidProps.length());
       log.error("message=Invalid preprocessing manifest;jobId={};reason={}",
@@ -0,0 +1,218 @@
+package com.github.akmal2409.netflix.videoslicer.job;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.zip.CRC32C;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Progress of a multipart transfer of a single file, persisted in the job directory as parts
+ * complete, so that a retried transfer only moves the parts that are missing. Every completed part
+ * is recorded with the CRC32C of its bytes: a part whose bytes on disk no longer match is
+ * transferred again.
+ * <p>
+ * The manifest is a JSON lines log: a header with the object followed by one record per completed
+ * part. Completing a part appends a single line, so the cost per part does not grow with the number
+ * of parts, and loading replays the log. {@link PartManifest#save(Path)} compacts it into a new
+ * file. A record cut short by a crash is skipped, the part is then simply transferred again.
+ * <p>
+ * The manifest only applies to the same object, identified by its size, the part size and either
+ * the ETag of the downloaded object or the id of the multipart upload.
+ */
+public final class PartManifest {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final long size;
+  private final int partSize;
+  private final String objectId;
+  private final TreeMap<Integer, Part> parts;
+
+  PartManifest(long size, int partSize, String objectId, @Nullable Map<Integer, Part> parts) {
+    this.size = size;
+    this.partSize = partSize;
+    this.objectId = objectId;
+    this.parts = parts == null ? new TreeMap<>() : new TreeMap<>(parts);
+  }
+
+  /**
+   * @param objectId ETag of the downloaded object or id of the multipart upload
+   */
+  static PartManifest create(long size, int partSize, String objectId) {
+    return new PartManifest(size, partSize, objectId, null);
+  }
+
+  /**
+   * @return manifest stored at the path, empty if there is none or its header cannot be read (e.g.
+   * written partially during a crash)
+   */
+  static Optional<PartManifest> load(Path path) {
+    if (!Files.exists(path)) {
+      return Optional.empty();
+    }
+
+    try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+      final String headerLine = reader.readLine();
+
+      if (headerLine == null) {
+        return Optional.empty();
+      }
+
+      final Header header = MAPPER.readValue(headerLine, Header.class);
+      final var manifest = create(header.size(), header.partSize(), header.objectId());
+      String line;
+
+      while ((line = reader.readLine()) != null) {
+        try {
+          final PartRecord record = MAPPER.readValue(line, PartRecord.class);
+          manifest.parts.put(record.partNumber(), new Part(record.eTag(), record.crc32c()));
+        } catch (JsonProcessingException e) {
+          // appended partially during a crash, the part is transferred again
+        }
+      }
+
+      return Optional.of(manifest);
+    } catch (IOException e) {
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * @return whether the manifest describes a transfer of an object of this size and part size
+   */
+  boolean matches(long size, int partSize) {
+    return this.size == size && this.partSize == partSize;
+  }
+
+  public long size() {
+    return size;
+  }
+
+  public int partSize() {
+    return partSize;
+  }
+
+  public String objectId() {
+    return objectId;
+  }
+
+  public synchronized Map<Integer, Part> parts() {
+    return new TreeMap<>(parts);
+  }
+
+  synchronized Optional<Part> part(int partNumber) {
+    return Optional.ofNullable(parts.get(partNumber));
+  }
+
+  /**
+   * Records the part without persisting the manifest.
+   */
+  synchronized void record(int partNumber, Part part) {
+    parts.put(partNumber, part);
+  }
+
+  /**
+   * Records the part and appends it to the manifest persisted at the path by
+   * {@link PartManifest#save(Path)}.
+   */
+  void complete(int partNumber, Part part, Path path) {
+    final byte[] line = toLine(new PartRecord(partNumber, part.eTag(), part.crc32c()));
+
+    synchronized (this) {
+      parts.put(partNumber, part);
+
+      try {
+        Files.write(path, line, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Cannot persist part manifest " + path, e);
+      }
+    }
+  }
+
+  /**
+   * Persists the manifest with all of its parts, replacing the previous file atomically.
+   */
+  synchronized void save(Path path) {
+    try {
+      final Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+
+      try (OutputStream out = Files.newOutputStream(temporary)) {
+        out.write(toLine(new Header(size, partSize, objectId)));
+
+        for (Map.Entry<Integer, Part> part : parts.entrySet()) {
+          out.write(toLine(new PartRecord(part.getKey(), part.getValue().eTag(),
+              part.getValue().crc32c())));
+        }
+      }
+
+      Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot persist part manifest " + path, e);
+    }
+  }
+
+  private static byte[] toLine(Object value) {
+    try {
+      return (MAPPER.writeValueAsString(value) + "\n").getBytes(StandardCharsets.UTF_8);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Cannot serialise part manifest record " + value, e);
+    }
+  }
+
+  static long crc32c(ByteBuffer bytes) {
+    final var crc = new CRC32C();
+    crc.update(bytes.duplicate());
+
+    return crc.getValue();
+  }
+
+  /**
+   * @return checksum in the format of the S3 checksum headers, base64 of the big endian value
+   */
+  static String toBase64(long crc32c) {
+    return Base64.getEncoder().encodeToString(
+        ByteBuffer.allocate(Integer.BYTES).putInt((int) crc32c).array());
+  }
+
+  /**
+   * @param eTag   of the uploaded part, null for downloaded parts
+   * @param crc32c of the bytes of the part
+   */
+  public record Part(
+      String eTag,
+      long crc32c
+  ) {
+
+  }
+
+  record Header(
+      long size,
+      int partSize,
+      String objectId
+  ) {
+
+  }
+
+  record PartRecord(
+      int partNumber,
+      String eTag,
+      long crc32c
+  ) {
+
+  }
+}
@@ -0,0 +1,74 @@
+package com.github.akmal2409.netflix.videoslicer.job;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Scheduling of the parts of a multipart transfer.
+ */
+final class PartTransfers {
+
+  private PartTransfers() {
+    throw new IllegalStateException("Cannot instantiate a utility class");
+  }
+
+  /**
+   * Transfers the given parts with at most {@code concurrency} of them in flight. Each of the
+   * concurrent lanes takes the next part once its previous part has completed.
+   *
+   * @param partNumbers  parts to transfer in the order they are started
+   * @param concurrency  maximum number of parts in flight
+   * @param transferPart starts the transfer of the part with the given number
+   * @return completes once all the parts have been transferred or exceptionally once any lane has
+   * failed
+   */
+  static CompletableFuture<Void> transfer(List<Integer> partNumbers, int concurrency,
+      IntFunction<CompletableFuture<?>> transferPart) {
+    final var next = new AtomicInteger();
+    final var lanes = new ArrayList<CompletableFuture<Void>>(concurrency);
+
+    for (int i = 0; i < Math.min(concurrency, partNumbers.size()); i++) {
+      lanes.add(nextPart(partNumbers, next, transferPart));
+    }
+
+    return CompletableFuture.allOf(lanes.toArray(CompletableFuture[]::new));
+  }
+
+  private static CompletableFuture<Void> nextPart(List<Integer> partNumbers, AtomicInteger next,
+      IntFunction<CompletableFuture<?>> transferPart) {
+    final int index = next.getAndIncrement();
+
+    if (index >= partNumbers.size()) {
+      return CompletableFuture.completedFuture(null);
+    }
+
+    return transferPart.apply(partNumbers.get(index))
+               .thenCompose(ignored -> nextPart(partNumbers, next, transferPart));
+  }
+
+  /**
+   * Runs the transfer again if it fails, up to the given number of attempts in total.
+   */
+  static <T> CompletableFuture<T> withAttempts(int attempts,
+      Supplier<CompletableFuture<T>> transfer) {
+    CompletableFuture<T> attempt;
+
+    try {
+      attempt = transfer.get();
+    } catch (RuntimeException e) {
+      attempt = CompletableFuture.failedFuture(e);
+    }
+
+    if (attempts <= 1) {
+      return attempt;
+    }
+
+    return attempt.handle((result, e) -> e == null ? CompletableFuture.completedFuture(result)
+                                             : withAttempts(attempts - 1, transfer))
+               .thenCompose(future -> future);
+  }
+}
@@ -1,5 +1,8 @@
 package com.github.akmal2409.netflix.videoslicer.job;
 
+import com.github.akmal2409.netflix.videoslicer.coordinator.TranscodingJobManifest.VideoQuality;
+import java.util.Arrays;
+import java.util.Objects;
 import java.util.UUID;
 
 /**
@@ -12,7 +15,65 @@ public record PreprocessingManifest(
     String sourceFileKey, // input file key in s3
     String outputBucket, // output s3 bucket
     String outputFileKeyPrefix, // there can be many files, prefix will group them
-    int segmentDurationSeconds
+    int segmentDurationSeconds,
+    TranscodingTarget transcoding // optional, if present transcoding jobs are published once segments are ready
 ) {
 
+  /**
+   * Describes the transcoding jobs that are published for every target segment of the video.
+   *
+   * @param outputBucket      S3 bucket for transcoded media
+   * @param outputKeyPrefix   S3 common key prefix of transcoded media
+   * @param outputQualities   qualities every segment is transcoded to
+   * @param originalBitRate   bit rate of the segment encoded in the original resolution
+   */
+  public static record TranscodingTarget(
+      String outputBucket,
+      String outputKeyPrefix,
+      VideoQuality[] outputQualities,
+      int originalBitRate
+  ) {
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+
+      TranscodingTarget that = (TranscodingTarget) o;
+
+      if (originalBitRate != that.originalBitRate) {
+        return false;
+      }
+      if (!Objects.equals(outputBucket, that.outputBucket)) {
+        return false;
+      }
+      if (!Objects.equals(outputKeyPrefix, that.outputKeyPrefix)) {
+        return false;
+      }
+      return Arrays.equals(outputQualities, that.outputQualities);
+    }
+
+    @Override
+    public int hashCode() {
+      int result = outputBucket != null ? outputBucket.hashCode() : 0;
+      result = 31 * result + (outputKeyPrefix != null ? outputKeyPrefix.hashCode() : 0);
+      result = 31 * result + Arrays.hashCode(outputQualities);
+      result = 31 * result + originalBitRate;
+      return result;
+    }
+
+    @Override
+    public String toString() {
+      return "TranscodingTarget{" +
+                 "outputBucket='" + outputBucket + '\'' +
+                 ", outputKeyPrefix='" + outputKeyPrefix + '\'' +
+                 ", outputQualities=" + Arrays.toString(outputQualities) +
+                 ", originalBitRate=" + originalBitRate +
+                 '}';
+    }
+  }
 }
@@ -1,6 +1,8 @@
 package com.github.akmal2409.netflix.videoslicer.job;
 
+import com.github.akmal2409.netflix.videoslicer.coordinator.TranscodingJobManifest.VideoQuality;
 import java.util.Arrays;
+import java.util.Objects;
 
 /**
  * Wrapper class that contains all the information generated by this worker after processing
@@ -14,7 +16,8 @@ public record ProcessedIndex(
     int height,
     int gopSize,
     int segmentDurationSeconds,
-    ProcessedSegment[] segments
+    ProcessedSegment[] segments,
+    ContentComplexity complexity // null if complexity was not analysed
 ) {
 
   public static record ProcessedSegment(
@@ -24,6 +27,67 @@ public record ProcessedIndex(
       int endFrame
   ) {}
 
+  /**
+   * Outcome of the complexity analysis of the title, see
+   * {@link com.github.akmal2409.netflix.videoslicer.coordinator.PerTitleLadder}.
+   *
+   * @param sampledSegments number of segments that were probed
+   * @param bitsPerPixel    average bits per pixel of the probe encodes
+   * @param ladderScale     factor the requested bit rates were scaled by
+   * @param outputQualities fitted ladder the segments are transcoded to
+   */
+  public static record ContentComplexity(
+      int sampledSegments,
+      double bitsPerPixel,
+      double ladderScale,
+      VideoQuality[] outputQualities
+  ) {
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+
+      ContentComplexity that = (ContentComplexity) o;
+
+      if (sampledSegments != that.sampledSegments) {
+        return false;
+      }
+      if (Double.compare(bitsPerPixel, that.bitsPerPixel) != 0) {
+        return false;
+      }
+      if (Double.compare(ladderScale, that.ladderScale) != 0) {
+        return false;
+      }
+      return Arrays.equals(outputQualities, that.outputQualities);
+    }
+
+    @Override
+    public int hashCode() {
+      int result = sampledSegments;
+      long temp = Double.doubleToLongBits(bitsPerPixel);
+      result = 31 * result + (int) (temp ^ (temp >>> 32));
+      temp = Double.doubleToLongBits(ladderScale);
+      result = 31 * result + (int) (temp ^ (temp >>> 32));
+      result = 31 * result + Arrays.hashCode(outputQualities);
+      return result;
+    }
+
+    @Override
+    public String toString() {
+      return "ContentComplexity{" +
+                 "sampledSegments=" + sampledSegments +
+                 ", bitsPerPixel=" + bitsPerPixel +
+                 ", ladderScale=" + ladderScale +
+                 ", outputQualities=" + Arrays.toString(outputQualities) +
+                 '}';
+    }
+  }
+
 
   @Override
   public boolean equals(Object o) {
@@ -57,6 +121,9 @@ public record ProcessedIndex(
     if (!audioFileName.equals(that.audioFileName)) {
       return false;
     }
+    if (!Objects.equals(complexity, that.complexity)) {
+      return false;
+    }
     // Probably incorrect - comparing Object[] arrays with Arrays.equals
     return Arrays.equals(segments, that.segments);
   }
@@ -74,6 +141,7 @@ public record ProcessedIndex(
     result = 31 * result + gopSize;
     result = 31 * result + segmentDurationSeconds;
     result = 31 * result + Arrays.hashCode(segments);
+    result = 31 * result + Objects.hashCode(complexity);
     return result;
   }
 
@@ -88,6 +156,7 @@ public record ProcessedIndex(
                ", gopSize=" + gopSize +
                ", segmentDurationSeconds=" + segmentDurationSeconds +
                ", segments=" + Arrays.toString(segments) +
+               ", complexity=" + complexity +
                '}';
   }
 }
@@ -4,14 +4,35 @@ import com.github.akmal2409.netflix.videoslicer.job.exception.DuplicateJobExcept
 import com.github.akmal2409.netflix.videoslicer.job.exception.ProcessedFilesUploadFailedException;
 import com.github.akmal2409.netflix.videoslicer.job.exception.VideoDownloadException;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
 import software.amazon.awssdk.transfer.s3.S3TransferManager;
 import software.amazon.awssdk.transfer.s3.model.CompletedFileDownload;
 import software.amazon.awssdk.transfer.s3.model.DirectoryUpload;
@@ -28,20 +49,151 @@ public class S3Store {
 
   private static final Logger log = LoggerFactory.getLogger(S3Store.class);
 
+  /**
+   * Directory in the job directory where the {@link PartManifest} of the transfers are kept.
+   */
+  static final String TRANSFER_STATE_DIRECTORY = ".transfers";
+  private static final String SOURCE_MANIFEST_FILE_NAME = "source.jsonl";
+
   /**
    * Storage folder that keeps the source files. {videoFolder}/{jobId}/{filename}.{extension}
    */
   private final Path videoFolder;
   private final S3TransferManager s3TransferManager;
 
+  /**
+   * Used to grant ffmpeg/ffprobe read access to the source when it is streamed instead of being
+   * downloaded. May be null if streaming is not used.
+   */
+  private final S3Presigner s3Presigner;
+
+  /**
+   * Used for incremental multipart uploads of the processed files. May be null if only
+   * {@link S3Store#uploadProcessedFiles(String, String, Path)} is used.
+   */
+  private final S3AsyncClient s3Client;
+  private final int maxUploadsInFlight;
+
+  /**
+   * Used for resumable multipart downloads of the source and uploads of the processed files, only
+   * if {@link S3Store#s3Client} is present.
+   */
+  private final TransferSettings transferSettings;
+
+  /**
+   * Jobs whose directory is in use by this process. A directory of any other job is a leftover of
+   * a crashed attempt.
+   */
+  private final Set<UUID> activeJobs = ConcurrentHashMap.newKeySet();
+
   public S3Store(@NotNull Path videoFolder,
       @NotNull S3TransferManager s3TransferManager) {
+    this(videoFolder, s3TransferManager, null, null, 1);
+  }
+
+  public S3Store(@NotNull Path videoFolder,
+      @NotNull S3TransferManager s3TransferManager, S3Presigner s3Presigner,
+      S3AsyncClient s3Client, int maxUploadsInFlight) {
+    this(videoFolder, s3TransferManager, s3Presigner, s3Client, maxUploadsInFlight,
+        TransferSettings.DEFAULT);
+  }
+
+  public S3Store(@NotNull Path videoFolder,
+      @NotNull S3TransferManager s3TransferManager, S3Presigner s3Presigner,
+      S3AsyncClient s3Client, int maxUploadsInFlight,
+      @NotNull TransferSettings transferSettings) {
     this.videoFolder = videoFolder;
     this.s3TransferManager = s3TransferManager;
+    this.s3Presigner = s3Presigner;
+    this.s3Client = s3Client;
+    this.maxUploadsInFlight = maxUploadsInFlight;
+    this.transferSettings = transferSettings;
+  }
+
+  /**
+   * Creates a job directory without downloading the source, used when the source is streamed.
+   *
+   * @param jobId of the transcoding job.
+   * @return path to the job directory.
+   * @throws VideoDownloadException if the directory cannot be created
+   * @throws DuplicateJobException  if this job already has associated files on disk.
+   */
+  public Path prepareJobDirectory(@NotNull UUID jobId) {
+    try {
+      return createJobDirectoryOrElseFail(jobId, Set.of());
+    } catch (IOException e) {
+      throw new VideoDownloadException("Cannot set up folder", e, jobId);
+    }
+  }
+
+  /**
+   * Marks the directory of the job as no longer in use, must be called once the job has completed
+   * and its directory has been cleaned up.
+   */
+  public void releaseJobDirectory(@NotNull UUID jobId) {
+    activeJobs.remove(jobId);
+  }
+
+  /**
+   * @return whether the directory of the job holds the state of resumable transfers, in which case
+   * a retry of the job reuses the directory and resumes them
+   */
+  public boolean hasTransferState(@NotNull UUID jobId) {
+    return Files.isDirectory(transferStateDirectory(videoFolder.resolve(jobId.toString())));
+  }
+
+  /**
+   * Creates a pre-signed GET URL of the source video, so that tools such as ffmpeg can read it
+   * directly from the bucket with ranged requests while it is being processed.
+   *
+   * @param jobId    of the transcoding job.
+   * @param bucket   s3 bucket name.
+   * @param key      file key.
+   * @param validity for how long the URL can be used, must cover the whole processing time.
+   * @return pre-signed URL.
+   */
+  public URI presignSource(@NotNull UUID jobId, @NotNull String bucket, @NotNull String key,
+      @NotNull Duration validity) {
+    if (s3Presigner == null) {
+      throw new VideoDownloadException("Streaming of the source is not configured", jobId);
+    }
+
+    final PresignedGetObjectRequest presigned = s3Presigner.presignGetObject(
+        GetObjectPresignRequest.builder()
+            .signatureDuration(validity)
+            .getObjectRequest(b -> b.bucket(bucket).key(key))
+            .build());
+
+    try {
+      return presigned.url().toURI();
+    } catch (URISyntaxException e) {
+      throw new VideoDownloadException("Pre-signed URL is malformed", e, jobId);
+    }
   }
 
   /**
-   * Downloads source video file to the folder on disk and returns the path to the file.
+   * Starts an incremental upload of the processed files of a job, files are uploaded one by one
+   * under the given key prefix as soon as they are handed over.
+   *
+   * @param jobId     of the transcoding job.
+   * @param bucket    destination bucket.
+   * @param keyPrefix prefix of the keys.
+   * @return upload to which the files are handed over.
+   */
+  public IncrementalUpload startIncrementalUpload(@NotNull UUID jobId, @NotNull String bucket,
+      @NotNull String keyPrefix) {
+    if (s3Client == null) {
+      throw new IllegalStateException("Incremental uploads are not configured");
+    }
+
+    return new IncrementalUpload(s3Client, jobId, bucket, keyPrefix, maxUploadsInFlight,
+        transferSettings, transferStateDirectory(videoFolder.resolve(jobId.toString())));
+  }
+
+  /**
+   * Downloads source video file to the folder on disk and returns the path to the file. If the
+   * store has an {@link S3AsyncClient}, the file is downloaded in parts and a download left behind
+   * by a crashed attempt of the job is resumed, see {@link PartManifest}.
    *
    * @param jobId  of the transcoding job.
    * @param bucket s3 bucket name.
@@ -59,13 +211,28 @@ public class S3Store {
     log.debug("message=Preparing to download video;jobId={};bucket={};file={}",
         jobId, bucket, key);
     try {
-      jobDirectory = createJobDirectoryOrElseFail(jobId);
+      jobDirectory = createJobDirectoryOrElseFail(jobId, Set.of(fileName));
       log.debug("message=Created job directory {};jobId={}", jobDirectory, jobId);
     } catch (IOException e) {
       throw new VideoDownloadException("Cannot set up folder", e, jobId);
     }
 
-    final var filePath = jobDirectory.resolve(fileName);
+    try {
+      if (s3Client != null) {
+        return downloadSourceInParts(jobId, bucket, key, jobDirectory.resolve(fileName));
+      }
+
+      return downloadSourceAtOnce(jobId, bucket, key, jobDirectory.resolve(fileName));
+    } catch (RuntimeException e) {
+      // the directory is kept, so that a retry of the job resumes the download
+      releaseJobDirectory(jobId);
+      throw e;
+    }
+  }
+
+  private JobVideoSource downloadSourceAtOnce(UUID jobId, String bucket, String key,
+      Path filePath) {
+    final String fileName = filePath.getFileName().toString();
 
     final FileDownload download = s3TransferManager
                                       .downloadFile(
@@ -79,7 +246,7 @@ public class S3Store {
     try {
       final CompletedFileDownload result = download.completionFuture().join();
       log.debug("message=Downloaded file successfully;jobId={};bucket={};file={};location={}",
-          jobId, bucket, key, jobDirectory);
+          jobId, bucket, key, filePath);
 
       return new JobVideoSource(
           filePath,
@@ -93,6 +260,140 @@ public class S3Store {
     }
   }
 
+  private JobVideoSource downloadSourceInParts(UUID jobId, String bucket, String key,
+      Path filePath) {
+    final Path manifestPath = transferStateDirectory(filePath.getParent())
+                                  .resolve(SOURCE_MANIFEST_FILE_NAME);
+    final long size;
+    final String eTag;
+
+    try {
+      final HeadObjectResponse head = s3Client.headObject(b -> b.bucket(bucket).key(key)).join();
+      size = head.contentLength();
+      eTag = head.eTag();
+
+      Files.createDirectories(manifestPath.getParent());
+    } catch (CompletionException e) {
+      throw new VideoDownloadException("Cannot read metadata of the source", e.getCause(), jobId);
+    } catch (IOException e) {
+      throw new VideoDownloadException("Cannot set up folder", e, jobId);
+    }
+
+    final PartManifest manifest = PartManifest.load(manifestPath)
+                                      .filter(m -> m.matches(size,
+                                          transferSettings.partSizeBytes())
+                                                       && eTag.equals(m.objectId()))
+                                      .orElseGet(() -> PartManifest.create(size,
+                                          transferSettings.partSizeBytes(), eTag));
+
+    try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      if (channel.size() > size) {
+        channel.truncate(size);
+      }
+
+      manifest.save(manifestPath);
+
+      final List<Integer> missingParts = missingParts(manifest, channel, size);
+
+      log.debug(
+          "message=Downloading source in parts;jobId={};bucket={};file={};parts={};missingParts={}",
+          jobId, bucket, key, transferSettings.partCount(size), missingParts.size());
+
+      PartTransfers.transfer(missingParts, transferSettings.partConcurrency(),
+          partNumber -> PartTransfers.withAttempts(transferSettings.partAttempts(),
+              () -> downloadPart(bucket, key, eTag, size, partNumber, channel)
+                        .thenAccept(crc32c -> manifest.complete(partNumber,
+                            new PartManifest.Part(null, crc32c), manifestPath)))).join();
+
+      log.debug("message=Downloaded file successfully;jobId={};bucket={};file={};location={}",
+          jobId, bucket, key, filePath);
+
+      return new JobVideoSource(filePath, filePath.getFileName().toString(), size);
+    } catch (IOException e) {
+      throw new VideoDownloadException("Cannot write the source to disk", e, jobId);
+    } catch (CompletionException e) {
+      throw new VideoDownloadException("Download failed due to exception", e.getCause(), jobId);
+    }
+  }
+
+  /**
+   * @return parts that are not recorded in the manifest or whose bytes on disk do not match the
+   * recorded checksum, e.g. because the crash happened before they were flushed
+   */
+  private List<Integer> missingParts(PartManifest manifest, FileChannel channel, long size)
+      throws IOException {
+    final var missingParts = new ArrayList<Integer>();
+
+    if (size == 0) {
+      return missingParts;
+    }
+
+    for (int partNumber = 1; partNumber <= transferSettings.partCount(size); partNumber++) {
+      final Optional<PartManifest.Part> part = manifest.part(partNumber);
+
+      if (part.isEmpty() || part.get().crc32c() != PartManifest.crc32c(
+          readPart(channel, partNumber, size))) {
+        missingParts.add(partNumber);
+      }
+    }
+
+    return missingParts;
+  }
+
+  /**
+   * Downloads a single part with a ranged GET, which only succeeds while the object has the
+   * ETag the download was started with.
+   *
+   * @return CRC32C of the bytes of the part
+   */
+  private CompletableFuture<Long> downloadPart(String bucket, String key, String eTag,
+      long size, int partNumber, FileChannel channel) {
+    final long offset = transferSettings.partOffset(partNumber);
+    final long length = Math.min(transferSettings.partSizeBytes(), size - offset);
+
+    return s3Client.getObject(b -> b.bucket(bucket)
+                                       .key(key)
+                                       .ifMatch(eTag)
+                                       .range("bytes=" + offset + "-" + (offset + length - 1)),
+                   AsyncResponseTransformer.toBytes())
+               .thenApply(response -> {
+                 final ByteBuffer bytes = response.asByteBuffer();
+
+                 if (bytes.remaining() != length) {
+                   throw new IllegalStateException(String.format(
+                       "Expected %d bytes of part %d, got %d", length, partNumber,
+                       bytes.remaining()));
+                 }
+
+                 final long crc32c = PartManifest.crc32c(bytes);
+
+                 try {
+                   while (bytes.hasRemaining()) {
+                     channel.write(bytes, offset + bytes.position());
+                   }
+                 } catch (IOException e) {
+                   throw new UncheckedIOException(e);
+                 }
+
+                 return crc32c;
+               });
+  }
+
+  private ByteBuffer readPart(FileChannel channel, int partNumber, long size) throws IOException {
+    final long offset = transferSettings.partOffset(partNumber);
+    final ByteBuffer buffer = ByteBuffer.allocate(
+        (int) Math.min(transferSettings.partSizeBytes(), size - offset));
+
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, offset + buffer.position()) < 0) {
+        break;
+      }
+    }
+
+    return buffer.flip();
+  }
+
   private String extractFileNameFromS3Key(String key) {
     int lastSlashIndex = -1;
 
@@ -147,19 +448,58 @@ public class S3Store {
     }
   }
 
-  private Path createJobDirectoryOrElseFail(UUID jobId) throws IOException {
+  /**
+   * Creates the directory of the job. A directory left behind by a crashed or failed attempt of
+   * the job is reused if it holds the state of resumable transfers, everything apart from that
+   * state and the given files is removed from it.
+   *
+   * @param keep names of the files in the directory that are resumed
+   */
+  private Path createJobDirectoryOrElseFail(UUID jobId, Set<String> keep) throws IOException {
     final var jobFileFolder = videoFolder.resolve(jobId.toString());
 
     synchronized (S3Store.class) {
       if (Files.exists(jobFileFolder)) {
-        log.error("message=Duplicate job detected;jobId={}", jobId);
-        throw new DuplicateJobException(
-            "Cannot create directory for a job because it already exists: " + jobFileFolder, jobId);
+        if (activeJobs.contains(jobId) || !Files.isDirectory(
+            transferStateDirectory(jobFileFolder))) {
+          log.error("message=Duplicate job detected;jobId={}", jobId);
+          throw new DuplicateJobException(
+              "Cannot create directory for a job because it already exists: " + jobFileFolder,
+              jobId);
+        }
+
+        log.info("message=Resuming transfers of a previous attempt;jobId={}", jobId);
+        removeAllExcept(jobFileFolder, keep);
       } else {
         Files.createDirectories(jobFileFolder);
       }
+
+      activeJobs.add(jobId);
     }
 
     return jobFileFolder;
   }
+
+  private void removeAllExcept(Path jobFileFolder, Set<String> keep) throws IOException {
+    final List<Path> children;
+
+    try (Stream<Path> list = Files.list(jobFileFolder)) {
+      children = list.filter(child -> !keep.contains(child.getFileName().toString())
+                                          && !child.getFileName().toString()
+                                                  .equals(TRANSFER_STATE_DIRECTORY))
+                     .toList();
+    }
+
+    for (Path child : children) {
+      try (Stream<Path> files = Files.walk(child)) {
+        for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+          Files.delete(file);
+        }
+      }
+    }
+  }
+
+  private static Path transferStateDirectory(Path jobDirectory) {
+    return jobDirectory.resolve(TRANSFER_STATE_DIRECTORY);
+  }
 }
@@ -0,0 +1,16 @@
+package com.github.akmal2409.netflix.videoslicer.job;
+
+/**
+ * Defines how the worker gets access to the source video of a job.
+ */
+public enum SourceMode {
+  /**
+   * Downloads the whole source to the jobs folder before processing it.
+   */
+  DOWNLOAD,
+  /**
+   * Reads the source straight from the bucket with ranged requests while slicing it, segments are
+   * uploaded and removed from disk as soon as they are closed.
+   */
+  STREAM
+}
@@ -0,0 +1,49 @@
+package com.github.akmal2409.netflix.videoslicer.job;
+
+/**
+ * Settings of the multipart transfers of {@link S3Store}.
+ *
+ * @param partSizeBytes   size of a single part, S3 requires at least 5MiB for every part of an
+ *                        upload except the last one
+ * @param partConcurrency number of parts of a single file transferred at once, each one is buffered
+ *                        in memory
+ * @param partAttempts    number of times a part is attempted before the transfer fails
+ */
+public record TransferSettings(
+    int partSizeBytes,
+    int partConcurrency,
+    int partAttempts
+) {
+
+  public static final int MIN_PART_SIZE_BYTES = 5 * 1024 * 1024;
+
+  public static final TransferSettings DEFAULT = new TransferSettings(8 * 1024 * 1024, 4, 3);
+
+  public TransferSettings {
+    if (partSizeBytes < MIN_PART_SIZE_BYTES) {
+      throw new IllegalArgumentException(String.format(
+          "Part size must be at least %d bytes, got %d", MIN_PART_SIZE_BYTES, partSizeBytes));
+    }
+
+    if (partConcurrency < 1 || partAttempts < 1) {
+      throw new IllegalArgumentException(String.format(
+          "Part concurrency and attempts must be positive, got concurrency=%d, attempts=%d",
+          partConcurrency, partAttempts));
+    }
+  }
+
+  /**
+   * @return number of parts of a file of the given size, at least one
+   */
+  public int partCount(long size) {
+    return (int) Math.max(1, (size + partSizeBytes - 1) / partSizeBytes);
+  }
+
+  /**
+   * @param partNumber 1 based, as in S3
+   * @return offset of the part in the file
+   */
+  public long partOffset(int partNumber) {
+    return (long) (partNumber - 1) * partSizeBytes;
+  }
+}
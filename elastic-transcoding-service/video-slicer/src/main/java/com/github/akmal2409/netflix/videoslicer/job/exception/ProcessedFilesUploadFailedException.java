@@ -15,6 +15,13 @@ public class ProcessedFilesUploadFailedException extends RuntimeException {
     this.keyPrefix = keyPrefix;
   }
 
+  public ProcessedFilesUploadFailedException(Throwable cause, String bucket, String keyPrefix) {
+    super(String.format("Upload to bucket %s with keyPrefix %s failed", bucket, keyPrefix), cause);
+    this.directory = null;
+    this.bucket = bucket;
+    this.keyPrefix = keyPrefix;
+  }
+
   public ProcessedFilesUploadFailedException(String message, Throwable cause, Path directory, String bucket, String keyPrefix) {
     super(String.format(MSG_FORMAT, directory, bucket, keyPrefix), cause);
     this.directory = directory;
@@ -1,6 +1,7 @@
 package com.github.akmal2409.netflix.videoslicer.processing;
 
 import java.io.IOException;
+import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
@@ -74,6 +75,55 @@ public class FFmpegMediaExtractor implements MediaExtractor {
     log.debug("message=Successfully finished segmenting video");
   }
 
+  @Override
+  public void sliceRemote(@NotNull URI source, @NotNull Path outputDir,
+      @NotNull Duration segmentDuration, @NotNull String segmentFilenamePattern,
+      @NotNull Path audioOut) {
+    try {
+      Files.createDirectories(outputDir);
+      Files.createDirectories(audioOut.getParent());
+    } catch (IOException e) {
+      throw new OutputWriteException("Cannot create output directories", e);
+    }
+
+    if (segmentDuration.isNegative() || segmentDuration.isZero()) {
+      throw new SegmentationNotPossibleException(
+          "Segment duration provided is either negative or zero. Duration: "
+              + segmentDuration);
+    }
+
+    log.debug(
+        "message=Preparing to segment remote video in chunks with duration {}ms. Output: {}/{} Audio: {}",
+        segmentDuration.toMillis(), outputDir, segmentFilenamePattern, audioOut);
+
+    // both outputs are produced by one process, so the source is read from the network only once
+    final FFmpegBuilder ffBuilder = new FFmpegBuilder()
+                                        .setInput(source.toString())
+                                        .overrideOutputFiles(true)
+                                        .addExtraArgs("-v", "error")
+
+                                        .addOutput(
+                                            outputDir.resolve(segmentFilenamePattern).toString())
+                                        .setFormat("segment")
+                                        .addExtraArgs("-segment_time",
+                                            String.valueOf(segmentDuration.toSeconds()),
+                                            "-reset_timestamps", "1")
+                                        .disableAudio()
+                                        .disableSubtitle()
+                                        .setVideoCodec("copy")
+                                        .done()
+
+                                        .addOutput(audioOut.toString())
+                                        .disableVideo()
+                                        .disableSubtitle()
+                                        .setAudioCodec("copy")
+                                        .done();
+
+    this.ffmpegExecutor.createJob(ffBuilder).run();
+
+    log.debug("message=Successfully finished segmenting remote video and extracting audio");
+  }
+
   @Override
   public void extractAudio(Path source, Path out) {
     if (!Files.exists(source)) {
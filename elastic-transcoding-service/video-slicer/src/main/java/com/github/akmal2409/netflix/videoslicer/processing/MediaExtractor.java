@@ -1,5 +1,6 @@
 package com.github.akmal2409.netflix.videoslicer.processing;
 
+import java.net.URI;
 import java.nio.file.Path;
 import java.time.Duration;
 
@@ -24,4 +25,19 @@ public interface MediaExtractor {
    * @param out an output audio file path and name
    */
   void extractAudio(Path source, Path out);
+
+
+  /**
+   * Slices a remote video {@code source} (e.g. a pre-signed http(s) URL) into segments and extracts
+   * its audio in a single pass. The source is read while it is being processed, therefore, it is
+   * never stored on the local disk.
+   *
+   * @param source URI of the video that the implementation can read with ranged requests
+   * @param outputDir directory to store segments
+   * @param segmentDuration duration of each segment, the end result might not be exactly same as specified
+   * @param segmentFilenamePattern template for the segment file name
+   * @param audioOut an output audio file path and name
+   */
+  void sliceRemote(URI source, Path outputDir, Duration segmentDuration,
+      String segmentFilenamePattern, Path audioOut);
 }
@@ -0,0 +1,152 @@
+package com.github.akmal2409.netflix.videoslicer.processing;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ToIntFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Watches the output directory of the segment muxer and emits segments as soon as they are closed.
+ * The muxer writes segments strictly one after another, hence, creation of segment {@code i + 1}
+ * means that segment {@code i} has been closed and will not be modified anymore. The last segment
+ * is emitted by {@link SegmentWatcher#finish()} once the muxer has exited.
+ * <p>
+ * Segments are emitted in order of their index on the watcher thread.
+ */
+public class SegmentWatcher implements AutoCloseable {
+
+  private static final Logger log = LoggerFactory.getLogger(SegmentWatcher.class);
+  private static final long POLL_TIMEOUT_MS = 200;
+
+  private final Path directory;
+  private final String segmentFileNamePattern;
+  private final ToIntFunction<String> segmentIndexParser;
+  private final ObjIntConsumer<Path> closedSegmentConsumer;
+  private final WatchService watchService;
+
+  private volatile boolean finished;
+  private volatile boolean closed;
+  private int nextSegmentIndex; // only accessed on the watcher thread
+  private CompletableFuture<Void> watchLoop;
+
+  /**
+   * @param directory              where the muxer writes segments, must exist
+   * @param segmentFileNamePattern file name pattern (e.g. segment-%08d.mp4)
+   * @param segmentIndexParser     extracts the index from a file name, negative if the file is
+   *                               not a segment
+   * @param closedSegmentConsumer  receives path and index of each closed segment
+   */
+  public SegmentWatcher(Path directory, String segmentFileNamePattern,
+      ToIntFunction<String> segmentIndexParser, ObjIntConsumer<Path> closedSegmentConsumer) {
+    this.directory = directory;
+    this.segmentFileNamePattern = segmentFileNamePattern;
+    this.segmentIndexParser = segmentIndexParser;
+    this.closedSegmentConsumer = closedSegmentConsumer;
+
+    try {
+      this.watchService = directory.getFileSystem().newWatchService();
+      directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE);
+    } catch (IOException e) {
+      throw new OutputWriteException("Cannot watch segment directory " + directory, e);
+    }
+  }
+
+  /**
+   * Starts watching the directory on the given executor.
+   */
+  public void start(Executor executor) {
+    this.watchLoop = CompletableFuture.runAsync(this::watch, executor);
+  }
+
+  /**
+   * Must be called after the muxer has exited. Waits until the watcher has emitted every segment
+   * including the last one. Exceptions thrown by the consumer are rethrown here.
+   */
+  public void finish() {
+    this.finished = true;
+    this.watchLoop.join();
+  }
+
+  private void watch() {
+    while (!finished) {
+      final WatchKey key;
+
+      try {
+        key = watchService.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+
+      if (key == null) {
+        continue;
+      }
+
+      int highestCreatedIndex = -1;
+
+      for (WatchEvent<?> event : key.pollEvents()) {
+        if (event.context() instanceof Path createdFile) {
+          highestCreatedIndex = Math.max(highestCreatedIndex,
+              segmentIndexParser.applyAsInt(createdFile.getFileName().toString()));
+        }
+      }
+
+      key.reset();
+
+      // every segment before the most recently created one is closed
+      emitUpTo(highestCreatedIndex - 1);
+    }
+
+    if (closed) {
+      return; // muxer failed, the remaining segments may be incomplete
+    }
+
+    // the muxer has exited, so whatever is left in the directory is closed
+    int lastIndex = nextSegmentIndex - 1;
+
+    while (Files.exists(directory.resolve(String.format(segmentFileNamePattern, lastIndex + 1)))) {
+      lastIndex++;
+    }
+
+    emitUpTo(lastIndex);
+  }
+
+  private void emitUpTo(int lastClosedIndex) {
+    for (; nextSegmentIndex <= lastClosedIndex && !closed; nextSegmentIndex++) {
+      final Path segment = directory.resolve(
+          String.format(segmentFileNamePattern, nextSegmentIndex));
+
+      log.debug("message=Segment {} has been closed;index={}", segment, nextSegmentIndex);
+      closedSegmentConsumer.accept(segment, nextSegmentIndex);
+    }
+  }
+
+  /**
+   * Stops watching without emitting the segments left open and waits until the watcher has
+   * stopped, so that no segment is being consumed anymore once this returns and the directory can
+   * be removed. Exceptions thrown by the consumer are only rethrown by {@link #finish()}.
+   */
+  @Override
+  public void close() throws IOException {
+    this.closed = true;
+    this.finished = true;
+
+    try {
+      if (this.watchLoop != null) {
+        this.watchLoop.exceptionally(e -> null).join();
+      }
+    } finally {
+      this.watchService.close();
+    }
+  }
+}
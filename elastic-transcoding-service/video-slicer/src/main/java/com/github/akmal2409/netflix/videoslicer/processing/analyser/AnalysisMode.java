@@ -0,0 +1,16 @@
+package com.github.akmal2409.netflix.videoslicer.processing.analyser;
+
+/**
+ * Strategy used by the preprocessing pipeline to find out start and end frames of the segments.
+ */
+public enum AnalysisMode {
+  /**
+   * Counts frames of the source video and then probes every segment file after slicing.
+   */
+  SEGMENT_PROBE,
+  /**
+   * Indexes packets of the source video once and derives segment boundaries from keyframe
+   * positions, segments are never probed.
+   */
+  PACKET_INDEX
+}
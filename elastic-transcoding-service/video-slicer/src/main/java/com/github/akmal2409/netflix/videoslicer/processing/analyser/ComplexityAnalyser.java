@@ -0,0 +1,20 @@
+package com.github.akmal2409.netflix.videoslicer.processing.analyser;
+
+import java.nio.file.Path;
+
+/**
+ * Measures how hard the content of a segment is to compress, so that the bit rate ladder can be
+ * fitted to the title instead of being fixed upstream.
+ */
+public interface ComplexityAnalyser {
+
+  /**
+   * Encodes the segment with a fast low resolution constant quality encode and measures the bits
+   * the encoder needed. Simple content (cartoons, talking heads) needs a fraction of the bits of
+   * complex content (sports, film grain) at the same quality.
+   *
+   * @param segment video segment file
+   * @return result of the probe encode
+   */
+  ProbeEncode probe(Path segment);
+}
@@ -0,0 +1,106 @@
+package com.github.akmal2409.netflix.videoslicer.processing.analyser;
+
+import com.github.akmal2409.netflix.videoslicer.processing.FileNotFoundException;
+import com.github.kokorin.jaffree.Rational;
+import com.github.kokorin.jaffree.ffprobe.FFprobe;
+import com.github.kokorin.jaffree.ffprobe.Stream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Supplier;
+import net.bramp.ffmpeg.FFmpegExecutor;
+import net.bramp.ffmpeg.builder.FFmpegBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Probes segments with a 360p x264 encode at a constant rate factor and the veryfast preset. At a
+ * constant rate factor the encoder targets a constant quality, so the bit rate it ends up with
+ * reflects the complexity of the content.
+ */
+public class FFmpegComplexityAnalyser implements ComplexityAnalyser {
+
+  private static final Logger log = LoggerFactory.getLogger(FFmpegComplexityAnalyser.class);
+
+  private static final int PROBE_HEIGHT = 360;
+  private static final int PROBE_CRF = 23;
+  private static final String PROBE_PRESET = "veryfast";
+
+  private final FFmpegExecutor ffmpegExecutor;
+  private final Supplier<FFprobe> ffprobeFactory;
+
+  /**
+   * @param ffmpegExecutor executor of the probe encodes
+   * @param ffprobeFactory supplies a new FFprobe instance per probe
+   */
+  public FFmpegComplexityAnalyser(FFmpegExecutor ffmpegExecutor,
+      Supplier<FFprobe> ffprobeFactory) {
+    this.ffmpegExecutor = ffmpegExecutor;
+    this.ffprobeFactory = ffprobeFactory;
+  }
+
+  @Override
+  public ProbeEncode probe(Path segment) {
+    if (!Files.exists(segment)) {
+      throw new FileNotFoundException(segment.toString());
+    }
+
+    Path probeFile = null;
+
+    try {
+      probeFile = Files.createTempFile("complexity-probe-", ".mp4");
+
+      final FFmpegBuilder ffBuilder = new FFmpegBuilder()
+                                          .setInput(segment.toString())
+                                          .overrideOutputFiles(true)
+                                          .addExtraArgs("-v", "error")
+
+                                          .addOutput(probeFile.toString())
+                                          .disableAudio()
+                                          .disableSubtitle()
+                                          .setVideoFilter("scale=-2:" + PROBE_HEIGHT)
+                                          .setVideoCodec("libx264")
+                                          .addExtraArgs("-preset", PROBE_PRESET)
+                                          .setConstantRateFactor(PROBE_CRF)
+                                          .setFormat("mp4")
+                                          .done();
+
+      ffmpegExecutor.createJob(ffBuilder).run();
+
+      final Stream stream = ffprobeFactory.get().setInput(probeFile)
+                                .setSelectStreams("v:0")
+                                .setShowEntries("stream=width,height,avg_frame_rate,duration,bit_rate")
+                                .addArguments("-v", "error")
+                                .execute()
+                                .getStreams().get(0);
+
+      final Rational frameRate = stream.getAvgFrameRate();
+
+      if (stream.getBitRate() == null || stream.getDuration() == null || frameRate == null
+              || frameRate.doubleValue() <= 0) {
+        throw new VideoAnalysisException("Probe encode does not report bit rate or duration",
+            segment);
+      }
+
+      final double pixelsPerSecond = (double) stream.getWidth() * stream.getHeight()
+                                         * frameRate.doubleValue();
+      final var probe = new ProbeEncode(stream.getDuration(),
+          stream.getBitRate() / pixelsPerSecond);
+
+      log.debug("message=Probed segment complexity;segment={};bitsPerPixel={}",
+          segment.getFileName(), probe.bitsPerPixel());
+
+      return probe;
+    } catch (IOException e) {
+      throw new VideoAnalysisException("Cannot create probe encode file", e, segment);
+    } finally {
+      if (probeFile != null) {
+        try {
+          Files.deleteIfExists(probeFile);
+        } catch (IOException e) {
+          // temp directory is cleaned up eventually
+        }
+      }
+    }
+  }
+}
@@ -1,6 +1,7 @@
 package com.github.akmal2409.netflix.videoslicer.processing.analyser;
 
 import com.github.akmal2409.netflix.videoslicer.config.SegmentConstants;
+import com.github.akmal2409.netflix.videoslicer.config.SegmentFileName;
 import com.github.akmal2409.netflix.videoslicer.coordinator.frame.OverlappingSegmentTranscodingJob;
 import com.github.akmal2409.netflix.videoslicer.coordinator.frame.Segment;
 import com.github.akmal2409.netflix.videoslicer.coordinator.frame.TranscodingConfiguration;
@@ -9,16 +10,20 @@ import com.github.akmal2409.netflix.videoslicer.processing.FFmpegMediaExtractor;
 import com.github.akmal2409.netflix.videoslicer.processing.FileNotFoundException;
 import com.github.kokorin.jaffree.ffprobe.FFprobe;
 import com.github.kokorin.jaffree.ffprobe.FFprobeResult;
+import com.github.kokorin.jaffree.ffprobe.Packet;
+import com.github.kokorin.jaffree.ffprobe.Stream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.time.Duration;
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.Iterator;
+import java.util.Arrays;
 import java.util.List;
-import java.util.function.Predicate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
 import net.bramp.ffmpeg.FFmpeg;
 import net.bramp.ffmpeg.FFmpegExecutor;
 
@@ -30,10 +35,26 @@ import net.bramp.ffmpeg.FFmpegExecutor;
  */
 public class FFprobeVideoAnalyser implements VideoAnalyser {
 
-  private final FFprobe ffprobe;
+  private final Supplier<FFprobe> ffprobeFactory;
+
+  /**
+   * Executor on which segments are probed. Each task holds one ffprobe process, so the size of
+   * the executor bounds the number of processes. If null, segments are probed sequentially.
+   */
+  private final Executor probeExecutor;
 
   public FFprobeVideoAnalyser(FFprobe ffprobe) {
-    this.ffprobe = ffprobe;
+    this(() -> ffprobe, null);
+  }
+
+  /**
+   * @param ffprobeFactory supplies a new FFprobe instance per probe, since instances are mutable
+   *                       builders and cannot be shared between concurrent probes
+   * @param probeExecutor  bounded executor for segment probes or null to probe sequentially
+   */
+  public FFprobeVideoAnalyser(Supplier<FFprobe> ffprobeFactory, Executor probeExecutor) {
+    this.ffprobeFactory = ffprobeFactory;
+    this.probeExecutor = probeExecutor;
   }
 
   /**
@@ -53,7 +74,7 @@ public class FFprobeVideoAnalyser implements VideoAnalyser {
 
     try (final var inChannel = Files.newByteChannel(source,
         StandardOpenOption.READ)) {
-      final FFprobeResult result = ffprobe.setInput(inChannel)
+      final FFprobeResult result = ffprobeFactory.get().setInput(inChannel)
                                        .setSelectStreams("v:0")
                                        .setCountFrames(true)
                                        .addArguments( "-v", "error")
@@ -80,6 +101,167 @@ public class FFprobeVideoAnalyser implements VideoAnalyser {
     }
   }
 
+  /**
+   * Indexes the source video by reading only the packets of the 0th video stream (nothing is
+   * decoded). Every video packet carries exactly one frame, therefore, the number of packets gives
+   * the frame count, and packets flagged with K are the keyframes at which the segment muxer is
+   * allowed to cut. Since packets come in decode order, the presentation order frame number of a
+   * keyframe is the rank of its timestamp among all timestamps of the stream. Streams without pts
+   * are ranked by dts, a stream where only some packets have pts is rejected.
+   *
+   * @param source file
+   * @return keyframe index
+   */
+  @Override
+  public KeyframeIndex indexKeyframes(Path source) {
+    if (!Files.exists(source)) {
+      throw new FileNotFoundException(source.toString());
+    }
+
+    final FFprobeResult result = ffprobeFactory.get().setInput(source)
+                                     .setSelectStreams("v:0")
+                                     .setCountPackets(true)
+                                     .addArguments("-v", "error")
+                                     .setShowEntries(
+                                         "stream=r_frame_rate,time_base,width,height,nb_read_packets"
+                                             + ":packet=pts,dts,flags")
+                                     .execute();
+
+    if (result.getStreams().isEmpty() || result.getPackets().isEmpty()) {
+      throw new VideoStreamMissingException(source);
+    } else if (result.getStreams().get(0).getRFrameRate() == null) {
+      throw new MissingVideoMetadataException("r_frame_rate", source);
+    } else if (result.getStreams().get(0).getTimeBase() == null) {
+      throw new MissingVideoMetadataException("time_base", source);
+    }
+
+    final Stream stream = result.getStreams().get(0);
+    final List<Packet> packets = result.getPackets();
+
+    // dts is only a substitute for pts when the stream has no pts at all, mixing both in one
+    // stream would rank decode timestamps among presentation ones
+    final boolean hasPts = packets.stream().anyMatch(packet -> packet.getPts() != null);
+    final long[] timestamps = new long[packets.size()];
+    final boolean[] keyframeFlags = new boolean[packets.size()];
+    int keyframeCount = 0;
+
+    for (int i = 0; i < packets.size(); i++) {
+      final Packet packet = packets.get(i);
+      final Long pts = hasPts ? packet.getPts() : packet.getDts();
+
+      if (pts == null) {
+        throw new MissingVideoMetadataException(hasPts ? "pts" : "dts", source);
+      }
+
+      timestamps[i] = pts;
+
+      if (packet.getFlags() != null && packet.getFlags().indexOf('K') != -1) {
+        keyframeFlags[i] = true;
+        keyframeCount++;
+      }
+    }
+
+    final int[] frames = presentationFrames(timestamps);
+    final long firstTimestamp = Arrays.stream(timestamps).min().getAsLong();
+
+    final double timeBase = parseTimeBase(stream.getTimeBase());
+    final int[] keyframes = new int[keyframeCount];
+    final double[] keyframeTimes = new double[keyframeCount];
+
+    for (int i = 0, k = 0; i < timestamps.length; i++) {
+      if (keyframeFlags[i]) {
+        keyframes[k] = frames[i];
+        keyframeTimes[k] = (timestamps[i] - firstTimestamp) * timeBase;
+        k++;
+      }
+    }
+
+    sortByFrame(keyframes, keyframeTimes);
+
+    final var videoIndex = new VideoIndex(stream.getRFrameRate().doubleValue(), packets.size(),
+        stream.getWidth(), stream.getHeight());
+
+    return new KeyframeIndex(videoIndex, keyframes, keyframeTimes);
+  }
+
+  /**
+   * Ranks the packets by (timestamp, packet index), which gives the presentation order frame
+   * number of every packet. Packets with equal timestamps keep their decode order, so that each of
+   * them gets its own frame number instead of whichever one a binary search happens to land on.
+   *
+   * @param timestamps presentation timestamps in decode order
+   * @return frame numbers where frames[i] belongs to timestamps[i]
+   */
+  static int[] presentationFrames(long[] timestamps) {
+    final long[] presentationOrder = timestamps.clone();
+    Arrays.sort(presentationOrder);
+
+    final int[] frames = new int[timestamps.length];
+    // number of packets already ranked at the first position of each timestamp
+    final int[] duplicates = new int[timestamps.length];
+
+    for (int i = 0; i < timestamps.length; i++) {
+      final int firstPosition = lowerBound(presentationOrder, timestamps[i]);
+
+      frames[i] = firstPosition + duplicates[firstPosition]++;
+    }
+
+    return frames;
+  }
+
+  private static int lowerBound(long[] sorted, long value) {
+    int low = 0;
+    int high = sorted.length;
+
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+
+      if (sorted[mid] < value) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+
+    return low;
+  }
+
+  /**
+   * Keyframes are collected in decode order which for streams with B-Frames may differ from the
+   * presentation order, hence we sort both arrays by the frame number (insertion sort since the
+   * arrays are almost sorted).
+   */
+  private void sortByFrame(int[] keyframes, double[] keyframeTimes) {
+    for (int i = 1; i < keyframes.length; i++) {
+      final int frame = keyframes[i];
+      final double time = keyframeTimes[i];
+      int j = i - 1;
+
+      while (j >= 0 && keyframes[j] > frame) {
+        keyframes[j + 1] = keyframes[j];
+        keyframeTimes[j + 1] = keyframeTimes[j];
+        j--;
+      }
+
+      keyframes[j + 1] = frame;
+      keyframeTimes[j + 1] = time;
+    }
+  }
+
+  /**
+   * Parses time base in a form of num/den (e.g. 1/12800) into seconds per tick.
+   */
+  private double parseTimeBase(String timeBase) {
+    final int slashIndex = timeBase.indexOf('/');
+
+    if (slashIndex == -1) {
+      return Double.parseDouble(timeBase);
+    }
+
+    return Double.parseDouble(timeBase.substring(0, slashIndex))
+               / Double.parseDouble(timeBase.substring(slashIndex + 1));
+  }
+
   /**
    * Validates the result returned by FFprobe that checks whether the frame rate, number of frames
    * and the duration are present. Those are key elements required for both source video and
@@ -100,59 +282,145 @@ public class FFprobeVideoAnalyser implements VideoAnalyser {
     }
   }
 
+  /**
+   * Counts frames of every segment and assigns start and end frames to them. Since the frame
+   * count of a segment does not depend on other segments, segments are probed independently
+   * (concurrently when the analyser has been given a probe executor) and the start frames are
+   * computed afterwards with a prefix sum over the frame counts.
+   */
   @Override
-  public Segment[] analyseSegments(Path segmentDirectory, Predicate<Path> segmentMatcher,
-      Comparator<Path> segmentComparator) {
+  public Segment[] analyseSegments(Path segmentDirectory,
+      ToIntFunction<String> segmentIndexParser) {
+
+    final SegmentFileName[] segmentFileNames;
+
+    try (final var fileStream = Files.list(segmentDirectory)) {
+      segmentFileNames = fileStream.map(path -> {
+                                     final String fileName = path.getFileName().toString();
+                                     return new SegmentFileName(fileName,
+                                         segmentIndexParser.applyAsInt(fileName));
+                                   })
+                                   .filter(segmentFileName -> segmentFileName.index() >= 0)
+                                   .toArray(SegmentFileName[]::new);
+    } catch (IOException e) {
+      throw new VideoAnalysisException(
+          String.format("Exception occurred when listing segments in directory: %s",
+              segmentDirectory),
+          e, segmentDirectory
+      );
+    }
 
-    try (final var fileStream = Files.list(segmentDirectory)
-                                    .filter(segmentMatcher)
-                                    .sorted(segmentComparator)) {
+    Arrays.sort(segmentFileNames, SegmentFileName.INDEX_COMPARATOR);
 
-      int startFrame = 0;
-      int index = 0;
-      Path segmentPath;
-      List<Segment> segments = new ArrayList<>();
+    final var segmentPaths = new Path[segmentFileNames.length];
 
-      for (Iterator<Path> it = fileStream.iterator(); it.hasNext(); ) {
-        segmentPath = it.next();
+    for (int i = 0; i < segmentFileNames.length; i++) {
+      segmentPaths[i] = segmentDirectory.resolve(segmentFileNames[i].fileName());
+    }
 
-        segments.add(analyseSegment(segmentPath, index++, startFrame));
-        startFrame = segments.get(segments.size() - 1).endFrame() + 1;
-      }
+    final int[] frameCounts = countSegmentFrames(segmentPaths);
 
-      return segments.toArray(new Segment[0]);
-    } catch (IOException e) {
+    final var segments = new Segment[segmentPaths.length];
+    int startFrame = 0;
 
+    for (int i = 0; i < segmentPaths.length; i++) {
+      segments[i] = new Segment(segmentPaths[i].getFileName().toString(), i, startFrame,
+          startFrame + frameCounts[i] - 1);
+      startFrame += frameCounts[i];
     }
 
-    return null;
+    return segments;
   }
 
-  private Segment analyseSegment(Path segmentPath, int index, int startFrame) {
-    try (final var inChannel = Files.newByteChannel(segmentPath, StandardOpenOption.READ)) {
-      final FFprobeResult result = ffprobe.setInput(inChannel)
-                                       .addArguments( "-v", "error")
-                                       .setSelectStreams("v:0")
-                                       .setCountFrames(true)
-                                       .setShowEntries("stream")
-                                       .execute();
+  /**
+   * Counts frames of each segment, either one by one on the calling thread or on the probe
+   * executor, whose size bounds the number of ffprobe processes running at the same time.
+   *
+   * @param segmentPaths ordered segments
+   * @return frame counts where frameCounts[i] belongs to segmentPaths[i]
+   */
+  private int[] countSegmentFrames(Path[] segmentPaths) {
+    final int[] frameCounts = new int[segmentPaths.length];
 
-      if (result.getStreams().isEmpty()) {
-        throw new VideoStreamMissingException(segmentPath);
+    if (probeExecutor == null) {
+      for (int i = 0; i < segmentPaths.length; i++) {
+        frameCounts[i] = countSegmentFrames(segmentPaths[i]);
       }
 
-      final int totalFrames = result.getStreams().get(0)
-                                  .getProbeData().getInteger("nb_read_frames");
+      return frameCounts;
+    }
 
-      return new Segment(segmentPath.getFileName().toString(), index, startFrame,
-          startFrame + totalFrames - 1);
-    } catch (IOException e) {
-      throw new VideoAnalysisException(
-          String.format("Exception occurred when analysing the source segment file: %s",
-              segmentPath),
-          segmentPath
-      );
+    final var futures = new CompletableFuture<?>[segmentPaths.length];
+
+    for (int i = 0; i < segmentPaths.length; i++) {
+      final int segmentIndex = i;
+
+      futures[i] = CompletableFuture.runAsync(
+          () -> frameCounts[segmentIndex] = countSegmentFrames(segmentPaths[segmentIndex]),
+          probeExecutor);
+    }
+
+    try {
+      CompletableFuture.allOf(futures).join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof VideoAnalysisException analysisException) {
+        throw analysisException;
+      }
+
+      throw e;
+    }
+
+    return frameCounts;
+  }
+
+  @Override
+  public VideoIndex analyseHeaders(String source, String sourceName) {
+    final FFprobeResult result = ffprobeFactory.get()
+                                     .setInput(source)
+                                     .setSelectStreams("v:0")
+                                     .addArguments("-v", "error")
+                                     .setShowEntries("stream=r_frame_rate,width,height,nb_frames")
+                                     .execute();
+
+    if (result.getStreams().isEmpty()) {
+      throw new VideoStreamMissingException(sourceName);
+    } else if (result.getStreams().get(0).getRFrameRate() == null) {
+      throw new MissingVideoMetadataException("r_frame_rate", sourceName);
     }
+
+    final Stream stream = result.getStreams().get(0);
+    final Integer declaredFrames = stream.getNbFrames();
+
+    return new VideoIndex(stream.getRFrameRate().doubleValue(),
+        declaredFrames != null ? declaredFrames : 0, stream.getWidth(), stream.getHeight());
+  }
+
+  @Override
+  public int countFrames(Path segment) {
+    return countSegmentFrames(segment);
+  }
+
+  private int countSegmentFrames(Path segmentPath) {
+    final FFprobeResult result = ffprobeFactory.get()
+                                     .setInput(segmentPath)
+                                     .addArguments("-v", "error")
+                                     .setSelectStreams("v:0")
+                                     .setCountFrames(true)
+                                     .setShowEntries("stream=nb_read_frames")
+                                     .execute();
+
+    if (result.getStreams().isEmpty()) {
+      throw new VideoStreamMissingException(segmentPath);
+    }
+
+    final Integer totalFrames = result.getStreams().get(0)
+                                    .getProbeData().getInteger("nb_read_frames");
+
+    if (totalFrames == null) {
+      throw new MissingVideoMetadataException("nb_read_frames", segmentPath);
+    }
+
+    return totalFrames;
   }
 
 
@@ -176,11 +444,7 @@ public class FFprobeVideoAnalyser implements VideoAnalyser {
     int totalFrames = 0;
 
     final Segment[] segments = analyser.analyseSegments(segmentPath,
-        (path) -> SegmentConstants.SEGMENT_FILE_NAME_REGEX_PATTERN.matcher(
-            path.getFileName().toString()).matches(),
-        (p1, p2) -> SegmentConstants.SEGMENT_FILE_NAME_COMPARATOR.compare(
-            p1.getFileName().toString(), p2.getFileName().toString())
-    );
+        SegmentFileName::parseIndex);
 
     for (Segment segment : segments) {
       System.out.println(segment);
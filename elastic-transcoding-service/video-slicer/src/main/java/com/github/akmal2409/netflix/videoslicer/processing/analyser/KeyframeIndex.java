@@ -0,0 +1,101 @@
+package com.github.akmal2409.netflix.videoslicer.processing.analyser;
+
+import com.github.akmal2409.netflix.videoslicer.coordinator.frame.Segment;
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Packet level index of the source video produced in a single pass by
+ * {@link VideoAnalyser#indexKeyframes(java.nio.file.Path)}. Along with the general
+ * {@link VideoIndex} it keeps the positions of all keyframes (in presentation order) and their
+ * timestamps, which is enough to predict where the segment muxer is going to cut the video.
+ *
+ * @param video          frame rate, total frames and resolution of the source video
+ * @param keyframes      ascending frame numbers (0 based, presentation order) of the keyframes
+ * @param keyframeTimes  presentation timestamps in seconds of the keyframes relative to the first
+ *                       frame of the video. keyframeTimes[i] belongs to keyframes[i]
+ */
+public record KeyframeIndex(
+    VideoIndex video,
+    int[] keyframes,
+    double[] keyframeTimes
+) {
+
+  /**
+   * Derives start and end frames of the segments the same way ffmpeg segment muxer cuts the video
+   * with {@code -segment_time}. The muxer closes the current segment at the first keyframe whose
+   * timestamp is at or after {@code segmentDuration * (segmentCount + 1)}, where segmentCount is the
+   * number of segments produced so far. Because the video is only ever cut at keyframes, the
+   * resulting boundaries are exact and no segment needs to be probed after slicing.
+   *
+   * @param segmentDuration        duration passed to the slicer
+   * @param segmentFileNamePattern file name pattern passed to the slicer (e.g. segment-%08d.mp4)
+   * @return segments ordered by their index
+   */
+  public Segment[] deriveSegments(Duration segmentDuration, String segmentFileNamePattern) {
+    if (segmentDuration.isNegative() || segmentDuration.isZero()) {
+      throw new IllegalArgumentException(
+          "Segment duration provided is either negative or zero. Duration: " + segmentDuration);
+    }
+
+    final double segmentSeconds = segmentDuration.toMillis() / 1_000d;
+    final int[] cuts = new int[keyframes.length + 1];
+    int cutCount = 1; // first segment always starts at frame 0
+
+    for (int i = 0; i < keyframes.length; i++) {
+      if (keyframes[i] == 0) {
+        continue;
+      }
+
+      if (keyframeTimes[i] >= segmentSeconds * cutCount) {
+        cuts[cutCount++] = keyframes[i];
+      }
+    }
+
+    final var segments = new Segment[cutCount];
+
+    for (int i = 0; i < cutCount; i++) {
+      final int endFrame = i == cutCount - 1 ? video.totalFrames() - 1 : cuts[i + 1] - 1;
+
+      segments[i] = new Segment(String.format(segmentFileNamePattern, i), i, cuts[i], endFrame);
+    }
+
+    return segments;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+
+    KeyframeIndex that = (KeyframeIndex) o;
+
+    if (!video.equals(that.video)) {
+      return false;
+    }
+    if (!Arrays.equals(keyframes, that.keyframes)) {
+      return false;
+    }
+    return Arrays.equals(keyframeTimes, that.keyframeTimes);
+  }
+
+  @Override
+  public int hashCode() {
+    int result = video.hashCode();
+    result = 31 * result + Arrays.hashCode(keyframes);
+    result = 31 * result + Arrays.hashCode(keyframeTimes);
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return "KeyframeIndex{" +
+               "video=" + video +
+               ", keyframes=" + keyframes.length +
+               '}';
+  }
+}
@@ -10,4 +10,8 @@ public class MissingVideoMetadataException extends VideoAnalysisException {
     super(String.format(MSG_FORMAT, sourceFile.toString(), metaDataName), sourceFile);
   }
 
+  protected MissingVideoMetadataException(String metaDataName, String sourceName) {
+    super(String.format(MSG_FORMAT, sourceName, metaDataName));
+  }
+
 }
@@ -0,0 +1,15 @@
+package com.github.akmal2409.netflix.videoslicer.processing.analyser;
+
+/**
+ * Result of a probe encode of a single segment.
+ *
+ * @param durationSeconds duration of the encoded segment
+ * @param bitsPerPixel    bits the encoder spent per pixel per frame, independent of the resolution
+ *                        and the frame rate of the segment
+ */
+public record ProbeEncode(
+    double durationSeconds,
+    double bitsPerPixel
+) {
+
+}
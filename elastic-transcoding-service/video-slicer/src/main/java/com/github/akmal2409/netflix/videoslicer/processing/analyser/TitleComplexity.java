@@ -0,0 +1,33 @@
+package com.github.akmal2409.netflix.videoslicer.processing.analyser;
+
+/**
+ * Accumulates probe encodes of the sampled segments of a title. Every sample is weighted by its
+ * duration, so a short trailing segment does not skew the title.
+ */
+public class TitleComplexity {
+
+  private int sampledSegments;
+  private double totalSeconds;
+  private double weightedBitsPerPixel;
+
+  public synchronized void add(ProbeEncode probe) {
+    if (probe.durationSeconds() <= 0) {
+      return;
+    }
+
+    sampledSegments++;
+    totalSeconds += probe.durationSeconds();
+    weightedBitsPerPixel += probe.bitsPerPixel() * probe.durationSeconds();
+  }
+
+  public synchronized int sampledSegments() {
+    return sampledSegments;
+  }
+
+  /**
+   * @return duration weighted average of bits per pixel of the samples or 0 if there are none
+   */
+  public synchronized double bitsPerPixel() {
+    return totalSeconds == 0 ? 0 : weightedBitsPerPixel / totalSeconds;
+  }
+}
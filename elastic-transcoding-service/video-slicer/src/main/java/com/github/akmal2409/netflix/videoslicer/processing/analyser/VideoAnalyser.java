@@ -2,8 +2,7 @@ package com.github.akmal2409.netflix.videoslicer.processing.analyser;
 
 import com.github.akmal2409.netflix.videoslicer.coordinator.frame.Segment;
 import java.nio.file.Path;
-import java.util.Comparator;
-import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
 
 public interface VideoAnalyser {
 
@@ -16,12 +15,43 @@ public interface VideoAnalyser {
   VideoIndex analyse(Path source);
 
   /**
-   * Analyses segments in the given directory whose names match the given segmentPattern
+   * Indexes the source video in a single packet level pass. Apart from the meta information
+   * returned by {@link VideoAnalyser#analyse(Path)} the index contains keyframe positions, from which
+   * segment boundaries can be derived without analysing each segment separately.
+   *
+   * @param source file
+   * @return keyframe index of the first video stream
+   */
+  KeyframeIndex indexKeyframes(Path source);
+
+  /**
+   * Reads only the stream headers of a local or remote (e.g. http) video, nothing is decoded. The
+   * frame count in the returned index is taken from the container metadata and is 0 if the
+   * container does not declare it, hence callers that need an exact count must count frames.
+   *
+   * @param source path or URL of the video
+   * @param sourceName identifies the video in errors, must not contain credentials such as the
+   *                   signature of a pre-signed URL
+   * @return video index
+   */
+  VideoIndex analyseHeaders(String source, String sourceName);
+
+  /**
+   * Counts frames of the first video stream of a single segment.
+   *
+   * @param segment file
+   * @return number of frames
+   */
+  int countFrames(Path segment);
+
+  /**
+   * Analyses segments in the given directory. The index of each file name is parsed only once
+   * and segments are ordered by it.
    *
    * @param segmentDirectory where segments are located, can be mixed with other files
-   * @param segmentFileMatcher matcher of segment files in the directory
-   * @param comparator used for sorting segments based on their order of appearance.
+   * @param segmentIndexParser extracts the index from a file name, negative if the file is not
+   *                           a segment
    * @return indexed segments
    */
-  Segment[] analyseSegments(Path segmentDirectory, Predicate<Path> segmentFileMatcher, Comparator<Path> comparator);
+  Segment[] analyseSegments(Path segmentDirectory, ToIntFunction<String> segmentIndexParser);
 }
@@ -11,6 +11,13 @@ public class VideoAnalysisException extends RuntimeException {
     this.sourceFile = sourceFile;
   }
 
+  /**
+   * For sources that are not local files, e.g. remote videos whose URL must not end up in logs.
+   */
+  protected VideoAnalysisException(String message) {
+    this(message, (Path) null);
+  }
+
   protected VideoAnalysisException(String message, Throwable cause, Path sourceFile) {
     super(message, cause);
     this.sourceFile = sourceFile;
@@ -4,7 +4,13 @@ import java.nio.file.Path;
 
 public class VideoStreamMissingException extends VideoAnalysisException {
 
+  private static final String MSG_FORMAT = "Video file %s has a missing video stream";
+
   protected VideoStreamMissingException(Path sourceFile) {
-    super(String.format("Video file %s has a missing video stream", sourceFile), sourceFile);
+    super(String.format(MSG_FORMAT, sourceFile), sourceFile);
+  }
+
+  protected VideoStreamMissingException(String sourceName) {
+    super(String.format(MSG_FORMAT, sourceName));
   }
 }
@@ -0,0 +1,85 @@
+package com.github.akmal2409.netflix.videoslicer.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.akmal2409.netflix.videoslicer.config.loader.ConfigurationLoader;
+import com.github.akmal2409.netflix.videoslicer.config.loader.TomlConfigSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class WorkerConfigurationTest {
+
+  @TempDir
+  Path configDirectory;
+
+  @Test
+  @DisplayName("Complexity analysis settings are loaded from the toml file")
+  void loadsComplexityAnalysis() throws IOException {
+    final WorkerConfiguration configuration = load("""
+        [worker]
+        complexity-analysis = true
+        complexity-sample-interval = 4
+        complexity-reference-bits-per-pixel = 0.25
+        """);
+
+    assertThat(configuration.isComplexityAnalysis()).isTrue();
+    assertThat(configuration.getComplexitySampleInterval()).isEqualTo(4);
+    assertThat(configuration.getComplexityReferenceBitsPerPixel()).isEqualTo(0.25);
+  }
+
+  @Test
+  @DisplayName("Affinity routing settings are loaded from the toml file")
+  void loadsAffinityRouting() throws IOException {
+    final WorkerConfiguration configuration = load("""
+        [worker]
+        transcoding-partitions = 4
+        transcoding-affinity-span = 16
+        """);
+
+    assertThat(configuration.getTranscodingPartitions()).isEqualTo(4);
+    assertThat(configuration.getTranscodingAffinitySpan()).isEqualTo(16);
+  }
+
+  @Test
+  @DisplayName("Transfer settings are loaded from the toml file")
+  void loadsTransferSettings() throws IOException {
+    final WorkerConfiguration configuration = load("""
+        [worker]
+        transfer-part-size-mib = 16
+        transfer-part-concurrency = 2
+        transfer-part-attempts = 5
+        """);
+
+    assertThat(configuration.getTransferPartSizeMib()).isEqualTo(16);
+    assertThat(configuration.getTransferPartConcurrency()).isEqualTo(2);
+    assertThat(configuration.getTransferPartAttempts()).isEqualTo(5);
+  }
+
+  @Test
+  @DisplayName("Defaults are kept for the settings missing from the toml file")
+  void keepsDefaults() throws IOException {
+    final WorkerConfiguration configuration = load("""
+        [worker]
+        job-queue-name = "jobs"
+        """);
+
+    assertThat(configuration.isComplexityAnalysis()).isFalse();
+    assertThat(configuration.getComplexitySampleInterval()).isEqualTo(10);
+    assertThat(configuration.getComplexityReferenceBitsPerPixel()).isEqualTo(0.1);
+    assertThat(configuration.getTransferPartSizeMib()).isEqualTo(8);
+    assertThat(configuration.getTranscodingPartitions()).isZero();
+    assertThat(configuration.getTranscodingAffinitySpan()).isEqualTo(8);
+  }
+
+  WorkerConfiguration load(String toml) throws IOException {
+    final Path file = Files.writeString(configDirectory.resolve("config.toml"), toml);
+
+    return new ConfigurationLoader<>(List.of(new TomlConfigSource(file)),
+        WorkerConfiguration.class).load();
+  }
+}
@@ -0,0 +1,54 @@
+package com.github.akmal2409.netflix.videoslicer.coordinator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import com.github.akmal2409.netflix.videoslicer.coordinator.TranscodingJobManifest.VideoQuality;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class PerTitleLadderTest {
+
+  @Test
+  @DisplayName("Scales ladder down proportionally for simple content")
+  void scalesDownSimpleContent() {
+    assertThat(PerTitleLadder.scale(0.06, 0.1)).isCloseTo(0.6, within(1e-9));
+  }
+
+  @Test
+  @DisplayName("Never exceeds the requested ladder for complex content")
+  void capsAtRequestedLadder() {
+    assertThat(PerTitleLadder.scale(0.3, 0.1)).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Never scales below the minimum")
+  void keepsMinimumScale() {
+    assertThat(PerTitleLadder.scale(0.001, 0.1)).isEqualTo(PerTitleLadder.MIN_SCALE);
+  }
+
+  @Test
+  @DisplayName("Throws IllegalArgumentException if reference is not positive")
+  void rejectsInvalidReference() {
+    assertThatThrownBy(() -> PerTitleLadder.scale(0.1, 0))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  @DisplayName("Scales bit rates and keeps the other settings of every quality")
+  void appliesScaleToEveryQuality() {
+    final VideoQuality[] ladder = {
+        new VideoQuality(1280, 720, 5_000_000, EncoderType.X265, RateControl.CAPPED_CRF, "medium",
+            26),
+        new VideoQuality(1280, 720, 4_000_000)
+    };
+
+    final VideoQuality[] fitted = PerTitleLadder.apply(ladder, 0.5);
+
+    assertThat(fitted).containsExactly(
+        new VideoQuality(1280, 720, 2_500_000, EncoderType.X265, RateControl.CAPPED_CRF, "medium",
+            26),
+        new VideoQuality(1280, 720, 2_000_000));
+  }
+}
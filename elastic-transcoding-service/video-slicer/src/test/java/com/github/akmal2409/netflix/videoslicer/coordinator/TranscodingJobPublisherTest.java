@@ -0,0 +1,84 @@
+package com.github.akmal2409.netflix.videoslicer.coordinator;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.akmal2409.netflix.videoslicer.coordinator.TranscodingJobManifest.VideoQuality;
+import com.github.akmal2409.netflix.videoslicer.exception.AsyncMessagingPlatformException;
+import com.rabbitmq.client.AMQP.BasicProperties;
+import com.rabbitmq.client.Channel;
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.TimeoutException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class TranscodingJobPublisherTest {
+
+  @Mock
+  Channel channel;
+
+  @Test
+  @DisplayName("Waits for confirms after every full batch and after the last message")
+  void confirmsInBatches() throws IOException, InterruptedException, TimeoutException {
+    final var publisher = new TranscodingJobPublisher(channel, new ObjectMapper(), "queue");
+    final var jobId = UUID.randomUUID();
+
+    publisher.publish(jobId, manifests(jobId, TranscodingJobPublisher.CONFIRM_BATCH_SIZE * 2 + 1));
+
+    verify(channel).confirmSelect();
+    verify(channel, times(TranscodingJobPublisher.CONFIRM_BATCH_SIZE * 2 + 1))
+        .basicPublish(eq(""), eq("queue"), any(BasicProperties.class), any(byte[].class));
+    verify(channel, times(3)).waitForConfirmsOrDie(anyLong());
+  }
+
+  @Test
+  @DisplayName("Throws AsyncMessagingPlatformException when messages are not confirmed")
+  void throwsWhenNotConfirmed() throws IOException, InterruptedException, TimeoutException {
+    final var publisher = new TranscodingJobPublisher(channel, new ObjectMapper(), "queue");
+    final var jobId = UUID.randomUUID();
+
+    doThrow(new IOException("nack")).when(channel).waitForConfirmsOrDie(anyLong());
+
+    assertThatThrownBy(() -> publisher.publish(jobId, manifests(jobId, 1)))
+        .isInstanceOf(AsyncMessagingPlatformException.class);
+  }
+
+  @Test
+  @DisplayName("Routes jobs of consecutive segments with the same key to the affinity exchange")
+  void routesByAffinity() throws IOException {
+    final var publisher = new TranscodingJobPublisher(channel, new ObjectMapper(), "queue", 4, 2);
+    final var jobId = UUID.randomUUID();
+
+    publisher.publish(jobId, manifests(jobId, 3));
+
+    verify(channel).exchangeDeclare("queue.affinity", AffinityRouting.EXCHANGE_TYPE, true);
+    verify(channel, times(4)).queueBind(any(), eq("queue.affinity"), eq("1"));
+    verify(channel, times(2)).basicPublish(eq("queue.affinity"), eq(jobId + ":0"),
+        any(BasicProperties.class), any(byte[].class));
+    verify(channel).basicPublish(eq("queue.affinity"), eq(jobId + ":1"),
+        any(BasicProperties.class), any(byte[].class));
+  }
+
+  private TranscodingJobManifest[] manifests(UUID jobId, int count) {
+    final var manifests = new TranscodingJobManifest[count];
+
+    for (int i = 0; i < count; i++) {
+      manifests[i] = new TranscodingJobManifest(jobId, "processed", "job", "transcoded", "job",
+          i, 5, new String[]{String.format("segment-%08d.mp4", i)}, 0, 120,
+          new VideoQuality[]{new VideoQuality(640, 360, 3000)}, new VideoQuality(1280, 720, 7000));
+    }
+
+    return manifests;
+  }
+}
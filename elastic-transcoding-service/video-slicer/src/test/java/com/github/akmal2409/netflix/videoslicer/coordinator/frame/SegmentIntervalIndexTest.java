@@ -0,0 +1,60 @@
+package com.github.akmal2409.netflix.videoslicer.coordinator.frame;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class SegmentIntervalIndexTest {
+
+  final SegmentIntervalIndex index = SegmentIntervalIndex.of(new Segment[]{
+      new Segment(null, 0, 0, 11),
+      new Segment(null, 1, 12, 17),
+      new Segment(null, 2, 18, 29)
+  });
+
+  @Test
+  @DisplayName("floor() returns the last segment starting at or before the frame")
+  void floorReturnsLastSegmentStartingAtOrBeforeFrame() {
+    assertThat(index.floor(0)).isZero();
+    assertThat(index.floor(11)).isZero();
+    assertThat(index.floor(12)).isEqualTo(1);
+    assertThat(index.floor(100)).isEqualTo(2);
+    assertThat(index.floor(-1)).isEqualTo(-1);
+  }
+
+  @Test
+  @DisplayName("ceil() returns the first segment ending at or after the frame")
+  void ceilReturnsFirstSegmentEndingAtOrAfterFrame() {
+    assertThat(index.ceil(0)).isZero();
+    assertThat(index.ceil(11)).isZero();
+    assertThat(index.ceil(12)).isEqualTo(1);
+    assertThat(index.ceil(29)).isEqualTo(2);
+    assertThat(index.ceil(100)).isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("floorFrom() and ceilFrom() agree with the binary searches")
+  void sweepingSearchesAgreeWithBinarySearches() {
+    int floor = 0;
+    int ceil = 0;
+
+    for (int frame = 0; frame < 35; frame++) {
+      floor = index.floorFrom(floor, frame);
+      ceil = index.ceilFrom(ceil, frame);
+
+      assertThat(floor).isEqualTo(index.floor(frame));
+      assertThat(ceil).isEqualTo(index.ceil(frame));
+    }
+  }
+
+  @Test
+  @DisplayName("of() rejects segments that are not sorted by start frame")
+  void ofRejectsUnsortedSegments() {
+    assertThatThrownBy(() -> SegmentIntervalIndex.of(new Segment[]{
+        new Segment(null, 1, 12, 17),
+        new Segment(null, 0, 0, 11)
+    })).isInstanceOf(IllegalArgumentException.class);
+  }
+}
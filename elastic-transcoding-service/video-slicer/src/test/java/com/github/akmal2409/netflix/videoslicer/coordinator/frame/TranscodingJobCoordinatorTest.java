@@ -22,9 +22,9 @@ class TranscodingJobCoordinatorTest {
     final var config = new TranscodingConfiguration(5, 15);
 
     final Segment[] segments = {
-        new Segment(0, 0, 4),
-        new Segment(1, 5, 9),
-        new Segment(2, 10, 14)
+        new Segment(null, 0, 0, 4),
+        new Segment(null, 1, 5, 9),
+        new Segment(null, 2, 10, 14)
     };
 
     final OverlappingSegmentTranscodingJob[] expectedJobs = {
@@ -48,8 +48,8 @@ class TranscodingJobCoordinatorTest {
     final var config = new TranscodingConfiguration(6, 12);
 
     final Segment[] segments = {
-        new Segment(0, 0, 8),
-        new Segment(1, 9, 11)
+        new Segment(null, 0, 0, 8),
+        new Segment(null, 1, 9, 11)
     };
 
     final OverlappingSegmentTranscodingJob[] expectedJobs = {
@@ -72,7 +72,7 @@ class TranscodingJobCoordinatorTest {
     final var config = new TranscodingConfiguration(5, 10);
 
     final Segment[] segments = {
-        new Segment(0, 0, 9)
+        new Segment(null, 0, 0, 9)
     };
 
     final OverlappingSegmentTranscodingJob[] expectedJobs = {
@@ -95,9 +95,9 @@ class TranscodingJobCoordinatorTest {
     final var config = new TranscodingConfiguration(10, 30);
 
     final Segment[] segments = {
-        new Segment(0, 0, 11),
-        new Segment(1, 12, 17),
-        new Segment(2, 18, 29)
+        new Segment(null, 0, 0, 11),
+        new Segment(null, 1, 12, 17),
+        new Segment(null, 2, 18, 29)
     };
 
     final OverlappingSegmentTranscodingJob[] expectedJobs = {
@@ -113,4 +113,29 @@ class TranscodingJobCoordinatorTest {
         .usingRecursiveFieldByFieldElementComparator()
         .isEqualTo(expectedJobs);
   }
+
+  @Test
+  @DisplayName("buildJobs() sorts unordered segments by start frame before building jobs")
+  void buildJobsSortsSegmentsByStartFrame() {
+    final var config = new TranscodingConfiguration(10, 30);
+
+    final Segment[] segments = {
+        new Segment(null, 2, 18, 29),
+        new Segment(null, 0, 0, 11),
+        new Segment(null, 1, 12, 17)
+    };
+
+    final OverlappingSegmentTranscodingJob[] expectedJobs = {
+        new OverlappingSegmentTranscodingJob(0, 0, 9, 0, 0, 0),
+        new OverlappingSegmentTranscodingJob(1, 10, 19, 0, 2, 10),
+        new OverlappingSegmentTranscodingJob(2, 20, 29, 2, 2, 2)
+    };
+
+    final OverlappingSegmentTranscodingJob[] actualJobs = coordinator.buildJobs(config, segments);
+
+    assertThat(actualJobs)
+        .usingRecursiveFieldByFieldElementComparator()
+        .isEqualTo(expectedJobs);
+    assertThat(segments).extracting(Segment::index).containsExactly(0, 1, 2);
+  }
 }
@@ -0,0 +1,190 @@
+package com.github.akmal2409.netflix.videoslicer.job;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.github.akmal2409.netflix.videoslicer.job.exception.ProcessedFilesUploadFailedException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.ListPartsResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+@ExtendWith(MockitoExtension.class)
+class IncrementalUploadTest {
+
+  @Mock
+  S3AsyncClient s3Client;
+
+  @Test
+  @DisplayName("Uploads index only after all previously started uploads have completed")
+  void uploadsIndexLast() throws IOException, InterruptedException {
+    final var directory = Files.createTempDirectory(null);
+    final var segment = Files.writeString(directory.resolve("segment-00000000.mp4"), "segment");
+    final var index = Files.writeString(directory.resolve("index.json"), "{}");
+
+    final var segmentUpload = new CompletableFuture<PutObjectResponse>();
+
+    when(s3Client.putObject(argThat((PutObjectRequest r) -> r != null && r.key().endsWith(".mp4")),
+        any(AsyncRequestBody.class))).thenReturn(segmentUpload);
+    when(s3Client.putObject(argThat((PutObjectRequest r) -> r != null && r.key().endsWith(".json")),
+        any(AsyncRequestBody.class))).thenReturn(
+        CompletableFuture.completedFuture(PutObjectResponse.builder().build()));
+
+    final var upload = new IncrementalUpload(s3Client, UUID.randomUUID(), "bucket", "prefix", 2);
+
+    upload.upload(segment, "segments/" + segment.getFileName(), true);
+
+    final var commit = CompletableFuture.runAsync(() -> upload.commit(index));
+    TimeUnit.MILLISECONDS.sleep(200);
+
+    verify(s3Client, never()).putObject(
+        argThat((PutObjectRequest r) -> r != null && r.key().equals("prefix/index.json")),
+        any(AsyncRequestBody.class));
+
+    segmentUpload.complete(PutObjectResponse.builder().build());
+    commit.join();
+
+    verify(s3Client).putObject(
+        argThat((PutObjectRequest r) -> r != null && r.key().equals("prefix/index.json")),
+        any(AsyncRequestBody.class));
+    assertThat(segment).doesNotExist();
+    assertThat(index).exists();
+  }
+
+  @Test
+  @DisplayName("Uploads files larger than a single part with multipart upload")
+  void uploadsLargeFileInParts() throws IOException {
+    final var directory = Files.createTempDirectory(null);
+    final var segment = Files.write(directory.resolve("segment-00000000.mp4"),
+        new byte[IncrementalUpload.PART_SIZE_BYTES * 2 + 1]);
+
+    when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class))).thenReturn(
+        CompletableFuture.completedFuture(
+            CreateMultipartUploadResponse.builder().uploadId("upload").build()));
+    when(s3Client.uploadPart(any(UploadPartRequest.class), any(AsyncRequestBody.class)))
+        .thenReturn(CompletableFuture.completedFuture(
+            UploadPartResponse.builder().eTag("etag").build()));
+    when(s3Client.completeMultipartUpload(any(CompleteMultipartUploadRequest.class))).thenReturn(
+        CompletableFuture.completedFuture(CompleteMultipartUploadResponse.builder().build()));
+
+    final var upload = new IncrementalUpload(s3Client, UUID.randomUUID(), "bucket", "prefix", 1);
+
+    upload.upload(segment, "segments/" + segment.getFileName(), false);
+    upload.awaitUploads();
+
+    verify(s3Client, times(3)).uploadPart(any(UploadPartRequest.class),
+        any(AsyncRequestBody.class));
+    verify(s3Client).completeMultipartUpload(
+        argThat((CompleteMultipartUploadRequest r) -> r.multipartUpload().parts().size() == 3));
+    assertThat(segment).exists();
+  }
+
+  @Test
+  @DisplayName("Uploads only the parts that are missing from the manifest of a previous attempt")
+  void resumesMultipartUpload() throws IOException {
+    final var jobDirectory = Files.createTempDirectory(null);
+    final var stateDirectory = Files.createDirectories(jobDirectory.resolve(".transfers"));
+    final var settings = TransferSettings.DEFAULT;
+    final var segment = Files.write(jobDirectory.resolve("segment-00000000.mp4"),
+        new byte[settings.partSizeBytes() * 2 + 1]);
+
+    final var manifest = PartManifest.create(Files.size(segment), settings.partSizeBytes(),
+        "upload");
+    final var manifestPath = stateDirectory.resolve(
+        "prefix%2Fsegments%2Fsegment-00000000.mp4.jsonl");
+    manifest.save(manifestPath);
+    manifest.complete(1, new PartManifest.Part("etag-1",
+        PartManifest.crc32c(ByteBuffer.allocate(settings.partSizeBytes()))), manifestPath);
+
+    when(s3Client.listParts(any(Consumer.class))).thenReturn(
+        CompletableFuture.completedFuture(ListPartsResponse.builder().build()));
+    when(s3Client.uploadPart(any(UploadPartRequest.class), any(AsyncRequestBody.class)))
+        .thenReturn(CompletableFuture.completedFuture(
+            UploadPartResponse.builder().eTag("etag").build()));
+    when(s3Client.completeMultipartUpload(any(CompleteMultipartUploadRequest.class))).thenReturn(
+        CompletableFuture.completedFuture(CompleteMultipartUploadResponse.builder().build()));
+
+    final var upload = new IncrementalUpload(s3Client, UUID.randomUUID(), "bucket", "prefix", 1,
+        settings, stateDirectory);
+
+    upload.upload(segment, "segments/" + segment.getFileName(), false);
+    upload.awaitUploads();
+
+    verify(s3Client, never()).createMultipartUpload(any(CreateMultipartUploadRequest.class));
+    verify(s3Client, times(2)).uploadPart(
+        argThat((UploadPartRequest r) -> r.partNumber() > 1 && r.checksumCRC32C() != null),
+        any(AsyncRequestBody.class));
+    verify(s3Client).completeMultipartUpload(
+        argThat((CompleteMultipartUploadRequest r) -> r.uploadId().equals("upload")
+                                                          && r.multipartUpload().parts().size()
+                                                                 == 3));
+  }
+
+  @Test
+  @DisplayName("Keeps a failed multipart upload and its manifest, so that a retry resumes it")
+  void keepsFailedMultipartUpload() throws IOException {
+    final var jobDirectory = Files.createTempDirectory(null);
+    final var stateDirectory = jobDirectory.resolve(".transfers");
+    final var settings = TransferSettings.DEFAULT;
+    final var segment = Files.write(jobDirectory.resolve("segment-00000000.mp4"),
+        new byte[settings.partSizeBytes() * 2 + 1]);
+
+    when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class))).thenReturn(
+        CompletableFuture.completedFuture(
+            CreateMultipartUploadResponse.builder().uploadId("upload").build()));
+    when(s3Client.uploadPart(any(UploadPartRequest.class), any(AsyncRequestBody.class)))
+        .thenAnswer(invocation -> {
+          final UploadPartRequest request = invocation.getArgument(0);
+
+          return request.partNumber() == 2
+                     ? CompletableFuture.failedFuture(S3Exception.builder().message("Slow down")
+                                                          .build())
+                     : CompletableFuture.completedFuture(
+                         UploadPartResponse.builder().eTag("etag").build());
+        });
+
+    final var upload = new IncrementalUpload(s3Client, UUID.randomUUID(), "bucket", "prefix", 1,
+        settings, stateDirectory);
+
+    upload.upload(segment, "segments/" + segment.getFileName(), false);
+
+    assertThatThrownBy(upload::awaitUploads)
+        .isInstanceOf(ProcessedFilesUploadFailedException.class);
+
+    verify(s3Client, never()).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+    verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+
+    final var manifest = PartManifest.load(
+        stateDirectory.resolve("prefix%2Fsegments%2Fsegment-00000000.mp4.jsonl")).orElseThrow();
+
+    assertThat(manifest.objectId()).isEqualTo("upload");
+    assertThat(manifest.parts()).containsOnlyKeys(1, 3);
+  }
+}
@@ -0,0 +1,80 @@
+package com.github.akmal2409.netflix.videoslicer.job;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.akmal2409.netflix.videoslicer.job.PartManifest.Part;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PartManifestTest {
+
+  @TempDir
+  Path stateDirectory;
+
+  @Test
+  @DisplayName("Completed parts are appended to the manifest and replayed on load")
+  void replaysCompletedParts() throws IOException {
+    final Path path = stateDirectory.resolve("source.jsonl");
+    final var manifest = PartManifest.create(20, 8, "etag");
+
+    manifest.save(path);
+    manifest.complete(2, new Part(null, 22), path);
+    manifest.complete(1, new Part(null, 11), path);
+
+    assertThat(Files.readAllLines(path)).hasSize(3);
+
+    final PartManifest loaded = PartManifest.load(path).orElseThrow();
+
+    assertThat(loaded.matches(20, 8)).isTrue();
+    assertThat(loaded.objectId()).isEqualTo("etag");
+    assertThat(loaded.parts()).isEqualTo(Map.of(1, new Part(null, 11), 2, new Part(null, 22)));
+  }
+
+  @Test
+  @DisplayName("A part record cut short by a crash is skipped when loading")
+  void skipsPartiallyAppendedRecord() throws IOException {
+    final Path path = stateDirectory.resolve("segment.jsonl");
+    final var manifest = PartManifest.create(20, 8, "upload");
+
+    manifest.save(path);
+    manifest.complete(1, new Part("etag-1", 11), path);
+    Files.writeString(path, "{\"partNumber\":2,\"eTag\":\"et", StandardCharsets.UTF_8,
+        StandardOpenOption.APPEND);
+
+    assertThat(PartManifest.load(path).orElseThrow().parts())
+        .isEqualTo(Map.of(1, new Part("etag-1", 11)));
+  }
+
+  @Test
+  @DisplayName("save() compacts the log into one record per part")
+  void saveCompactsLog() throws IOException {
+    final Path path = stateDirectory.resolve("segment.jsonl");
+    final var manifest = PartManifest.create(20, 8, "upload");
+
+    manifest.save(path);
+    manifest.complete(1, new Part("etag-1", 11), path);
+    manifest.complete(1, new Part("etag-2", 12), path);
+    manifest.save(path);
+
+    assertThat(Files.readAllLines(path)).hasSize(2);
+    assertThat(PartManifest.load(path).orElseThrow().parts())
+        .isEqualTo(Map.of(1, new Part("etag-2", 12)));
+  }
+
+  @Test
+  @DisplayName("load() returns empty when there is no manifest or its header is unreadable")
+  void loadReturnsEmptyWithoutHeader() throws IOException {
+    assertThat(PartManifest.load(stateDirectory.resolve("missing.jsonl"))).isEmpty();
+    assertThat(PartManifest.load(Files.writeString(stateDirectory.resolve("empty.jsonl"), "")))
+        .isEmpty();
+    assertThat(PartManifest.load(
+        Files.writeString(stateDirectory.resolve("partial.jsonl"), "{\"size\":2"))).isEmpty();
+  }
+}
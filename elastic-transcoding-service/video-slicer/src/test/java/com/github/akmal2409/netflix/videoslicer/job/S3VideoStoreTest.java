@@ -1,16 +1,29 @@
 package com.github.akmal2409.netflix.videoslicer.job;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import com.github.akmal2409.netflix.videoslicer.job.exception.DuplicateJobException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
 import software.amazon.awssdk.transfer.s3.S3TransferManager;
 
 @ExtendWith(MockitoExtension.class)
@@ -19,6 +32,9 @@ class S3VideoStoreTest {
   @Mock
   S3TransferManager transferManager;
 
+  @Mock
+  S3AsyncClient s3Client;
+
 
   @Test
   @DisplayName("Will throw DuplicateJobException if the job directory already exists")
@@ -35,5 +51,38 @@ class S3VideoStoreTest {
         .isInstanceOf(DuplicateJobException.class);
   }
 
+  @Test
+  @DisplayName("Downloads only the parts that are missing when resuming a download")
+  void resumesSourceDownload() throws IOException {
+    final var temporaryFolder = Files.createTempDirectory(null);
+    final var jobId = UUID.randomUUID();
+    final var settings = TransferSettings.DEFAULT;
+    final var source = new byte[settings.partSizeBytes() + 10];
+    final var jobDirectory = temporaryFolder.resolve(jobId.toString());
+
+    // state left behind by an attempt that crashed after the first part
+    Files.createDirectories(jobDirectory.resolve(S3Store.TRANSFER_STATE_DIRECTORY));
+    Files.write(jobDirectory.resolve("video.mp4"), new byte[settings.partSizeBytes()]);
+    final var manifest = PartManifest.create(source.length, settings.partSizeBytes(), "etag");
+    final var manifestPath = jobDirectory.resolve(S3Store.TRANSFER_STATE_DIRECTORY)
+                                 .resolve("source.jsonl");
+    manifest.save(manifestPath);
+    manifest.complete(1, new PartManifest.Part(null,
+        PartManifest.crc32c(ByteBuffer.allocate(settings.partSizeBytes()))), manifestPath);
+
+    when(s3Client.headObject(any(Consumer.class))).thenReturn(CompletableFuture.completedFuture(
+        HeadObjectResponse.builder().contentLength((long) source.length).eTag("etag").build()));
+    when(s3Client.getObject(any(Consumer.class), any(AsyncResponseTransformer.class)))
+        .thenReturn(CompletableFuture.completedFuture(ResponseBytes.fromByteArray(
+            GetObjectResponse.builder().build(), new byte[10])));
+
+    final var store = new S3Store(temporaryFolder, transferManager, null, s3Client, 1, settings);
+    final JobVideoSource videoSource = store.downloadSource(jobId, "bucket", "videos/video.mp4");
+
+    verify(s3Client, times(1)).getObject(any(Consumer.class),
+        any(AsyncResponseTransformer.class));
+    assertThat(Files.size(videoSource.filePath())).isEqualTo(source.length);
+  }
+
 
 }
@@ -0,0 +1,174 @@
+package com.github.akmal2409.netflix.videoslicer.processing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.github.akmal2409.netflix.videoslicer.config.SegmentConstants;
+import com.github.akmal2409.netflix.videoslicer.config.SegmentFileName;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.ObjIntConsumer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SegmentWatcherTest {
+
+  static final long EVENT_TIMEOUT_MS = 5_000;
+  static final long QUIET_PERIOD_MS = 600;
+
+  @TempDir
+  Path segmentDirectory;
+
+  ExecutorService executor;
+
+  final BlockingQueue<Integer> emitted = new LinkedBlockingQueue<>();
+
+  @BeforeEach
+  void setUp() {
+    executor = Executors.newSingleThreadExecutor();
+  }
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    executor.shutdownNow();
+    assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  @DisplayName("Emits segment i once segment i + 1 appears and the last one on finish()")
+  void emitsClosedSegmentsInOrder() throws IOException, InterruptedException {
+    try (var watcher = newWatcher((segment, index) -> emitted.add(index))) {
+      watcher.start(executor);
+
+      createSegment(0);
+      assertThat(emitted.poll(QUIET_PERIOD_MS, TimeUnit.MILLISECONDS)).isNull();
+
+      createSegment(1);
+      assertThat(emitted.poll(EVENT_TIMEOUT_MS, TimeUnit.MILLISECONDS)).isZero();
+
+      createSegment(2);
+      createSegment(3);
+      assertThat(emitted.poll(EVENT_TIMEOUT_MS, TimeUnit.MILLISECONDS)).isEqualTo(1);
+      assertThat(emitted.poll(EVENT_TIMEOUT_MS, TimeUnit.MILLISECONDS)).isEqualTo(2);
+      assertThat(emitted.poll(QUIET_PERIOD_MS, TimeUnit.MILLISECONDS)).isNull();
+
+      watcher.finish();
+    }
+
+    assertThat(emitted).containsExactly(3);
+  }
+
+  @Test
+  @DisplayName("finish() drains every segment the muxer wrote before the watcher saw them")
+  void finishDrainsRemainingSegments() throws IOException {
+    try (var watcher = newWatcher((segment, index) -> emitted.add(index))) {
+      watcher.start(executor);
+
+      createSegment(0);
+      createSegment(1);
+      createSegment(2);
+
+      watcher.finish();
+    }
+
+    assertThat(emitted).containsExactly(0, 1, 2);
+  }
+
+  @Test
+  @DisplayName("close() stops the watcher without emitting the segments left open")
+  void closeStopsWithoutEmitting() throws IOException, InterruptedException {
+    final var watcher = newWatcher((segment, index) -> emitted.add(index));
+    watcher.start(executor);
+
+    createSegment(0);
+    createSegment(1);
+    assertThat(emitted.poll(EVENT_TIMEOUT_MS, TimeUnit.MILLISECONDS)).isZero();
+
+    watcher.close();
+    createSegment(2);
+
+    assertThat(emitted.poll(QUIET_PERIOD_MS, TimeUnit.MILLISECONDS)).isNull();
+    assertThat(emitted).isEmpty();
+  }
+
+  @Test
+  @DisplayName("close() returns only once the segment being consumed has been consumed")
+  void closeWaitsForConsumer() throws IOException, InterruptedException {
+    final var consuming = new CountDownLatch(1);
+    final var release = new CountDownLatch(1);
+    final var watcher = newWatcher((segment, index) -> {
+      consuming.countDown();
+
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+
+      emitted.add(index);
+    });
+    watcher.start(executor);
+
+    createSegment(0);
+    createSegment(1);
+    assertThat(consuming.await(EVENT_TIMEOUT_MS, TimeUnit.MILLISECONDS)).isTrue();
+
+    // e.g. the muxer failed while segment 0 is being uploaded
+    final var close = CompletableFuture.runAsync(() -> {
+      try {
+        watcher.close();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+
+    assertThatThrownBy(() -> close.get(QUIET_PERIOD_MS, TimeUnit.MILLISECONDS))
+        .isInstanceOf(TimeoutException.class);
+
+    release.countDown();
+    close.join();
+
+    assertThat(emitted).containsExactly(0);
+  }
+
+  @Test
+  @DisplayName("finish() rethrows the exception thrown by the consumer")
+  void finishRethrowsConsumerException() throws IOException {
+    try (var watcher = newWatcher((segment, index) -> {
+      throw new OutputWriteException("Upload failed");
+    })) {
+      watcher.start(executor);
+
+      createSegment(0);
+      createSegment(1);
+
+      assertThatThrownBy(watcher::finish)
+          .isInstanceOf(CompletionException.class)
+          .hasCauseInstanceOf(OutputWriteException.class);
+    }
+  }
+
+  SegmentWatcher newWatcher(ObjIntConsumer<Path> consumer) {
+    return new SegmentWatcher(segmentDirectory, SegmentConstants.SEGMENT_FILE_NAME_PATTERN,
+        SegmentFileName::parseIndex, consumer);
+  }
+
+  void createSegment(int index) throws IOException {
+    Files.createFile(
+        segmentDirectory.resolve(String.format(SegmentConstants.SEGMENT_FILE_NAME_PATTERN, index)));
+  }
+}
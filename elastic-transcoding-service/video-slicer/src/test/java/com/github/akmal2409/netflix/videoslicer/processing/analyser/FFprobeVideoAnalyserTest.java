@@ -0,0 +1,251 @@
+package com.github.akmal2409.netflix.videoslicer.processing.analyser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.github.akmal2409.netflix.videoslicer.config.SegmentConstants;
+import com.github.akmal2409.netflix.videoslicer.config.SegmentFileName;
+import com.github.akmal2409.netflix.videoslicer.coordinator.frame.Segment;
+import com.github.kokorin.jaffree.Rational;
+import com.github.kokorin.jaffree.ffprobe.FFprobe;
+import com.github.kokorin.jaffree.ffprobe.FFprobeResult;
+import com.github.kokorin.jaffree.ffprobe.Packet;
+import com.github.kokorin.jaffree.ffprobe.Stream;
+import com.github.kokorin.jaffree.ffprobe.data.ProbeData;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FFprobeVideoAnalyserTest {
+
+  @TempDir
+  Path temporaryFolder;
+
+  Path source;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    source = Files.createFile(temporaryFolder.resolve("video.mp4"));
+  }
+
+  @Test
+  @DisplayName("presentationFrames() ranks B-frame streams in presentation order")
+  void presentationFramesRanksBFrames() {
+    assertThat(FFprobeVideoAnalyser.presentationFrames(new long[]{0, 3, 1, 2, 6, 4, 5}))
+        .containsExactly(0, 3, 1, 2, 6, 4, 5);
+  }
+
+  @Test
+  @DisplayName("presentationFrames() assigns distinct frames to duplicate timestamps in decode order")
+  void presentationFramesKeepsDecodeOrderOfDuplicates() {
+    assertThat(FFprobeVideoAnalyser.presentationFrames(new long[]{0, 2, 1, 1, 2, 1, 3}))
+        .containsExactly(0, 4, 1, 2, 5, 3, 6);
+  }
+
+  @Test
+  @DisplayName("indexKeyframes() ranks keyframes that share a timestamp with other packets")
+  void indexKeyframesRanksKeyframesWithDuplicateTimestamps() {
+    // the keyframe at packet 6 shares pts 1 with packets 1 to 5, a binary search could land on any
+    final var analyser = analyserOf(packetsResult("1/2",
+        packet(0L, 0L, "K_"),
+        packet(1L, 1L, "__"),
+        packet(1L, 2L, "__"),
+        packet(1L, 3L, "__"),
+        packet(1L, 4L, "__"),
+        packet(1L, 5L, "__"),
+        packet(1L, 6L, "K_"),
+        packet(2L, 7L, "__"),
+        packet(3L, 8L, "K_")));
+
+    final KeyframeIndex index = analyser.indexKeyframes(source);
+
+    assertThat(index.keyframes()).containsExactly(0, 6, 8);
+    assertThat(index.keyframeTimes()).containsExactly(0, 0.5, 1.5);
+    assertThat(index.video().totalFrames()).isEqualTo(9);
+  }
+
+  @Test
+  @DisplayName("indexKeyframes() sorts keyframes of B-frame streams by presentation order")
+  void indexKeyframesSortsKeyframesByPresentationOrder() {
+    final var analyser = analyserOf(packetsResult("1/2",
+        packet(1L, 0L, "K_"),
+        packet(3L, 1L, "__"),
+        packet(2L, 2L, "__"),
+        packet(6L, 3L, "K_"),
+        packet(4L, 4L, "__"),
+        packet(5L, 5L, "__")));
+
+    final KeyframeIndex index = analyser.indexKeyframes(source);
+
+    assertThat(index.keyframes()).containsExactly(0, 5);
+    assertThat(index.keyframeTimes()).containsExactly(0, 2.5);
+  }
+
+  @Test
+  @DisplayName("indexKeyframes() ranks by dts when no packet has pts")
+  void indexKeyframesFallsBackToDtsForWholeStream() {
+    final var analyser = analyserOf(packetsResult("1/2",
+        packet(null, 0L, "K_"),
+        packet(null, 1L, "__"),
+        packet(null, 2L, "K_"),
+        packet(null, 3L, "__")));
+
+    final KeyframeIndex index = analyser.indexKeyframes(source);
+
+    assertThat(index.keyframes()).containsExactly(0, 2);
+    assertThat(index.keyframeTimes()).containsExactly(0, 1.0);
+  }
+
+  @Test
+  @DisplayName("indexKeyframes() throws MissingVideoMetadataException when only some packets have pts")
+  void indexKeyframesRejectsPartialPts() {
+    final var analyser = analyserOf(packetsResult("1/2",
+        packet(0L, 0L, "K_"),
+        packet(null, 1L, "__"),
+        packet(2L, 2L, "K_")));
+
+    assertThatThrownBy(() -> analyser.indexKeyframes(source))
+        .isInstanceOf(MissingVideoMetadataException.class);
+  }
+
+  @Test
+  @DisplayName("analyseSegments() assigns the same frame ranges when probes finish out of order")
+  void analyseSegmentsConcurrentlyMatchesSequential() throws IOException, InterruptedException {
+    final int[] frameCounts = {48, 50, 47, 48, 12};
+    final var segmentDirectory = Files.createDirectory(temporaryFolder.resolve("segments"));
+
+    for (int i = 0; i < frameCounts.length; i++) {
+      Files.createFile(
+          segmentDirectory.resolve(String.format(SegmentConstants.SEGMENT_FILE_NAME_PATTERN, i)));
+    }
+    Files.createFile(segmentDirectory.resolve("audio.mp4"));
+
+    // segment i is only probed to the end once segment i + 1 has been, so the last one finishes first
+    final var probed = new CountDownLatch[frameCounts.length + 1];
+    for (int i = 0; i < probed.length; i++) {
+      probed[i] = new CountDownLatch(i == frameCounts.length ? 0 : 1);
+    }
+    final var completionOrder = new ConcurrentLinkedQueue<Integer>();
+
+    final Function<Path, FFprobeResult> results = input -> {
+      final int index = SegmentFileName.parseIndex(input.getFileName().toString());
+
+      try {
+        assertThat(probed[index + 1].await(5, TimeUnit.SECONDS)).isTrue();
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+
+      completionOrder.add(index);
+      probed[index].countDown();
+      return framesResult(frameCounts[index]);
+    };
+
+    final ExecutorService probeExecutor = Executors.newFixedThreadPool(frameCounts.length);
+
+    try {
+      final Segment[] concurrent = new FFprobeVideoAnalyser(() -> new FakeFFprobe(results),
+          probeExecutor).analyseSegments(segmentDirectory, SegmentFileName::parseIndex);
+
+      final Segment[] sequential = new FFprobeVideoAnalyser(
+          new FakeFFprobe(input -> framesResult(
+              frameCounts[SegmentFileName.parseIndex(input.getFileName().toString())])))
+                                       .analyseSegments(segmentDirectory,
+                                           SegmentFileName::parseIndex);
+
+      assertThat(completionOrder).containsExactly(4, 3, 2, 1, 0);
+      assertThat(concurrent)
+          .usingRecursiveFieldByFieldElementComparator()
+          .containsExactly(sequential)
+          .containsExactly(
+              new Segment("segment-00000000.mp4", 0, 0, 47),
+              new Segment("segment-00000001.mp4", 1, 48, 97),
+              new Segment("segment-00000002.mp4", 2, 98, 144),
+              new Segment("segment-00000003.mp4", 3, 145, 192),
+              new Segment("segment-00000004.mp4", 4, 193, 204));
+    } finally {
+      probeExecutor.shutdownNow();
+      assertThat(probeExecutor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+    }
+  }
+
+  static FFprobeVideoAnalyser analyserOf(FFprobeResult result) {
+    return new FFprobeVideoAnalyser(new FakeFFprobe(input -> result));
+  }
+
+  static FFprobeResult packetsResult(String timeBase, Packet... packets) {
+    final Stream stream = mock(Stream.class);
+    when(stream.getRFrameRate()).thenReturn(new Rational(10, 1));
+    when(stream.getTimeBase()).thenReturn(timeBase);
+    when(stream.getWidth()).thenReturn(640);
+    when(stream.getHeight()).thenReturn(360);
+
+    final FFprobeResult result = mock(FFprobeResult.class);
+    when(result.getStreams()).thenReturn(List.of(stream));
+    when(result.getPackets()).thenReturn(new ArrayList<>(List.of(packets)));
+
+    return result;
+  }
+
+  static FFprobeResult framesResult(int frames) {
+    final ProbeData probeData = mock(ProbeData.class);
+    when(probeData.getInteger("nb_read_frames")).thenReturn(frames);
+
+    final Stream stream = mock(Stream.class);
+    when(stream.getProbeData()).thenReturn(probeData);
+
+    final FFprobeResult result = mock(FFprobeResult.class);
+    when(result.getStreams()).thenReturn(List.of(stream));
+
+    return result;
+  }
+
+  static Packet packet(Long pts, Long dts, String flags) {
+    final Packet packet = mock(Packet.class);
+    when(packet.getPts()).thenReturn(pts);
+    when(packet.getDts()).thenReturn(dts);
+    when(packet.getFlags()).thenReturn(flags);
+
+    return packet;
+  }
+
+  /**
+   * FFprobe that answers with a canned result for the input it has been given instead of running
+   * the binary.
+   */
+  static class FakeFFprobe extends FFprobe {
+
+    private final Function<Path, FFprobeResult> results;
+    private Path input;
+
+    FakeFFprobe(Function<Path, FFprobeResult> results) {
+      super(Path.of("ffprobe"));
+      this.results = results;
+    }
+
+    @Override
+    public FFprobe setInput(Path input) {
+      this.input = input;
+      return this;
+    }
+
+    @Override
+    public FFprobeResult execute() {
+      return results.apply(input);
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package com.github.akmal2409.netflix.videoslicer.processing.analyser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.github.akmal2409.netflix.videoslicer.coordinator.frame.Segment;
+import java.time.Duration;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class KeyframeIndexTest {
+
+  @Test
+  @DisplayName("deriveSegments() cuts at the first keyframe at or after each segment duration")
+  void deriveSegmentsCutsAtFirstKeyframeAfterDuration() {
+    // 10 fps, 60 frames, keyframes every 15 frames (1.5s)
+    final var index = new KeyframeIndex(
+        new VideoIndex(10, 60, 640, 360),
+        new int[]{0, 15, 30, 45},
+        new double[]{0, 1.5, 3.0, 4.5}
+    );
+
+    final Segment[] expectedSegments = {
+        new Segment("segment-00000000.mp4", 0, 0, 29),
+        new Segment("segment-00000001.mp4", 1, 30, 44),
+        new Segment("segment-00000002.mp4", 2, 45, 59)
+    };
+
+    assertThat(index.deriveSegments(Duration.ofSeconds(2), "segment-%08d.mp4"))
+        .usingRecursiveFieldByFieldElementComparator()
+        .isEqualTo(expectedSegments);
+  }
+
+  @Test
+  @DisplayName("deriveSegments() catches up on the cut times when keyframes are sparse")
+  void deriveSegmentsCatchesUpWhenKeyframesAreSparse() {
+    // 10 fps, 100 frames, keyframe gap of 5 seconds spans 2 segment durations
+    final var index = new KeyframeIndex(
+        new VideoIndex(10, 100, 640, 360),
+        new int[]{0, 50, 60, 80},
+        new double[]{0, 5.0, 6.0, 8.0}
+    );
+
+    final Segment[] expectedSegments = {
+        new Segment("segment-00000000.mp4", 0, 0, 49),
+        new Segment("segment-00000001.mp4", 1, 50, 59),
+        new Segment("segment-00000002.mp4", 2, 60, 79),
+        new Segment("segment-00000003.mp4", 3, 80, 99)
+    };
+
+    assertThat(index.deriveSegments(Duration.ofSeconds(2), "segment-%08d.mp4"))
+        .usingRecursiveFieldByFieldElementComparator()
+        .isEqualTo(expectedSegments);
+  }
+
+  @Test
+  @DisplayName("deriveSegments() produces a single segment when there is only one keyframe")
+  void deriveSegmentsProducesSingleSegment() {
+    final var index = new KeyframeIndex(
+        new VideoIndex(25, 250, 640, 360),
+        new int[]{0},
+        new double[]{0}
+    );
+
+    assertThat(index.deriveSegments(Duration.ofSeconds(2), "segment-%08d.mp4"))
+        .usingRecursiveFieldByFieldElementComparator()
+        .containsExactly(new Segment("segment-00000000.mp4", 0, 0, 249));
+  }
+
+  @Test
+  @DisplayName("deriveSegments() throws IllegalArgumentException when duration is zero")
+  void deriveSegmentsThrowsWhenDurationIsZero() {
+    final var index = new KeyframeIndex(
+        new VideoIndex(25, 250, 640, 360),
+        new int[]{0},
+        new double[]{0}
+    );
+
+    assertThatThrownBy(() -> index.deriveSegments(Duration.ZERO, "segment-%08d.mp4"))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}